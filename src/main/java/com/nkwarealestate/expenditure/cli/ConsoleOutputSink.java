@@ -0,0 +1,30 @@
+package com.nkwarealestate.expenditure.cli;
+
+import com.nkwarealestate.expenditure.services.OutputSink;
+
+/**
+ * Output sink that prints service outcomes to the console
+ * Installed by the MenuSystem for interactive sessions
+ */
+public class ConsoleOutputSink implements OutputSink {
+
+    @Override
+    public void info(String message) {
+        System.out.println(message);
+    }
+
+    @Override
+    public void success(String message) {
+        System.out.println("✓ " + message);
+    }
+
+    @Override
+    public void warning(String message) {
+        System.out.println("⚠️ WARNING: " + message);
+    }
+
+    @Override
+    public void failure(String message) {
+        System.out.println("✗ " + message);
+    }
+}
@@ -6,14 +6,30 @@ import com.nkwarealestate.expenditure.services.BankAccountService;
 import com.nkwarealestate.expenditure.services.ReceiptService;
 import com.nkwarealestate.expenditure.services.FinancialAnalysisService;
 import com.nkwarealestate.expenditure.services.SystemMonitorService;
+import com.nkwarealestate.expenditure.services.DataTransferService;
+import com.nkwarealestate.expenditure.services.ExchangeRateService;
 import com.nkwarealestate.expenditure.services.PerformanceTimer;
+import com.nkwarealestate.expenditure.services.ReconciliationService;
+import com.nkwarealestate.expenditure.models.BankAccount;
 import com.nkwarealestate.expenditure.models.Expenditure;
 import com.nkwarealestate.expenditure.models.Phase;
 import com.nkwarealestate.expenditure.models.Receipt;
 import com.nkwarealestate.expenditure.models.ProfitabilityForecast;
+import com.nkwarealestate.expenditure.models.ReconciliationMismatch;
+import com.nkwarealestate.expenditure.models.ReconciliationReport;
 import com.nkwarealestate.expenditure.models.AffordabilityAnalysis;
+import com.nkwarealestate.expenditure.models.TransferResult;
+import com.nkwarealestate.expenditure.models.VerificationResult;
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
 import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.Scanner;
@@ -29,20 +45,33 @@ public class MenuSystem {
     private CategoryService categoryService;
     private BankAccountService bankAccountService;
     private ReceiptService receiptService;
+    private DataTransferService dataTransferService;
     private FinancialAnalysisService financialAnalysisService;
+    private ReconciliationService reconciliationService;
     private SystemMonitorService systemMonitor;
+    private ExchangeRateService exchangeRates;
     private DateTimeFormatter dateFormatter;
 
     public MenuSystem() {
         this.scanner = new Scanner(System.in);
         this.running = true;
         this.systemMonitor = new SystemMonitorService();
-        this.expenditureService = new ExpenditureService();
+        this.exchangeRates = new ExchangeRateService();
+        this.expenditureService = new ExpenditureService(exchangeRates);
         this.categoryService = new CategoryService();
-        this.bankAccountService = new BankAccountService();
+        this.bankAccountService = new BankAccountService(exchangeRates);
         this.receiptService = new ReceiptService(expenditureService);
+        this.dataTransferService = new DataTransferService(expenditureService, bankAccountService,
+                categoryService, receiptService);
         this.financialAnalysisService = new FinancialAnalysisService(expenditureService);
+        this.reconciliationService = new ReconciliationService(expenditureService, bankAccountService);
         this.dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+        // Services report outcomes through a sink; the console one lives here in the CLI
+        ConsoleOutputSink console = new ConsoleOutputSink();
+        this.expenditureService.setOutputSink(console);
+        this.bankAccountService.setOutputSink(console);
+        this.receiptService.setOutputSink(console);
     }
 
     public void start() {
@@ -53,6 +82,9 @@ public class MenuSystem {
         }
 
         scanner.close();
+        receiptService.close();
+        expenditureService.close();
+        bankAccountService.close();
         System.out.println("Thank you for using NREL Expenditure Management System!");
     }
 
@@ -160,7 +192,7 @@ public class MenuSystem {
 
         try {
             // Get amount
-            System.out.print("Enter amount (GHS): ");
+            System.out.print("Enter amount (in the paying account's currency): ");
             double amount = Double.parseDouble(scanner.nextLine().trim());
 
             if (amount <= 0) {
@@ -208,15 +240,17 @@ public class MenuSystem {
             if (!bankAccountService.validateAccountForExpenditure(accountId, amount)) {
                 return;
             }
+            String currency = bankAccountService.getAccount(accountId).getCurrency();
 
             // Get description
             System.out.print("Enter description: ");
             String description = scanner.nextLine().trim();
 
             // Add expenditure
-            if (expenditureService.addExpenditure(amount, date, phase, category, accountId, description)) {
+            if (expenditureService.addExpenditure(amount, date, phase, category, accountId, description,
+                    currency)) {
                 // Debit the account
-                bankAccountService.debitAccount(accountId, amount);
+                bankAccountService.debitAccount(accountId, amount, LocalDate.parse(date, dateFormatter));
                 System.out.println("✓ Expenditure recorded and account debited successfully!");
             }
 
@@ -409,9 +443,12 @@ public class MenuSystem {
             System.out.println("4. Credit Account");
             System.out.println("5. Account Balance Summary");
             System.out.println("6. Low Balance Alert");
+            System.out.println("7. Transfer Between Accounts");
+            System.out.println("8. Set Low Balance Threshold");
+            System.out.println("9. Balance History");
             System.out.println("0. Back to Main Menu");
             System.out.println("======================================================");
-            System.out.print("Please select an option (0-6): ");
+            System.out.print("Please select an option (0-9): ");
 
             int choice = getMenuChoice();
 
@@ -434,10 +471,19 @@ public class MenuSystem {
                 case 6:
                     bankAccountService.displayLowBalanceWarning();
                     break;
+                case 7:
+                    transferBetweenAccounts();
+                    break;
+                case 8:
+                    setLowBalanceThreshold();
+                    break;
+                case 9:
+                    showBalanceHistory();
+                    break;
                 case 0:
                     return;
                 default:
-                    System.out.println("\nInvalid option. Please select a number between 0-6.");
+                    System.out.println("\nInvalid option. Please select a number between 0-9.");
                     break;
             }
         }
@@ -459,19 +505,104 @@ public class MenuSystem {
             System.out.print("Enter account type (e.g., Construction, Marketing, Operations): ");
             String accountType = scanner.nextLine().trim();
 
-            bankAccountService.addAccount(accountId, bankName, initialBalance, accountType);
+            System.out.print("Enter currency (" + currencyList() + ") [GHS]: ");
+            String currency = BankAccount.normalizeCurrency(scanner.nextLine());
+
+            bankAccountService.addAccount(accountId, bankName, initialBalance, accountType, currency);
 
         } catch (NumberFormatException e) {
             System.out.println("✗ Invalid balance format.");
         }
     }
 
+    /**
+     * Currencies with known exchange rates, for prompts
+     */
+    private String currencyList() {
+        CustomLinkedList<String> currencies = exchangeRates.getCurrencies();
+        StringBuilder list = new StringBuilder();
+        for (int i = 0; i < currencies.size(); i++) {
+            if (i > 0) {
+                list.append(", ");
+            }
+            list.append(currencies.get(i));
+        }
+        return list.toString();
+    }
+
     private void viewAccountDetails() {
         System.out.print("\nEnter account ID: ");
         String accountId = scanner.nextLine().trim().toUpperCase();
         bankAccountService.displayAccountSummary(accountId);
     }
 
+    private void transferBetweenAccounts() {
+        System.out.print("\nEnter source account ID: ");
+        String fromAccountId = scanner.nextLine().trim().toUpperCase();
+        System.out.print("Enter destination account ID: ");
+        String toAccountId = scanner.nextLine().trim().toUpperCase();
+
+        try {
+            System.out.print("Enter amount to transfer (in the source account's currency): ");
+            double amount = Double.parseDouble(scanner.nextLine().trim());
+
+            if (amount <= 0) {
+                System.out.println("✗ Amount must be greater than 0.");
+                return;
+            }
+
+            bankAccountService.transfer(fromAccountId, toAccountId, amount);
+
+        } catch (NumberFormatException e) {
+            System.out.println("✗ Invalid amount format.");
+        }
+    }
+
+    private void setLowBalanceThreshold() {
+        System.out.printf("%nCurrent low balance threshold: %,.2f in each account's currency%n",
+                bankAccountService.getLowBalanceThreshold());
+
+        try {
+            System.out.print("Enter new threshold: ");
+            double threshold = Double.parseDouble(scanner.nextLine().trim());
+
+            if (!(threshold >= 0) || Double.isInfinite(threshold)) {
+                System.out.println("✗ Threshold must be zero or more.");
+                return;
+            }
+
+            bankAccountService.setLowBalanceThreshold(threshold);
+            System.out.printf("✓ Low balance threshold set to %,.2f. %d account(s) below it.%n",
+                    threshold, bankAccountService.getLowBalanceCount());
+
+        } catch (NumberFormatException e) {
+            System.out.println("✗ Invalid amount format.");
+        }
+    }
+
+    private void showBalanceHistory() {
+        System.out.print("\nEnter account ID: ");
+        String accountId = scanner.nextLine().trim().toUpperCase();
+
+        try {
+            System.out.print("Enter start date (YYYY-MM-DD): ");
+            LocalDate startDate = LocalDate.parse(scanner.nextLine().trim(), dateFormatter);
+
+            System.out.print("Enter end date (YYYY-MM-DD): ");
+            LocalDate endDate = LocalDate.parse(scanner.nextLine().trim(), dateFormatter);
+
+            if (endDate.isBefore(startDate)) {
+                System.out.println("✗ End date cannot be before start date.");
+                return;
+            }
+
+            bankAccountService.displayBalanceHistory(accountId, startDate, endDate);
+
+        } catch (DateTimeParseException e) {
+            System.out.println("✗ Invalid date format. Please use YYYY-MM-DD format.");
+        }
+    }
+
     private void creditBankAccount() {
         System.out.print("\nEnter account ID: ");
         String accountId = scanner.nextLine().trim().toUpperCase();
@@ -495,7 +626,20 @@ public class MenuSystem {
     private void showAccountBalanceSummary() {
         System.out.println("\n=== ACCOUNT BALANCE SUMMARY ===");
         bankAccountService.displayAllAccounts();
+
+        CustomHashMap<String, Double> totalsByCurrency = bankAccountService.getBalanceTotalsByCurrency();
+        System.out.println("\nBalance by Currency:");
+        for (CustomHashMap.Entry<String, Double> entry : totalsByCurrency.entries()) {
+            System.out.printf("  %-15s %s %,12.2f%n", entry.getKey(), entry.getKey(), entry.getValue());
+        }
+
+        CustomHashMap<String, Double> totalsByType = bankAccountService.getBalanceTotalsByType();
+        System.out.println("\nBalance by Account Type (converted to GHS):");
+        for (CustomHashMap.Entry<String, Double> entry : totalsByType.entries()) {
+            System.out.printf("  %-15s GHS %,12.2f%n", entry.getKey(), entry.getValue());
+        }
         System.out.println("Total Balance: GHS " + String.format("%,.2f", bankAccountService.getTotalBalance()));
+        System.out.println("Accounts below low balance threshold: " + bankAccountService.getLowBalanceCount());
         System.out.println("===============================");
     }
 
@@ -944,9 +1088,10 @@ public class MenuSystem {
             System.out.println("5. Generate Expenditure Forecast");
             System.out.println("6. Expenditure Tree View");
             System.out.println("7. Export Financial Report");
+            System.out.println("8. Reconcile Expenditures with Debits");
             System.out.println("0. Back to Main Menu");
             System.out.println("===================================================");
-            System.out.print("Please select an option (0-7): ");
+            System.out.print("Please select an option (0-8): ");
 
             int choice = getMenuChoice();
 
@@ -972,10 +1117,13 @@ public class MenuSystem {
                 case 7:
                     exportFinancialReport();
                     break;
+                case 8:
+                    reconcileAccounts();
+                    break;
                 case 0:
                     return;
                 default:
-                    System.out.println("\nInvalid option. Please select a number between 0-7.");
+                    System.out.println("\nInvalid option. Please select a number between 0-8.");
                     break;
             }
         }
@@ -1080,9 +1228,13 @@ public class MenuSystem {
             System.out.println("4. Performance Report");
             System.out.println("5. Export Data");
             System.out.println("6. Import Data");
+            System.out.println("7. Build Binary Expenditure Ledger");
+            System.out.println("8. Restore Expenditures to a Point in Time");
+            System.out.println("9. Back Up Expenditure History");
+            System.out.println("10. Verify Data Files");
             System.out.println("0. Back to Main Menu");
             System.out.println("===================================================");
-            System.out.print("Please select an option (0-6): ");
+            System.out.print("Please select an option (0-10): ");
 
             int choice = getMenuChoice();
 
@@ -1105,10 +1257,22 @@ public class MenuSystem {
                 case 6:
                     importData();
                     break;
+                case 7:
+                    buildBinaryLedger();
+                    break;
+                case 8:
+                    restoreExpenditureHistory();
+                    break;
+                case 9:
+                    backupExpenditureHistory();
+                    break;
+                case 10:
+                    verifyDataFiles();
+                    break;
                 case 0:
                     return;
                 default:
-                    System.out.println("\nInvalid option. Please select a number between 0-6.");
+                    System.out.println("\nInvalid option. Please select a number between 0-10.");
                     break;
             }
         }
@@ -1130,6 +1294,8 @@ public class MenuSystem {
         System.out.println("- Expenditures: " + expenditureCount);
         System.out.println("- Categories: " + categoryCount);
         System.out.println("- Bank Accounts: " + accountCount);
+        System.out.printf("- Total Balance: GHS %,.2f (%d below low balance threshold)%n",
+                bankAccountService.getTotalBalance(), bankAccountService.getLowBalanceCount());
 
         System.out.println("\nImplemented Data Structures:");
         System.out.println("- Custom HashMap: Used for key-value storage");
@@ -1175,8 +1341,22 @@ public class MenuSystem {
 
     private void exportData() {
         System.out.println("\n=== EXPORT DATA ===");
-        System.out.println("This feature would export system data to files.");
-        System.out.println("Implementation pending for future enhancement.");
+        DataTransferService.DataSet dataSet = selectDataSet();
+        if (dataSet != null) {
+            String defaultFile = "exports/" + dataSet.name().toLowerCase() + ".csv";
+            System.out.println("Formats: .csv or .jsonl, add .gz to compress (e.g. " + defaultFile + ".gz)");
+            System.out.print("Export file [" + defaultFile + "]: ");
+            String fileName = scanner.nextLine().trim();
+            Path file = Paths.get(fileName.isEmpty() ? defaultFile : fileName);
+
+            try {
+                TransferResult result = dataTransferService.export(dataSet, file);
+                System.out.printf("✓ Exported %d %s to %s in %.2f ms%n", result.getSucceededCount(),
+                        dataSet.getDisplayName().toLowerCase(), file, result.getElapsedMs());
+            } catch (IllegalArgumentException | IOException e) {
+                System.out.println("✗ Export failed: " + e.getMessage());
+            }
+        }
 
         System.out.println("\nPress Enter to continue...");
         scanner.nextLine();
@@ -1184,8 +1364,174 @@ public class MenuSystem {
 
     private void importData() {
         System.out.println("\n=== IMPORT DATA ===");
-        System.out.println("This feature would import data from external files.");
-        System.out.println("Implementation pending for future enhancement.");
+        DataTransferService.DataSet dataSet = selectDataSet();
+        if (dataSet != null) {
+            System.out.print("Import file (.csv or .jsonl, optionally .gz): ");
+            String fileName = scanner.nextLine().trim();
+
+            if (fileName.isEmpty()) {
+                System.out.println("✗ No file given.");
+            } else {
+                Path file = Paths.get(fileName);
+                try {
+                    boolean resume = false;
+                    long resumableRows = dataTransferService.getResumableRows(dataSet, file);
+                    if (resumableRows > 0) {
+                        System.out.print("A previous import of this file stopped after row " + resumableRows
+                                + ". Resume from there? (y/n): ");
+                        resume = scanner.nextLine().trim().equalsIgnoreCase("y");
+                    }
+
+                    TransferResult result = dataTransferService.importFile(dataSet, file, resume);
+                    System.out.println("✓ " + result);
+                    CustomLinkedList<String> errors = result.getErrors();
+                    for (int i = 0; i < errors.size(); i++) {
+                        System.out.println("  ✗ " + errors.get(i));
+                    }
+                    if (result.getFailedCount() > errors.size()) {
+                        System.out.println("  ... and " + (result.getFailedCount() - errors.size()) + " more");
+                    }
+                } catch (IllegalArgumentException | IOException e) {
+                    System.out.println("✗ Import failed: " + e.getMessage());
+                    System.out.println("Rows committed so far are kept; import the same file again to resume.");
+                }
+            }
+        }
+
+        System.out.println("\nPress Enter to continue...");
+        scanner.nextLine();
+    }
+
+    /**
+     * Ask which data set to export or import
+     *
+     * @return The chosen data set, or null to cancel
+     */
+    private DataTransferService.DataSet selectDataSet() {
+        DataTransferService.DataSet[] dataSets = DataTransferService.DataSet.values();
+        for (int i = 0; i < dataSets.length; i++) {
+            System.out.println((i + 1) + ". " + dataSets[i].getDisplayName());
+        }
+        System.out.println("0. Cancel");
+        System.out.print("Select data (0-" + dataSets.length + "): ");
+
+        int choice = getMenuChoice();
+        if (choice < 1 || choice > dataSets.length) {
+            return null;
+        }
+        return dataSets[choice - 1];
+    }
+
+    private void buildBinaryLedger() {
+        System.out.println("\n=== BUILD BINARY EXPENDITURE LEDGER ===");
+        System.out.println("A binary copy of the ledger is memory-mapped at startup instead of parsing text.");
+        System.out.println("It is refreshed automatically on exit once it exists.");
+
+        try {
+            long start = System.nanoTime();
+            int count = expenditureService.writeBinaryLedger();
+            System.out.printf("✓ Wrote %d expenditures in %.2f ms%n", count, (System.nanoTime() - start) / 1_000_000.0);
+        } catch (IOException e) {
+            System.out.println("✗ Error writing binary ledger: " + e.getMessage());
+        }
+
+        System.out.println("\nPress Enter to continue...");
+        scanner.nextLine();
+    }
+
+    private void restoreExpenditureHistory() {
+        System.out.println("\n=== RESTORE EXPENDITURES TO A POINT IN TIME ===");
+        long earliest = expenditureService.getEarliestRestorableTime();
+        if (earliest < 0) {
+            System.out.println("✗ No expenditure history has been recorded yet.");
+        } else {
+            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+            System.out.println("History is available from "
+                    + timeFormatter.format(Instant.ofEpochMilli(earliest).atZone(ZoneId.systemDefault())));
+            System.out.print("Restore to (YYYY-MM-DD or YYYY-MM-DD HH:MM:SS): ");
+            String input = scanner.nextLine().trim();
+
+            try {
+                LocalDateTime asOf = input.length() == 10
+                        ? LocalDate.parse(input, dateFormatter).atTime(LocalTime.MAX)
+                        : LocalDateTime.parse(input, timeFormatter);
+                long asOfMillis = asOf.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+                CustomLinkedList<Expenditure> snapshot = expenditureService.getExpendituresAsOf(asOfMillis);
+                double total = 0;
+                for (int i = 0; i < snapshot.size(); i++) {
+                    total += expenditureService.getAmountInBaseCurrency(snapshot.get(i));
+                }
+                System.out.printf("At that time there were %d expenditures totalling GHS %.2f (now %d).%n",
+                        snapshot.size(), total, expenditureService.getExpenditureCount());
+
+                System.out.print("Replace current expenditures with this state? (y/n): ");
+                if (scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                    int restored = expenditureService.restoreToPointInTime(asOfMillis);
+                    System.out.println("✓ Restored " + restored + " expenditures. This restore can itself be undone.");
+                } else {
+                    System.out.println("Restore cancelled.");
+                }
+            } catch (DateTimeParseException e) {
+                System.out.println("✗ Invalid date. Use YYYY-MM-DD or YYYY-MM-DD HH:MM:SS.");
+            } catch (IllegalArgumentException e) {
+                System.out.println("✗ " + e.getMessage());
+            }
+        }
+
+        System.out.println("\nPress Enter to continue...");
+        scanner.nextLine();
+    }
+
+    private void backupExpenditureHistory() {
+        System.out.println("\n=== BACK UP EXPENDITURE HISTORY ===");
+        System.out.println("Only snapshots and change segments missing from the backup are copied.");
+        System.out.print("Backup directory [backups/history]: ");
+        String directory = scanner.nextLine().trim();
+
+        try {
+            int copied = expenditureService.backupHistory(Paths.get(directory.isEmpty() ? "backups/history" : directory));
+            System.out.println("✓ Copied " + copied + " new history files.");
+        } catch (IOException e) {
+            System.out.println("✗ Backup failed: " + e.getMessage());
+        }
+
+        System.out.println("\nPress Enter to continue...");
+        scanner.nextLine();
+    }
+
+    private void verifyDataFiles() {
+        System.out.println("\n=== VERIFY DATA FILES ===");
+
+        PerformanceTimer timer = PerformanceTimer.startNew("Verify Data Files");
+        try {
+            CustomLinkedList<VerificationResult> results = systemMonitor.verifyDataFiles(Paths.get("data"));
+            timer.stop();
+            timer.recordInMonitor(systemMonitor);
+
+            int checked = 0;
+            int damaged = 0;
+            while (!results.isEmpty()) {
+                VerificationResult result = results.remove(0);
+                System.out.println((result.isFramed() && !result.isIntact() ? "✗ " : "  ") + result);
+                if (result.isFramed()) {
+                    checked++;
+                    if (!result.isIntact()) {
+                        damaged++;
+                    }
+                }
+            }
+
+            if (damaged == 0) {
+                System.out.println("\n✓ " + checked + " checksummed files verified, no damage found.");
+            } else {
+                System.out.println("\n✗ " + damaged + " of " + checked + " checksummed files are damaged;"
+                        + " damaged records are skipped when the files are read.");
+            }
+            System.out.printf("Completed in %.2f ms%n", timer.getElapsedTimeMs());
+        } catch (IOException e) {
+            System.out.println("✗ Verification failed: " + e.getMessage());
+        }
 
         System.out.println("\nPress Enter to continue...");
         scanner.nextLine();
@@ -1200,9 +1546,10 @@ public class MenuSystem {
             System.out.println("4. Test Receipt Search Performance");
             System.out.println("5. Memory Usage Analysis");
             System.out.println("6. Run All Performance Tests");
+            System.out.println("7. Concurrent Debit Stress Test");
             System.out.println("0. Back to System Settings");
             System.out.println("===================================================");
-            System.out.print("Please select an option (0-6): ");
+            System.out.print("Please select an option (0-7): ");
 
             int choice = getMenuChoice();
 
@@ -1225,10 +1572,13 @@ public class MenuSystem {
                 case 6:
                     runAllPerformanceTests();
                     break;
+                case 7:
+                    testConcurrentDebitPerformance();
+                    break;
                 case 0:
                     return;
                 default:
-                    System.out.println("\nInvalid option. Please select a number between 0-6.");
+                    System.out.println("\nInvalid option. Please select a number between 0-7.");
                     break;
             }
         }
@@ -1295,6 +1645,19 @@ public class MenuSystem {
         scanner.nextLine();
     }
 
+    private void testConcurrentDebitPerformance() {
+        System.out.println("\n=== CONCURRENT DEBIT PERFORMANCE TEST ===");
+
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        PerformanceTimer timer = PerformanceTimer.startNew("Concurrent Debit Stress Test");
+        bankAccountService.performanceComparisonConcurrentDebits(threads, 50000);
+        timer.stop();
+        timer.recordInMonitor(systemMonitor);
+
+        System.out.println("\nPress Enter to continue...");
+        scanner.nextLine();
+    }
+
     private void testReceiptSearchPerformance() {
         System.out.println("\n=== RECEIPT SEARCH PERFORMANCE TEST ===");
 
@@ -1443,4 +1806,45 @@ public class MenuSystem {
             System.out.println("Error: " + e.getMessage());
         }
     }
+
+    private void reconcileAccounts() {
+        System.out.println("\n=== RECONCILE EXPENDITURES WITH DEBITS ===");
+
+        try {
+            System.out.print("Run a full reconciliation instead of resuming from the last run? (y/N): ");
+            boolean full = scanner.nextLine().trim().equalsIgnoreCase("y");
+
+            ReconciliationReport report = full ? reconciliationService.reconcileAll()
+                    : reconciliationService.reconcile();
+
+            System.out.println("\nRECONCILIATION REPORT");
+            System.out.println("=====================");
+            System.out.println("Mode: " + (report.isIncremental() ? "Incremental" : "Full"));
+            System.out.println("Covered from: " + report.getCoveredFrom().format(dateFormatter));
+            System.out.println("Expenditures rescanned from: " + report.getRescannedFrom().format(dateFormatter));
+            System.out.printf("Expenditures scanned: %,d in %d partition(s)\n",
+                    report.getExpenditureRowsScanned(), report.getPartitions());
+            System.out.printf("New debits read: %,d\n", report.getDebitRowsRead());
+            System.out.printf("Account-days compared: %,d\n", report.getGroupsCompared());
+            System.out.printf("Time taken: %.2f ms\n", report.getElapsedNanos() / 1_000_000.0);
+
+            if (report.isBalanced()) {
+                System.out.println("✓ Every account-day balances.");
+                return;
+            }
+
+            CustomLinkedList<ReconciliationMismatch> mismatches = report.getMismatches();
+            System.out.println("✗ " + mismatches.size() + " account-day(s) do not balance:");
+            int shown = 0;
+            while (!mismatches.isEmpty() && shown < 20) {
+                System.out.println("  " + mismatches.remove(0));
+                shown++;
+            }
+            if (!mismatches.isEmpty()) {
+                System.out.println("  ... and " + mismatches.size() + " more");
+            }
+        } catch (Exception e) {
+            System.out.println("✗ Error reconciling accounts: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,175 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Items kept in order of a changing amount, such as account balances
+ *
+ * Backed by a CustomSkipList keyed on (amount, id), so items with equal
+ * amounts stay distinct and come out in id order. Moving an item to a new
+ * amount is a remove and an insert, O(log n); a range query finds its first
+ * item in O(log n) and then walks the bottom level, O(log n + k) for k results.
+ *
+ * Safe for concurrent use: updates take a write lock, queries share a read
+ * lock. Callers must report each item's amount changes in order, e.g. by
+ * updating under a per-item lock, since a move locates the item by its old
+ * amount.
+ */
+public class AmountIndex<T> {
+
+    /**
+     * Skip list key; a null id sorts before every id with the same amount,
+     * which makes (amount, null) the lower bound for that amount
+     */
+    private static final class Key {
+        final double amount;
+        final String id;
+
+        Key(double amount, String id) {
+            this.amount = amount;
+            this.id = id;
+        }
+    }
+
+    private final CustomSkipList<Key, T> entries = new CustomSkipList<>(AmountIndex::compare);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static int compare(Key a, Key b) {
+        int byAmount = Double.compare(a.amount, b.amount);
+        if (byAmount != 0) {
+            return byAmount;
+        }
+        if (a.id == null || b.id == null) {
+            return a.id == null ? (b.id == null ? 0 : -1) : 1;
+        }
+        return a.id.compareTo(b.id);
+    }
+
+    /**
+     * Add an item, or replace the item stored at the same amount and id
+     * Time Complexity: O(log n) expected
+     */
+    public void add(double amount, String id, T item) {
+        requireId(id);
+        lock.writeLock().lock();
+        try {
+            entries.put(new Key(amount, id), item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Move an item from its old amount to a new one
+     * Time Complexity: O(log n) expected
+     */
+    public void move(String id, double oldAmount, double newAmount, T item) {
+        requireId(id);
+        if (Double.compare(oldAmount, newAmount) == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            entries.remove(new Key(oldAmount, id));
+            entries.put(new Key(newAmount, id), item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the item stored at an amount
+     *
+     * @return The removed item, or null if none was stored there
+     */
+    public T remove(double amount, String id) {
+        requireId(id);
+        lock.writeLock().lock();
+        try {
+            return entries.remove(new Key(amount, id));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get items with minAmount <= amount <= maxAmount, in ascending order
+     * Time Complexity: O(log n + k) where k is number of results
+     */
+    public CustomLinkedList<T> range(double minAmount, double maxAmount) {
+        CustomLinkedList<T> results = new CustomLinkedList<>();
+        lock.readLock().lock();
+        try {
+            for (CustomSkipList.Entry<Key, T> entry : entries.entriesFrom(new Key(minAmount, null))) {
+                if (entry.getKey().amount > maxAmount) {
+                    break;
+                }
+                results.add(entry.getValue());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Get items with amount >= minAmount, in ascending order
+     * Time Complexity: O(log n + k) where k is number of results
+     */
+    public CustomLinkedList<T> atLeast(double minAmount) {
+        return range(minAmount, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Get items with amount <= maxAmount, in ascending order
+     * Time Complexity: O(k) where k is number of results
+     */
+    public CustomLinkedList<T> atMost(double maxAmount) {
+        return range(Double.NEGATIVE_INFINITY, maxAmount);
+    }
+
+    /**
+     * Get every item in ascending or descending order of amount
+     * Time Complexity: O(n)
+     */
+    @SuppressWarnings("unchecked")
+    public CustomLinkedList<T> ordered(boolean ascending) {
+        CustomLinkedList<T> results = new CustomLinkedList<>();
+        lock.readLock().lock();
+        try {
+            if (ascending) {
+                for (CustomSkipList.Entry<Key, T> entry : entries.entries()) {
+                    results.add(entry.getValue());
+                }
+                return results;
+            }
+            // The skip list only links forward, so fill an array from the back
+            Object[] items = new Object[entries.size()];
+            int index = items.length;
+            for (CustomSkipList.Entry<Key, T> entry : entries.entries()) {
+                items[--index] = entry.getValue();
+            }
+            for (Object item : items) {
+                results.add((T) item);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void requireId(String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Id cannot be null");
+        }
+    }
+}
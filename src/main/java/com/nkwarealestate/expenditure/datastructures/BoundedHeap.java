@@ -0,0 +1,167 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+import java.util.Comparator;
+
+/**
+ * Fixed-capacity heap that retains the k greatest items seen so far
+ * Implemented as an array-based min-heap ordered by the supplied comparator:
+ * the root is the smallest retained item, so a new item only enters the heap
+ * if it beats the root. Offering n items costs O(n log k)
+ */
+public class BoundedHeap<T> {
+
+    private final Object[] heap;
+    private final Comparator<? super T> comparator;
+    private final int capacity;
+    private int size;
+
+    /**
+     * Create a heap that keeps the k greatest items
+     *
+     * @param k          Maximum number of items to retain
+     * @param comparator Ordering that defines "greater"
+     */
+    public BoundedHeap(int k, Comparator<? super T> comparator) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        if (comparator == null) {
+            throw new IllegalArgumentException("Comparator cannot be null");
+        }
+        this.capacity = k;
+        this.heap = new Object[k];
+        this.comparator = comparator;
+        this.size = 0;
+    }
+
+    /**
+     * Offer an item to the heap
+     * Time Complexity: O(log k)
+     *
+     * @return true if the item was retained
+     */
+    public boolean offer(T item) {
+        if (capacity == 0) {
+            return false;
+        }
+
+        if (size < capacity) {
+            heap[size] = item;
+            heapifyUp(size);
+            size++;
+            return true;
+        }
+
+        // Full: replace the smallest retained item if the new one is greater
+        if (compare(item, elementAt(0)) > 0) {
+            heap[0] = item;
+            heapifyDown(0, size);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Smallest retained item (the current admission threshold)
+     */
+    public T peekMin() {
+        if (size == 0) {
+            throw new RuntimeException("Heap is empty");
+        }
+        return elementAt(0);
+    }
+
+    /**
+     * Retained items, greatest first
+     * Time Complexity: O(k log k)
+     */
+    public CustomLinkedList<T> toSortedList() {
+        Object[] saved = new Object[size];
+        System.arraycopy(heap, 0, saved, 0, size);
+
+        // In-place heap sort: repeatedly moving the minimum to the end leaves the greatest first
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            heapifyDown(0, end);
+        }
+
+        CustomLinkedList<T> result = new CustomLinkedList<>();
+        for (int i = 0; i < size; i++) {
+            result.add(elementAt(i));
+        }
+
+        // Restore the heap layout so the heap remains usable
+        System.arraycopy(saved, 0, heap, 0, size);
+        return result;
+    }
+
+    /**
+     * Get the number of retained items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if heap is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Heapify up operation to maintain heap property after insertion
+     */
+    private void heapifyUp(int index) {
+        while (index > 0) {
+            int parentIndex = (index - 1) / 2;
+            if (compare(elementAt(index), elementAt(parentIndex)) >= 0) {
+                break;
+            }
+            swap(index, parentIndex);
+            index = parentIndex;
+        }
+    }
+
+    /**
+     * Heapify down operation within the first 'limit' slots
+     */
+    private void heapifyDown(int index, int limit) {
+        while (true) {
+            int leftChild = 2 * index + 1;
+            int rightChild = 2 * index + 2;
+            int smallest = index;
+
+            if (leftChild < limit && compare(elementAt(leftChild), elementAt(smallest)) < 0) {
+                smallest = leftChild;
+            }
+            if (rightChild < limit && compare(elementAt(rightChild), elementAt(smallest)) < 0) {
+                smallest = rightChild;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private int compare(T a, T b) {
+        return comparator.compare(a, b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elementAt(int index) {
+        return (T) heap[index];
+    }
+
+    /**
+     * Swap elements at two indices
+     */
+    private void swap(int i, int j) {
+        Object temp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = temp;
+    }
+}
@@ -0,0 +1,477 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Thread-safe hash map split into independently locked segments
+ *
+ * Each key belongs to one segment, chosen by the top bits of its hash after a
+ * multiplicative (Fibonacci) mix, and each segment is a small chained hash
+ * table with its own lock. The mix matters for keys such as "EXP0001" that
+ * share a long prefix: their raw hashes differ mostly in the low bits, which
+ * the mix spreads across the top bits. Buckets within a segment use the low
+ * bits of the unmixed hash. Writers lock
+ * only their segment, so writes to different segments run in parallel.
+ * Readers take no lock at all: bucket heads, chain links and values are read
+ * through volatile references, so a read sees every write that completed
+ * before it started. A segment grows by building a new table of copied nodes
+ * and publishing it in one step, leaving readers on the old table undisturbed.
+ *
+ * Iteration is weakly consistent: it never fails because of concurrent
+ * changes and sees each entry at most once, but may or may not reflect
+ * changes made after the iterator was created.
+ *
+ * Null keys and values are not allowed, so get returning null always means
+ * the key is absent.
+ */
+public class ConcurrentCustomHashMap<K, V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int DEFAULT_SEGMENT_CAPACITY = 4;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private static final class Node<K, V> {
+        final int hash;
+        final K key;
+        volatile V value;
+        volatile Node<K, V> next;
+
+        Node(int hash, K key, V value, Node<K, V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * One independently locked chained hash table
+     */
+    private static final class Segment<K, V> extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        volatile AtomicReferenceArray<Node<K, V>> table;
+        volatile int count;
+
+        Segment(int capacity) {
+            this.table = new AtomicReferenceArray<>(capacity);
+        }
+
+        Node<K, V> find(int hash, Object key) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            Node<K, V> node = tab.get(hash & (tab.length() - 1));
+            while (node != null) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node;
+                }
+                node = node.next;
+            }
+            return null;
+        }
+
+        /**
+         * Add a node for a key known to be absent; caller holds the lock
+         */
+        void insert(int hash, K key, V value) {
+            if (count + 1 > table.length() * LOAD_FACTOR) {
+                rehash(table.length() * 2);
+            }
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int index = hash & (tab.length() - 1);
+            tab.set(index, new Node<>(hash, key, value, tab.get(index)));
+            count++;
+        }
+
+        /**
+         * Unlink a key's node; caller holds the lock
+         */
+        V delete(int hash, Object key) {
+            AtomicReferenceArray<Node<K, V>> tab = table;
+            int index = hash & (tab.length() - 1);
+            Node<K, V> previous = null;
+            Node<K, V> node = tab.get(index);
+            while (node != null) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    if (previous == null) {
+                        tab.set(index, node.next);
+                    } else {
+                        previous.next = node.next;
+                    }
+                    count--;
+                    return node.value;
+                }
+                previous = node;
+                node = node.next;
+            }
+            return null;
+        }
+
+        /**
+         * Copy every node into a larger table and publish it; caller holds the lock
+         */
+        void rehash(int newCapacity) {
+            AtomicReferenceArray<Node<K, V>> oldTable = table;
+            AtomicReferenceArray<Node<K, V>> newTable = new AtomicReferenceArray<>(newCapacity);
+            for (int i = 0; i < oldTable.length(); i++) {
+                for (Node<K, V> node = oldTable.get(i); node != null; node = node.next) {
+                    int index = node.hash & (newCapacity - 1);
+                    newTable.set(index, new Node<>(node.hash, node.key, node.value, newTable.get(index)));
+                }
+            }
+            table = newTable;
+        }
+    }
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+
+    public ConcurrentCustomHashMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * @param segmentCount Minimum number of independently locked segments,
+     *                     rounded up to a power of two; roughly the number of
+     *                     threads expected to write at once
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentCustomHashMap(int segmentCount) {
+        if (segmentCount <= 0) {
+            throw new IllegalArgumentException("Segment count must be positive");
+        }
+        int size = 1;
+        int bits = 0;
+        while (size < segmentCount) {
+            size <<= 1;
+            bits++;
+        }
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment<>(DEFAULT_SEGMENT_CAPACITY);
+        }
+        this.segmentShift = 32 - bits;
+    }
+
+    private static int hash(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Keys cannot be null");
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segments.length == 1 ? segments[0] : segments[(hash * 0x9E3779B9) >>> segmentShift];
+    }
+
+    /**
+     * Get the value for a key without locking
+     * Time Complexity: O(1) average
+     */
+    public V get(K key) {
+        int h = hash(key);
+        Node<K, V> node = segmentFor(h).find(h, key);
+        return node == null ? null : node.value;
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Put a key-value pair into the map
+     *
+     * @return The previous value, or null if the key was absent
+     */
+    public V put(K key, V value) {
+        requireValue(value);
+        int h = hash(key);
+        Segment<K, V> segment = segmentFor(h);
+        segment.lock();
+        try {
+            Node<K, V> node = segment.find(h, key);
+            if (node != null) {
+                V previous = node.value;
+                node.value = value;
+                return previous;
+            }
+            segment.insert(h, key, value);
+            return null;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Add a value only if the key is absent, as one atomic step
+     *
+     * @return The existing value, or null if this value was added
+     */
+    public V putIfAbsent(K key, V value) {
+        requireValue(value);
+        int h = hash(key);
+        Segment<K, V> segment = segmentFor(h);
+        segment.lock();
+        try {
+            Node<K, V> node = segment.find(h, key);
+            if (node != null) {
+                return node.value;
+            }
+            segment.insert(h, key, value);
+            return null;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Get the value for a key, creating it if absent
+     * The function runs at most once per absent key, under the segment lock,
+     * so it must be short and must not touch this map
+     *
+     * @return The existing or newly created value, or null if the function returned null
+     */
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> create) {
+        int h = hash(key);
+        Segment<K, V> segment = segmentFor(h);
+        Node<K, V> existing = segment.find(h, key);
+        if (existing != null) {
+            return existing.value; // Lock-free fast path
+        }
+        segment.lock();
+        try {
+            existing = segment.find(h, key);
+            if (existing != null) {
+                return existing.value;
+            }
+            V value = create.apply(key);
+            if (value != null) {
+                segment.insert(h, key, value);
+            }
+            return value;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Combine a value into a key's current value as one atomic step
+     * If the key is absent the value is stored as is; otherwise the function
+     * combines the old and new values, and a null result removes the key
+     *
+     * @return The resulting value, or null if the key was removed
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> combine) {
+        requireValue(value);
+        int h = hash(key);
+        Segment<K, V> segment = segmentFor(h);
+        segment.lock();
+        try {
+            Node<K, V> node = segment.find(h, key);
+            if (node == null) {
+                segment.insert(h, key, value);
+                return value;
+            }
+            V merged = combine.apply(node.value, value);
+            if (merged == null) {
+                segment.delete(h, key);
+            } else {
+                node.value = merged;
+            }
+            return merged;
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Remove a key
+     *
+     * @return The removed value, or null if the key was absent
+     */
+    public V remove(K key) {
+        int h = hash(key);
+        Segment<K, V> segment = segmentFor(h);
+        segment.lock();
+        try {
+            return segment.delete(h, key);
+        } finally {
+            segment.unlock();
+        }
+    }
+
+    /**
+     * Number of entries; exact only while no writes are in progress
+     */
+    public int size() {
+        long total = 0;
+        for (Segment<K, V> segment : segments) {
+            total += segment.count;
+        }
+        return (int) Math.min(total, Integer.MAX_VALUE);
+    }
+
+    public boolean isEmpty() {
+        for (Segment<K, V> segment : segments) {
+            if (segment.count != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Pre-size every segment so that expectedSize entries fit without rehashing
+     */
+    public void ensureCapacity(int expectedSize) {
+        int perSegment = (int) Math.ceil((double) expectedSize / segments.length / LOAD_FACTOR) + 1;
+        int capacity = Integer.highestOneBit(Math.max(perSegment, DEFAULT_SEGMENT_CAPACITY) - 1) << 1;
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                if (segment.table.length() < capacity) {
+                    segment.rehash(capacity);
+                }
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Remove every entry, one segment at a time
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock();
+            try {
+                segment.table = new AtomicReferenceArray<>(segment.table.length());
+                segment.count = 0;
+            } finally {
+                segment.unlock();
+            }
+        }
+    }
+
+    /**
+     * Get all entries as a weakly consistent iterable
+     */
+    public Iterable<CustomHashMap.Entry<K, V>> entries() {
+        return EntryIterator::new;
+    }
+
+    public Iterable<K> keys() {
+        return () -> new Iterator<K>() {
+            private final EntryIterator entries = new EntryIterator();
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return entries.nextNode().key;
+            }
+        };
+    }
+
+    public Iterable<V> values() {
+        return () -> new Iterator<V>() {
+            private final EntryIterator entries = new EntryIterator();
+
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public V next() {
+                return entries.nextNode().value;
+            }
+        };
+    }
+
+    /**
+     * Get all keys as a CustomLinkedList snapshot
+     */
+    public CustomLinkedList<K> keySet() {
+        CustomLinkedList<K> keys = new CustomLinkedList<>();
+        for (K key : keys()) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * Get all values as a CustomLinkedList snapshot
+     */
+    public CustomLinkedList<V> valueList() {
+        CustomLinkedList<V> values = new CustomLinkedList<>();
+        for (V value : values()) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static void requireValue(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Values cannot be null");
+        }
+    }
+
+    /**
+     * Walks each segment's table as it was when the iterator reached that segment
+     */
+    private class EntryIterator implements Iterator<CustomHashMap.Entry<K, V>> {
+        private int segmentIndex;
+        private AtomicReferenceArray<Node<K, V>> table;
+        private int bucketIndex;
+        private Node<K, V> next;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            if (next != null) {
+                next = next.next;
+            }
+            while (next == null) {
+                if (table != null && bucketIndex < table.length()) {
+                    next = table.get(bucketIndex++);
+                } else if (segmentIndex < segments.length) {
+                    table = segments[segmentIndex++].table;
+                    bucketIndex = 0;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        Node<K, V> nextNode() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Node<K, V> node = next;
+            advance();
+            return node;
+        }
+
+        @Override
+        public CustomHashMap.Entry<K, V> next() {
+            Node<K, V> node = nextNode();
+            return new CustomHashMap.Entry<>(node.key, node.value);
+        }
+    }
+}
@@ -198,13 +198,31 @@ public class CustomHashMap<K, V> {
         return size == 0;
     }
 
+    /**
+     * Pre-size the table so that expectedSize entries fit without rehashing
+     * Useful before bulk inserts to avoid repeated resize passes
+     */
+    public void ensureCapacity(int expectedSize) {
+        int required = (int) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+        if (required > capacity) {
+            rehash(required);
+        }
+    }
+
     /**
      * Resize the hash table when load factor is exceeded
      */
-    @SuppressWarnings("unchecked")
     private void resize() {
+        rehash(capacity * 2);
+    }
+
+    /**
+     * Move all entries into a table with the given capacity
+     */
+    @SuppressWarnings("unchecked")
+    private void rehash(int newCapacity) {
         Node<K, V>[] oldBuckets = buckets;
-        capacity *= 2;
+        capacity = newCapacity;
         buckets = new Node[capacity];
         size = 0;
 
@@ -0,0 +1,257 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Sorted map implemented as a skip list
+ * Each node is linked on a random number of levels (each level with
+ * probability 1/2), so searches skip ahead on the sparse upper levels and only
+ * walk the dense bottom level near the target. Expected O(log n) for get, put
+ * and remove; iterating from a key costs O(log n) to find it plus O(1) per entry
+ */
+public class CustomSkipList<K, V> {
+
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * A key-value pair, linked in key order
+     */
+    public static class Entry<K, V> {
+        private final K key;
+        private V value;
+        private final Entry<K, V>[] next;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry(K key, V value, int levels) {
+            this.key = key;
+            this.value = value;
+            this.next = new Entry[levels];
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Entry<K, V> head;
+    private int level;
+    private int size;
+    private long randomState;
+
+    /**
+     * Create a skip list ordered by the keys' natural ordering
+     */
+    public CustomSkipList() {
+        this(null);
+    }
+
+    /**
+     * Create a skip list ordered by the given comparator
+     */
+    public CustomSkipList(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.head = new Entry<>(null, null, MAX_LEVEL);
+        this.level = 1;
+        this.size = 0;
+        this.randomState = System.nanoTime() | 1L;
+    }
+
+    /**
+     * Insert or replace a value
+     * Time Complexity: O(log n) expected
+     *
+     * @return The previous value, or null if the key was absent
+     */
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Key cannot be null");
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<K, V>[] update = new Entry[MAX_LEVEL];
+        Entry<K, V> node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i].key, key) < 0) {
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        Entry<K, V> candidate = node.next[0];
+        if (candidate != null && compare(candidate.key, key) == 0) {
+            V previous = candidate.value;
+            candidate.value = value;
+            return previous;
+        }
+
+        int levels = randomLevel();
+        if (levels > level) {
+            for (int i = level; i < levels; i++) {
+                update[i] = head;
+            }
+            level = levels;
+        }
+
+        Entry<K, V> entry = new Entry<>(key, value, levels);
+        for (int i = 0; i < levels; i++) {
+            entry.next[i] = update[i].next[i];
+            update[i].next[i] = entry;
+        }
+        size++;
+        return null;
+    }
+
+    /**
+     * Get the value for a key
+     * Time Complexity: O(log n) expected
+     */
+    public V get(K key) {
+        Entry<K, V> entry = ceilingEntry(key);
+        return entry != null && compare(entry.key, key) == 0 ? entry.value : null;
+    }
+
+    public boolean containsKey(K key) {
+        Entry<K, V> entry = ceilingEntry(key);
+        return entry != null && compare(entry.key, key) == 0;
+    }
+
+    /**
+     * Remove a key
+     * Time Complexity: O(log n) expected
+     *
+     * @return The removed value, or null if the key was absent
+     */
+    public V remove(K key) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<K, V>[] update = new Entry[MAX_LEVEL];
+        Entry<K, V> node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i].key, key) < 0) {
+                node = node.next[i];
+            }
+            update[i] = node;
+        }
+
+        Entry<K, V> target = node.next[0];
+        if (target == null || compare(target.key, key) != 0) {
+            return null;
+        }
+
+        for (int i = 0; i < target.next.length; i++) {
+            update[i].next[i] = target.next[i];
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return target.value;
+    }
+
+    /**
+     * Get the first entry whose key is greater than or equal to the given key
+     *
+     * @return The entry, or null if every key is smaller
+     */
+    public Entry<K, V> ceilingEntry(K key) {
+        Entry<K, V> node = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (node.next[i] != null && compare(node.next[i].key, key) < 0) {
+                node = node.next[i];
+            }
+        }
+        return node.next[0];
+    }
+
+    /**
+     * Get the entry with the smallest key, or null if empty
+     */
+    public Entry<K, V> firstEntry() {
+        return head.next[0];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+        }
+        level = 1;
+        size = 0;
+    }
+
+    /**
+     * Iterate all entries in key order
+     */
+    public Iterable<Entry<K, V>> entries() {
+        return () -> new EntryIterator(head.next[0]);
+    }
+
+    /**
+     * Iterate entries in key order, starting at the first key >= fromKey
+     */
+    public Iterable<Entry<K, V>> entriesFrom(K fromKey) {
+        return () -> new EntryIterator(ceilingEntry(fromKey));
+    }
+
+    private class EntryIterator implements Iterator<Entry<K, V>> {
+        private Entry<K, V> current;
+
+        EntryIterator(Entry<K, V> start) {
+            this.current = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public Entry<K, V> next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = current;
+            current = current.next[0];
+            return entry;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(K a, K b) {
+        if (comparator != null) {
+            return comparator.compare(a, b);
+        }
+        return ((Comparable<? super K>) a).compareTo(b);
+    }
+
+    /**
+     * Geometric level: count trailing one bits of a xorshift random number
+     */
+    private int randomLevel() {
+        long x = randomState;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        randomState = x;
+        int levels = Long.numberOfTrailingZeros(~x) + 1;
+        return Math.min(levels, MAX_LEVEL);
+    }
+}
@@ -0,0 +1,269 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+/**
+ * Static range index over items keyed by a date (stored as an epoch day)
+ * Keeps the items sorted by key together with a prefix-sum array for
+ * sum/count queries and a segment tree for min/max queries, so every
+ * aggregate over a key window is answered in O(log n)
+ * The index is immutable once built; callers rebuild it after mutations
+ */
+public class DateRangeIndex<T> {
+
+    private final long[] keys; // Sorted epoch days
+    private final double[] values; // Values aligned with keys
+    private final Object[] items; // Items aligned with keys
+    private final double[] prefixSums; // prefixSums[i] = values[0] + ... + values[i - 1]
+    private final double[] minTree; // Bottom-up segment tree for minimum values
+    private final double[] maxTree; // Bottom-up segment tree for maximum values
+    private final int size;
+
+    /**
+     * Build an index from parallel arrays
+     * Time Complexity: O(n log n) for sorting, O(n) for prefix sums and trees
+     *
+     * @param keys   Epoch day of each item
+     * @param values Value aggregated by range queries (e.g. amount)
+     * @param items  Items returned by range listings
+     * @param count  Number of valid entries in the arrays
+     */
+    public DateRangeIndex(long[] keys, double[] values, T[] items, int count) {
+        if (count < 0 || count > keys.length || count > values.length || count > items.length) {
+            throw new IllegalArgumentException("Invalid entry count: " + count);
+        }
+
+        this.size = count;
+        this.keys = new long[count];
+        this.values = new double[count];
+        this.items = new Object[count];
+
+        // Sort positions by key (stable, so equal dates keep insertion order)
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[count], keys, 0, count);
+
+        for (int i = 0; i < count; i++) {
+            this.keys[i] = keys[order[i]];
+            this.values[i] = values[order[i]];
+            this.items[i] = items[order[i]];
+        }
+
+        // Prefix sums for O(1) range sums once the bounds are known
+        this.prefixSums = new double[count + 1];
+        for (int i = 0; i < count; i++) {
+            prefixSums[i + 1] = prefixSums[i] + this.values[i];
+        }
+
+        // Leaves live at [size, 2 * size), internal nodes at [1, size)
+        this.minTree = new double[Math.max(2 * count, 1)];
+        this.maxTree = new double[Math.max(2 * count, 1)];
+        for (int i = 0; i < count; i++) {
+            minTree[count + i] = this.values[i];
+            maxTree[count + i] = this.values[i];
+        }
+        for (int i = count - 1; i >= 1; i--) {
+            minTree[i] = Math.min(minTree[2 * i], minTree[2 * i + 1]);
+            maxTree[i] = Math.max(maxTree[2 * i], maxTree[2 * i + 1]);
+        }
+    }
+
+    /**
+     * Stable merge sort of positions by key
+     */
+    private static void mergeSort(int[] order, int[] buffer, long[] keys, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+
+        int mid = (from + to) >>> 1;
+        mergeSort(order, buffer, keys, from, mid);
+        mergeSort(order, buffer, keys, mid, to);
+
+        // Already in order, nothing to merge
+        if (keys[order[mid - 1]] <= keys[order[mid]]) {
+            return;
+        }
+
+        int left = from, right = mid, out = from;
+        while (left < mid && right < to) {
+            if (keys[order[left]] <= keys[order[right]]) {
+                buffer[out++] = order[left++];
+            } else {
+                buffer[out++] = order[right++];
+            }
+        }
+        while (left < mid) {
+            buffer[out++] = order[left++];
+        }
+        while (right < to) {
+            buffer[out++] = order[right++];
+        }
+        System.arraycopy(buffer, from, order, from, to - from);
+    }
+
+    /**
+     * Find the first position with key >= target
+     * Time Complexity: O(log n)
+     */
+    public int lowerBound(long target) {
+        int left = 0, right = size;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (keys[mid] < target) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Find the first position with key > target
+     * Time Complexity: O(log n)
+     */
+    public int upperBound(long target) {
+        int left = 0, right = size;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (keys[mid] <= target) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    /**
+     * Count items with fromKey <= key <= toKey
+     * Time Complexity: O(log n)
+     */
+    public int count(long fromKey, long toKey) {
+        if (fromKey > toKey) {
+            return 0;
+        }
+        return upperBound(toKey) - lowerBound(fromKey);
+    }
+
+    /**
+     * Sum values of items with fromKey <= key <= toKey
+     * Time Complexity: O(log n)
+     */
+    public double sum(long fromKey, long toKey) {
+        if (fromKey > toKey) {
+            return 0.0;
+        }
+        int start = lowerBound(fromKey);
+        int end = upperBound(toKey);
+        return start < end ? prefixSums[end] - prefixSums[start] : 0.0;
+    }
+
+    /**
+     * Minimum value of items with fromKey <= key <= toKey
+     * Time Complexity: O(log n)
+     *
+     * @return The minimum, or Double.NaN when the window is empty
+     */
+    public double min(long fromKey, long toKey) {
+        if (fromKey > toKey) {
+            return Double.NaN;
+        }
+        return queryTree(minTree, lowerBound(fromKey), upperBound(toKey), true);
+    }
+
+    /**
+     * Maximum value of items with fromKey <= key <= toKey
+     * Time Complexity: O(log n)
+     *
+     * @return The maximum, or Double.NaN when the window is empty
+     */
+    public double max(long fromKey, long toKey) {
+        if (fromKey > toKey) {
+            return Double.NaN;
+        }
+        return queryTree(maxTree, lowerBound(fromKey), upperBound(toKey), false);
+    }
+
+    /**
+     * Iterative segment tree query over positions [from, to)
+     */
+    private double queryTree(double[] tree, int from, int to, boolean minimum) {
+        if (from >= to) {
+            return Double.NaN;
+        }
+
+        double result = minimum ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        int left = from + size;
+        int right = to + size;
+
+        while (left < right) {
+            if ((left & 1) == 1) {
+                result = minimum ? Math.min(result, tree[left]) : Math.max(result, tree[left]);
+                left++;
+            }
+            if ((right & 1) == 1) {
+                right--;
+                result = minimum ? Math.min(result, tree[right]) : Math.max(result, tree[right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+
+        return result;
+    }
+
+    /**
+     * List items with fromKey <= key <= toKey in key order
+     * Time Complexity: O(log n + k) where k is number of results
+     */
+    @SuppressWarnings("unchecked")
+    public CustomLinkedList<T> range(long fromKey, long toKey) {
+        CustomLinkedList<T> results = new CustomLinkedList<>();
+        if (fromKey > toKey) {
+            return results;
+        }
+
+        int end = upperBound(toKey);
+        for (int i = lowerBound(fromKey); i < end; i++) {
+            results.add((T) items[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Get the item at a sorted position
+     */
+    @SuppressWarnings("unchecked")
+    public T get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+        }
+        return (T) items[position];
+    }
+
+    /**
+     * Get the key at a sorted position
+     */
+    public long keyAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+        }
+        return keys[position];
+    }
+
+    /**
+     * Get the number of indexed items
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the index is empty
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -116,6 +116,38 @@ public class Graph<T> {
         edgeCount++;
     }
 
+    /**
+     * Add to the weight of an edge, creating the edge if it does not exist
+     * Used to accumulate flows between vertices, such as amounts transferred
+     */
+    public void addToEdgeWeight(T source, T destination, double weight, String relationshipType) {
+        Edge<T> edge = findEdge(source, destination);
+        if (edge == null) {
+            addEdge(source, destination, weight, relationshipType);
+            return;
+        }
+        edge.weight += weight;
+        if (!isDirected) {
+            Edge<T> reverse = findEdge(destination, source);
+            if (reverse != null && reverse != edge) {
+                reverse.weight += weight;
+            }
+        }
+    }
+
+    private Edge<T> findEdge(T source, T destination) {
+        CustomLinkedList<Edge<T>> edges = source == null ? null : adjacencyList.get(source);
+        if (edges == null) {
+            return null;
+        }
+        for (int i = 0; i < edges.size(); i++) {
+            if (edges.get(i).getDestination().equals(destination)) {
+                return edges.get(i);
+            }
+        }
+        return null;
+    }
+
     /**
      * Add an unweighted edge (default weight = 1.0)
      */
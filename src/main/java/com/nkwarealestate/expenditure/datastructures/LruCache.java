@@ -0,0 +1,153 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+/**
+ * Fixed-capacity cache that evicts the least recently used entry
+ * Implemented as a CustomHashMap from key to node plus a doubly linked list
+ * ordered by recency: the head is the most recently used entry and the tail
+ * is the next to be evicted. get and put are both O(1)
+ */
+public class LruCache<K, V> {
+
+    private static class Node<K, V> {
+        K key;
+        V value;
+        Node<K, V> prev;
+        Node<K, V> next;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final int capacity;
+    private final CustomHashMap<K, Node<K, V>> nodes;
+    private Node<K, V> head;
+    private Node<K, V> tail;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Create a cache holding at most the given number of entries
+     */
+    public LruCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.nodes = new CustomHashMap<>();
+        this.nodes.ensureCapacity(capacity);
+    }
+
+    /**
+     * Get a cached value and mark it as most recently used
+     * Time Complexity: O(1)
+     *
+     * @return The value, or null if the key is not cached
+     */
+    public V get(K key) {
+        Node<K, V> node = nodes.get(key);
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        moveToFront(node);
+        return node.value;
+    }
+
+    /**
+     * Cache a value, evicting the least recently used entry when full
+     * Time Complexity: O(1)
+     */
+    public void put(K key, V value) {
+        Node<K, V> node = nodes.get(key);
+        if (node != null) {
+            node.value = value;
+            moveToFront(node);
+            return;
+        }
+
+        if (nodes.size() >= capacity) {
+            Node<K, V> eldest = tail;
+            unlink(eldest);
+            nodes.remove(eldest.key);
+            evictionCount++;
+        }
+
+        node = new Node<>(key, value);
+        nodes.put(key, node);
+        linkFirst(node);
+    }
+
+    /**
+     * Drop a key from the cache
+     */
+    public void remove(K key) {
+        Node<K, V> node = nodes.remove(key);
+        if (node != null) {
+            unlink(node);
+        }
+    }
+
+    public void clear() {
+        nodes.clear();
+        head = null;
+        tail = null;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void moveToFront(Node<K, V> node) {
+        if (node != head) {
+            unlink(node);
+            linkFirst(node);
+        }
+    }
+
+    private void linkFirst(Node<K, V> node) {
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        head = node;
+        if (tail == null) {
+            tail = node;
+        }
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.prev != null) {
+            node.prev.next = node.next;
+        } else {
+            head = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        } else {
+            tail = node.prev;
+        }
+        node.prev = null;
+        node.next = null;
+    }
+}
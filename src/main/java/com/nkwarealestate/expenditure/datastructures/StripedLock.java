@@ -0,0 +1,108 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared out among keys by hash
+ * Keys on different stripes can be locked in parallel, while memory stays
+ * bounded no matter how many keys there are. Two keys may share a stripe,
+ * which only costs some unnecessary waiting
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripeCount Minimum number of stripes, rounded up to a power of two
+     */
+    public StripedLock(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = Integer.highestOneBit(stripeCount);
+        if (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Get the lock guarding a key
+     * Time Complexity: O(1)
+     */
+    public ReentrantLock get(Object key) {
+        return stripes[stripeOf(key)];
+    }
+
+    /**
+     * Get the stripe index of a key
+     */
+    public int stripeOf(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Lock the stripes of several keys in ascending stripe order
+     * Every caller takes stripes in the same global order, so two callers
+     * locking overlapping key sets cannot deadlock. Each stripe is taken once
+     * even if several keys share it
+     *
+     * @return The stripes taken, to pass to unlockAll
+     */
+    public int[] lockAll(Object... keys) {
+        int[] indexes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indexes[i] = stripeOf(keys[i]);
+        }
+        Arrays.sort(indexes);
+
+        int unique = 0;
+        for (int i = 0; i < indexes.length; i++) {
+            if (unique == 0 || indexes[i] != indexes[unique - 1]) {
+                indexes[unique++] = indexes[i];
+            }
+        }
+        int[] taken = Arrays.copyOf(indexes, unique);
+        for (int stripe : taken) {
+            stripes[stripe].lock();
+        }
+        return taken;
+    }
+
+    /**
+     * Lock every stripe in ascending order, excluding all per-key work
+     *
+     * @return The stripes taken, to pass to unlockAll
+     */
+    public int[] lockEvery() {
+        int[] taken = new int[stripes.length];
+        for (int stripe = 0; stripe < stripes.length; stripe++) {
+            stripes[stripe].lock();
+            taken[stripe] = stripe;
+        }
+        return taken;
+    }
+
+    /**
+     * Release stripes taken by lockAll or lockEvery, in reverse order
+     */
+    public void unlockAll(int[] taken) {
+        for (int i = taken.length - 1; i >= 0; i--) {
+            stripes[taken[i]].unlock();
+        }
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+}
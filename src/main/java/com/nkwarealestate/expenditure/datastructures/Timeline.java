@@ -0,0 +1,158 @@
+package com.nkwarealestate.expenditure.datastructures;
+
+import java.util.Arrays;
+
+/**
+ * Append-only series of (time, value) points, such as an account's balance history
+ *
+ * Points live in two parallel primitive arrays, 16 bytes each with no object
+ * per point. Every CHECKPOINT_INTERVAL-th time is also copied into a small
+ * checkpoint array; a lookup binary-searches the checkpoints to find the
+ * block holding the time, then searches only that block, so the search
+ * stays in a few cache lines even for long histories. Times never decrease:
+ * a point older than the last one is recorded at the last time.
+ *
+ * Safe for concurrent use.
+ */
+public class Timeline {
+
+    private static final int CHECKPOINT_INTERVAL = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private long[] checkpoints = new long[1];
+    private int size;
+
+    /**
+     * Record the value from a point in time onwards
+     * Time Complexity: O(1) amortized
+     */
+    public synchronized void append(long time, double value) {
+        if (size > 0 && time < times[size - 1]) {
+            time = times[size - 1];
+        }
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        if (size % CHECKPOINT_INTERVAL == 0) {
+            int checkpoint = size / CHECKPOINT_INTERVAL;
+            if (checkpoint == checkpoints.length) {
+                checkpoints = Arrays.copyOf(checkpoints, checkpoint * 2);
+            }
+            checkpoints[checkpoint] = time;
+        }
+        times[size] = time;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Get the value in effect at a time: the last point at or before it
+     * Time Complexity: O(log n)
+     *
+     * @return The value, or NaN if the time is before the first point
+     */
+    public synchronized double valueAt(long time) {
+        int index = floorIndex(time);
+        return index < 0 ? Double.NaN : values[index];
+    }
+
+    /**
+     * Get the values in effect at many times, e.g. the end of each day
+     * Finds the first time in O(log n), then walks forward once, so the whole
+     * curve costs O(log n + samples + points covered)
+     *
+     * @param sampleTimes Times in ascending order
+     * @return One value per time, NaN before the first point
+     */
+    public synchronized double[] valuesAt(long[] sampleTimes) {
+        double[] samples = new double[sampleTimes.length];
+        if (sampleTimes.length == 0) {
+            return samples;
+        }
+        int index = floorIndex(sampleTimes[0]);
+        for (int i = 0; i < sampleTimes.length; i++) {
+            if (i > 0 && sampleTimes[i] < sampleTimes[i - 1]) {
+                throw new IllegalArgumentException("Sample times must be in ascending order");
+            }
+            while (index + 1 < size && times[index + 1] <= sampleTimes[i]) {
+                index++;
+            }
+            samples[i] = index < 0 ? Double.NaN : values[index];
+        }
+        return samples;
+    }
+
+    /**
+     * Copy points from an index onwards into arrays of at least size() - from
+     *
+     * @return Number of points copied
+     */
+    public synchronized int copyFrom(int from, long[] timesOut, double[] valuesOut) {
+        int count = Math.max(0, size - from);
+        System.arraycopy(times, from, timesOut, 0, count);
+        System.arraycopy(values, from, valuesOut, 0, count);
+        return count;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Time of the latest point, or Long.MIN_VALUE if empty
+     */
+    public synchronized long lastTime() {
+        return size == 0 ? Long.MIN_VALUE : times[size - 1];
+    }
+
+    /**
+     * Value of the earliest point, or NaN if empty
+     */
+    public synchronized double firstValue() {
+        return size == 0 ? Double.NaN : values[0];
+    }
+
+    /**
+     * Value of the latest point, or NaN if empty
+     */
+    public synchronized double lastValue() {
+        return size == 0 ? Double.NaN : values[size - 1];
+    }
+
+    /**
+     * Index of the last point at or before a time, or -1
+     */
+    private int floorIndex(long time) {
+        if (size == 0 || time < times[0]) {
+            return -1;
+        }
+
+        // Last checkpoint at or before the time, then the last point in its block
+        int blocks = (size - 1) / CHECKPOINT_INTERVAL + 1;
+        int low = 0;
+        int high = blocks - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (checkpoints[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        low = low * CHECKPOINT_INTERVAL;
+        high = Math.min(size, low + CHECKPOINT_INTERVAL) - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (times[mid] <= time) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+}
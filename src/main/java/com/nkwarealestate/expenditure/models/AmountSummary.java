@@ -0,0 +1,56 @@
+package com.nkwarealestate.expenditure.models;
+
+/**
+ * Aggregate statistics for the expenditures that fall inside a query window
+ */
+public class AmountSummary {
+    private int count;
+    private double total;
+    private double minimum;
+    private double maximum;
+
+    public AmountSummary(int count, double total, double minimum, double maximum) {
+        this.count = count;
+        this.total = total;
+        this.minimum = count > 0 ? minimum : 0.0;
+        this.maximum = count > 0 ? maximum : 0.0;
+    }
+
+    /**
+     * Create a summary for an empty window
+     */
+    public static AmountSummary empty() {
+        return new AmountSummary(0, 0.0, 0.0, 0.0);
+    }
+
+    // Getters
+    public int getCount() {
+        return count;
+    }
+
+    public double getTotal() {
+        return total;
+    }
+
+    public double getMinimum() {
+        return minimum;
+    }
+
+    public double getMaximum() {
+        return maximum;
+    }
+
+    public double getAverage() {
+        return count > 0 ? total / count : 0.0;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AmountSummary{count=%d, total=%.2f, min=%.2f, max=%.2f, avg=%.2f}",
+                count, total, minimum, maximum, getAverage());
+    }
+}
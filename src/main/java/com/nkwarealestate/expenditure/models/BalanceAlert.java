@@ -0,0 +1,59 @@
+package com.nkwarealestate.expenditure.models;
+
+/**
+ * A balance change that crossed a subscribed threshold
+ * Falling alerts mean the balance dropped below the threshold; rising alerts
+ * mean it recovered to or above it
+ */
+public class BalanceAlert {
+    private final String accountId;
+    private final double threshold;
+    private final double previousBalance;
+    private final double newBalance;
+    private final long timestamp;
+
+    public BalanceAlert(String accountId, double threshold, double previousBalance, double newBalance,
+            long timestamp) {
+        this.accountId = accountId;
+        this.threshold = threshold;
+        this.previousBalance = previousBalance;
+        this.newBalance = newBalance;
+        this.timestamp = timestamp;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getPreviousBalance() {
+        return previousBalance;
+    }
+
+    public double getNewBalance() {
+        return newBalance;
+    }
+
+    /**
+     * Time of the balance change, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Check whether the balance fell below the threshold (rather than recovering)
+     */
+    public boolean isFalling() {
+        return newBalance < threshold;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Account %s %s GHS %,.2f: GHS %,.2f -> GHS %,.2f",
+                accountId, isFalling() ? "fell below" : "recovered to", threshold, previousBalance, newBalance);
+    }
+}
@@ -2,15 +2,22 @@ package com.nkwarealestate.expenditure.models;
 
 /**
  * Represents a bank account in the system
+ * The balance is held in the account's own currency
  */
 public class BankAccount {
 
+    /**
+     * Currency of accounts and expenditures that do not name one
+     */
+    public static final String DEFAULT_CURRENCY = "GHS";
+
     private String accountId;
     private String bankName;
     private double balance;
     private String accountNumber;
     private String accountType;
     private boolean isActive;
+    private String currency = DEFAULT_CURRENCY;
 
     public BankAccount() {
         // Default constructor
@@ -25,6 +32,11 @@ public class BankAccount {
         this.isActive = true;
     }
 
+    public BankAccount(String accountId, String bankName, double balance, String accountType, String currency) {
+        this(accountId, bankName, balance, accountType);
+        setCurrency(currency);
+    }
+
     // Getters and Setters
     public String getAccountId() {
         return accountId;
@@ -66,6 +78,30 @@ public class BankAccount {
         this.accountType = accountType;
     }
 
+    /**
+     * ISO 4217 code of the currency the balance is held in, e.g. GHS or USD
+     */
+    public String getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Set the currency; a missing code means DEFAULT_CURRENCY
+     */
+    public void setCurrency(String currency) {
+        this.currency = normalizeCurrency(currency);
+    }
+
+    /**
+     * Upper-case a currency code, or return DEFAULT_CURRENCY if it is missing
+     */
+    public static String normalizeCurrency(String currency) {
+        if (currency == null || currency.trim().isEmpty()) {
+            return DEFAULT_CURRENCY;
+        }
+        return currency.trim().toUpperCase();
+    }
+
     public boolean isActive() {
         return isActive;
     }
@@ -113,8 +149,8 @@ public class BankAccount {
 
     @Override
     public String toString() {
-        return String.format("BankAccount{id='%s', bank='%s', balance=%.2f, account='%s', active=%s}",
-                accountId, bankName, balance, accountNumber, isActive);
+        return String.format("BankAccount{id='%s', bank='%s', balance=%.2f %s, account='%s', active=%s}",
+                accountId, bankName, balance, currency, accountNumber, isActive);
     }
 
     @Override
@@ -0,0 +1,127 @@
+package com.nkwarealestate.expenditure.models;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+
+/**
+ * Compact outcome summary for a batch operation
+ * Tracks per-item success in a flat array and keeps only the first few
+ * failure messages so very large batches stay cheap to report
+ */
+public class BatchResult {
+    private static final int MAX_ERROR_MESSAGES = 20;
+
+    private final boolean[] outcomes;
+    private int succeededCount;
+    private int failedCount;
+    private final CustomLinkedList<String> errors;
+    private final int[] errorIndexes = new int[MAX_ERROR_MESSAGES];
+    private final String[] errorReasons = new String[MAX_ERROR_MESSAGES];
+    private String firstKey;
+    private String lastKey;
+    private long elapsedNanos;
+
+    public BatchResult(int total) {
+        this.outcomes = new boolean[total];
+        this.errors = new CustomLinkedList<>();
+    }
+
+    /**
+     * Record that the item at the given position succeeded
+     */
+    public void markSuccess(int index) {
+        if (!outcomes[index]) {
+            outcomes[index] = true;
+            succeededCount++;
+        }
+    }
+
+    /**
+     * Record that the item at the given position failed
+     */
+    public void markFailure(int index, String reason) {
+        if (outcomes[index]) {
+            outcomes[index] = false;
+            succeededCount--;
+        }
+        failedCount++;
+        if (errors.size() < MAX_ERROR_MESSAGES) {
+            errorIndexes[errors.size()] = index;
+            errorReasons[errors.size()] = reason;
+            errors.add("#" + (index + 1) + ": " + reason);
+        }
+    }
+
+    /**
+     * Record the range of keys (e.g. codes) assigned to successful items
+     */
+    public void setKeyRange(String firstKey, String lastKey) {
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Getters
+    public int getTotal() {
+        return outcomes.length;
+    }
+
+    public int getSucceededCount() {
+        return succeededCount;
+    }
+
+    public int getFailedCount() {
+        return failedCount;
+    }
+
+    public boolean isSuccess(int index) {
+        return outcomes[index];
+    }
+
+    public boolean isAllSucceeded() {
+        return succeededCount == outcomes.length;
+    }
+
+    public CustomLinkedList<String> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Position of the item behind the n-th kept error message
+     */
+    public int getErrorIndex(int n) {
+        return errorIndexes[n];
+    }
+
+    /**
+     * Reason of the n-th kept error message, without the position prefix
+     */
+    public String getErrorReason(int n) {
+        return errorReasons[n];
+    }
+
+    public String getFirstKey() {
+        return firstKey;
+    }
+
+    public String getLastKey() {
+        return lastKey;
+    }
+
+    public double getElapsedMs() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Batch: %d submitted, %d succeeded, %d failed in %.2f ms",
+                getTotal(), succeededCount, failedCount, getElapsedMs()));
+        if (firstKey != null) {
+            sb.append(" (").append(firstKey).append(" - ").append(lastKey).append(")");
+        }
+        return sb.toString();
+    }
+}
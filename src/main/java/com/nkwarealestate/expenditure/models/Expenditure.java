@@ -15,6 +15,7 @@ public class Expenditure {
     private String accountId;
     private String description;
     private String receiptId;
+    private String currency = BankAccount.DEFAULT_CURRENCY;
     
     public Expenditure() {
         // Default constructor
@@ -88,6 +89,20 @@ public class Expenditure {
         this.description = description;
     }
     
+    /**
+     * Currency the amount is in, normally that of the account it was paid from
+     */
+    public String getCurrency() {
+        return currency;
+    }
+    
+    /**
+     * Set the currency; a missing code means BankAccount.DEFAULT_CURRENCY
+     */
+    public void setCurrency(String currency) {
+        this.currency = BankAccount.normalizeCurrency(currency);
+    }
+    
     public String getReceiptId() {
         return receiptId;
     }
@@ -98,8 +113,8 @@ public class Expenditure {
     
     @Override
     public String toString() {
-        return String.format("Expenditure{code='%s', amount=%.2f, date=%s, phase=%s, category='%s', account='%s'}",
-                code, amount, date, phase, category, accountId);
+        return String.format("Expenditure{code='%s', amount=%.2f %s, date=%s, phase=%s, category='%s', account='%s'}",
+                code, amount, currency, date, phase, category, accountId);
     }
     
     @Override
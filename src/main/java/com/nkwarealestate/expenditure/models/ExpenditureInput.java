@@ -0,0 +1,66 @@
+package com.nkwarealestate.expenditure.models;
+
+/**
+ * Unvalidated expenditure row submitted for insertion, e.g. by a bulk import
+ * The code is assigned by the service when the row is accepted
+ */
+public class ExpenditureInput {
+    private double amount;
+    private String date;
+    private Phase phase;
+    private String category;
+    private String accountId;
+    private String description;
+    private String currency;
+
+    /**
+     * Create a row for an amount in GHS
+     */
+    public ExpenditureInput(double amount, String date, Phase phase,
+            String category, String accountId, String description) {
+        this(amount, date, phase, category, accountId, description, BankAccount.DEFAULT_CURRENCY);
+    }
+
+    /**
+     * @param currency Currency the amount is in, normally that of the paying account
+     */
+    public ExpenditureInput(double amount, String date, Phase phase,
+            String category, String accountId, String description, String currency) {
+        this.amount = amount;
+        this.date = date;
+        this.phase = phase;
+        this.category = category;
+        this.accountId = accountId;
+        this.description = description;
+        this.currency = currency;
+    }
+
+    // Getters
+    public double getAmount() {
+        return amount;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public Phase getPhase() {
+        return phase;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+}
@@ -0,0 +1,64 @@
+package com.nkwarealestate.expenditure.models;
+
+import java.time.LocalDate;
+
+/**
+ * An account and day whose recorded expenditures do not add up to the debits posted
+ * A positive difference means more was spent than debited
+ */
+public class ReconciliationMismatch {
+    private final String accountId;
+    private final LocalDate date;
+    private final long expenditureCents;
+    private final int expenditureCount;
+    private final long debitCents;
+    private final int debitCount;
+
+    public ReconciliationMismatch(String accountId, LocalDate date, long expenditureCents, int expenditureCount,
+            long debitCents, int debitCount) {
+        this.accountId = accountId;
+        this.date = date;
+        this.expenditureCents = expenditureCents;
+        this.expenditureCount = expenditureCount;
+        this.debitCents = debitCents;
+        this.debitCount = debitCount;
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public double getExpenditureTotal() {
+        return expenditureCents / 100.0;
+    }
+
+    public int getExpenditureCount() {
+        return expenditureCount;
+    }
+
+    public double getDebitTotal() {
+        return debitCents / 100.0;
+    }
+
+    public int getDebitCount() {
+        return debitCount;
+    }
+
+    /**
+     * Expenditures minus debits
+     */
+    public double getDifference() {
+        return (expenditureCents - debitCents) / 100.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: expenditures GHS %,.2f (%d), debits GHS %,.2f (%d), difference GHS %,.2f",
+                accountId, date, getExpenditureTotal(), expenditureCount, getDebitTotal(), debitCount,
+                getDifference());
+    }
+}
@@ -0,0 +1,94 @@
+package com.nkwarealestate.expenditure.models;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import java.time.LocalDate;
+
+/**
+ * Outcome of a reconciliation run: what was scanned and every unmatched account-day
+ */
+public class ReconciliationReport {
+    private final boolean incremental;
+    private final LocalDate coveredFrom;
+    private final LocalDate rescannedFrom;
+    private final int expenditureRowsScanned;
+    private final long debitRowsRead;
+    private final int groupsCompared;
+    private final int partitions;
+    private final CustomLinkedList<ReconciliationMismatch> mismatches;
+    private final long elapsedNanos;
+
+    public ReconciliationReport(boolean incremental, LocalDate coveredFrom, LocalDate rescannedFrom,
+            int expenditureRowsScanned, long debitRowsRead, int groupsCompared, int partitions,
+            CustomLinkedList<ReconciliationMismatch> mismatches, long elapsedNanos) {
+        this.incremental = incremental;
+        this.coveredFrom = coveredFrom;
+        this.rescannedFrom = rescannedFrom;
+        this.expenditureRowsScanned = expenditureRowsScanned;
+        this.debitRowsRead = debitRowsRead;
+        this.groupsCompared = groupsCompared;
+        this.partitions = partitions;
+        this.mismatches = mismatches;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Check whether the run resumed from the previous watermark rather than starting over
+     */
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    /**
+     * First day reconciled; earlier expenditures predate the debit journal
+     */
+    public LocalDate getCoveredFrom() {
+        return coveredFrom;
+    }
+
+    /**
+     * First day whose expenditures were rescanned by this run
+     */
+    public LocalDate getRescannedFrom() {
+        return rescannedFrom;
+    }
+
+    public int getExpenditureRowsScanned() {
+        return expenditureRowsScanned;
+    }
+
+    /**
+     * Number of debit journal entries read, i.e. those added since the previous run
+     */
+    public long getDebitRowsRead() {
+        return debitRowsRead;
+    }
+
+    /**
+     * Number of account-days compared
+     */
+    public int getGroupsCompared() {
+        return groupsCompared;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public CustomLinkedList<ReconciliationMismatch> getMismatches() {
+        return mismatches;
+    }
+
+    public boolean isBalanced() {
+        return mismatches.isEmpty();
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ReconciliationReport{incremental=%s, groups=%d, mismatches=%d, elapsed=%.2f ms}",
+                incremental, groupsCompared, mismatches.size(), elapsedNanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,33 @@
+package com.nkwarealestate.expenditure.models;
+
+/**
+ * A movement of funds from one account to another
+ */
+public class Transfer {
+    private final String fromAccountId;
+    private final String toAccountId;
+    private final double amount;
+
+    public Transfer(String fromAccountId, String toAccountId, double amount) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.amount = amount;
+    }
+
+    public String getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public String getToAccountId() {
+        return toAccountId;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Transfer{from='%s', to='%s', amount=%.2f}", fromAccountId, toAccountId, amount);
+    }
+}
@@ -0,0 +1,116 @@
+package com.nkwarealestate.expenditure.models;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+
+/**
+ * Outcome of a data export or import
+ * Counts are kept as totals and only the first few row errors are retained,
+ * so reporting on a very large file costs no more than on a small one
+ */
+public class TransferResult {
+    private static final int MAX_ERROR_MESSAGES = 20;
+
+    private final String dataSet;
+    private final String file;
+    private long rowsRead;
+    private long succeededCount;
+    private long failedCount;
+    private long resumedFromRow;
+    private final CustomLinkedList<String> errors;
+    private long elapsedNanos;
+
+    public TransferResult(String dataSet, String file) {
+        this.dataSet = dataSet;
+        this.file = file;
+        this.errors = new CustomLinkedList<>();
+    }
+
+    /**
+     * Record one source row that was processed (or, for exports, written)
+     */
+    public void countRow() {
+        rowsRead++;
+    }
+
+    public void addSucceeded(long count) {
+        succeededCount += count;
+    }
+
+    /**
+     * Record a row that could not be imported
+     *
+     * @param row 1-based record number in the source file
+     */
+    public void addFailure(long row, String reason) {
+        failedCount++;
+        if (errors.size() < MAX_ERROR_MESSAGES) {
+            errors.add("Row " + row + ": " + reason);
+        }
+    }
+
+    /**
+     * Count failures whose messages were already dropped by an earlier limit
+     */
+    public void addUnreportedFailures(long count) {
+        failedCount += count;
+    }
+
+    /**
+     * Record that the first rows were skipped because an earlier import committed them
+     */
+    public void setResumedFromRow(long resumedFromRow) {
+        this.resumedFromRow = resumedFromRow;
+    }
+
+    public void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    // Getters
+    public String getDataSet() {
+        return dataSet;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getSucceededCount() {
+        return succeededCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public long getResumedFromRow() {
+        return resumedFromRow;
+    }
+
+    public boolean isResumed() {
+        return resumedFromRow > 0;
+    }
+
+    public CustomLinkedList<String> getErrors() {
+        return errors;
+    }
+
+    public double getElapsedMs() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%s: %d rows, %d succeeded, %d failed in %.2f ms",
+                dataSet, rowsRead, succeededCount, failedCount, getElapsedMs()));
+        if (resumedFromRow > 0) {
+            sb.append(" (resumed after row ").append(resumedFromRow).append(")");
+        }
+        return sb.toString();
+    }
+}
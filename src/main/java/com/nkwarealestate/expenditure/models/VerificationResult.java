@@ -0,0 +1,104 @@
+package com.nkwarealestate.expenditure.models;
+
+/**
+ * Outcome of checking one data file
+ * Framed files are checked record by record against their checksums; other
+ * files can only be reported by size, since they carry no checksums
+ */
+public class VerificationResult {
+    private final String file;
+    private final boolean framed;
+    private final long sizeBytes;
+    private final long recordCount;
+    private final int corruptRegionCount;
+    private final long corruptBytes;
+    private final long tornTailBytes;
+    private final long elapsedNanos;
+
+    public VerificationResult(String file, boolean framed, long sizeBytes, long recordCount,
+            int corruptRegionCount, long corruptBytes, long tornTailBytes, long elapsedNanos) {
+        this.file = file;
+        this.framed = framed;
+        this.sizeBytes = sizeBytes;
+        this.recordCount = recordCount;
+        this.corruptRegionCount = corruptRegionCount;
+        this.corruptBytes = corruptBytes;
+        this.tornTailBytes = tornTailBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Result for a file without checksums
+     */
+    public static VerificationResult unframed(String file, long sizeBytes) {
+        return new VerificationResult(file, false, sizeBytes, 0, 0, 0, 0, 0);
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public boolean isFramed() {
+        return framed;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Damaged regions followed by valid records
+     */
+    public int getCorruptRegionCount() {
+        return corruptRegionCount;
+    }
+
+    public long getCorruptBytes() {
+        return corruptBytes;
+    }
+
+    /**
+     * Unusable bytes at the end of the file, usually an append cut short by a crash
+     */
+    public long getTornTailBytes() {
+        return tornTailBytes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Whether every byte of a framed file belongs to a valid record
+     */
+    public boolean isIntact() {
+        return corruptRegionCount == 0 && tornTailBytes == 0;
+    }
+
+    @Override
+    public String toString() {
+        if (sizeBytes == 0) {
+            return file + ": empty";
+        }
+        if (!framed) {
+            return String.format("%s: %,d bytes, no checksums", file, sizeBytes);
+        }
+        StringBuilder text = new StringBuilder(String.format("%s: %,d records in %,d bytes", file, recordCount,
+                sizeBytes));
+        if (corruptRegionCount > 0) {
+            text.append(String.format(", %d corrupt region(s) totalling %,d bytes skipped", corruptRegionCount,
+                    corruptBytes));
+        }
+        if (tornTailBytes > 0) {
+            text.append(String.format(", torn tail of %,d bytes", tornTailBytes));
+        }
+        if (isIntact()) {
+            text.append(", OK");
+        }
+        return text.append(String.format(" (%.1f ms)", elapsedNanos / 1_000_000.0)).toString();
+    }
+}
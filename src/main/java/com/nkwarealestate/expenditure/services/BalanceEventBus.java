@@ -0,0 +1,281 @@
+package com.nkwarealestate.expenditure.services;
+
+import com.nkwarealestate.expenditure.datastructures.ConcurrentCustomHashMap;
+import com.nkwarealestate.expenditure.models.BalanceAlert;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Delivers balance threshold crossings to subscribers as balances change
+ *
+ * Subscribers register a threshold either for one account or for every
+ * account. Each balance change is published with its previous and new value,
+ * and a subscription fires only when the two fall on different sides of its
+ * threshold, so checking a change costs one comparison per subscription on
+ * that account plus the global ones, however many accounts exist.
+ *
+ * Publishing never blocks: alerts go onto a bounded queue drained by a single
+ * daemon thread that calls the listeners, so a slow listener cannot hold up
+ * the debit that triggered it. If the queue is full the alert is dropped and
+ * counted. Subscription lists are copied on change, so publishing reads them
+ * without locking.
+ */
+public class BalanceEventBus {
+
+    /**
+     * Receives alerts on the delivery thread
+     */
+    public interface Listener {
+        void onAlert(BalanceAlert alert);
+    }
+
+    /**
+     * Handle for one registered threshold
+     */
+    public final class Subscription {
+        private final String accountId;
+        private final double threshold;
+        private final Listener listener;
+
+        private Subscription(String accountId, double threshold, Listener listener) {
+            this.accountId = accountId;
+            this.threshold = threshold;
+            this.listener = listener;
+        }
+
+        /**
+         * Account watched, or null for every account
+         */
+        public String getAccountId() {
+            return accountId;
+        }
+
+        public double getThreshold() {
+            return threshold;
+        }
+
+        /**
+         * Stop delivering alerts; alerts already queued may still arrive
+         */
+        public void cancel() {
+            unsubscribe(this);
+        }
+    }
+
+    private static final class Delivery {
+        final Listener listener;
+        final BalanceAlert alert;
+
+        Delivery(Listener listener, BalanceAlert alert) {
+            this.listener = listener;
+            this.alert = alert;
+        }
+    }
+
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private final ConcurrentCustomHashMap<String, Subscription[]> accountSubscriptions = new ConcurrentCustomHashMap<>();
+    private volatile Subscription[] globalSubscriptions = NONE;
+    private final BlockingQueue<Delivery> queue;
+    private final Consumer<Exception> onError;
+    private final AtomicLong deliveredCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private Thread worker;
+    private boolean closed;
+
+    /**
+     * @param queueCapacity Alerts that can wait for delivery before new ones are dropped
+     * @param onError       Receives exceptions thrown by listeners
+     */
+    public BalanceEventBus(int queueCapacity, Consumer<Exception> onError) {
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("Queue capacity must be positive");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.onError = onError;
+    }
+
+    /**
+     * Alert when one account's balance crosses a threshold
+     */
+    public synchronized Subscription subscribe(String accountId, double threshold, Listener listener) {
+        if (accountId == null) {
+            throw new IllegalArgumentException("Account ID cannot be null");
+        }
+        Subscription subscription = create(accountId, threshold, listener);
+        Subscription[] current = accountSubscriptions.get(accountId);
+        accountSubscriptions.put(accountId, with(current != null ? current : NONE, subscription));
+        return subscription;
+    }
+
+    /**
+     * Alert when any account's balance crosses a threshold
+     */
+    public synchronized Subscription subscribeAll(double threshold, Listener listener) {
+        Subscription subscription = create(null, threshold, listener);
+        globalSubscriptions = with(globalSubscriptions, subscription);
+        return subscription;
+    }
+
+    private Subscription create(String accountId, double threshold, Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        if (Double.isNaN(threshold)) {
+            throw new IllegalArgumentException("Threshold must be a number");
+        }
+        startWorker();
+        return new Subscription(accountId, threshold, listener);
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        if (subscription.accountId == null) {
+            globalSubscriptions = without(globalSubscriptions, subscription);
+            return;
+        }
+        Subscription[] current = accountSubscriptions.get(subscription.accountId);
+        if (current == null) {
+            return;
+        }
+        Subscription[] remaining = without(current, subscription);
+        if (remaining.length == 0) {
+            accountSubscriptions.remove(subscription.accountId);
+        } else {
+            accountSubscriptions.put(subscription.accountId, remaining);
+        }
+    }
+
+    /**
+     * Report a balance change, queueing an alert for every threshold it crossed
+     * Never blocks, so it is safe to call while holding an account lock
+     * Time Complexity: O(subscriptions on the account + global subscriptions)
+     */
+    public void publish(String accountId, double previousBalance, double newBalance) {
+        Subscription[] global = globalSubscriptions;
+        Subscription[] own = accountSubscriptions.isEmpty() ? null : accountSubscriptions.get(accountId);
+        if (global.length == 0 && own == null) {
+            return;
+        }
+
+        long timestamp = System.currentTimeMillis();
+        for (Subscription subscription : global) {
+            check(subscription, accountId, previousBalance, newBalance, timestamp);
+        }
+        if (own != null) {
+            for (Subscription subscription : own) {
+                check(subscription, accountId, previousBalance, newBalance, timestamp);
+            }
+        }
+    }
+
+    private void check(Subscription subscription, String accountId, double previousBalance, double newBalance,
+            long timestamp) {
+        if ((previousBalance < subscription.threshold) == (newBalance < subscription.threshold)) {
+            return;
+        }
+        BalanceAlert alert = new BalanceAlert(accountId, subscription.threshold, previousBalance, newBalance,
+                timestamp);
+        if (!queue.offer(new Delivery(subscription.listener, alert))) {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Number of alerts handed to listeners
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    /**
+     * Number of alerts discarded because the queue was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Number of alerts waiting for delivery
+     */
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Deliver the alerts already queued, waiting at most timeoutMs, then stop the delivery thread
+     */
+    public void close(long timeoutMs) {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = worker;
+        }
+        if (thread == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!queue.isEmpty() && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        thread.interrupt();
+    }
+
+    /**
+     * Start the delivery thread on first subscription, so an unused bus costs no thread
+     */
+    private synchronized void startWorker() {
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        if (worker != null) {
+            return;
+        }
+        worker = new Thread(this::deliver, "balance-alerts");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void deliver() {
+        while (true) {
+            Delivery delivery;
+            try {
+                delivery = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                delivery.listener.onAlert(delivery.alert);
+                deliveredCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                onError.accept(e);
+            }
+        }
+    }
+
+    private static Subscription[] with(Subscription[] subscriptions, Subscription added) {
+        Subscription[] copy = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        copy[subscriptions.length] = added;
+        return copy;
+    }
+
+    private static Subscription[] without(Subscription[] subscriptions, Subscription removed) {
+        for (int i = 0; i < subscriptions.length; i++) {
+            if (subscriptions[i] == removed) {
+                Subscription[] copy = new Subscription[subscriptions.length - 1];
+                System.arraycopy(subscriptions, 0, copy, 0, i);
+                System.arraycopy(subscriptions, i + 1, copy, i, copy.length - i);
+                return copy;
+            }
+        }
+        return subscriptions;
+    }
+}
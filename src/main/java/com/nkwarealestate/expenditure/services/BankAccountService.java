@@ -1,114 +1,501 @@
 package com.nkwarealestate.expenditure.services;
 
+import com.nkwarealestate.expenditure.models.BalanceAlert;
 import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.models.BatchResult;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.Transfer;
+import com.nkwarealestate.expenditure.datastructures.AmountIndex;
+import com.nkwarealestate.expenditure.datastructures.ConcurrentCustomHashMap;
 import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
 import com.nkwarealestate.expenditure.datastructures.MinHeap;
 import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
 import com.nkwarealestate.expenditure.datastructures.Graph;
+import com.nkwarealestate.expenditure.datastructures.StripedLock;
+import com.nkwarealestate.expenditure.datastructures.Timeline;
+import com.nkwarealestate.expenditure.storage.BalanceHistory;
+import com.nkwarealestate.expenditure.storage.BalanceWriteAheadLog;
+import com.nkwarealestate.expenditure.storage.ColumnBuffer;
+import com.nkwarealestate.expenditure.storage.DebitJournal;
+import com.nkwarealestate.expenditure.storage.FieldParser;
+import com.nkwarealestate.expenditure.storage.LedgerConverter;
+import com.nkwarealestate.expenditure.storage.ParallelChunkParser;
+import com.nkwarealestate.expenditure.storage.SnapshotWriter;
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing bank accounts
  * Uses MinHeap for low balance monitoring and Graph for account relationships
+ *
+ * Debits, credits and lookups may be called from many threads. Each balance
+ * change runs under its account's stripe lock, so the funds check and the
+ * update are one atomic step and changes to different accounts proceed in
+ * parallel. Accounts live in a ConcurrentCustomHashMap, so lookups take no
+ * lock and adding an account never blocks balance changes.
+ *
+ * Low balances are tracked as balances change rather than by scanning: every
+ * change updates the set of accounts below the low balance threshold and is
+ * published to a BalanceEventBus, which alerts threshold subscribers
+ * asynchronously. Every change also moves the account in an AmountIndex
+ * ordered by balance, which answers sorted, range and threshold queries
+ * without copying or sorting the accounts.
+ *
+ * Each change is also appended to the account's balance timeline, stamped
+ * with the time of its balance log record, so balances at any past moment and
+ * daily balance curves come from the history instead of a replay.
+ *
+ * Totals are maintained the same way: the total balance per currency, the
+ * total per account type and currency, and the low balance count are
+ * LongAdder counters adjusted by each change, so dashboards read them
+ * without scanning. Balances are totalled in whole minor units (pesewas,
+ * cents), which keeps the running sums exact. A total across currencies
+ * converts the few per-currency sums at today's rates from an
+ * ExchangeRateService, so its cost does not grow with the number of accounts.
+ * Low balance monitoring and the balance index compare balances in each
+ * account's own currency.
+ *
+ * Every successful debit is also written to a DebitJournal with the date it
+ * is for, which ReconciliationService matches against the expenditure ledger.
  */
 public class BankAccountService {
 
-    private CustomHashMap<String, BankAccount> accounts;
+    private ConcurrentCustomHashMap<String, BankAccount> accounts;
     private MinHeap balanceMonitor;
     private Graph<String> accountRelationships;
-    private final String ACCOUNTS_FILE = "data/accounts.txt";
-    private final double LOW_BALANCE_THRESHOLD = 5000.0; // GHS 5,000
+    private final String ACCOUNTS_FILE;
+    private final String BALANCE_LOG_FILE;
+    private final long BALANCE_LOG_SYNC_INTERVAL_MS = 50;
+    private final int BALANCE_LOG_SYNC_EVERY_RECORDS = 256;
+    private final int BALANCE_LOG_COMPACT_EVERY_RECORDS = 10000;
+    private BalanceWriteAheadLog balanceLog;
+    private final String BALANCE_HISTORY_FILE;
+    private final BalanceHistory balanceHistory;
+    private final String DEBIT_JOURNAL_FILE;
+    private final DebitJournal debitJournal;
+    private final ParallelChunkParser lineParser = new ParallelChunkParser();
+    private final double DEFAULT_LOW_BALANCE_THRESHOLD = 5000.0; // GHS 5,000
+    private final int BALANCE_ALERT_QUEUE_CAPACITY = 1024;
+    private final int RECENT_ALERT_LIMIT = 20;
+    private volatile double lowBalanceThreshold = DEFAULT_LOW_BALANCE_THRESHOLD;
+    private final ConcurrentCustomHashMap<String, BankAccount> lowBalanceAccounts = new ConcurrentCustomHashMap<>();
+    private final AmountIndex<BankAccount> balanceIndex = new AmountIndex<>();
+    private final ExchangeRateService exchangeRates;
+    private final ConcurrentCustomHashMap<String, LongAdder> balanceCentsByCurrency = new ConcurrentCustomHashMap<>();
+    private final ConcurrentCustomHashMap<String, ConcurrentCustomHashMap<String, LongAdder>> balanceCentsByType =
+            new ConcurrentCustomHashMap<>();
+    private final LongAdder lowBalanceCount = new LongAdder();
+    private boolean balanceTrackingStarted;
+    private final BalanceEventBus balanceEvents;
+    private BalanceEventBus.Subscription lowBalanceSubscription;
+    private final CustomLinkedList<BalanceAlert> recentAlerts = new CustomLinkedList<>();
+    private final int ACCOUNT_LOCK_STRIPES = 64;
+    private final StripedLock accountLocks = new StripedLock(ACCOUNT_LOCK_STRIPES);
+    private OutputSink output;
 
     public BankAccountService() {
-        this.accounts = new CustomHashMap<>();
+        this(new ExchangeRateService());
+    }
+
+    /**
+     * @param exchangeRates Rates used to total balances held in different currencies
+     */
+    public BankAccountService(ExchangeRateService exchangeRates) {
+        this(exchangeRates, Paths.get("data"));
+    }
+
+    /**
+     * @param exchangeRates Rates used to total balances held in different currencies
+     * @param dataDirectory Directory holding the accounts file, balance log, history and debit journal
+     */
+    private BankAccountService(ExchangeRateService exchangeRates, Path dataDirectory) {
+        this.ACCOUNTS_FILE = dataDirectory.resolve("accounts.txt").toString();
+        this.BALANCE_LOG_FILE = dataDirectory.resolve("accounts.wal").toString();
+        this.BALANCE_HISTORY_FILE = dataDirectory.resolve("balance_history.dat").toString();
+        this.DEBIT_JOURNAL_FILE = dataDirectory.resolve("debits.journal").toString();
+        this.balanceHistory = new BalanceHistory(Paths.get(BALANCE_HISTORY_FILE));
+        this.debitJournal = new DebitJournal(Paths.get(DEBIT_JOURNAL_FILE),
+                BALANCE_LOG_SYNC_INTERVAL_MS, BALANCE_LOG_SYNC_EVERY_RECORDS);
+        this.exchangeRates = exchangeRates;
+        this.accounts = new ConcurrentCustomHashMap<>();
         this.balanceMonitor = new MinHeap(50); // Initial capacity
         this.accountRelationships = new Graph<String>();
-        loadAccountsFromFile();
+        this.output = OutputSink.NONE;
+        this.balanceEvents = new BalanceEventBus(BALANCE_ALERT_QUEUE_CAPACITY,
+                e -> output.failure("Error delivering balance alert: " + e.getMessage()));
+        boolean loadedDefaults = loadAccountsFromFile();
+        loadBalanceHistory();
+        openBalanceLog();
+        if (loadedDefaults) {
+            compactBalanceLog(); // Default accounts are first written once the log is open
+        }
+        openDebitJournal();
+        balanceTrackingStarted = true;
+        for (BankAccount account : accounts.values()) {
+            registerAccount(account);
+        }
+        flushBalanceHistory(); // Keep opening balances even if no checkpoint follows
+        watchLowBalance();
+    }
+
+    /**
+     * Replay balance changes made since the last snapshot and start logging new ones
+     */
+    private void openBalanceLog() {
+        balanceLog = new BalanceWriteAheadLog(Paths.get(BALANCE_LOG_FILE),
+                BALANCE_LOG_SYNC_INTERVAL_MS, BALANCE_LOG_SYNC_EVERY_RECORDS);
+
+        int replayed = balanceLog.open((seq, timestamp, accountId, delta, newBalance) -> {
+            BankAccount account = accounts.get(accountId);
+            if (account != null) {
+                account.setBalance(newBalance);
+                balanceHistory.recordReplayed(accountId, timestamp, newBalance);
+            }
+        });
+
+        if (balanceLog.getSkippedRecordCount() > 0) {
+            System.out.println("Skipped " + balanceLog.getSkippedRecordCount()
+                    + " damaged balance log records.");
+        }
+        if (replayed > 0) {
+            System.out.println("Recovered " + replayed + " balance changes from log.");
+            compactBalanceLog();
+        }
+    }
+
+    /**
+     * Open the debit journal; debits still post if it cannot be opened, but go unjournaled
+     */
+    private void openDebitJournal() {
+        try {
+            debitJournal.open();
+            if (debitJournal.getSkippedFrameCount() > 0) {
+                System.out.println("Skipped " + debitJournal.getSkippedFrameCount()
+                        + " damaged debit journal records.");
+            }
+        } catch (UncheckedIOException e) {
+            System.err.println("Error opening debit journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Journal debits that have been applied
+     * A failure is reported but does not undo the debits
+     */
+    private void journalDebits(String[] accountIds, long[] valueDays, long[] amountCents, int count) {
+        try {
+            debitJournal.appendAll(accountIds, valueDays, amountCents, count);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            output.failure("Error journaling debits: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load recorded balance history; the service runs without past history if it cannot be read
+     */
+    private void loadBalanceHistory() {
+        try {
+            balanceHistory.load();
+            if (balanceHistory.getSkippedFrameCount() > 0) {
+                System.out.println("Skipped " + balanceHistory.getSkippedFrameCount()
+                        + " damaged balance history records.");
+            }
+        } catch (UncheckedIOException e) {
+            System.err.println("Error loading balance history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write balance history recorded since the last checkpoint
+     * A failure is reported but does not hold up the accounts snapshot
+     */
+    private void flushBalanceHistory() {
+        try {
+            balanceHistory.flush();
+        } catch (UncheckedIOException e) {
+            output.failure("Error saving balance history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Compact the balance log once it grows large
+     * Called after the stripe lock is released so other changes to the same
+     * accounts are not held up by the snapshot write
+     */
+    private void compactBalanceLogIfDue() {
+        if (balanceLog.getRecordsSinceCheckpoint() >= BALANCE_LOG_COMPACT_EVERY_RECORDS) {
+            compactBalanceLog();
+        }
+    }
+
+    /**
+     * Fold logged balance changes into the accounts snapshot and clear the log
+     * Holds every stripe lock: changes are logged before they are applied, so
+     * a checkpoint taken between the two would snapshot the old balances and
+     * then truncate the only record of the change
+     */
+    private void compactBalanceLog() {
+        int[] taken = accountLocks.lockEvery();
+        try {
+            balanceLog.checkpoint(() -> {
+                flushBalanceHistory();
+                return saveAllAccountsToFile();
+            });
+        } catch (UncheckedIOException e) {
+            output.failure("Error compacting balance log: " + e.getMessage());
+        } finally {
+            accountLocks.unlockAll(taken);
+        }
+    }
+
+    /**
+     * Flush pending balance changes and write a final snapshot
+     */
+    public void close() {
+        balanceEvents.close(BALANCE_LOG_SYNC_INTERVAL_MS);
+        compactBalanceLog();
+        balanceLog.close();
+        debitJournal.close();
     }
 
     /**
-     * Add a new bank account
+     * Add a new bank account held in GHS
      */
     public boolean addAccount(String accountId, String bankName, double initialBalance, String accountType) {
-        if (accounts.get(accountId) != null) {
-            System.out.println("✗ Account with ID '" + accountId + "' already exists.");
+        return addAccount(accountId, bankName, initialBalance, accountType, BankAccount.DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Add a new bank account held in a given currency
+     */
+    public boolean addAccount(String accountId, String bankName, double initialBalance, String accountType,
+            String currency) {
+        if (!exchangeRates.isSupported(currency)) {
+            output.failure("No exchange rate is known for currency '" + currency + "'.");
+            return false;
+        }
+        BankAccount account = new BankAccount(accountId, bankName, initialBalance, accountType, currency);
+        if (accountId == null || accounts.putIfAbsent(accountId, account) != null) {
+            output.failure("Account with ID '" + accountId + "' already exists.");
             return false;
         }
-
-        BankAccount account = new BankAccount(accountId, bankName, initialBalance, accountType);
-        accounts.put(accountId, account);
 
         // Add to balance monitoring heap
-        balanceMonitor.insert((int) initialBalance, accountId);
+        synchronized (balanceMonitor) {
+            balanceMonitor.insert((int) initialBalance, accountId);
+        }
+        registerAccount(account);
 
         // Add account node to relationship graph
-        accountRelationships.addVertex(accountId);
+        synchronized (accountRelationships) {
+            accountRelationships.addVertex(accountId);
+        }
 
-        saveAccountToFile(account);
-        System.out.println("✓ Account '" + accountId + "' added successfully.");
+        // A snapshot rather than an append, so the file is only ever written under the stripe locks
+        if (balanceLog != null) {
+            compactBalanceLog();
+        }
+        output.success("Account '" + accountId + "' added successfully.");
 
         return true;
     }
 
+    /**
+     * Import accounts in one batch
+     * Existing account IDs are rejected, so importing the same file twice adds
+     * nothing. The accounts file is rewritten once for the whole batch.
+     *
+     * @param imported Accounts to add, in order
+     * @return Per-account outcome
+     */
+    public BatchResult importAccounts(Collection<BankAccount> imported) {
+        long startTime = System.nanoTime();
+        BatchResult result = new BatchResult(imported.size());
+        accounts.ensureCapacity(accounts.size() + imported.size());
+        int index = 0;
+
+        for (BankAccount account : imported) {
+            String error = null;
+            if (account == null || account.getAccountId() == null || account.getAccountId().isEmpty()) {
+                error = "Missing account ID";
+            } else if (Double.isNaN(account.getBalance()) || Double.isInfinite(account.getBalance())) {
+                error = "Invalid balance";
+            } else if (!exchangeRates.isSupported(account.getCurrency())) {
+                error = "No exchange rate for currency " + account.getCurrency();
+            } else if (accounts.putIfAbsent(account.getAccountId(), account) != null) {
+                error = "Account " + account.getAccountId() + " already exists";
+            }
+
+            if (error != null) {
+                result.markFailure(index++, error);
+                continue;
+            }
+
+            synchronized (balanceMonitor) {
+                balanceMonitor.insert((int) account.getBalance(), account.getAccountId());
+            }
+            registerAccount(account);
+            synchronized (accountRelationships) {
+                accountRelationships.addVertex(account.getAccountId());
+            }
+            result.markSuccess(index++);
+        }
+
+        if (result.getSucceededCount() > 0) {
+            // The snapshot also covers any logged balance changes, so the log can be reset with it
+            compactBalanceLog();
+        }
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Iterate over all accounts without copying them
+     * The view is live and weakly consistent: accounts added during the
+     * iteration may or may not appear
+     */
+    public Iterable<BankAccount> iterateAccounts() {
+        return accounts.values();
+    }
+
+    /**
+     * Route operation outcome messages to the given sink
+     */
+    public void setOutputSink(OutputSink output) {
+        this.output = output != null ? output : OutputSink.NONE;
+    }
+
     /**
      * Get account by ID
      */
     public BankAccount getAccount(String accountId) {
-        return accounts.get(accountId);
+        return findAccount(accountId);
+    }
+
+    /**
+     * Look up an in-memory account without locking
+     */
+    private BankAccount findAccount(String accountId) {
+        return accountId == null ? null : accounts.get(accountId);
     }
 
     /**
      * Update account balance (for expenditure transactions)
+     * Safe to call from many threads; concurrent debits never overdraw an account
      */
     public boolean debitAccount(String accountId, double amount) {
-        BankAccount account = accounts.get(accountId);
+        return debitAccount(accountId, amount, LocalDate.now());
+    }
+
+    /**
+     * Debit an account for a payment belonging to a date, such as an expenditure's date
+     * The date is kept in the debit journal for reconciliation
+     */
+    public boolean debitAccount(String accountId, double amount, LocalDate valueDate) {
+        BankAccount account = findAccount(accountId);
         if (account == null) {
-            System.out.println("✗ Account '" + accountId + "' not found.");
+            output.failure("Account '" + accountId + "' not found.");
             return false;
         }
 
-        if (account.getBalance() < amount) {
-            System.out.println("✗ Insufficient funds in account '" + accountId + "'.");
-            System.out.println("Available balance: GHS " + String.format("%.2f", account.getBalance()));
-            System.out.println("Required amount: GHS " + String.format("%.2f", amount));
+        double newBalance;
+        try {
+            newBalance = applyDebit(account, amount);
+        } catch (UncheckedIOException e) {
+            output.failure("Error logging debit: " + e.getMessage() + ". The debit was not applied.");
             return false;
         }
-
-        double newBalance = account.getBalance() - amount;
-        account.setBalance(newBalance);
-
-        // Update balance monitoring
-        updateBalanceMonitoring(accountId, newBalance);
+        if (Double.isNaN(newBalance)) {
+            output.failure("Insufficient funds in account '" + accountId + "'.");
+            output.info("Available balance: " + account.getCurrency() + " "
+                    + String.format("%.2f", account.getBalance()));
+            output.info("Required amount: " + account.getCurrency() + " " + String.format("%.2f", amount));
+            return false;
+        }
+        journalDebits(new String[] { accountId }, new long[] { valueDate.toEpochDay() },
+                new long[] { toCents(amount) }, 1);
 
         // Check for low balance warning
-        if (newBalance < LOW_BALANCE_THRESHOLD) {
-            System.out.println("⚠️ WARNING: Account '" + accountId + "' has low balance: GHS " +
+        if (newBalance < lowBalanceThreshold) {
+            output.warning("Account '" + accountId + "' has low balance: " + account.getCurrency() + " " +
                     String.format("%.2f", newBalance));
         }
 
-        saveAllAccountsToFile();
+        compactBalanceLogIfDue();
         return true;
     }
 
+    /**
+     * Check funds and debit as one step under the account's stripe lock
+     * The change is logged before it is applied, so a failed write leaves the balance unchanged
+     *
+     * @return The new balance, or NaN if the funds are insufficient
+     * @throws UncheckedIOException if the change could not be logged
+     */
+    private double applyDebit(BankAccount account, double amount) {
+        ReentrantLock lock = accountLocks.get(account.getAccountId());
+        lock.lock();
+        try {
+            double previousBalance = account.getBalance();
+            if (previousBalance < amount) {
+                return Double.NaN;
+            }
+            double newBalance = previousBalance - amount;
+            long timestamp = balanceLog.append(account.getAccountId(), -amount, newBalance);
+            account.setBalance(newBalance);
+            updateBalanceMonitoring(account, previousBalance, newBalance, timestamp);
+            return newBalance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Credit account balance
      */
     public boolean creditAccount(String accountId, double amount) {
-        BankAccount account = accounts.get(accountId);
+        BankAccount account = findAccount(accountId);
         if (account == null) {
-            System.out.println("✗ Account '" + accountId + "' not found.");
+            output.failure("Account '" + accountId + "' not found.");
             return false;
         }
 
-        double newBalance = account.getBalance() + amount;
-        account.setBalance(newBalance);
-
-        updateBalanceMonitoring(accountId, newBalance);
-        saveAllAccountsToFile();
+        ReentrantLock lock = accountLocks.get(accountId);
+        lock.lock();
+        try {
+            double previousBalance = account.getBalance();
+            double newBalance = previousBalance + amount;
+            // Log before applying, so a failed write leaves the balance unchanged
+            long timestamp = balanceLog.append(accountId, amount, newBalance);
+            account.setBalance(newBalance);
+            updateBalanceMonitoring(account, previousBalance, newBalance, timestamp);
+        } catch (UncheckedIOException e) {
+            output.failure("Error logging credit: " + e.getMessage() + ". The credit was not applied.");
+            return false;
+        } finally {
+            lock.unlock();
+        }
+        compactBalanceLogIfDue();
 
-        System.out.println("✓ Account '" + accountId + "' credited with GHS " +
+        output.success("Account '" + accountId + "' credited with " + account.getCurrency() + " " +
                 String.format("%.2f", amount));
         return true;
     }
@@ -131,7 +518,7 @@ public class BankAccountService {
      * Display account summary
      */
     public void displayAccountSummary(String accountId) {
-        BankAccount account = accounts.get(accountId);
+        BankAccount account = findAccount(accountId);
         if (account == null) {
             System.out.println("Account not found.");
             return;
@@ -141,9 +528,10 @@ public class BankAccountService {
         System.out.println("Account ID: " + account.getAccountId());
         System.out.println("Bank Name: " + account.getBankName());
         System.out.println("Account Type: " + account.getAccountType());
-        System.out.println("Current Balance: GHS " + String.format("%.2f", account.getBalance()));
+        System.out.println("Current Balance: " + account.getCurrency() + " "
+                + String.format("%.2f", account.getBalance()));
 
-        if (account.getBalance() < LOW_BALANCE_THRESHOLD) {
+        if (account.getBalance() < lowBalanceThreshold) {
             System.out.println("Status: ⚠️ LOW BALANCE");
         } else {
             System.out.println("Status: ✓ Normal");
@@ -164,38 +552,30 @@ public class BankAccountService {
         }
 
         System.out.println("\n=== ALL BANK ACCOUNTS ===");
-        double totalBalance = 0.0;
 
         for (int i = 0; i < accountList.size(); i++) {
             BankAccount account = accountList.get(i);
-            System.out.printf("%-8s | %-20s | GHS %,10.2f | %s%n",
+            System.out.printf("%-8s | %-20s | %s %,10.2f | %s%n",
                     account.getAccountId(),
                     account.getBankName(),
+                    account.getCurrency(),
                     account.getBalance(),
                     account.getAccountType());
-            totalBalance += account.getBalance();
         }
 
         System.out.println("--------------------------------------------------");
-        System.out.printf("Total Balance Across All Accounts: GHS %,10.2f%n", totalBalance);
+        System.out.printf("Total Balance Across All Accounts: %s %,10.2f%n", exchangeRates.getBaseCurrency(),
+                getTotalBalance());
         System.out.println("==========================");
     }
 
     /**
      * Get accounts with low balance
+     * Read from the set maintained as balances change, so no accounts are scanned
+     * Time Complexity: O(k) where k is the number of low balance accounts
      */
     public CustomLinkedList<BankAccount> getLowBalanceAccounts() {
-        CustomLinkedList<BankAccount> lowBalanceAccounts = new CustomLinkedList<>();
-        CustomLinkedList<BankAccount> allAccounts = getAllAccounts();
-
-        for (int i = 0; i < allAccounts.size(); i++) {
-            BankAccount account = allAccounts.get(i);
-            if (account.getBalance() < LOW_BALANCE_THRESHOLD) {
-                lowBalanceAccounts.add(account);
-            }
-        }
-
-        return lowBalanceAccounts;
+        return lowBalanceAccounts.valueList();
     }
 
     /**
@@ -203,58 +583,675 @@ public class BankAccountService {
      */
     public void displayLowBalanceWarning() {
         CustomLinkedList<BankAccount> lowBalanceAccounts = getLowBalanceAccounts();
+        CustomLinkedList<BalanceAlert> alerts = getRecentAlerts();
 
         if (lowBalanceAccounts.size() == 0) {
             System.out.println("✓ All accounts have sufficient balance.");
-            return;
+        } else {
+            System.out.println("\n⚠️ === LOW BALANCE ALERT ===");
+            System.out.printf("Threshold: %,.2f in each account's currency%n", lowBalanceThreshold);
+            for (int i = 0; i < lowBalanceAccounts.size(); i++) {
+                BankAccount account = lowBalanceAccounts.get(i);
+                System.out.printf("Account %s (%s): %s %,.2f%n",
+                        account.getAccountId(),
+                        account.getBankName(),
+                        account.getCurrency(),
+                        account.getBalance());
+            }
+            System.out.println("============================");
         }
 
-        System.out.println("\n⚠️ === LOW BALANCE ALERT ===");
-        for (int i = 0; i < lowBalanceAccounts.size(); i++) {
-            BankAccount account = lowBalanceAccounts.get(i);
-            System.out.printf("Account %s (%s): GHS %,.2f%n",
-                    account.getAccountId(),
-                    account.getBankName(),
-                    account.getBalance());
+        if (alerts.size() > 0) {
+            System.out.println("\nRecent threshold crossings:");
+            for (int i = 0; i < alerts.size(); i++) {
+                System.out.println("  " + alerts.get(i));
+            }
+        }
+    }
+
+    /**
+     * Change the low balance threshold
+     * Rebuilds the low balance set with one pass over the accounts, taking each
+     * account's stripe lock so no concurrent change is classified against the
+     * old threshold
+     */
+    public synchronized void setLowBalanceThreshold(double threshold) {
+        if (!(threshold >= 0) || Double.isInfinite(threshold)) {
+            throw new IllegalArgumentException("Threshold must be zero or more");
+        }
+        lowBalanceThreshold = threshold;
+        refreshLowBalanceAccounts();
+        watchLowBalance();
+    }
+
+    public double getLowBalanceThreshold() {
+        return lowBalanceThreshold;
+    }
+
+    /**
+     * Bus publishing every balance change, for threshold subscriptions
+     */
+    public BalanceEventBus getBalanceEvents() {
+        return balanceEvents;
+    }
+
+    /**
+     * Journal of every debit posted, for reconciliation
+     */
+    public DebitJournal getDebitJournal() {
+        return debitJournal;
+    }
+
+    /**
+     * Get the most recent low balance threshold crossings, oldest first
+     */
+    public CustomLinkedList<BalanceAlert> getRecentAlerts() {
+        CustomLinkedList<BalanceAlert> copy = new CustomLinkedList<>();
+        synchronized (recentAlerts) {
+            for (int i = 0; i < recentAlerts.size(); i++) {
+                copy.add(recentAlerts.get(i));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Subscribe to every account at the low balance threshold, keeping the latest alerts
+     */
+    private synchronized void watchLowBalance() {
+        if (lowBalanceSubscription != null) {
+            lowBalanceSubscription.cancel();
+        }
+        lowBalanceSubscription = balanceEvents.subscribeAll(lowBalanceThreshold, alert -> {
+            synchronized (recentAlerts) {
+                recentAlerts.add(alert);
+                if (recentAlerts.size() > RECENT_ALERT_LIMIT) {
+                    recentAlerts.remove(0);
+                }
+            }
+        });
+    }
+
+    /**
+     * Recompute which accounts are below the threshold
+     */
+    private void refreshLowBalanceAccounts() {
+        for (BankAccount account : accounts.values()) {
+            ReentrantLock lock = accountLocks.get(account.getAccountId());
+            lock.lock();
+            try {
+                trackLowBalance(account, account.getBalance());
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Start balance tracking for an account just added to the service
+     * Reads the balance under the stripe lock, so a change racing with the
+     * add is indexed at the same key and never leaves a stale entry
+     * Accounts added while the service is being constructed are registered
+     * once loading and log replay have finished
+     */
+    private void registerAccount(BankAccount account) {
+        if (!balanceTrackingStarted) {
+            return;
+        }
+        ReentrantLock lock = accountLocks.get(account.getAccountId());
+        lock.lock();
+        try {
+            trackLowBalance(account, account.getBalance());
+            balanceIndex.add(account.getBalance(), account.getAccountId(), account);
+            adjustTotals(account, toCents(account.getBalance()));
+
+            // Open the timeline at the current balance if history does not already end there
+            Timeline timeline = balanceHistory.get(account.getAccountId());
+            if (timeline == null || timeline.lastValue() != account.getBalance()) {
+                balanceHistory.record(account.getAccountId(), System.currentTimeMillis(), account.getBalance());
+            }
+        } finally {
+            lock.unlock();
         }
-        System.out.println("============================");
     }
 
     /**
      * Add relationship between accounts (for internal transfers)
      */
     public void addAccountRelationship(String fromAccountId, String toAccountId, String relationshipType) {
-        accountRelationships.addEdge(fromAccountId, toAccountId, 1, relationshipType);
-        System.out.println("✓ Relationship added: " + fromAccountId + " -> " + toAccountId +
+        synchronized (accountRelationships) {
+            accountRelationships.addEdge(fromAccountId, toAccountId, 1, relationshipType);
+        }
+        output.success("Relationship added: " + fromAccountId + " -> " + toAccountId +
                 " (" + relationshipType + ")");
     }
 
     /**
-     * Get total balance across all accounts
+     * Accounts taking part in a multi-account operation, each resolved once
+     * and numbered in order of first appearance so per-account working state
+     * can live in plain arrays
+     */
+    private class AccountSlots {
+        private final CustomHashMap<String, Integer> slots = new CustomHashMap<>();
+        private BankAccount[] accounts = new BankAccount[8];
+        private int count;
+
+        /**
+         * @return The account's slot, or -1 if the account does not exist
+         */
+        int resolve(String accountId) {
+            Integer slot = slots.get(accountId);
+            if (slot != null) {
+                return slot;
+            }
+            BankAccount account = accountId == null ? null : findAccount(accountId);
+            if (account == null) {
+                return -1;
+            }
+            if (count == accounts.length) {
+                accounts = Arrays.copyOf(accounts, count * 2);
+            }
+            accounts[count] = account;
+            slots.put(accountId, count);
+            return count++;
+        }
+
+        int size() {
+            return count;
+        }
+
+        String[] ids() {
+            String[] ids = new String[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = accounts[i].getAccountId();
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Move funds between two accounts atomically
+     * Either both balances change or neither does
+     */
+    public boolean transfer(String fromAccountId, String toAccountId, double amount) {
+        return transferAll(Collections.singletonList(new Transfer(fromAccountId, toAccountId, amount)));
+    }
+
+    /**
+     * Apply a list of transfers as one all-or-nothing operation
+     * Each amount is in the source account's currency; when the destination
+     * holds another currency it is credited the amount converted at today's
+     * rate, and a pair without a rate rejects the batch. Balance log deltas
+     * are in each account's own currency.
+     * Transfers are checked in list order against running balances, so a
+     * later transfer may spend funds an earlier one delivered. If any would
+     * overdraw its source account, none are applied. The stripe locks of all
+     * accounts involved are taken in global stripe order, which rules out
+     * deadlock between concurrent batches, and the whole batch is logged as
+     * one balance log record. Each transfer adds its amount to the weight of
+     * the "transfer" edge between the two accounts.
+     * Time Complexity: O(transfers + accounts involved)
+     *
+     * @return true if every transfer was applied
+     */
+    public boolean transferAll(List<Transfer> transfers) {
+        if (transfers.isEmpty()) {
+            return true;
+        }
+
+        AccountSlots slots = new AccountSlots();
+        int[] from = new int[transfers.size()];
+        int[] to = new int[transfers.size()];
+        double[] credits = new double[transfers.size()];
+        LocalDate today = LocalDate.now();
+        for (int i = 0; i < transfers.size(); i++) {
+            Transfer transfer = transfers.get(i);
+            String error = null;
+            if (transfer == null) {
+                error = "missing transfer";
+            } else if (!(transfer.getAmount() > 0) || Double.isInfinite(transfer.getAmount())) {
+                error = "amount must be positive";
+            } else if (transfer.getFromAccountId() == null
+                    || transfer.getFromAccountId().equals(transfer.getToAccountId())) {
+                error = "source and destination must be different accounts";
+            }
+            for (int side = 0; side < 2 && error == null; side++) {
+                String accountId = side == 0 ? transfer.getFromAccountId() : transfer.getToAccountId();
+                int slot = slots.resolve(accountId);
+                if (slot < 0) {
+                    error = "account '" + accountId + "' not found";
+                    break;
+                }
+                if (side == 0) {
+                    from[i] = slot;
+                } else {
+                    to[i] = slot;
+                }
+            }
+            if (error == null) {
+                try {
+                    credits[i] = exchangeRates.convert(transfer.getAmount(),
+                            slots.accounts[from[i]].getCurrency(), slots.accounts[to[i]].getCurrency(), today);
+                } catch (IllegalArgumentException e) {
+                    error = e.getMessage();
+                }
+            }
+            if (error != null) {
+                output.failure("Transfer #" + (i + 1) + " rejected: " + error + ". No transfers were applied.");
+                return false;
+            }
+        }
+
+        int count = slots.size();
+        BankAccount[] involved = slots.accounts;
+        String[] accountIds = slots.ids();
+        double[] balances = new double[count];
+        double[] deltas = new double[count];
+
+        int[] taken = accountLocks.lockAll((Object[]) accountIds);
+        try {
+            for (int a = 0; a < count; a++) {
+                balances[a] = involved[a].getBalance();
+            }
+            for (int i = 0; i < transfers.size(); i++) {
+                double amount = transfers.get(i).getAmount();
+                if (balances[from[i]] < amount) {
+                    output.failure("Transfer #" + (i + 1) + " rejected: insufficient funds in account '"
+                            + accountIds[from[i]] + "'. No transfers were applied.");
+                    return false;
+                }
+                balances[from[i]] -= amount;
+                balances[to[i]] += credits[i];
+                deltas[from[i]] -= amount;
+                deltas[to[i]] += credits[i];
+            }
+
+            // Log before applying, so a failed write leaves every balance unchanged; the
+            // stripe locks keep a checkpoint from running between the two
+            long timestamp;
+            try {
+                timestamp = balanceLog.appendAll(accountIds, deltas, balances, count);
+            } catch (UncheckedIOException e) {
+                output.failure("Error logging transfers: " + e.getMessage() + ". No transfers were applied.");
+                return false;
+            }
+            for (int a = 0; a < count; a++) {
+                double previousBalance = involved[a].getBalance();
+                involved[a].setBalance(balances[a]);
+                updateBalanceMonitoring(involved[a], previousBalance, balances[a], timestamp);
+            }
+        } finally {
+            accountLocks.unlockAll(taken);
+        }
+
+        synchronized (accountRelationships) {
+            for (int i = 0; i < transfers.size(); i++) {
+                accountRelationships.addToEdgeWeight(accountIds[from[i]], accountIds[to[i]],
+                        transfers.get(i).getAmount(), "transfer");
+            }
+        }
+        for (int a = 0; a < count; a++) {
+            if (deltas[a] < 0 && balances[a] < lowBalanceThreshold) {
+                output.warning("Account '" + accountIds[a] + "' has low balance: " + involved[a].getCurrency()
+                        + " " + String.format("%.2f", balances[a]));
+            }
+        }
+        compactBalanceLogIfDue();
+
+        if (transfers.size() == 1) {
+            BankAccount source = involved[from[0]];
+            BankAccount destination = involved[to[0]];
+            String credited = source.getCurrency().equals(destination.getCurrency()) ? ""
+                    : " (credited " + destination.getCurrency() + " " + String.format("%.2f", credits[0]) + ")";
+            output.success("Transferred " + source.getCurrency() + " "
+                    + String.format("%.2f", transfers.get(0).getAmount()) + " from '"
+                    + accountIds[from[0]] + "' to '" + accountIds[to[0]] + "'" + credited + ".");
+        } else {
+            output.success("Applied " + transfers.size() + " transfers across " + count + " accounts.");
+        }
+        return true;
+    }
+
+    /**
+     * Apply many debits in one pass with a single balance log write
+     * Debits are checked in order against running balances; one that would
+     * overdraw its account fails on its own and the rest still apply. Changes
+     * are summed per account under the stripe locks of every account
+     * involved, then written as one balance log record and forced to disk
+     * once, so posting thousands of debits costs one write.
+     * Time Complexity: O(n + accounts involved)
+     *
+     * @param accountIds Account to debit for each item
+     * @param amounts    Amount to debit for each item
+     * @return Per-item outcome
+     */
+    public BatchResult debitBatch(String[] accountIds, double[] amounts) {
+        long[] valueDays = new long[accountIds.length];
+        Arrays.fill(valueDays, LocalDate.now().toEpochDay());
+        return debitBatch(accountIds, amounts, valueDays, null);
+    }
+
+    /**
+     * Apply many debits in one pass, journaling each under its own date
+     *
+     * @param valueDays  Epoch day each debit belongs to
+     * @param currencies Currency each amount is in, or null if amounts are in the accounts' currencies;
+     *                   an item whose currency differs from its account's fails
+     */
+    private BatchResult debitBatch(String[] accountIds, double[] amounts, long[] valueDays, String[] currencies) {
+        if (accountIds.length != amounts.length || accountIds.length != valueDays.length) {
+            throw new IllegalArgumentException("Each debit needs one account and one amount");
+        }
+        long startTime = System.nanoTime();
+        BatchResult result = new BatchResult(accountIds.length);
+
+        // Pass 1: validate items and resolve accounts
+        AccountSlots slots = new AccountSlots();
+        int[] itemSlots = new int[accountIds.length];
+        for (int i = 0; i < accountIds.length; i++) {
+            itemSlots[i] = -1;
+            if (!(amounts[i] > 0) || Double.isInfinite(amounts[i])) {
+                result.markFailure(i, "Amount must be greater than 0");
+            } else if ((itemSlots[i] = slots.resolve(accountIds[i])) < 0) {
+                result.markFailure(i, "Account '" + accountIds[i] + "' not found");
+            } else if (currencies != null && !currencies[i].equals(slots.accounts[itemSlots[i]].getCurrency())) {
+                result.markFailure(i, "Amount is in " + currencies[i] + " but account '" + accountIds[i]
+                        + "' is held in " + slots.accounts[itemSlots[i]].getCurrency());
+                itemSlots[i] = -1;
+            }
+        }
+
+        int count = slots.size();
+        if (count == 0) {
+            result.setElapsedNanos(System.nanoTime() - startTime);
+            return result;
+        }
+        BankAccount[] involved = slots.accounts;
+        String[] ids = slots.ids();
+        double[] balances = new double[count];
+        double[] deltas = new double[count];
+
+        // Pass 2: apply against running balances under every account's lock
+        int[] taken = accountLocks.lockAll((Object[]) ids);
+        try {
+            for (int a = 0; a < count; a++) {
+                balances[a] = involved[a].getBalance();
+            }
+            for (int i = 0; i < accountIds.length; i++) {
+                int slot = itemSlots[i];
+                if (slot < 0) {
+                    continue;
+                }
+                if (balances[slot] < amounts[i]) {
+                    result.markFailure(i, "Insufficient funds in account '" + ids[slot] + "'");
+                    continue;
+                }
+                balances[slot] -= amounts[i];
+                deltas[slot] -= amounts[i];
+                result.markSuccess(i);
+            }
+            if (result.getSucceededCount() == 0) {
+                result.setElapsedNanos(System.nanoTime() - startTime);
+                return result;
+            }
+
+            // Only accounts that actually changed go into the log record
+            String[] changedIds = new String[count];
+            double[] changedDeltas = new double[count];
+            double[] changedBalances = new double[count];
+            int changed = 0;
+            for (int a = 0; a < count; a++) {
+                if (deltas[a] != 0) {
+                    changedIds[changed] = ids[a];
+                    changedDeltas[changed] = deltas[a];
+                    changedBalances[changed++] = balances[a];
+                }
+            }
+            // Log before applying; the stripe locks held since pass 2 keep a checkpoint
+            // from snapshotting the old balances and truncating this record in between
+            long timestamp;
+            try {
+                timestamp = balanceLog.appendAll(changedIds, changedDeltas, changedBalances, changed);
+                balanceLog.sync();
+            } catch (UncheckedIOException e) {
+                // Nothing is applied without a log record, so every item fails
+                output.failure("Error logging debits: " + e.getMessage() + ". No debits were applied.");
+                for (int i = 0; i < accountIds.length; i++) {
+                    if (result.isSuccess(i)) {
+                        result.markFailure(i, "Debit could not be logged");
+                    }
+                }
+                result.setElapsedNanos(System.nanoTime() - startTime);
+                return result;
+            }
+            for (int a = 0; a < count; a++) {
+                double previousBalance = involved[a].getBalance();
+                involved[a].setBalance(balances[a]);
+                updateBalanceMonitoring(involved[a], previousBalance, balances[a], timestamp);
+            }
+        } finally {
+            accountLocks.unlockAll(taken);
+        }
+
+        String[] journalIds = new String[result.getSucceededCount()];
+        long[] journalDays = new long[journalIds.length];
+        long[] journalCents = new long[journalIds.length];
+        int journaled = 0;
+        for (int i = 0; i < accountIds.length && journaled < journalIds.length; i++) {
+            if (itemSlots[i] >= 0 && result.isSuccess(i)) {
+                journalIds[journaled] = ids[itemSlots[i]];
+                journalDays[journaled] = valueDays[i];
+                journalCents[journaled++] = toCents(amounts[i]);
+            }
+        }
+        journalDebits(journalIds, journalDays, journalCents, journaled);
+
+        for (int a = 0; a < count; a++) {
+            if (deltas[a] < 0 && balances[a] < lowBalanceThreshold) {
+                output.warning("Account '" + ids[a] + "' has low balance: " + involved[a].getCurrency() + " " +
+                        String.format("%.2f", balances[a]));
+            }
+        }
+        compactBalanceLogIfDue();
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Debit each expenditure's account by its amount in one batch
+     * An expenditure in a currency other than its account's fails rather than
+     * being debited at face value; the debit journal and reconciliation
+     * compare amounts in the account's currency
+     *
+     * @return Per-expenditure outcome, in collection order
+     */
+    public BatchResult debitBatch(Collection<Expenditure> expenditures) {
+        String[] accountIds = new String[expenditures.size()];
+        double[] amounts = new double[accountIds.length];
+        long[] valueDays = new long[accountIds.length];
+        String[] currencies = new String[accountIds.length];
+        int index = 0;
+        for (Expenditure expenditure : expenditures) {
+            accountIds[index] = expenditure.getAccountId();
+            amounts[index] = expenditure.getAmount();
+            currencies[index] = expenditure.getCurrency();
+            valueDays[index++] = expenditure.getDate().toEpochDay();
+        }
+        return debitBatch(accountIds, amounts, valueDays, currencies);
+    }
+
+    // ================ BALANCE HISTORY ================
+
+    /**
+     * Get an account's balance as it was at a moment
+     * Time Complexity: O(log n) in the number of recorded changes
+     *
+     * @return The balance, or NaN if the account's history does not reach back that far
+     */
+    public double getBalanceAt(String accountId, LocalDateTime time) {
+        Timeline timeline = balanceHistory.get(accountId);
+        return timeline == null ? Double.NaN
+                : timeline.valueAt(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    /**
+     * Get an account's closing balance on a date
+     *
+     * @return The balance at the end of the day, or NaN if unknown
+     */
+    public double getBalanceOn(String accountId, LocalDate date) {
+        return getBalanceAt(accountId, date.plusDays(1).atStartOfDay().minusNanos(1));
+    }
+
+    /**
+     * Get an account's closing balance for each day in a range, in one pass over its history
+     *
+     * @return One balance per day from startDate to endDate inclusive, NaN where unknown
+     */
+    public double[] getDailyBalances(String accountId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date cannot be before start date");
+        }
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay()) + 1;
+        Timeline timeline = balanceHistory.get(accountId);
+        if (timeline == null) {
+            double[] unknown = new double[days];
+            Arrays.fill(unknown, Double.NaN);
+            return unknown;
+        }
+
+        ZoneId zone = ZoneId.systemDefault();
+        long[] dayEnds = new long[days];
+        for (int i = 0; i < days; i++) {
+            dayEnds[i] = startDate.plusDays(i + 1).atStartOfDay(zone).toInstant().toEpochMilli() - 1;
+        }
+        return timeline.valuesAt(dayEnds);
+    }
+
+    /**
+     * Display an account's closing balance for each day in a range
+     */
+    public void displayBalanceHistory(String accountId, LocalDate startDate, LocalDate endDate) {
+        BankAccount account = findAccount(accountId);
+        if (account == null) {
+            System.out.println("Account not found.");
+            return;
+        }
+
+        double[] balances = getDailyBalances(accountId, startDate, endDate);
+        System.out.println("\n=== BALANCE HISTORY: " + accountId + " ===");
+        for (int i = 0; i < balances.length; i++) {
+            if (Double.isNaN(balances[i])) {
+                System.out.printf("%s | %15s%n", startDate.plusDays(i), "no history");
+            } else {
+                System.out.printf("%s | %s %,11.2f%n", startDate.plusDays(i), account.getCurrency(), balances[i]);
+            }
+        }
+        System.out.println("==================================");
+    }
+
+    /**
+     * Get total balance across all accounts, in the base currency (GHS)
+     * Read from the running totals, so no accounts are scanned
+     * Time Complexity: O(c) where c is the number of currencies held
      */
     public double getTotalBalance() {
-        double total = 0.0;
-        CustomLinkedList<BankAccount> accountList = getAllAccounts();
+        return getTotalBalance(exchangeRates.getBaseCurrency());
+    }
 
-        for (int i = 0; i < accountList.size(); i++) {
-            total += accountList.get(i).getBalance();
+    /**
+     * Get total balance across all accounts, converted to a currency at today's rates
+     * Time Complexity: O(c) where c is the number of currencies held
+     *
+     * @throws IllegalArgumentException if a held currency has no rate to the target
+     */
+    public double getTotalBalance(String currency) {
+        return convertTotals(balanceCentsByCurrency, BankAccount.normalizeCurrency(currency));
+    }
+
+    /**
+     * Get the total balance of accounts of one type, in the base currency
+     * Time Complexity: O(c) where c is the number of currencies held
+     */
+    public double getTotalBalanceByType(String accountType) {
+        ConcurrentCustomHashMap<String, LongAdder> totals = accountType == null ? null
+                : balanceCentsByType.get(accountType);
+        return totals == null ? 0.0 : convertTotals(totals, exchangeRates.getBaseCurrency());
+    }
+
+    /**
+     * Get the total balance for every account type, in the base currency
+     * Time Complexity: O(t * c) for t account types and c currencies
+     */
+    public CustomHashMap<String, Double> getBalanceTotalsByType() {
+        CustomHashMap<String, Double> totals = new CustomHashMap<>();
+        for (CustomHashMap.Entry<String, ConcurrentCustomHashMap<String, LongAdder>> entry
+                : balanceCentsByType.entries()) {
+            totals.put(entry.getKey(), convertTotals(entry.getValue(), exchangeRates.getBaseCurrency()));
+        }
+        return totals;
+    }
+
+    /**
+     * Get the total balance held in each currency, unconverted
+     * Time Complexity: O(c) where c is the number of currencies held
+     */
+    public CustomHashMap<String, Double> getBalanceTotalsByCurrency() {
+        CustomHashMap<String, Double> totals = new CustomHashMap<>();
+        for (CustomHashMap.Entry<String, LongAdder> entry : balanceCentsByCurrency.entries()) {
+            totals.put(entry.getKey(), entry.getValue().sum() / 100.0);
+        }
+        return totals;
+    }
+
+    /**
+     * Convert per-currency running totals to one currency and add them up
+     * The sums and their rates are gathered into primitive arrays first, so
+     * the total is a single multiply-add loop
+     */
+    private double convertTotals(ConcurrentCustomHashMap<String, LongAdder> centsByCurrency, String currency) {
+        int capacity = centsByCurrency.size() + 1;
+        String[] currencies = new String[capacity];
+        long[] cents = new long[capacity];
+        int count = 0;
+        for (CustomHashMap.Entry<String, LongAdder> entry : centsByCurrency.entries()) {
+            if (count == currencies.length) { // A currency was added while gathering
+                currencies = Arrays.copyOf(currencies, count * 2);
+                cents = Arrays.copyOf(cents, count * 2);
+            }
+            currencies[count] = entry.getKey();
+            cents[count++] = entry.getValue().sum();
+        }
+
+        double[] rates = new double[count];
+        exchangeRates.ratesOn(currencies, count, currency, LocalDate.now().toEpochDay(), rates);
+        double total = 0.0;
+        for (int i = 0; i < count; i++) {
+            total += cents[i] * rates[i];
         }
+        return total / 100.0;
+    }
 
-        return total;
+    /**
+     * Get the number of accounts below the low balance threshold
+     * Time Complexity: O(1)
+     */
+    public int getLowBalanceCount() {
+        return (int) lowBalanceCount.sum();
     }
 
     /**
      * Validate account for expenditure
      */
     public boolean validateAccountForExpenditure(String accountId, double amount) {
-        BankAccount account = accounts.get(accountId);
+        BankAccount account = findAccount(accountId);
         if (account == null) {
-            System.out.println("✗ Account '" + accountId + "' does not exist.");
+            output.failure("Account '" + accountId + "' does not exist.");
             return false;
         }
 
         if (account.getBalance() < amount) {
-            System.out.println("✗ Insufficient funds in account '" + accountId + "'.");
+            output.failure("Insufficient funds in account '" + accountId + "'.");
             return false;
         }
 
@@ -271,62 +1268,108 @@ public class BankAccountService {
     }
 
     /**
-     * Update balance monitoring system
+     * Update balance monitoring for a committed balance change
+     * Called under the account's stripe lock; keeps the low balance set and the
+     * balance index current, extends its balance history and publishes the
+     * change for threshold alerts
+     * Time Complexity: O(log n) plus one check per matching subscription
+     */
+    private void updateBalanceMonitoring(BankAccount account, double previousBalance, double newBalance,
+            long timestamp) {
+        balanceHistory.record(account.getAccountId(), timestamp, newBalance);
+        adjustTotals(account, toCents(newBalance) - toCents(previousBalance));
+        trackLowBalance(account, newBalance);
+        balanceIndex.move(account.getAccountId(), previousBalance, newBalance, account);
+        balanceEvents.publish(account.getAccountId(), previousBalance, newBalance);
+    }
+
+    /**
+     * Add the account to, or remove it from, the low balance set
+     * Membership is only written when it changes
+     */
+    private void trackLowBalance(BankAccount account, double balance) {
+        boolean low = balance < lowBalanceThreshold;
+        if (low != lowBalanceAccounts.containsKey(account.getAccountId())) {
+            if (low) {
+                lowBalanceAccounts.put(account.getAccountId(), account);
+                lowBalanceCount.increment();
+            } else {
+                lowBalanceAccounts.remove(account.getAccountId());
+                lowBalanceCount.decrement();
+            }
+        }
+    }
+
+    /**
+     * Add a balance change to the running totals
+     * Time Complexity: O(1)
+     */
+    private void adjustTotals(BankAccount account, long deltaCents) {
+        if (deltaCents == 0) {
+            return;
+        }
+        balanceCentsByCurrency.computeIfAbsent(account.getCurrency(), currency -> new LongAdder()).add(deltaCents);
+        balanceCentsByType.computeIfAbsent(typeKey(account), type -> new ConcurrentCustomHashMap<>())
+                .computeIfAbsent(account.getCurrency(), currency -> new LongAdder()).add(deltaCents);
+    }
+
+    private static String typeKey(BankAccount account) {
+        return account.getAccountType() != null ? account.getAccountType() : "Unspecified";
+    }
+
+    /**
+     * Round an amount to whole pesewas, the unit the running totals are kept in
      */
-    private void updateBalanceMonitoring(String accountId, double newBalance) {
-        // In a more sophisticated implementation, we would update the heap
-        // For now, we'll recreate it when needed
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
     }
 
     /**
      * Load accounts from file
+     * Lines are split and decoded in parallel chunks; accounts are then added in file order
+     *
+     * @return true if default accounts were loaded instead, and still need saving
      */
-    private void loadAccountsFromFile() {
+    private boolean loadAccountsFromFile() {
         try {
             if (Files.exists(Paths.get(ACCOUNTS_FILE))) {
-                CustomLinkedList<String> lines = readLinesFromFile(ACCOUNTS_FILE);
+                ColumnBuffer rows = lineParser.parse(Paths.get(ACCOUNTS_FILE), 4);
+                double[] balances = rows.getAmounts(2);
+                accounts.ensureCapacity(accounts.size() + rows.size());
 
-                for (int i = 0; i < lines.size(); i++) {
-                    String line = lines.get(i).trim();
-                    // Skip comments and empty lines
-                    if (!line.isEmpty() && !line.startsWith("#")) {
-                        parseAccountFromLine(line);
-                    }
+                for (int i = 0; i < rows.size(); i++) {
+                    addAccountFromRow(rows, i, balances[i]);
                 }
 
                 System.out.println("Loaded " + accounts.size() + " accounts from file.");
-            } else {
-                System.out.println("Accounts file not found. Loading default accounts.");
-                loadDefaultAccounts();
+                return false;
             }
+            System.out.println("Accounts file not found. Loading default accounts.");
+            loadDefaultAccounts();
         } catch (Exception e) {
             System.out.println("Error loading accounts: " + e.getMessage());
             loadDefaultAccounts();
         }
+        return true;
     }
 
     /**
-     * Parse account from file line
+     * Add a parsed account row to the service
      */
-    private void parseAccountFromLine(String line) {
-        try {
-            String[] parts = line.split("\\|");
-            if (parts.length >= 4) {
-                String accountId = parts[0].trim();
-                String bankName = parts[1].trim();
-                double balance = Double.parseDouble(parts[2].trim());
-                String accountType = parts[3].trim();
+    private void addAccountFromRow(ColumnBuffer rows, int row, double balance) {
+        if (Double.isNaN(balance)) {
+            System.out.println("Error parsing account line: " + rows.get(row, 0) + "|" + rows.get(row, 1)
+                    + "|" + rows.get(row, 2) + "|" + rows.get(row, 3));
+            return;
+        }
 
-                BankAccount account = new BankAccount(accountId, bankName, balance, accountType);
-                accounts.put(accountId, account);
+        String accountId = rows.get(row, 0);
+        BankAccount account = LedgerConverter.newAccount(accountId, rows.get(row, 1), balance, rows.get(row, 3));
+        accounts.put(accountId, account);
 
-                // Add to monitoring systems
-                balanceMonitor.insert((int) balance, accountId);
-                accountRelationships.addVertex(accountId);
-            }
-        } catch (Exception e) {
-            System.out.println("Error parsing account line: " + line);
-        }
+        // Add to monitoring systems
+        balanceMonitor.insert((int) balance, accountId);
+        accountRelationships.addVertex(accountId);
     }
 
     /**
@@ -334,18 +1377,16 @@ public class BankAccountService {
      */
     private void loadAccountsIntoList(CustomLinkedList<BankAccount> accountList) {
         try {
-            if (Files.exists(Paths.get(ACCOUNTS_FILE))) {
-                CustomLinkedList<String> lines = readLinesFromFile(ACCOUNTS_FILE);
-
-                for (int i = 0; i < lines.size(); i++) {
-                    String line = lines.get(i).trim();
-                    if (!line.isEmpty() && !line.startsWith("#")) {
-                        BankAccount account = parseAccountFromLineToObject(line);
-                        if (account != null) {
-                            accountList.add(account);
-                        }
-                    }
+            ColumnBuffer rows = lineParser.parse(Paths.get(ACCOUNTS_FILE), 4);
+            double[] balances = rows.getAmounts(2);
+
+            for (int i = 0; i < rows.size(); i++) {
+                if (Double.isNaN(balances[i])) {
+                    System.out.println("Error parsing account line: " + rows.get(i, 0));
+                    continue;
                 }
+                accountList.add(LedgerConverter.newAccount(rows.get(i, 0), rows.get(i, 1), balances[i],
+                        rows.get(i, 3)));
             }
         } catch (Exception e) {
             System.out.println("Error loading accounts into list: " + e.getMessage());
@@ -353,59 +1394,41 @@ public class BankAccountService {
     }
 
     /**
-     * Parse account from line to object
+     * Save all accounts to file
+     * Called when the balance log is compacted, not on every transaction
+     *
+     * @return true if the snapshot was written
      */
-    private BankAccount parseAccountFromLineToObject(String line) {
+    private boolean saveAllAccountsToFile() {
         try {
-            String[] parts = line.split("\\|");
-            if (parts.length >= 4) {
-                String accountId = parts[0].trim();
-                String bankName = parts[1].trim();
-                double balance = Double.parseDouble(parts[2].trim());
-                String accountType = parts[3].trim();
-
-                return new BankAccount(accountId, bankName, balance, accountType);
-            }
-        } catch (Exception e) {
-            System.out.println("Error parsing account line: " + line);
-        }
-        return null;
-    }
-
-    /**
-     * Save account to file
-     */
-    private void saveAccountToFile(BankAccount account) {
-        try (FileWriter writer = new FileWriter(ACCOUNTS_FILE, true)) {
-            writer.write(String.format("%s|%s|%.2f|%s%n",
-                    account.getAccountId(),
-                    account.getBankName(),
-                    account.getBalance(),
-                    account.getAccountType()));
+            SnapshotWriter.write(Paths.get(ACCOUNTS_FILE), writer -> writeAccounts(writer));
+            return true;
         } catch (IOException e) {
-            System.out.println("Error saving account to file: " + e.getMessage());
+            output.failure("Error saving accounts to file: " + e.getMessage());
+            return false;
         }
     }
 
     /**
-     * Save all accounts to file
+     * Write the accounts snapshot content
      */
-    private void saveAllAccountsToFile() {
-        try (FileWriter writer = new FileWriter(ACCOUNTS_FILE)) {
-            writer.write("# Bank Accounts\n");
-            writer.write("# Format: AccountID|BankName|Balance|AccountType\n");
+    private void writeAccounts(Writer writer) throws IOException {
+        writer.write("# Bank Accounts\n");
+        writer.write("# Format: AccountID|BankName|Balance|AccountType|Currency\n");
 
-            // Use the new iteration support to directly access all accounts
-            for (CustomHashMap.Entry<String, BankAccount> entry : accounts.entries()) {
-                BankAccount account = entry.getValue();
-                writer.write(String.format("%s|%s|%.2f|%s%n",
-                        account.getAccountId(),
-                        account.getBankName(),
-                        account.getBalance(),
-                        account.getAccountType()));
-            }
-        } catch (IOException e) {
-            System.out.println("Error saving accounts to file: " + e.getMessage());
+        // Use the new iteration support to directly access all accounts
+        for (CustomHashMap.Entry<String, BankAccount> entry : accounts.entries()) {
+            BankAccount account = entry.getValue();
+            writer.write(account.getAccountId());
+            writer.write('|');
+            writer.write(account.getBankName());
+            writer.write('|');
+            writer.write(FieldParser.formatAmount(account.getBalance()));
+            writer.write('|');
+            writer.write(account.getAccountType());
+            writer.write('|');
+            writer.write(account.getCurrency());
+            writer.write(System.lineSeparator());
         }
     }
 
@@ -419,22 +1442,6 @@ public class BankAccountService {
         addAccount("ACC004", "Zenith Bank", 3000.0, "Petty Cash");
     }
 
-    /**
-     * Helper method to read lines from file
-     */
-    private CustomLinkedList<String> readLinesFromFile(String filename) throws IOException {
-        CustomLinkedList<String> lines = new CustomLinkedList<>();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lines.add(line);
-            }
-        }
-
-        return lines;
-    }
-
     // ================ BINARY SEARCH ALGORITHMS ================
 
     /**
@@ -444,42 +1451,8 @@ public class BankAccountService {
      * @return A sorted list of bank accounts by balance
      */
     public CustomLinkedList<BankAccount> sortAccountsByBalance(boolean ascending) {
-        CustomLinkedList<BankAccount> list = getAllAccounts();
-        int size = list.size();
-        BankAccount[] array = new BankAccount[size];
-        
-        // Convert list to array
-        for (int i = 0; i < size; i++) {
-            array[i] = list.get(i);
-        }
-        
-        // Bubble sort
-        for (int i = 0; i < size - 1; i++) {
-            for (int j = 0; j < size - i - 1; j++) {
-                boolean shouldSwap;
-                
-                if (ascending) {
-                    shouldSwap = array[j].getBalance() > array[j + 1].getBalance();
-                } else {
-                    shouldSwap = array[j].getBalance() < array[j + 1].getBalance();
-                }
-                
-                if (shouldSwap) {
-                    // Swap elements
-                    BankAccount temp = array[j];
-                    array[j] = array[j + 1];
-                    array[j + 1] = temp;
-                }
-            }
-        }
-        
-        // Convert back to CustomLinkedList
-        CustomLinkedList<BankAccount> result = new CustomLinkedList<>();
-        for (BankAccount account : array) {
-            result.add(account);
-        }
-        
-        return result;
+        // Read straight from the maintained balance index; nothing is sorted here
+        return balanceIndex.ordered(ascending);
     }
 
     /**
@@ -528,77 +1501,15 @@ public class BankAccountService {
     }
 
     /**
-     * Binary search for accounts within balance range
+     * Get accounts within a balance range from the balance index
      * Time Complexity: O(log n + k) where k is number of results
      * 
      * @param minBalance Minimum balance (inclusive)
      * @param maxBalance Maximum balance (inclusive)
-     * @return List of accounts within the balance range
+     * @return List of accounts within the balance range, in ascending balance order
      */
     public CustomLinkedList<BankAccount> binarySearchBalanceRange(double minBalance, double maxBalance) {
-        CustomLinkedList<BankAccount> results = new CustomLinkedList<>();
-        CustomLinkedList<BankAccount> sortedList = sortAccountsByBalance(true);
-        
-        if (sortedList.isEmpty()) {
-            return results;
-        }
-        
-        // Find first occurrence >= minBalance
-        int startIndex = findFirstGreaterOrEqualBalance(sortedList, minBalance);
-        
-        // Find last occurrence <= maxBalance
-        int endIndex = findLastLessOrEqualBalance(sortedList, maxBalance);
-        
-        // Add all accounts in range
-        for (int i = startIndex; i <= endIndex && i < sortedList.size(); i++) {
-            results.add(sortedList.get(i));
-        }
-        
-        return results;
-    }
-
-    /**
-     * Binary search helper: Find first account with balance >= target
-     */
-    private int findFirstGreaterOrEqualBalance(CustomLinkedList<BankAccount> sortedList, double target) {
-        int left = 0, right = sortedList.size() - 1;
-        int result = sortedList.size();
-        
-        while (left <= right) {
-            int mid = left + (right - left) / 2;
-            double midBalance = sortedList.get(mid).getBalance();
-            
-            if (midBalance >= target) {
-                result = mid;
-                right = mid - 1;
-            } else {
-                left = mid + 1;
-            }
-        }
-        
-        return result;
-    }
-
-    /**
-     * Binary search helper: Find last account with balance <= target
-     */
-    private int findLastLessOrEqualBalance(CustomLinkedList<BankAccount> sortedList, double target) {
-        int left = 0, right = sortedList.size() - 1;
-        int result = -1;
-        
-        while (left <= right) {
-            int mid = left + (right - left) / 2;
-            double midBalance = sortedList.get(mid).getBalance();
-            
-            if (midBalance <= target) {
-                result = mid;
-                left = mid + 1;
-            } else {
-                right = mid - 1;
-            }
-        }
-        
-        return result;
+        return balanceIndex.range(minBalance, maxBalance);
     }
 
     /**
@@ -636,59 +1547,29 @@ public class BankAccountService {
     }
 
     /**
-     * Get accounts with balance above a threshold using binary search
+     * Get accounts with balance at or above a threshold from the balance index
      * Time Complexity: O(log n + k) where k is number of results
      * 
      * @param threshold The minimum balance threshold
      * @return List of accounts with balance above threshold
      */
     public CustomLinkedList<BankAccount> getAccountsAboveThreshold(double threshold) {
-        CustomLinkedList<BankAccount> results = new CustomLinkedList<>();
-        CustomLinkedList<BankAccount> sortedList = sortAccountsByBalance(true);
-        
-        if (sortedList.isEmpty()) {
-            return results;
-        }
-        
-        // Find first account with balance >= threshold
-        int startIndex = findFirstGreaterOrEqualBalance(sortedList, threshold);
-        
-        // Add all accounts from this index onwards
-        for (int i = startIndex; i < sortedList.size(); i++) {
-            results.add(sortedList.get(i));
-        }
-        
-        return results;
+        return balanceIndex.atLeast(threshold);
     }
 
     /**
-     * Get accounts with balance below a threshold using binary search
-     * Time Complexity: O(log n + k) where k is number of results
+     * Get accounts with balance at or below a threshold from the balance index
+     * Time Complexity: O(k) where k is number of results
      * 
      * @param threshold The maximum balance threshold
      * @return List of accounts with balance below threshold
      */
     public CustomLinkedList<BankAccount> getAccountsBelowThreshold(double threshold) {
-        CustomLinkedList<BankAccount> results = new CustomLinkedList<>();
-        CustomLinkedList<BankAccount> sortedList = sortAccountsByBalance(true);
-        
-        if (sortedList.isEmpty()) {
-            return results;
-        }
-        
-        // Find last account with balance <= threshold
-        int endIndex = findLastLessOrEqualBalance(sortedList, threshold);
-        
-        // Add all accounts from start to this index
-        for (int i = 0; i <= endIndex && i < sortedList.size(); i++) {
-            results.add(sortedList.get(i));
-        }
-        
-        return results;
+        return balanceIndex.atMost(threshold);
     }
 
     /**
-     * Performance comparison between linear and binary search for balance threshold
+     * Performance comparison between a linear scan and the balance index for a threshold
      * 
      * @param threshold The balance threshold to search for
      */
@@ -710,21 +1591,169 @@ public class BankAccountService {
         endTime = System.nanoTime();
         long linearTime = endTime - startTime;
         
-        // Test binary search
+        // Test balance index
         startTime = System.nanoTime();
-        CustomLinkedList<BankAccount> binaryResults = getAccountsAboveThreshold(threshold);
+        CustomLinkedList<BankAccount> indexedResults = getAccountsAboveThreshold(threshold);
         endTime = System.nanoTime();
-        long binaryTime = endTime - startTime;
+        long indexedTime = endTime - startTime;
         
         System.out.println("Linear Search Time: " + linearTime + " nanoseconds");
-        System.out.println("Binary Search Time: " + binaryTime + " nanoseconds");
-        System.out.println("Results count - Linear: " + linearResults.size() + ", Binary: " + binaryResults.size());
+        System.out.println("Balance Index Time: " + indexedTime + " nanoseconds");
+        System.out.println("Results count - Linear: " + linearResults.size() + ", Indexed: " + indexedResults.size());
         
-        if (linearTime > 0) {
-            double speedup = (double) linearTime / binaryTime;
-            System.out.println("Binary search is " + String.format("%.2f", speedup) + "x faster");
+        if (indexedTime > 0) {
+            double speedup = (double) linearTime / indexedTime;
+            System.out.println("Balance index is " + String.format("%.2f", speedup) + "x faster");
         }
         
         System.out.println("===============================================\n");
     }
+
+    /**
+     * Multi-threaded debit stress test
+     * Runs on a scratch service whose files live in a temporary directory, so
+     * debits go through the same locking, balance log and monitoring as real
+     * ones without touching this service's accounts or files.
+     *
+     * Phase 1 gives every thread its own accounts and measures debits per
+     * second. Phase 2 points every thread at one account with more attempts
+     * than the balance covers and checks that it is never overdrawn.
+     *
+     * @param threads         Number of worker threads
+     * @param debitsPerThread Debits each thread attempts per phase
+     */
+    public void performanceComparisonConcurrentDebits(int threads, int debitsPerThread) {
+        System.out.println("\n=== CONCURRENT DEBIT STRESS TEST ===");
+        System.out.println("Threads: " + threads + ", debits per thread: " + debitsPerThread
+                + ", lock stripes: " + accountLocks.getStripeCount());
+
+        Path scratchDirectory;
+        try {
+            scratchDirectory = Files.createTempDirectory("debit-stress");
+            Files.createFile(scratchDirectory.resolve("accounts.txt")); // Start without default accounts
+        } catch (IOException e) {
+            System.out.println("Error creating scratch directory: " + e.getMessage());
+            return;
+        }
+        BankAccountService scratch = new BankAccountService(exchangeRates, scratchDirectory);
+        try {
+            scratch.runConcurrentDebits(threads, debitsPerThread);
+        } finally {
+            scratch.close();
+            deleteScratchDirectory(scratchDirectory);
+        }
+        System.out.println("===============================================\n");
+    }
+
+    /**
+     * Body of the stress test, run on the scratch service
+     */
+    private void runConcurrentDebits(int threads, int debitsPerThread) {
+        final int accountsPerThread = 8;
+        final double amount = 0.25;
+        BankAccount[][] owned = new BankAccount[threads][accountsPerThread];
+        for (int t = 0; t < threads; t++) {
+            for (int a = 0; a < accountsPerThread; a++) {
+                String accountId = "BENCH-" + t + "-" + a;
+                addAccount(accountId, "Benchmark", debitsPerThread * amount, "Test");
+                owned[t][a] = accounts.get(accountId);
+            }
+        }
+        AtomicInteger succeeded = new AtomicInteger();
+        long elapsed = runConcurrently(threads, t -> {
+            int ok = 0;
+            for (int i = 0; i < debitsPerThread; i++) {
+                if (!Double.isNaN(applyDebit(owned[t][i % accountsPerThread], amount))) {
+                    ok++;
+                }
+            }
+            succeeded.addAndGet(ok);
+        });
+        System.out.printf("Separate accounts: %,d debits in %.2f ms (%,.0f debits/sec)%n",
+                succeeded.get(), elapsed / 1_000_000.0, succeeded.get() / (elapsed / 1_000_000_000.0));
+
+        // Enough funds for half of all attempts
+        int affordable = threads * debitsPerThread / 2;
+        addAccount("BENCH-SHARED", "Benchmark", affordable * amount, "Test");
+        BankAccount shared = accounts.get("BENCH-SHARED");
+        succeeded.set(0);
+        elapsed = runConcurrently(threads, t -> {
+            int ok = 0;
+            for (int i = 0; i < debitsPerThread; i++) {
+                if (!Double.isNaN(applyDebit(shared, amount))) {
+                    ok++;
+                }
+            }
+            succeeded.addAndGet(ok);
+        });
+        System.out.printf("Shared account: %,d of %,d debits accepted in %.2f ms (%,.0f attempts/sec)%n",
+                succeeded.get(), threads * debitsPerThread, elapsed / 1_000_000.0,
+                threads * debitsPerThread / (elapsed / 1_000_000_000.0));
+
+        boolean consistent = succeeded.get() == affordable && shared.getBalance() == 0.0;
+        System.out.println(consistent ? "✓ No overdraft: final balance GHS 0.00"
+                : "✗ Inconsistent result: final balance GHS " + String.format("%.2f", shared.getBalance()));
+    }
+
+    /**
+     * Remove the stress test's temporary files
+     */
+    private static void deleteScratchDirectory(Path directory) {
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.out.println("Error removing scratch directory: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Worker body for runConcurrently; receives the thread number
+     */
+    private interface Worker {
+        void run(int thread);
+    }
+
+    /**
+     * Start all workers together and wait for them to finish
+     *
+     * @return Wall-clock time in nanoseconds
+     */
+    private static long runConcurrently(int threads, Worker worker) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    worker.run(thread);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        try {
+            ready.await();
+            long startTime = System.nanoTime();
+            start.countDown();
+            done.await();
+            return System.nanoTime() - startTime;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
@@ -0,0 +1,108 @@
+package com.nkwarealestate.expenditure.services;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+
+/**
+ * Output sink that collects messages in memory instead of printing them
+ * Keeps counts for every message kind but stores at most a fixed number of
+ * messages so long batch runs cannot grow the buffer without bound
+ */
+public class BufferedOutputSink implements OutputSink {
+
+    private static final int DEFAULT_MAX_MESSAGES = 1000;
+
+    private final CustomLinkedList<String> messages;
+    private final int maxMessages;
+    private int successCount;
+    private int warningCount;
+    private int failureCount;
+    private int droppedCount;
+
+    public BufferedOutputSink() {
+        this(DEFAULT_MAX_MESSAGES);
+    }
+
+    public BufferedOutputSink(int maxMessages) {
+        this.messages = new CustomLinkedList<>();
+        this.maxMessages = maxMessages;
+    }
+
+    @Override
+    public synchronized void info(String message) {
+        store("INFO: " + message);
+    }
+
+    @Override
+    public synchronized void success(String message) {
+        successCount++;
+        store("OK: " + message);
+    }
+
+    @Override
+    public synchronized void warning(String message) {
+        warningCount++;
+        store("WARNING: " + message);
+    }
+
+    @Override
+    public synchronized void failure(String message) {
+        failureCount++;
+        store("FAILED: " + message);
+    }
+
+    /**
+     * Keep the message if there is room, otherwise only count it
+     */
+    private void store(String message) {
+        if (messages.size() < maxMessages) {
+            messages.add(message);
+        } else {
+            droppedCount++;
+        }
+    }
+
+    /**
+     * Print the collected messages and clear the buffer
+     */
+    public synchronized void flushTo(OutputSink target) {
+        for (int i = 0; i < messages.size(); i++) {
+            target.info(messages.get(i));
+        }
+        if (droppedCount > 0) {
+            target.info("(" + droppedCount + " more message(s) not buffered)");
+        }
+        clear();
+    }
+
+    /**
+     * Discard all buffered messages and counters
+     */
+    public synchronized void clear() {
+        messages.clear();
+        successCount = 0;
+        warningCount = 0;
+        failureCount = 0;
+        droppedCount = 0;
+    }
+
+    // Getters
+    public synchronized CustomLinkedList<String> getMessages() {
+        CustomLinkedList<String> copy = new CustomLinkedList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            copy.add(messages.get(i));
+        }
+        return copy;
+    }
+
+    public synchronized int getSuccessCount() {
+        return successCount;
+    }
+
+    public synchronized int getWarningCount() {
+        return warningCount;
+    }
+
+    public synchronized int getFailureCount() {
+        return failureCount;
+    }
+}
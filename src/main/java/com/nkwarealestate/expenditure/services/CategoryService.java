@@ -1,10 +1,15 @@
 package com.nkwarealestate.expenditure.services;
 
+import com.nkwarealestate.expenditure.models.BatchResult;
 import com.nkwarealestate.expenditure.datastructures.CustomSet;
 import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.storage.ColumnBuffer;
+import com.nkwarealestate.expenditure.storage.ParallelChunkParser;
+import com.nkwarealestate.expenditure.storage.SnapshotWriter;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collection;
 
 /**
  * Service class for managing expenditure categories
@@ -14,6 +19,7 @@ public class CategoryService {
 
     private CustomSet<String> categories;
     private final String CATEGORIES_FILE = "data/categories.txt";
+    private final ParallelChunkParser lineParser = new ParallelChunkParser();
 
     public CategoryService() {
         this.categories = new CustomSet<>();
@@ -42,6 +48,43 @@ public class CategoryService {
         return true;
     }
 
+    /**
+     * Import categories in one batch
+     * Existing names are rejected, so importing the same file twice adds nothing.
+     * New names are appended to the categories file with a single write.
+     *
+     * @param imported Category names to add, in order
+     * @return Per-name outcome
+     */
+    public BatchResult importCategories(Collection<String> imported) {
+        long startTime = System.nanoTime();
+        BatchResult result = new BatchResult(imported.size());
+        StringBuilder added = new StringBuilder();
+        int index = 0;
+
+        for (String category : imported) {
+            String normalizedCategory = category == null ? "" : category.trim();
+            if (normalizedCategory.isEmpty()) {
+                result.markFailure(index++, "Category name cannot be empty");
+            } else if (!categories.add(normalizedCategory)) {
+                result.markFailure(index++, "Category '" + normalizedCategory + "' already exists");
+            } else {
+                added.append(normalizedCategory).append('\n');
+                result.markSuccess(index++);
+            }
+        }
+
+        if (added.length() > 0) {
+            try (FileWriter writer = new FileWriter(CATEGORIES_FILE, true)) {
+                writer.write(added.toString());
+            } catch (IOException e) {
+                System.out.println("Error saving categories to file: " + e.getMessage());
+            }
+        }
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
     /**
      * Remove a category
      */
@@ -177,14 +220,10 @@ public class CategoryService {
     private void loadCategoriesFromFile() {
         try {
             if (Files.exists(Paths.get(CATEGORIES_FILE))) {
-                CustomLinkedList<String> lines = readLinesFromFile(CATEGORIES_FILE);
-
-                for (int i = 0; i < lines.size(); i++) {
-                    String line = lines.get(i).trim();
-                    // Skip comments and empty lines
-                    if (!line.isEmpty() && !line.startsWith("#")) {
-                        categories.add(line);
-                    }
+                // Comments and empty lines are skipped by the parser
+                ColumnBuffer rows = lineParser.parse(Paths.get(CATEGORIES_FILE), 1);
+                for (int i = 0; i < rows.size(); i++) {
+                    categories.add(rows.get(i, 0));
                 }
 
                 System.out.println("Loaded " + categories.size() + " categories from file.");
@@ -201,16 +240,9 @@ public class CategoryService {
      */
     private void loadCategoriesIntoList(CustomLinkedList<String> categoryList) {
         try {
-            if (Files.exists(Paths.get(CATEGORIES_FILE))) {
-                CustomLinkedList<String> lines = readLinesFromFile(CATEGORIES_FILE);
-
-                for (int i = 0; i < lines.size(); i++) {
-                    String line = lines.get(i).trim();
-                    // Skip comments and empty lines
-                    if (!line.isEmpty() && !line.startsWith("#")) {
-                        categoryList.add(line);
-                    }
-                }
+            ColumnBuffer rows = lineParser.parse(Paths.get(CATEGORIES_FILE), 1);
+            for (int i = 0; i < rows.size(); i++) {
+                categoryList.add(rows.get(i, 0));
             }
         } catch (Exception e) {
             System.out.println("Error loading categories into list: " + e.getMessage());
@@ -232,40 +264,27 @@ public class CategoryService {
      * Save all categories to file (for removal operations)
      */
     private void saveAllCategoriesToFile() {
-        try (FileWriter writer = new FileWriter(CATEGORIES_FILE)) {
-            writer.write("# Categories\n");
-            writer.write("# Format: CategoryName\n");
-
-            CustomLinkedList<String> categoryList = new CustomLinkedList<>();
-            loadCategoriesIntoList(categoryList);
+        // Keep the file order by reading the current file before it is replaced
+        CustomLinkedList<String> categoryList = new CustomLinkedList<>();
+        loadCategoriesIntoList(categoryList);
 
-            for (int i = 0; i < categoryList.size(); i++) {
-                String category = categoryList.get(i);
-                if (categories.contains(category)) {
-                    writer.write(category + "\n");
+        try {
+            SnapshotWriter.write(Paths.get(CATEGORIES_FILE), writer -> {
+                writer.write("# Categories\n");
+                writer.write("# Format: CategoryName\n");
+
+                for (int i = 0; i < categoryList.size(); i++) {
+                    String category = categoryList.get(i);
+                    if (categories.contains(category)) {
+                        writer.write(category + "\n");
+                    }
                 }
-            }
+            });
         } catch (IOException e) {
             System.out.println("Error saving categories to file: " + e.getMessage());
         }
     }
 
-    /**
-     * Helper method to read lines from file
-     */
-    private CustomLinkedList<String> readLinesFromFile(String filename) throws IOException {
-        CustomLinkedList<String> lines = new CustomLinkedList<>();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                lines.add(line);
-            }
-        }
-
-        return lines;
-    }
-
     // ================ BINARY SEARCH ALGORITHMS ================
 
     /**
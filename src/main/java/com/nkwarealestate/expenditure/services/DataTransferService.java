@@ -0,0 +1,364 @@
+package com.nkwarealestate.expenditure.services;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.models.BatchResult;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.Phase;
+import com.nkwarealestate.expenditure.models.Receipt;
+import com.nkwarealestate.expenditure.models.TransferResult;
+import com.nkwarealestate.expenditure.storage.FieldParser;
+import com.nkwarealestate.expenditure.storage.ImportCheckpoint;
+import com.nkwarealestate.expenditure.storage.MalformedRecordException;
+import com.nkwarealestate.expenditure.storage.RecordReader;
+import com.nkwarealestate.expenditure.storage.RecordWriter;
+import com.nkwarealestate.expenditure.storage.TransferFormat;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exports and imports expenditures, accounts, categories and receipts as CSV or JSON Lines
+ *
+ * Both directions stream: exports write each record as it is visited and
+ * imports hold at most one batch of parsed records, so memory use does not
+ * grow with the file. The format comes from the file name (.csv, .jsonl,
+ * optionally .gz for gzip).
+ *
+ * Imports commit in batches and record a checkpoint after each one. If an
+ * import is interrupted, importing the same unchanged file with resume
+ * enabled skips the records already committed. Records whose key already
+ * exists are rejected rather than overwritten, so re-reading a committed
+ * batch never duplicates data.
+ */
+public class DataTransferService {
+
+    private final int IMPORT_BATCH_SIZE = 1000;
+    private final String CHECKPOINT_DIRECTORY = "data";
+
+    private static final String[] EXPENDITURE_COLUMNS = { "code", "amount", "date", "phase", "category",
+            "accountId", "description", "receiptId", "currency" };
+    private static final boolean[] EXPENDITURE_LITERALS = { false, true, false, false, false, false, false, false,
+            false };
+    private static final String[] ACCOUNT_COLUMNS = { "accountId", "bankName", "balance", "accountType",
+            "currency" };
+    private static final boolean[] ACCOUNT_LITERALS = { false, false, true, false, false };
+    private static final String[] CATEGORY_COLUMNS = { "name" };
+    private static final boolean[] CATEGORY_LITERALS = { false };
+    private static final String[] RECEIPT_COLUMNS = { "receiptId", "expenditureCode", "date", "vendor", "filePath",
+            "validated", "validatedBy" };
+    private static final boolean[] RECEIPT_LITERALS = { false, false, false, false, false, true, false };
+
+    /**
+     * Kinds of data that can be exported and imported
+     */
+    public enum DataSet {
+        EXPENDITURES("Expenditures", EXPENDITURE_COLUMNS, EXPENDITURE_LITERALS),
+        ACCOUNTS("Bank Accounts", ACCOUNT_COLUMNS, ACCOUNT_LITERALS),
+        CATEGORIES("Categories", CATEGORY_COLUMNS, CATEGORY_LITERALS),
+        RECEIPTS("Receipts", RECEIPT_COLUMNS, RECEIPT_LITERALS);
+
+        private final String displayName;
+        private final String[] columns;
+        private final boolean[] literals;
+
+        DataSet(String displayName, String[] columns, boolean[] literals) {
+            this.displayName = displayName;
+            this.columns = columns;
+            this.literals = literals;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final ExpenditureService expenditureService;
+    private final BankAccountService bankAccountService;
+    private final CategoryService categoryService;
+    private final ReceiptService receiptService;
+
+    public DataTransferService(ExpenditureService expenditureService, BankAccountService bankAccountService,
+            CategoryService categoryService, ReceiptService receiptService) {
+        this.expenditureService = expenditureService;
+        this.bankAccountService = bankAccountService;
+        this.categoryService = categoryService;
+        this.receiptService = receiptService;
+    }
+
+    /**
+     * Write every record of a data set to a file
+     *
+     * @param file Target file; its name selects the format
+     * @return Number of records written and elapsed time
+     * @throws IllegalArgumentException if the file type is not supported
+     */
+    public TransferResult export(DataSet dataSet, Path file) throws IOException {
+        long startTime = System.nanoTime();
+        TransferFormat format = TransferFormat.fromPath(file);
+        TransferResult result = new TransferResult(dataSet.getDisplayName(), file.toString());
+        String[] values = new String[dataSet.columns.length];
+
+        try (RecordWriter writer = format.openWriter(file, dataSet.columns, dataSet.literals)) {
+            switch (dataSet) {
+                case EXPENDITURES:
+                    for (Expenditure exp : expenditureService.iterateExpenditures()) {
+                        writer.write(toValues(exp, values));
+                        result.countRow();
+                    }
+                    break;
+                case ACCOUNTS:
+                    for (BankAccount account : bankAccountService.iterateAccounts()) {
+                        writer.write(toValues(account, values));
+                        result.countRow();
+                    }
+                    break;
+                case CATEGORIES:
+                    // A short list kept in file order, so it is read from the service as a whole
+                    CustomLinkedList<String> categories = categoryService.getAllCategories();
+                    for (int i = 0; i < categories.size(); i++) {
+                        values[0] = categories.get(i);
+                        writer.write(values);
+                        result.countRow();
+                    }
+                    break;
+                case RECEIPTS:
+                    for (Receipt receipt : receiptService.iterateReceipts()) {
+                        writer.write(toValues(receipt, values));
+                        result.countRow();
+                    }
+                    break;
+            }
+        }
+
+        result.addSucceeded(result.getRowsRead());
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Import records of a data set from a file
+     *
+     * @param file   Source file; its name selects the format
+     * @param resume true to continue after the rows committed by an interrupted
+     *               import of the same, unchanged file
+     * @return Row counts and the first few row errors
+     * @throws IllegalArgumentException if the file type is not supported
+     */
+    public TransferResult importFile(DataSet dataSet, Path file, boolean resume) throws IOException {
+        long startTime = System.nanoTime();
+        TransferFormat format = TransferFormat.fromPath(file);
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("File not found: " + file);
+        }
+
+        TransferResult result = new TransferResult(dataSet.getDisplayName(), file.toString());
+        ImportCheckpoint checkpoint = new ImportCheckpoint(getCheckpointFile(dataSet), file);
+        long committedRows = resume ? checkpoint.getCommittedRows() : 0;
+        result.setResumedFromRow(committedRows);
+
+        List<Object> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        long[] batchRows = new long[IMPORT_BATCH_SIZE];
+        long row = 0;
+
+        try (RecordReader reader = format.openReader(file, dataSet.columns)) {
+            while (true) {
+                String[] values;
+                try {
+                    values = reader.next();
+                } catch (MalformedRecordException e) {
+                    row++;
+                    if (row > committedRows) {
+                        result.countRow();
+                        result.addFailure(row, e.getMessage());
+                    }
+                    continue;
+                }
+                if (values == null) {
+                    break;
+                }
+
+                row++;
+                if (row <= committedRows) {
+                    continue;
+                }
+                result.countRow();
+
+                try {
+                    batchRows[batch.size()] = row;
+                    batch.add(fromValues(dataSet, values));
+                } catch (IllegalArgumentException e) {
+                    result.addFailure(row, e.getMessage());
+                }
+
+                if (batch.size() == IMPORT_BATCH_SIZE) {
+                    commitBatch(dataSet, batch, batchRows, result);
+                    checkpoint.save(row);
+                }
+            }
+        }
+
+        commitBatch(dataSet, batch, batchRows, result);
+        checkpoint.clear();
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Check whether an interrupted import of this file can be resumed
+     *
+     * @return Number of rows already committed, or 0 if there is nothing to resume
+     */
+    public long getResumableRows(DataSet dataSet, Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        return new ImportCheckpoint(getCheckpointFile(dataSet), file).getCommittedRows();
+    }
+
+    /**
+     * Hand a batch of parsed records to the owning service
+     */
+    @SuppressWarnings("unchecked")
+    private void commitBatch(DataSet dataSet, List<Object> batch, long[] batchRows, TransferResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        BatchResult batchResult;
+        switch (dataSet) {
+            case EXPENDITURES:
+                batchResult = expenditureService.importExpenditures((List<Expenditure>) (List<?>) batch);
+                break;
+            case ACCOUNTS:
+                batchResult = bankAccountService.importAccounts((List<BankAccount>) (List<?>) batch);
+                break;
+            case CATEGORIES:
+                batchResult = categoryService.importCategories((List<String>) (List<?>) batch);
+                break;
+            default:
+                batchResult = receiptService.importReceipts((List<Receipt>) (List<?>) batch);
+                break;
+        }
+
+        result.addSucceeded(batchResult.getSucceededCount());
+        int keptErrors = batchResult.getErrors().size();
+        for (int i = 0; i < keptErrors; i++) {
+            result.addFailure(batchRows[batchResult.getErrorIndex(i)], batchResult.getErrorReason(i));
+        }
+        result.addUnreportedFailures(batchResult.getFailedCount() - keptErrors);
+        batch.clear();
+    }
+
+    private Path getCheckpointFile(DataSet dataSet) {
+        return Paths.get(CHECKPOINT_DIRECTORY, dataSet.name().toLowerCase() + "-import.checkpoint");
+    }
+
+    // ================ RECORD MAPPING ================
+
+    private static String[] toValues(Expenditure exp, String[] values) {
+        values[0] = exp.getCode();
+        values[1] = FieldParser.formatAmount(exp.getAmount());
+        values[2] = exp.getDate() != null ? exp.getDate().toString() : null;
+        values[3] = exp.getPhase() != null ? exp.getPhase().name() : null;
+        values[4] = exp.getCategory();
+        values[5] = exp.getAccountId();
+        values[6] = exp.getDescription();
+        values[7] = exp.getReceiptId();
+        values[8] = exp.getCurrency();
+        return values;
+    }
+
+    private static String[] toValues(BankAccount account, String[] values) {
+        values[0] = account.getAccountId();
+        values[1] = account.getBankName();
+        values[2] = FieldParser.formatAmount(account.getBalance());
+        values[3] = account.getAccountType();
+        values[4] = account.getCurrency();
+        return values;
+    }
+
+    private static String[] toValues(Receipt receipt, String[] values) {
+        values[0] = receipt.getId();
+        values[1] = receipt.getExpenditureCode();
+        values[2] = receipt.getDate() != null ? receipt.getDate().toString() : null;
+        values[3] = receipt.getVendorName();
+        values[4] = receipt.getFilePath();
+        values[5] = receipt.isValidated() ? "true" : "false";
+        values[6] = receipt.getValidatedBy();
+        return values;
+    }
+
+    /**
+     * Build a record from imported values
+     *
+     * @throws IllegalArgumentException if a required value is missing or invalid
+     */
+    private static Object fromValues(DataSet dataSet, String[] values) {
+        switch (dataSet) {
+            case EXPENDITURES:
+                Expenditure exp = new Expenditure(trim(values[0]), parseAmount(values[1], "amount"),
+                        parseDate(values[2]), parsePhase(values[3]), trim(values[4]), trim(values[5]), values[6]);
+                exp.setReceiptId(trim(values[7]));
+                exp.setCurrency(values[8]);
+                return exp;
+            case ACCOUNTS:
+                return new BankAccount(require(values[0], "accountId"), trim(values[1]),
+                        parseAmount(values[2], "balance"), trim(values[3]), values[4]);
+            case CATEGORIES:
+                return require(values[0], "name");
+            default:
+                Receipt receipt = new Receipt(require(values[0], "receiptId"), require(values[1], "expenditureCode"),
+                        parseDate(values[2]), values[3], values[4]);
+                receipt.setValidated("true".equalsIgnoreCase(trim(values[5])));
+                receipt.setValidatedBy(trim(values[6]));
+                return receipt;
+        }
+    }
+
+    private static String trim(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static String require(String value, String column) {
+        String trimmed = trim(value);
+        if (trimmed == null) {
+            throw new IllegalArgumentException("Missing " + column);
+        }
+        return trimmed;
+    }
+
+    private static double parseAmount(String value, String column) {
+        try {
+            return FieldParser.parseAmount(require(value, column));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + " '" + value + "'");
+        }
+    }
+
+    private static LocalDate parseDate(String value) {
+        LocalDate date = FieldParser.parseDate(require(value, "date"));
+        if (date == null) {
+            throw new IllegalArgumentException("Invalid date '" + value + "', expected YYYY-MM-DD");
+        }
+        return date;
+    }
+
+    private static Phase parsePhase(String value) {
+        String trimmed = require(value, "phase");
+        for (Phase phase : Phase.values()) {
+            if (phase.name().equalsIgnoreCase(trimmed) || phase.getDisplayName().equalsIgnoreCase(trimmed)) {
+                return phase;
+            }
+        }
+        throw new IllegalArgumentException("Unknown phase '" + trimmed + "'");
+    }
+}
@@ -0,0 +1,247 @@
+package com.nkwarealestate.expenditure.services;
+
+import com.nkwarealestate.expenditure.datastructures.ConcurrentCustomHashMap;
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.datastructures.Timeline;
+import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.storage.ColumnBuffer;
+import com.nkwarealestate.expenditure.storage.FieldParser;
+import com.nkwarealestate.expenditure.storage.ParallelChunkParser;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Exchange rates between the currencies accounts and expenditures are held in
+ *
+ * Rates come from a local rate table, data/fx_rates.txt, one quote per line:
+ *   Date|From|To|Rate
+ * meaning one unit of From buys Rate units of To from that date until the
+ * pair's next quote. Each pair's quotes are kept in a Timeline keyed by
+ * epoch day, so the rate for any day is a binary search; days before a
+ * pair's first quote use that first quote. A pair without quotes of its own
+ * is converted through its inverse, or through GHS when both currencies are
+ * quoted against it.
+ *
+ * Resolved rates are cached by currency pair and day, so converting many
+ * amounts dated the same day resolves the rate once. ratesOn fills the rates
+ * for a set of currencies into a primitive array, which lets aggregations
+ * convert columns of amounts in a plain multiply-add loop instead of looking
+ * up a rate per row.
+ */
+public class ExchangeRateService {
+
+    private final String FX_RATES_FILE = "data/fx_rates.txt";
+    private final int RATE_CACHE_LIMIT = 100_000;
+    private final String baseCurrency = BankAccount.DEFAULT_CURRENCY;
+    private final ParallelChunkParser lineParser = new ParallelChunkParser();
+    private final ConcurrentCustomHashMap<String, Timeline> quotes = new ConcurrentCustomHashMap<>();
+    private final ConcurrentCustomHashMap<RateKey, Double> rateCache = new ConcurrentCustomHashMap<>();
+    private final CustomHashMap<String, String> currencies = new CustomHashMap<>();
+    private int quoteCount;
+
+    public ExchangeRateService() {
+        currencies.put(baseCurrency, baseCurrency);
+        loadRatesFromFile(Paths.get(FX_RATES_FILE));
+    }
+
+    /**
+     * Currency that totals are reported in unless another is asked for
+     */
+    public String getBaseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Check whether amounts in a currency can be converted
+     */
+    public boolean isSupported(String currency) {
+        return currencies.containsKey(BankAccount.normalizeCurrency(currency));
+    }
+
+    /**
+     * Get every currency named in the rate table, plus the base currency
+     */
+    public CustomLinkedList<String> getCurrencies() {
+        return currencies.keySet();
+    }
+
+    public int getQuoteCount() {
+        return quoteCount;
+    }
+
+    /**
+     * Get the rate that converts one unit of a currency into another on a day
+     * Time Complexity: O(1) when cached, otherwise O(log q) for q quotes of the pair
+     *
+     * @throws IllegalArgumentException if no rate is known for the pair
+     */
+    public double getRate(String fromCurrency, String toCurrency, LocalDate date) {
+        return getRate(BankAccount.normalizeCurrency(fromCurrency), BankAccount.normalizeCurrency(toCurrency),
+                date.toEpochDay());
+    }
+
+    /**
+     * Convert an amount between currencies at the rate in effect on a day
+     *
+     * @throws IllegalArgumentException if no rate is known for the pair
+     */
+    public double convert(double amount, String fromCurrency, String toCurrency, LocalDate date) {
+        return amount * getRate(fromCurrency, toCurrency, date);
+    }
+
+    /**
+     * Fill the rates that convert each of several currencies into one, on a day
+     * Lets callers convert columns of amounts with one rate lookup per
+     * currency rather than one per amount
+     * Time Complexity: O(count) when cached
+     *
+     * @param fromCurrencies Normalized currency codes
+     * @param count          Number of codes to take from the array
+     * @param toCurrency     Normalized target currency
+     * @param epochDay       Day the rates are for
+     * @param rates          Receives one rate per code
+     * @throws IllegalArgumentException if no rate is known for one of the pairs
+     */
+    public void ratesOn(String[] fromCurrencies, int count, String toCurrency, long epochDay, double[] rates) {
+        for (int i = 0; i < count; i++) {
+            rates[i] = getRate(fromCurrencies[i], toCurrency, epochDay);
+        }
+    }
+
+    private double getRate(String fromCurrency, String toCurrency, long epochDay) {
+        if (fromCurrency.equals(toCurrency)) {
+            return 1.0;
+        }
+
+        RateKey key = new RateKey(fromCurrency, toCurrency, epochDay);
+        Double cached = rateCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        double rate = resolveRate(fromCurrency, toCurrency, epochDay);
+        if (Double.isNaN(rate)) {
+            throw new IllegalArgumentException("No exchange rate from " + fromCurrency + " to " + toCurrency
+                    + " in " + FX_RATES_FILE);
+        }
+        if (rateCache.size() >= RATE_CACHE_LIMIT) {
+            rateCache.clear();
+        }
+        rateCache.put(key, rate);
+        return rate;
+    }
+
+    /**
+     * Find a rate directly, through the inverse quote, or through the base currency
+     *
+     * @return The rate, or NaN if none is known
+     */
+    private double resolveRate(String fromCurrency, String toCurrency, long epochDay) {
+        double rate = quotedRate(fromCurrency, toCurrency, epochDay);
+        if (!Double.isNaN(rate) || fromCurrency.equals(baseCurrency) || toCurrency.equals(baseCurrency)) {
+            return rate;
+        }
+        return quotedRate(fromCurrency, baseCurrency, epochDay) * quotedRate(baseCurrency, toCurrency, epochDay);
+    }
+
+    private double quotedRate(String fromCurrency, String toCurrency, long epochDay) {
+        Timeline direct = quotes.get(pairKey(fromCurrency, toCurrency));
+        if (direct != null) {
+            return rateOn(direct, epochDay);
+        }
+        Timeline inverse = quotes.get(pairKey(toCurrency, fromCurrency));
+        return inverse != null ? 1.0 / rateOn(inverse, epochDay) : Double.NaN;
+    }
+
+    /**
+     * Rate in effect on a day; days before the first quote use the first quote
+     */
+    private static double rateOn(Timeline pairQuotes, long epochDay) {
+        double rate = pairQuotes.valueAt(epochDay);
+        return Double.isNaN(rate) ? pairQuotes.firstValue() : rate;
+    }
+
+    private static String pairKey(String fromCurrency, String toCurrency) {
+        return fromCurrency + "/" + toCurrency;
+    }
+
+    /**
+     * Load the rate table, ordering each pair's quotes by date
+     */
+    private void loadRatesFromFile(Path file) {
+        if (!Files.exists(file)) {
+            System.out.println("Exchange rate file not found. Only " + baseCurrency + " amounts can be totalled.");
+            return;
+        }
+
+        try {
+            ColumnBuffer rows = lineParser.parse(file, 4);
+            double[] rates = rows.getAmounts(3);
+            long[] days = new long[rows.size()];
+            Integer[] order = new Integer[rows.size()];
+            int valid = 0;
+
+            for (int i = 0; i < rows.size(); i++) {
+                LocalDate date = FieldParser.parseDate(rows.get(i, 0));
+                if (date == null || Double.isNaN(rates[i]) || rates[i] <= 0) {
+                    System.out.println("Error parsing exchange rate line: " + rows.get(i, 0) + "|"
+                            + rows.get(i, 1) + "|" + rows.get(i, 2) + "|" + rows.get(i, 3));
+                    continue;
+                }
+                days[i] = date.toEpochDay();
+                order[valid++] = i;
+            }
+            Arrays.sort(order, 0, valid, (a, b) -> Long.compare(days[a], days[b]));
+
+            for (int k = 0; k < valid; k++) {
+                int i = order[k];
+                String fromCurrency = BankAccount.normalizeCurrency(rows.get(i, 1));
+                String toCurrency = BankAccount.normalizeCurrency(rows.get(i, 2));
+                quotes.computeIfAbsent(pairKey(fromCurrency, toCurrency), pair -> new Timeline())
+                        .append(days[i], rates[i]);
+                currencies.put(fromCurrency, fromCurrency);
+                currencies.put(toCurrency, toCurrency);
+            }
+            quoteCount = valid;
+            System.out.println("Loaded " + valid + " exchange rates for " + quotes.size() + " currency pairs.");
+        } catch (Exception e) {
+            System.out.println("Error loading exchange rates: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cache key for a rate: currency pair and epoch day
+     */
+    private static final class RateKey {
+        private final String fromCurrency;
+        private final String toCurrency;
+        private final long epochDay;
+
+        RateKey(String fromCurrency, String toCurrency, long epochDay) {
+            this.fromCurrency = fromCurrency;
+            this.toCurrency = toCurrency;
+            this.epochDay = epochDay;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof RateKey)) {
+                return false;
+            }
+            RateKey key = (RateKey) other;
+            return epochDay == key.epochDay && fromCurrency.equals(key.fromCurrency)
+                    && toCurrency.equals(key.toCurrency);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * fromCurrency.hashCode() + toCurrency.hashCode();
+            hash = 31 * hash + Long.hashCode(epochDay);
+            return hash & Integer.MAX_VALUE;
+        }
+    }
+}
@@ -1,59 +1,617 @@
 package com.nkwarealestate.expenditure.services;
 
+import com.nkwarealestate.expenditure.models.AmountSummary;
+import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.models.BatchResult;
 import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.ExpenditureInput;
 import com.nkwarealestate.expenditure.models.Phase;
+import com.nkwarealestate.expenditure.models.Receipt;
+import com.nkwarealestate.expenditure.datastructures.BoundedHeap;
+import com.nkwarealestate.expenditure.datastructures.ConcurrentCustomHashMap;
 import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
 import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.datastructures.DateRangeIndex;
+import com.nkwarealestate.expenditure.datastructures.StripedLock;
+import com.nkwarealestate.expenditure.storage.BinaryLedgerFile;
+import com.nkwarealestate.expenditure.storage.BinaryLedgerWriter;
+import com.nkwarealestate.expenditure.storage.DeltaHistory;
+import com.nkwarealestate.expenditure.storage.ExpenditureFileStore;
+import com.nkwarealestate.expenditure.storage.FieldParser;
+import com.nkwarealestate.expenditure.storage.SequenceAllocator;
+import com.nkwarealestate.expenditure.storage.SnapshotScheduler;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service class for managing expenditure operations
- * Uses CustomHashMap for efficient expenditure storage and retrieval
+ * Uses ConcurrentCustomHashMap for efficient expenditure storage and retrieval:
+ * lookups, scans and queries run without locking and can be served from many
+ * threads at once
+ *
+ * Each change holds the stripe lock of the codes it touches from the map
+ * update until its history record is written, so the history sees changes to
+ * a record in the order they were made. Updates, deletes and receipt links
+ * take only those stripes, so changes to different records proceed in
+ * parallel. Adds and imports also hold the service lock: they append to the
+ * ledger file, which must not happen while the snapshot rewrite is replacing
+ * it. Batches and restores take every stripe.
+ *
+ * Amounts are kept in the currency they were spent in. Totals across
+ * currencies convert each amount at the rate on its own date, working on
+ * primitive day, amount and currency columns of the date index so that rates
+ * are looked up once per day and currency rather than once per expenditure.
  */
 public class ExpenditureService {
 
-    private CustomHashMap<String, Expenditure> expenditures;
-    private int nextExpenditureId;
+    private ConcurrentCustomHashMap<String, Expenditure> expenditures;
+    private SequenceAllocator codeAllocator;
+    private ExpenditureFileStore fileStore;
+    private SnapshotScheduler ledgerSnapshots;
+    private DeltaHistory history;
+    private final int RECORD_LOCK_STRIPES = 64;
+    private final StripedLock recordLocks = new StripedLock(RECORD_LOCK_STRIPES);
+    private final long LEDGER_SNAPSHOT_DEBOUNCE_MS = 500;
+    private final String EXPENDITURES_FILE = "data/expenditures.txt";
+    private final String EXPENDITURES_BINARY_FILE = "data/expenditures.bin";
+    private final String SEQUENCE_FILE = "data/expenditure_sequence.txt";
+    private final String HISTORY_DIRECTORY = "data/history/expenditures";
+    private final int HISTORY_SEGMENT_RECORDS = 5000;
+    private final long HISTORY_COMPACT_EVERY_RECORDS = 20000;
+    private final long HISTORY_RETENTION_MILLIS = 30L * 24 * 60 * 60 * 1000; // 30 days
     private DateTimeFormatter dateFormatter;
     private PerformanceTimer timer;
+    private OutputSink output;
+    private final ExchangeRateService exchangeRates;
+
+    // Date-keyed range indexes, rebuilt lazily after the ledger changes
+    private volatile DateIndexes dateIndexes;
+    private volatile boolean dateIndexDirty;
+
+    /**
+     * Ledger-wide date index plus the per-category indexes derived from it
+     * Replaced as a whole, so a category index always matches its ledger index
+     */
+    private static final class DateIndexes {
+        final DateRangeIndex<Expenditure> ledger;
+        final ConcurrentCustomHashMap<String, DateRangeIndex<Expenditure>> byCategory;
+        volatile CurrencyColumns currencyColumns; // Built on the first converted total
+
+        DateIndexes(DateRangeIndex<Expenditure> ledger) {
+            this.ledger = ledger;
+            this.byCategory = new ConcurrentCustomHashMap<>();
+        }
+    }
+
+    /**
+     * The ledger index's days, amounts and currencies as parallel primitive
+     * columns in date order, with each currency stored as an id into currencies
+     */
+    private static final class CurrencyColumns {
+        final long[] days;
+        final double[] amounts;
+        final int[] currencyIds;
+        final String[] currencies;
+
+        CurrencyColumns(long[] days, double[] amounts, int[] currencyIds, String[] currencies) {
+            this.days = days;
+            this.amounts = amounts;
+            this.currencyIds = currencyIds;
+            this.currencies = currencies;
+        }
+
+        /**
+         * Check whether every amount is already in the given currency
+         */
+        boolean allIn(String currency) {
+            return currencies.length == 1 && currencies[0].equals(currency);
+        }
+    }
 
     public ExpenditureService() {
-        this.expenditures = new CustomHashMap<>();
-        this.nextExpenditureId = 1;
+        this(new ExchangeRateService());
+    }
+
+    /**
+     * @param exchangeRates Rates used to total expenditures made in different currencies
+     */
+    public ExpenditureService(ExchangeRateService exchangeRates) {
+        this.exchangeRates = exchangeRates;
+        this.expenditures = new ConcurrentCustomHashMap<>();
+        this.codeAllocator = new SequenceAllocator(Paths.get(SEQUENCE_FILE), "EXP", 4);
         this.dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         this.timer = new PerformanceTimer();
-        loadSampleData();
+        this.output = OutputSink.NONE;
+        this.dateIndexDirty = true;
+        this.fileStore = new ExpenditureFileStore(Paths.get(EXPENDITURES_FILE));
+        this.ledgerSnapshots = new SnapshotScheduler("expenditure-snapshot", LEDGER_SNAPSHOT_DEBOUNCE_MS,
+                this::writeAllExpendituresToFile,
+                e -> output.failure("Error saving expenditures: " + e.getMessage()));
+        this.history = new DeltaHistory(Paths.get(HISTORY_DIRECTORY), HISTORY_SEGMENT_RECORDS,
+                HISTORY_COMPACT_EVERY_RECORDS, HISTORY_RETENTION_MILLIS,
+                e -> output.failure("Error compacting expenditure history: " + e.getMessage()));
+        openHistory();
+        loadExpendituresFromFile();
+        if (!history.hasBase()) {
+            writeHistoryBase();
+        } else {
+            replayHistory();
+        }
     }
 
     /**
-     * Add a new expenditure to the system
+     * Open the change history that point-in-time restores are rebuilt from
+     */
+    private void openHistory() {
+        try {
+            history.open();
+        } catch (UncheckedIOException e) {
+            System.err.println("Error opening expenditure history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Bring the loaded records up to date with the history
+     * Updates and deletes reach the history at once but the ledger only on the
+     * next debounced rewrite, so a crash in between leaves the ledger behind.
+     * The latest history state wins and the ledger is rewritten to match.
+     * Time Complexity: O(n + changes since the newest base)
+     */
+    private void replayHistory() {
+        CustomHashMap<String, String> latest;
+        try {
+            latest = history.restore(Long.MAX_VALUE);
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            System.err.println("Error replaying expenditure history: " + e.getMessage());
+            return;
+        }
+
+        int recovered = 0;
+        CustomLinkedList<String> loadedCodes = expenditures.keySet();
+        while (!loadedCodes.isEmpty()) {
+            String code = loadedCodes.remove(0);
+            if (!latest.containsKey(code)) {
+                expenditures.remove(code);
+                recovered++;
+            }
+        }
+        for (CustomHashMap.Entry<String, String> entry : latest.entries()) {
+            Expenditure current = expenditures.get(entry.getKey());
+            if (current != null && ExpenditureFileStore.formatRecord(current).equals(entry.getValue())) {
+                continue;
+            }
+            Expenditure exp = ExpenditureFileStore.parseRecord(entry.getValue());
+            if (exp != null) {
+                expenditures.put(exp.getCode(), exp);
+                codeAllocator.observe(exp.getCode());
+                recovered++;
+            }
+        }
+
+        if (recovered > 0) {
+            dateIndexDirty = true;
+            try {
+                writeAllExpendituresToFile();
+                System.out.println("Recovered " + recovered + " expenditure changes from the history.");
+            } catch (UncheckedIOException e) {
+                System.err.println("Error saving recovered expenditures: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Start the history from the current records
+     */
+    private void writeHistoryBase() {
+        try {
+            history.writeBase(formatRecords(expenditures.values()));
+        } catch (UncheckedIOException e) {
+            output.failure("Error writing expenditure history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Record added or changed expenditures in the history
+     */
+    private void recordHistoryPuts(Iterable<Expenditure> changed) {
+        try {
+            history.recordPuts(formatRecords(changed));
+        } catch (UncheckedIOException e) {
+            output.failure("Error recording expenditure history: " + e.getMessage());
+        }
+    }
+
+    private void recordHistoryDelete(String code) {
+        try {
+            history.recordDelete(code);
+        } catch (UncheckedIOException e) {
+            output.failure("Error recording expenditure history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Format records lazily as ledger lines, so large sets are never copied
+     */
+    private static Iterable<String> formatRecords(Iterable<Expenditure> records) {
+        return () -> new Iterator<String>() {
+            private final Iterator<Expenditure> source = records.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return ExpenditureFileStore.formatRecord(source.next());
+            }
+        };
+    }
+
+    /**
+     * Load persisted expenditures, seeding sample data on first run
+     */
+    private void loadExpendituresFromFile() {
+        try {
+            int loaded = loadFromBinaryLedger();
+            if (loaded < 0) {
+                loaded = fileStore.load(expenditures);
+            }
+            if (fileStore.getSkippedLineCount() > 0) {
+                System.err.println("Skipped " + fileStore.getSkippedLineCount() + " malformed lines in "
+                        + EXPENDITURES_FILE);
+            }
+
+            if (loaded == 0) {
+                loadSampleData();
+                return;
+            }
+
+            // Codes on disk must never be handed out again, even if the sequence file was lost
+            for (Expenditure exp : expenditures.values()) {
+                codeAllocator.observe(exp.getCode());
+            }
+        } catch (UncheckedIOException e) {
+            System.err.println("Error loading expenditures: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load from the optional binary copy of the ledger when it matches the text file
+     * Skips text parsing entirely; the text file remains the source of truth
+     *
+     * @return Number of records loaded, or -1 if the binary copy is missing or stale
+     */
+    private int loadFromBinaryLedger() {
+        Path binaryFile = Paths.get(EXPENDITURES_BINARY_FILE);
+        Path textFile = Paths.get(EXPENDITURES_FILE);
+        if (!Files.exists(binaryFile) || !Files.exists(textFile)) {
+            return -1;
+        }
+
+        try {
+            BinaryLedgerFile ledger = BinaryLedgerFile.open(binaryFile);
+            if (ledger.getRecordType() != BinaryLedgerFile.RecordType.EXPENDITURE
+                    || !isBinaryLedgerCurrent(ledger, textFile)) {
+                return -1;
+            }
+
+            expenditures.ensureCapacity(expenditures.size() + ledger.size());
+            for (int i = 0; i < ledger.size(); i++) {
+                Expenditure exp = ledger.readExpenditure(i);
+                expenditures.put(exp.getCode(), exp);
+            }
+            return ledger.size();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring binary ledger: " + e.getMessage());
+            expenditures.clear();
+            return -1;
+        }
+    }
+
+    /**
+     * Check that a binary ledger was built from the current text file
+     */
+    private boolean isBinaryLedgerCurrent(BinaryLedgerFile ledger, Path textFile) throws IOException {
+        return ledger.getSourceLength() == Files.size(textFile)
+                && ledger.getSourceModified() == Files.getLastModifiedTime(textFile).toMillis();
+    }
+
+    /**
+     * Write the binary copy of the ledger from the current records
+     * Once it exists it is used at startup and refreshed on close
+     *
+     * @return Number of records written
+     */
+    public int writeBinaryLedger() throws IOException {
+        ledgerSnapshots.flush();
+        synchronized (this) {
+            return BinaryLedgerWriter.writeExpenditures(Paths.get(EXPENDITURES_BINARY_FILE),
+                    expenditures.values(), Paths.get(EXPENDITURES_FILE));
+        }
+    }
+
+    /**
+     * Refresh the binary copy if it exists and the text file has changed since it was written
+     */
+    private void refreshBinaryLedger() {
+        Path binaryFile = Paths.get(EXPENDITURES_BINARY_FILE);
+        if (!Files.exists(binaryFile)) {
+            return;
+        }
+
+        try {
+            if (!isBinaryLedgerCurrent(BinaryLedgerFile.open(binaryFile), Paths.get(EXPENDITURES_FILE))) {
+                writeBinaryLedger();
+            }
+        } catch (IOException e) {
+            System.err.println("Error refreshing binary ledger: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Schedule a ledger rewrite after existing records change
+     * Rewrites are debounced, so a burst of updates or deletes costs one write
+     */
+    private void saveAllExpendituresToFile() {
+        ledgerSnapshots.request();
+    }
+
+    /**
+     * Rewrite the ledger file from the current records
+     * Holds the service lock so no record is appended to the file being replaced
+     */
+    private synchronized void writeAllExpendituresToFile() {
+        fileStore.rewrite(expenditures.values());
+    }
+
+    /**
+     * Add a new expenditure in GHS to the system
      */
     public boolean addExpenditure(double amount, String date, Phase phase,
             String category, String accountId, String description) {
+        return addExpenditure(amount, date, phase, category, accountId, description,
+                BankAccount.DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Add a new expenditure to the system
+     *
+     * @param currency Currency the amount is in, normally that of the paying account
+     */
+    public synchronized boolean addExpenditure(double amount, String date, Phase phase,
+            String category, String accountId, String description, String currency) {
         try {
+            if (!exchangeRates.isSupported(currency)) {
+                output.failure("No exchange rate is known for currency '" + currency + "'.");
+                return false;
+            }
             LocalDate expenditureDate = LocalDate.parse(date, dateFormatter);
             String code = generateExpenditureCode();
 
             Expenditure expenditure = new Expenditure(code, amount, expenditureDate,
                     phase, category, accountId, description);
+            expenditure.setCurrency(currency);
+
+            ReentrantLock lock = recordLocks.get(code);
+            lock.lock();
+            try {
+                expenditures.put(code, expenditure);
+                dateIndexDirty = true;
+                fileStore.append(expenditure);
+                recordHistoryPuts(Collections.singletonList(expenditure));
+            } finally {
+                lock.unlock();
+            }
 
-            expenditures.put(code, expenditure);
-            nextExpenditureId++;
-
-            System.out.println("✓ Expenditure added successfully with code: " + code);
+            output.success("Expenditure added successfully with code: " + code);
             return true;
 
         } catch (DateTimeParseException e) {
-            System.out.println("✗ Invalid date format. Please use YYYY-MM-DD format.");
+            output.failure("Invalid date format. Please use YYYY-MM-DD format.");
             return false;
         } catch (Exception e) {
-            System.out.println("✗ Error adding expenditure: " + e.getMessage());
+            output.failure("Error adding expenditure: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Add many expenditures in one pass
+     * Dates are parsed with a fixed-layout parser, codes are reserved as one
+     * contiguous range, the map is pre-sized once and the date index is
+     * invalidated once per batch. No per-row console output is produced.
+     * Time Complexity: O(n) for n rows
+     *
+     * @param inputs Rows to insert, in order
+     * @return Per-row outcome and the range of codes assigned
+     */
+    public synchronized BatchResult addExpenditures(Collection<ExpenditureInput> inputs) {
+        long startTime = System.nanoTime();
+        BatchResult result = new BatchResult(inputs.size());
+
+        // Pass 1: validate rows and parse dates
+        ExpenditureInput[] rows = new ExpenditureInput[inputs.size()];
+        LocalDate[] dates = new LocalDate[rows.length];
+        int validCount = 0;
+        int index = 0;
+
+        for (ExpenditureInput input : inputs) {
+            rows[index] = input;
+            String error = null;
+
+            if (input == null) {
+                error = "Missing row";
+            } else if (!(input.getAmount() > 0) || Double.isInfinite(input.getAmount())) {
+                error = "Amount must be greater than 0";
+            } else if (input.getPhase() == null) {
+                error = "Missing phase";
+            } else if (isBlank(input.getCategory())) {
+                error = "Missing category";
+            } else if (isBlank(input.getAccountId())) {
+                error = "Missing account ID";
+            } else if (!exchangeRates.isSupported(input.getCurrency())) {
+                error = "No exchange rate is known for currency '" + input.getCurrency() + "'";
+            } else {
+                dates[index] = FieldParser.parseDate(input.getDate());
+                if (dates[index] == null) {
+                    error = "Invalid date '" + input.getDate() + "', expected YYYY-MM-DD";
+                }
+            }
+
+            if (error == null) {
+                validCount++;
+            } else {
+                result.markFailure(index, error);
+            }
+            index++;
+        }
+
+        if (validCount == 0) {
+            result.setElapsedNanos(System.nanoTime() - startTime);
+            return result;
+        }
+
+        // Pass 2: reserve codes once and insert into a pre-sized map
+        expenditures.ensureCapacity(expenditures.size() + validCount);
+        long nextId = codeAllocator.allocateRange(validCount);
+        String firstCode = null;
+        String lastCode = null;
+        Expenditure[] added = new Expenditure[validCount];
+        int addedCount = 0;
+
+        int[] taken = recordLocks.lockEvery();
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                if (dates[i] == null) {
+                    continue;
+                }
+
+                ExpenditureInput row = rows[i];
+                String code = codeAllocator.format(nextId++);
+                Expenditure expenditure = new Expenditure(code, row.getAmount(), dates[i], row.getPhase(),
+                        row.getCategory(), row.getAccountId(), row.getDescription());
+                expenditure.setCurrency(row.getCurrency());
+                expenditures.put(code, expenditure);
+                added[addedCount++] = expenditure;
+                result.markSuccess(i);
+
+                if (firstCode == null) {
+                    firstCode = code;
+                }
+                lastCode = code;
+            }
+
+            dateIndexDirty = true;
+            try {
+                fileStore.appendAll(Arrays.asList(added));
+            } catch (UncheckedIOException e) {
+                output.failure("Error saving expenditures: " + e.getMessage());
+            }
+            recordHistoryPuts(Arrays.asList(added));
+        } finally {
+            recordLocks.unlockAll(taken);
+        }
+        result.setKeyRange(firstCode, lastCode);
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Import complete expenditure records, keeping their codes
+     * Records with an empty code are given a new one; a code that already
+     * exists is rejected, so importing the same file twice adds nothing.
+     * Time Complexity: O(n) for n records
+     *
+     * @param records Records to insert, in order
+     * @return Per-record outcome
+     */
+    public synchronized BatchResult importExpenditures(Collection<Expenditure> records) {
+        long startTime = System.nanoTime();
+        BatchResult result = new BatchResult(records.size());
+        expenditures.ensureCapacity(expenditures.size() + records.size());
+
+        Expenditure[] added = new Expenditure[records.size()];
+        int addedCount = 0;
+        int index = 0;
+
+        int[] taken = recordLocks.lockEvery();
+        try {
+            for (Expenditure exp : records) {
+                String error = null;
+                if (exp == null) {
+                    error = "Missing record";
+                } else if (!(exp.getAmount() > 0) || Double.isInfinite(exp.getAmount())) {
+                    error = "Amount must be greater than 0";
+                } else if (exp.getDate() == null) {
+                    error = "Missing date";
+                } else if (exp.getPhase() == null) {
+                    error = "Missing phase";
+                } else if (isBlank(exp.getCategory())) {
+                    error = "Missing category";
+                } else if (isBlank(exp.getAccountId())) {
+                    error = "Missing account ID";
+                } else if (exp.getCode() != null && !exp.getCode().isEmpty()
+                        && expenditures.containsKey(exp.getCode())) {
+                    error = "Code " + exp.getCode() + " already exists";
+                }
+
+                if (error != null) {
+                    result.markFailure(index++, error);
+                    continue;
+                }
+
+                if (exp.getCode() == null || exp.getCode().isEmpty()) {
+                    exp.setCode(generateExpenditureCode());
+                } else {
+                    codeAllocator.observe(exp.getCode());
+                }
+                expenditures.put(exp.getCode(), exp);
+                added[addedCount++] = exp;
+                result.markSuccess(index++);
+            }
+
+            if (addedCount > 0) {
+                dateIndexDirty = true;
+                try {
+                    fileStore.appendAll(Arrays.asList(added).subList(0, addedCount));
+                } catch (UncheckedIOException e) {
+                    output.failure("Error saving expenditures: " + e.getMessage());
+                }
+                recordHistoryPuts(Arrays.asList(added).subList(0, addedCount));
+                result.setKeyRange(added[0].getCode(), added[addedCount - 1].getCode());
+            }
+        } finally {
+            recordLocks.unlockAll(taken);
+        }
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * Iterate over all expenditures without copying them
+     * The view is live; callers must not add or remove records while iterating
+     */
+    public Iterable<Expenditure> iterateExpenditures() {
+        return expenditures.values();
+    }
+
     /**
      * Simple performance timer utility class for measuring execution time
      */
@@ -78,7 +636,7 @@ public class ExpenditureService {
      * Retrieve expenditure by code
      */
     public Expenditure getExpenditure(String code) {
-        return expenditures.get(code);
+        return code == null ? null : expenditures.get(code);
     }
 
     /**
@@ -141,51 +699,242 @@ public class ExpenditureService {
      * Delete expenditure by code
      */
     public boolean deleteExpenditure(String code) {
-        Expenditure removed = expenditures.remove(code);
-        if (removed != null) {
-            System.out.println("✓ Expenditure " + code + " removed successfully.");
-            return true;
-        } else {
-            System.out.println("✗ Expenditure with code " + code + " not found.");
+        if (code == null) {
+            output.failure("Expenditure with code " + code + " not found.");
             return false;
         }
+        ReentrantLock lock = recordLocks.get(code);
+        lock.lock();
+        try {
+            if (expenditures.remove(code) == null) {
+                output.failure("Expenditure with code " + code + " not found.");
+                return false;
+            }
+            dateIndexDirty = true;
+            recordHistoryDelete(code);
+        } finally {
+            lock.unlock();
+        }
+        saveAllExpendituresToFile();
+        output.success("Expenditure " + code + " removed successfully.");
+        return true;
     }
 
     /**
      * Update expenditure
      */
     public boolean updateExpenditure(String code, double newAmount, String newDescription) {
-        Expenditure expenditure = expenditures.get(code);
-        if (expenditure != null) {
+        if (code == null) {
+            output.failure("Expenditure with code " + code + " not found.");
+            return false;
+        }
+        ReentrantLock lock = recordLocks.get(code);
+        lock.lock();
+        try {
+            Expenditure expenditure = expenditures.get(code);
+            if (expenditure == null) {
+                output.failure("Expenditure with code " + code + " not found.");
+                return false;
+            }
             expenditure.setAmount(newAmount);
             expenditure.setDescription(newDescription);
-            System.out.println("✓ Expenditure " + code + " updated successfully.");
-            return true;
-        } else {
-            System.out.println("✗ Expenditure with code " + code + " not found.");
+            dateIndexDirty = true;
+            recordHistoryPuts(Collections.singletonList(expenditure));
+        } finally {
+            lock.unlock();
+        }
+        saveAllExpendituresToFile();
+        output.success("Expenditure " + code + " updated successfully.");
+        return true;
+    }
+
+    /**
+     * Link a receipt to an expenditure, or unlink it with a null receipt ID
+     * The link is saved to the ledger file and the history
+     *
+     * @return true if the expenditure exists
+     */
+    public boolean attachReceipt(String code, String receiptId) {
+        if (code == null) {
+            output.failure("Expenditure with code " + code + " not found.");
             return false;
         }
+        ReentrantLock lock = recordLocks.get(code);
+        lock.lock();
+        try {
+            Expenditure expenditure = expenditures.get(code);
+            if (expenditure == null) {
+                output.failure("Expenditure with code " + code + " not found.");
+                return false;
+            }
+            expenditure.setReceiptId(receiptId);
+            recordHistoryPuts(Collections.singletonList(expenditure));
+        } finally {
+            lock.unlock();
+        }
+        saveAllExpendituresToFile();
+        return true;
+    }
+
+    /**
+     * Link many receipts to their expenditures with one history write
+     * Receipts whose expenditure no longer exists are skipped
+     *
+     * @return Number of expenditures linked
+     */
+    public int attachReceipts(Collection<Receipt> receipts) {
+        String[] codes = new String[receipts.size()];
+        int index = 0;
+        for (Receipt receipt : receipts) {
+            codes[index++] = receipt.getExpenditureCode();
+        }
+
+        Expenditure[] linked = new Expenditure[receipts.size()];
+        int linkedCount = 0;
+        int[] taken = recordLocks.lockAll((Object[]) codes);
+        try {
+            for (Receipt receipt : receipts) {
+                String code = receipt.getExpenditureCode();
+                Expenditure expenditure = code == null ? null : expenditures.get(code);
+                if (expenditure != null) {
+                    expenditure.setReceiptId(receipt.getId());
+                    linked[linkedCount++] = expenditure;
+                }
+            }
+            if (linkedCount > 0) {
+                recordHistoryPuts(Arrays.asList(linked).subList(0, linkedCount));
+            }
+        } finally {
+            recordLocks.unlockAll(taken);
+        }
+        if (linkedCount > 0) {
+            saveAllExpendituresToFile();
+        }
+        return linkedCount;
     }
 
     /**
      * Generate unique expenditure code
+     * Codes come from a durable allocator, so they never repeat across restarts
      */
     private String generateExpenditureCode() {
-        return String.format("EXP%04d", nextExpenditureId);
+        return codeAllocator.nextCode();
     }
 
     /**
-     * Get total expenditure amount
+     * Route operation outcome messages to the given sink
      */
-    public double getTotalExpenditureAmount() {
-        double total = 0.0;
+    public void setOutputSink(OutputSink output) {
+        this.output = output != null ? output : OutputSink.NONE;
+    }
 
-        // Sum up all expenditure amounts
-        for (Expenditure exp : expenditures.values()) {
-            total += exp.getAmount();
+    /**
+     * Write pending ledger changes and record the exact code position for a gap-free restart
+     */
+    public void close() {
+        ledgerSnapshots.close();
+        refreshBinaryLedger();
+        history.close();
+        codeAllocator.close();
+    }
+
+    // ================ POINT-IN-TIME HISTORY ================
+
+    /**
+     * Get the expenditures as they were at a point in time, without changing current data
+     * Time Complexity: O(base snapshot + changes since it), independent of older history
+     *
+     * @param asOfMillis Epoch millis
+     * @throws IllegalArgumentException if the history does not reach back that far
+     */
+    public CustomLinkedList<Expenditure> getExpendituresAsOf(long asOfMillis) {
+        CustomLinkedList<Expenditure> result = new CustomLinkedList<>();
+        for (String line : history.restore(asOfMillis).values()) {
+            Expenditure exp = ExpenditureFileStore.parseRecord(line);
+            if (exp != null) {
+                result.add(exp);
+            }
         }
+        return result;
+    }
 
-        return total;
+    /**
+     * Replace current expenditures with their state at a point in time
+     * The restore is itself recorded, so it can be undone by restoring to a time before it
+     *
+     * @param asOfMillis Epoch millis
+     * @return Number of expenditures after the restore
+     * @throws IllegalArgumentException if the history does not reach back that far
+     */
+    public synchronized int restoreToPointInTime(long asOfMillis) {
+        CustomLinkedList<Expenditure> restored = getExpendituresAsOf(asOfMillis);
+
+        int[] taken = recordLocks.lockEvery();
+        try {
+            expenditures.clear();
+            expenditures.ensureCapacity(restored.size());
+            for (int i = 0, n = restored.size(); i < n; i++) {
+                Expenditure exp = restored.remove(0);
+                expenditures.put(exp.getCode(), exp);
+                codeAllocator.observe(exp.getCode());
+            }
+            dateIndexDirty = true;
+
+            writeAllExpendituresToFile();
+            writeHistoryBase();
+            return expenditures.size();
+        } finally {
+            recordLocks.unlockAll(taken);
+        }
+    }
+
+    /**
+     * Get the earliest time the history can restore to
+     *
+     * @return Epoch millis, or -1 if there is no history
+     */
+    public long getEarliestRestorableTime() {
+        return history.getEarliestRestorableTime();
+    }
+
+    /**
+     * Copy history files the backup directory does not have yet
+     * Sealed snapshots and segments never change, so repeated backups only ship new files
+     *
+     * @return Number of files copied
+     */
+    public int backupHistory(Path backupDirectory) throws IOException {
+        return history.backupTo(backupDirectory);
+    }
+
+    /**
+     * Get total expenditure amount in the base currency (GHS)
+     * Time Complexity: O(n) once the date index is built
+     */
+    public double getTotalExpenditureAmount() {
+        return getTotalExpenditureAmount(exchangeRates.getBaseCurrency());
+    }
+
+    /**
+     * Get total expenditure amount converted to a currency, each amount at the rate on its date
+     * Time Complexity: O(n) once the date index is built
+     *
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to the target
+     */
+    public double getTotalExpenditureAmount(String currency) {
+        String target = BankAccount.normalizeCurrency(currency);
+        CurrencyColumns columns = getCurrencyColumns(getDateIndexes());
+        return convertedTotal(columns, 0, columns.days.length, target);
+    }
+
+    /**
+     * Get an expenditure's amount in the base currency (GHS), at the rate on its date
+     *
+     * @throws IllegalArgumentException if the expenditure's currency has no rate to GHS
+     */
+    public double getAmountInBaseCurrency(Expenditure expenditure) {
+        return exchangeRates.convert(expenditure.getAmount(), expenditure.getCurrency(),
+                exchangeRates.getBaseCurrency(), expenditure.getDate());
     }
 
     /**
@@ -206,7 +955,7 @@ public class ExpenditureService {
 
         System.out.println("\n=== EXPENDITURE DETAILS ===");
         System.out.println("Code: " + expenditure.getCode());
-        System.out.println("Amount: GHS " + String.format("%.2f", expenditure.getAmount()));
+        System.out.println("Amount: " + expenditure.getCurrency() + " " + String.format("%.2f", expenditure.getAmount()));
         System.out.println("Date: " + expenditure.getDate().format(dateFormatter));
         System.out.println("Phase: " + expenditure.getPhase());
         System.out.println("Category: " + expenditure.getCategory());
@@ -373,7 +1122,7 @@ public class ExpenditureService {
 
         timer.stopTimer();
         long duration = timer.getLastExecutionTime();
-        System.out.println("Sort by category completed in " + duration + " ms");
+        output.info("Sort by category completed in " + duration + " ms");
 
         return sortedList;
     }
@@ -507,7 +1256,7 @@ public class ExpenditureService {
             LocalDate date = exp.getDate();
             if (date.getYear() == year && date.getMonthValue() == month) {
                 monthExpenditures.add(exp);
-                double amount = exp.getAmount();
+                double amount = getAmountInBaseCurrency(exp);
                 totalAmount += amount;
 
                 // Update category totals
@@ -696,69 +1445,8 @@ public class ExpenditureService {
      * @return List of expenditures within the date range
      */
     public CustomLinkedList<Expenditure> binarySearchDateRange(LocalDate startDate, LocalDate endDate) {
-        CustomLinkedList<Expenditure> results = new CustomLinkedList<>();
-        CustomLinkedList<Expenditure> sortedList = sortExpendituresByDate(true);
-
-        if (sortedList.isEmpty()) {
-            return results;
-        }
-
-        // Find first occurrence >= startDate
-        int startIndex = findFirstGreaterOrEqualDate(sortedList, startDate);
-
-        // Find last occurrence <= endDate
-        int endIndex = findLastLessOrEqualDate(sortedList, endDate);
-
-        // Add all expenditures in range
-        for (int i = startIndex; i <= endIndex && i < sortedList.size(); i++) {
-            results.add(sortedList.get(i));
-        }
-
-        return results;
-    }
-
-    /**
-     * Binary search helper: Find first expenditure with date >= target
-     */
-    private int findFirstGreaterOrEqualDate(CustomLinkedList<Expenditure> sortedList, LocalDate target) {
-        int left = 0, right = sortedList.size() - 1;
-        int result = sortedList.size(); // If not found, return size (invalid index)
-
-        while (left <= right) {
-            int mid = left + (right - left) / 2;
-            LocalDate midDate = sortedList.get(mid).getDate();
-
-            if (midDate.isEqual(target) || midDate.isAfter(target)) {
-                result = mid;
-                right = mid - 1; // Continue searching left for first occurrence
-            } else {
-                left = mid + 1;
-            }
-        }
-
-        return result;
-    }
-
-    /**
-     * Binary search helper: Find last expenditure with date <= target
-     */
-    private int findLastLessOrEqualDate(CustomLinkedList<Expenditure> sortedList, LocalDate target) {
-        int left = 0, right = sortedList.size() - 1;
-        int result = -1; // If not found, return -1
-
-        while (left <= right) {
-            int mid = left + (right - left) / 2;
-            LocalDate midDate = sortedList.get(mid).getDate();
-
-            if (midDate.isEqual(target) || midDate.isBefore(target)) {
-                result = mid;
-                left = mid + 1; // Continue searching right for last occurrence
-            } else {
-                right = mid - 1;
-            }
-        }
-
-        return result;
+        // The date index keeps the ledger sorted, so no per-call re-sort is needed
+        return getDateIndex().range(startDate.toEpochDay(), endDate.toEpochDay());
     }
 
     // ================ PERFORMANCE COMPARISON METHODS ================
@@ -890,7 +1578,7 @@ public class ExpenditureService {
 
         timer.stopTimer();
         long duration = timer.getLastExecutionTime();
-        System.out.println("Search by account completed in " + duration + " ms");
+        output.info("Search by account completed in " + duration + " ms");
 
         return results;
     }
@@ -932,7 +1620,7 @@ public class ExpenditureService {
 
         timer.stopTimer();
         long duration = timer.getLastExecutionTime();
-        System.out.println("Binary search by account completed in " + duration + " ms");
+        output.info("Binary search by account completed in " + duration + " ms");
 
         return results;
     }
@@ -973,7 +1661,7 @@ public class ExpenditureService {
 
         timer.stopTimer();
         long duration = timer.getLastExecutionTime();
-        System.out.println("Sort by account completed in " + duration + " ms");
+        output.info("Sort by account completed in " + duration + " ms");
 
         return sortedList;
     }
@@ -1006,4 +1694,411 @@ public class ExpenditureService {
 
         return result;
     }
+
+    // ================ DATE RANGE INDEX ================
+
+    /**
+     * Summarize expenditure amounts in the base currency (GHS) between two dates (inclusive)
+     * Time Complexity: O(log n) once the index is built when every amount is
+     * in GHS, otherwise O(log n + k) for k in the window
+     *
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @return Count, total, minimum and maximum amount in the window
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to GHS
+     */
+    public AmountSummary summarizeDateRange(LocalDate startDate, LocalDate endDate) {
+        return summarizeDateRange(startDate, endDate, null);
+    }
+
+    /**
+     * Summarize expenditure amounts in the base currency (GHS) between two dates (inclusive) for one category
+     * Time Complexity: O(log n) once the category index is built when every
+     * amount is in GHS, otherwise O(log n + k) for k in the window
+     *
+     * @param startDate Start date (inclusive)
+     * @param endDate   End date (inclusive)
+     * @param category  Category to restrict to (null for all categories)
+     * @return Count, total, minimum and maximum amount in the window
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to GHS
+     */
+    public AmountSummary summarizeDateRange(LocalDate startDate, LocalDate endDate, String category) {
+        DateIndexes indexes = getDateIndexes();
+        DateRangeIndex<Expenditure> index = category == null ? indexes.ledger
+                : getCategoryDateIndex(indexes, category);
+        return summarize(index, getCurrencyColumns(indexes).allIn(exchangeRates.getBaseCurrency()),
+                startDate, endDate);
+    }
+
+    /**
+     * Total expenditures between two dates (inclusive) in the base currency (GHS)
+     * Each amount is converted at the rate on its own date
+     * Time Complexity: O(log n) when every amount is in GHS, otherwise O(log n + k) for k in the window
+     */
+    public double totalDateRange(LocalDate startDate, LocalDate endDate) {
+        return totalDateRange(startDate, endDate, exchangeRates.getBaseCurrency());
+    }
+
+    /**
+     * Total expenditures between two dates (inclusive) converted to a currency
+     * Each amount is converted at the rate on its own date
+     * Time Complexity: O(log n) when every amount is already in the currency, otherwise O(log n + k)
+     *
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to the target
+     */
+    public double totalDateRange(LocalDate startDate, LocalDate endDate, String currency) {
+        String target = BankAccount.normalizeCurrency(currency);
+        DateIndexes indexes = getDateIndexes();
+        CurrencyColumns columns = getCurrencyColumns(indexes);
+        long from = startDate.toEpochDay();
+        long to = endDate.toEpochDay();
+
+        if (columns.allIn(target)) {
+            return indexes.ledger.sum(from, to); // Prefix sums, nothing to convert
+        }
+        return convertedTotal(columns, indexes.ledger.lowerBound(from), indexes.ledger.upperBound(to), target);
+    }
+
+    /**
+     * Sum a run of positions, converting each amount at the rate on its date
+     * Positions are in date order, so each day's rows are contiguous: the
+     * rates for a day are fetched once into a primitive array and the day's
+     * rows are then a multiply-add loop over the columns
+     */
+    private double convertedTotal(CurrencyColumns columns, int from, int to, String currency) {
+        double[] amounts = columns.amounts;
+        if (columns.allIn(currency)) {
+            double total = 0.0;
+            for (int i = from; i < to; i++) {
+                total += amounts[i];
+            }
+            return total;
+        }
+
+        long[] days = columns.days;
+        int[] currencyIds = columns.currencyIds;
+        double[] rates = new double[columns.currencies.length];
+        double total = 0.0;
+        int start = from;
+        while (start < to) {
+            long day = days[start];
+            int end = start + 1;
+            while (end < to && days[end] == day) {
+                end++;
+            }
+
+            exchangeRates.ratesOn(columns.currencies, columns.currencies.length, currency, day, rates);
+            double dayTotal = 0.0;
+            for (int i = start; i < end; i++) {
+                dayTotal += amounts[i] * rates[currencyIds[i]];
+            }
+            total += dayTotal;
+            start = end;
+        }
+        return total;
+    }
+
+    /**
+     * Copy the amount column, converting each amount at the rate on its date
+     * Rates are fetched once per day, as in convertedTotal
+     */
+    private double[] convertedAmounts(CurrencyColumns columns, String currency) {
+        double[] converted = Arrays.copyOf(columns.amounts, columns.amounts.length);
+        if (columns.allIn(currency)) {
+            return converted;
+        }
+
+        long[] days = columns.days;
+        int[] currencyIds = columns.currencyIds;
+        double[] rates = new double[columns.currencies.length];
+        int start = 0;
+        while (start < converted.length) {
+            long day = days[start];
+            int end = start + 1;
+            while (end < converted.length && days[end] == day) {
+                end++;
+            }
+
+            exchangeRates.ratesOn(columns.currencies, columns.currencies.length, currency, day, rates);
+            for (int i = start; i < end; i++) {
+                converted[i] *= rates[currencyIds[i]];
+            }
+            start = end;
+        }
+        return converted;
+    }
+
+    /**
+     * Run the aggregate queries for a window against an index
+     * When every amount is in GHS the index's own sums and range tables answer
+     * directly; otherwise the window is walked once, converting each amount
+     */
+    private AmountSummary summarize(DateRangeIndex<Expenditure> index, boolean allInBase,
+            LocalDate startDate, LocalDate endDate) {
+        long from = startDate.toEpochDay();
+        long to = endDate.toEpochDay();
+
+        int count = index.count(from, to);
+        if (count == 0) {
+            return AmountSummary.empty();
+        }
+        if (allInBase) {
+            return new AmountSummary(count, index.sum(from, to), index.min(from, to), index.max(from, to));
+        }
+
+        double total = 0.0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = index.lowerBound(from), end = index.upperBound(to); i < end; i++) {
+            double amount = getAmountInBaseCurrency(index.get(i));
+            total += amount;
+            min = Math.min(min, amount);
+            max = Math.max(max, amount);
+        }
+        return new AmountSummary(count, total, min, max);
+    }
+
+    /**
+     * Get the ledger sorted by date, for walking a date range by position
+     * The index is a snapshot; expenditures changed afterwards build a new one
+     * Time Complexity: O(1) when clean, O(n log n) to rebuild
+     */
+    public DateRangeIndex<Expenditure> getLedgerDateIndex() {
+        return getDateIndex();
+    }
+
+    /**
+     * Get the ledger-wide date index, rebuilding it if expenditures changed
+     * Time Complexity: O(1) when clean, O(n log n) to rebuild
+     */
+    private DateRangeIndex<Expenditure> getDateIndex() {
+        return getDateIndexes().ledger;
+    }
+
+    /**
+     * Get the current indexes, rebuilding them if expenditures changed
+     * The dirty flag is cleared before the scan, so a change made during a
+     * rebuild marks the new indexes dirty again instead of being lost
+     */
+    private DateIndexes getDateIndexes() {
+        DateIndexes current = dateIndexes;
+        if (!dateIndexDirty && current != null) {
+            return current;
+        }
+        dateIndexDirty = false;
+
+        int count = expenditures.size();
+        long[] days = new long[count];
+        double[] amounts = new double[count];
+        Expenditure[] items = new Expenditure[count];
+
+        int i = 0;
+        for (Expenditure exp : expenditures.values()) {
+            if (i == items.length) {
+                // Records were added during the scan
+                int grown = Math.max(16, i * 2);
+                days = Arrays.copyOf(days, grown);
+                amounts = Arrays.copyOf(amounts, grown);
+                items = Arrays.copyOf(items, grown);
+            }
+            days[i] = exp.getDate().toEpochDay();
+            amounts[i] = exp.getAmount();
+            items[i] = exp;
+            i++;
+        }
+
+        current = new DateIndexes(new DateRangeIndex<>(days, amounts, items, i));
+        dateIndexes = current;
+        return current;
+    }
+
+    /**
+     * Get the currency columns of the current indexes, building them on first use
+     * Time Complexity: O(1) when cached, O(n) to build from the sorted ledger index
+     */
+    private static CurrencyColumns getCurrencyColumns(DateIndexes indexes) {
+        CurrencyColumns columns = indexes.currencyColumns;
+        if (columns == null) {
+            columns = buildCurrencyColumns(indexes.ledger);
+            indexes.currencyColumns = columns; // A racing build produces the same columns
+        }
+        return columns;
+    }
+
+    private static CurrencyColumns buildCurrencyColumns(DateRangeIndex<Expenditure> ledgerIndex) {
+        int size = ledgerIndex.size();
+        long[] days = new long[size];
+        double[] amounts = new double[size];
+        int[] currencyIds = new int[size];
+        CustomHashMap<String, Integer> idsByCurrency = new CustomHashMap<>();
+        String[] currencies = new String[4];
+        int currencyCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            Expenditure exp = ledgerIndex.get(i);
+            Integer id = idsByCurrency.get(exp.getCurrency());
+            if (id == null) {
+                if (currencyCount == currencies.length) {
+                    currencies = Arrays.copyOf(currencies, currencyCount * 2);
+                }
+                id = currencyCount;
+                currencies[currencyCount++] = exp.getCurrency();
+                idsByCurrency.put(exp.getCurrency(), id);
+            }
+            days[i] = ledgerIndex.keyAt(i);
+            amounts[i] = exp.getAmount();
+            currencyIds[i] = id;
+        }
+
+        return new CurrencyColumns(days, amounts, currencyIds, Arrays.copyOf(currencies, currencyCount));
+    }
+
+    /**
+     * Get the date index for a single category, building it on first use
+     * Time Complexity: O(1) when cached, O(n) to build from the sorted ledger index
+     */
+    private DateRangeIndex<Expenditure> getCategoryDateIndex(DateIndexes indexes, String category) {
+        return indexes.byCategory.computeIfAbsent(category.toLowerCase(),
+                key -> buildCategoryDateIndex(indexes.ledger, category));
+    }
+
+    private static DateRangeIndex<Expenditure> buildCategoryDateIndex(DateRangeIndex<Expenditure> ledgerIndex,
+            String category) {
+        int size = ledgerIndex.size();
+        long[] days = new long[size];
+        double[] amounts = new double[size];
+        Expenditure[] items = new Expenditure[size];
+
+        // Filtering the sorted ledger keeps date order, so the sort is a single pass
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            Expenditure exp = ledgerIndex.get(i);
+            if (exp.getCategory() != null && exp.getCategory().equalsIgnoreCase(category)) {
+                days[count] = ledgerIndex.keyAt(i);
+                amounts[count] = exp.getAmount();
+                items[count] = exp;
+                count++;
+            }
+        }
+
+        return new DateRangeIndex<>(days, amounts, items, count);
+    }
+
+    // ================ TOP-N AND PERCENTILE QUERIES ================
+
+    /**
+     * Get the k greatest expenditures by the given ordering without sorting the ledger
+     * Time Complexity: O(n log k)
+     *
+     * @param k          Number of expenditures to return
+     * @param comparator Ordering that defines "greatest" (e.g. by amount)
+     * @return Up to k expenditures, greatest first
+     */
+    public CustomLinkedList<Expenditure> topN(int k, Comparator<Expenditure> comparator) {
+        BoundedHeap<Expenditure> heap = new BoundedHeap<>(Math.max(0, Math.min(k, expenditures.size())),
+                comparator);
+
+        for (Expenditure exp : expenditures.values()) {
+            heap.offer(exp);
+        }
+
+        return heap.toSortedList();
+    }
+
+    /**
+     * Get the k largest expenditures by amount in the base currency (GHS)
+     * Time Complexity: O(n log k)
+     *
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to GHS
+     */
+    public CustomLinkedList<Expenditure> topNByAmount(int k) {
+        return topN(k, (a, b) -> Double.compare(getAmountInBaseCurrency(a), getAmountInBaseCurrency(b)));
+    }
+
+    /**
+     * Count expenditures whose amount in the base currency (GHS) is at least the threshold
+     * Time Complexity: O(n)
+     *
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to GHS
+     */
+    public int countExpendituresWithAmountAtLeast(double threshold) {
+        int count = 0;
+        for (Expenditure exp : expenditures.values()) {
+            if (getAmountInBaseCurrency(exp) >= threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get the amount in the base currency (GHS) at the given percentile using quickselect
+     * The percentile picks position floor(n * p) of the amounts in ascending
+     * order, so 0.9 returns the amount where the top 10% starts
+     * Time Complexity: O(n) average
+     *
+     * @param p Percentile between 0.0 and 1.0
+     * @return The amount at that percentile, or Double.NaN if there are no expenditures
+     * @throws IllegalArgumentException if an expenditure's currency has no rate to GHS
+     */
+    public double percentile(double p) {
+        if (p < 0.0 || p > 1.0) {
+            throw new IllegalArgumentException("Percentile must be between 0.0 and 1.0");
+        }
+
+        double[] amounts = convertedAmounts(getCurrencyColumns(getDateIndexes()), exchangeRates.getBaseCurrency());
+        int n = amounts.length;
+        if (n == 0) {
+            return Double.NaN;
+        }
+
+        int rank = Math.min((int) (n * p), n - 1);
+        return quickSelect(amounts, n, rank);
+    }
+
+    /**
+     * Find the element that would be at position 'rank' if the first count values were sorted
+     * Uses median-of-three pivots and partitions in place
+     */
+    private double quickSelect(double[] values, int count, int rank) {
+        int left = 0;
+        int right = count - 1;
+
+        while (left < right) {
+            // Median-of-three pivot guards against sorted input
+            int mid = (left + right) >>> 1;
+            if (values[mid] < values[left]) swapValues(values, mid, left);
+            if (values[right] < values[left]) swapValues(values, right, left);
+            if (values[right] < values[mid]) swapValues(values, right, mid);
+            double pivot = values[mid];
+
+            // Hoare partition
+            int i = left, j = right;
+            while (i <= j) {
+                while (values[i] < pivot) i++;
+                while (values[j] > pivot) j--;
+                if (i <= j) {
+                    swapValues(values, i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (rank <= j) {
+                right = j;
+            } else if (rank >= i) {
+                left = i;
+            } else {
+                return values[rank]; // Between the partitions: equal to the pivot
+            }
+        }
+
+        return values[rank];
+    }
+
+    private void swapValues(double[] values, int i, int j) {
+        double temp = values[i];
+        values[i] = values[j];
+        values[j] = temp;
+    }
 }
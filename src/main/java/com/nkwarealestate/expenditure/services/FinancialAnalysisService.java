@@ -33,29 +33,20 @@ public class FinancialAnalysisService {
 
     /**
      * Calculate the monthly burn rate (average monthly expenditure)
+     * Expenditures in other currencies are converted to GHS at the rate on their dates
      * 
      * @param months Number of months to consider for calculation
-     * @return The average monthly expenditure amount
+     * @return The average monthly expenditure amount in GHS
      */
     public double calculateMonthlyBurnRate(int months) {
         LocalDate endDate = LocalDate.now();
         LocalDate startDate = endDate.minusMonths(months);
 
-        // Get expenditures within the date range
-        CustomLinkedList<Expenditure> expenditures = expenditureService.getExpendituresByDateRange(startDate, endDate);
-
-        if (expenditures.isEmpty()) {
-            return 0.0;
-        }
-
-        // Calculate total amount
-        double totalAmount = 0.0;
-        for (int i = 0; i < expenditures.size(); i++) {
-            totalAmount += expenditures.get(i).getAmount();
-        }
+        // Total the window with one indexed query over the converted amounts
+        double total = expenditureService.totalDateRange(startDate, endDate);
 
         // Return average monthly amount
-        return totalAmount / months;
+        return total / months;
     }
 
     /**
@@ -122,7 +113,7 @@ public class FinancialAnalysisService {
 
         for (int i = 0; i < recentExpenditures.size(); i++) {
             Expenditure exp = recentExpenditures.get(i);
-            double amount = exp.getAmount();
+            double amount = expenditureService.getAmountInBaseCurrency(exp);
             totalAmount += amount;
 
             String category = exp.getCategory();
@@ -183,7 +174,7 @@ public class FinancialAnalysisService {
 
         // Calculate current total
         for (int i = 0; i < categoryExpenditures.size(); i++) {
-            currentTotal += categoryExpenditures.get(i).getAmount();
+            currentTotal += expenditureService.getAmountInBaseCurrency(categoryExpenditures.get(i));
         }
 
         // Calculate new total with increase
@@ -257,8 +248,8 @@ public class FinancialAnalysisService {
                 for (int i = 0; i < phaseExpenditures.size(); i++) {
                     Expenditure exp = phaseExpenditures.get(i);
                     if (exp.getCategory().equals(category)) {
-                        String expNode = String.format("%s - %s - GHS %.2f",
-                                exp.getCode(), exp.getDate().format(dateFormatter), exp.getAmount());
+                        String expNode = String.format("%s - %s - %s %.2f",
+                                exp.getCode(), exp.getDate().format(dateFormatter), exp.getCurrency(), exp.getAmount());
                         tree.addChild(categoryNode, expNode);
                     }
                 }
@@ -383,7 +374,7 @@ public class FinancialAnalysisService {
 
             for (int i = 0; i < intervalExpenditures.size(); i++) {
                 Expenditure exp = intervalExpenditures.get(i);
-                double amount = exp.getAmount();
+                double amount = expenditureService.getAmountInBaseCurrency(exp);
                 intervalAmount += amount;
 
                 // Category analysis
@@ -493,30 +484,30 @@ public class FinancialAnalysisService {
     }
 
     /**
-     * Find high-value expenditures efficiently using binary search
-     * Time Complexity: O(log n + k) where k is number of high-value expenditures
+     * Find high-value expenditures using quickselect and a bounded heap
+     * Time Complexity: O(n log k) where k is number of high-value expenditures
      * 
      * @param percentile The percentile threshold (e.g., 0.9 for top 10%)
-     * @return List of high-value expenditures
+     * @return List of high-value expenditures in ascending order of amount
      */
     public CustomLinkedList<Expenditure> findHighValueExpenditures(double percentile) {
-        // Get all expenditures sorted by amount
-        CustomLinkedList<Expenditure> sortedExpenditures = expenditureService.sortExpendituresByAmount(true);
-
-        if (sortedExpenditures.isEmpty()) {
+        if (expenditureService.getExpenditureCount() == 0) {
             return new CustomLinkedList<>();
         }
 
-        // Calculate threshold index
-        int thresholdIndex = (int) (sortedExpenditures.size() * percentile);
-        if (thresholdIndex >= sortedExpenditures.size()) {
-            thresholdIndex = sortedExpenditures.size() - 1;
-        }
+        // O(n) quickselect for the threshold amount
+        double thresholdAmount = expenditureService.percentile(Math.min(Math.max(percentile, 0.0), 1.0));
 
-        double thresholdAmount = sortedExpenditures.get(thresholdIndex).getAmount();
+        // Ties at the threshold are included, so count them before sizing the heap
+        int count = expenditureService.countExpendituresWithAmountAtLeast(thresholdAmount);
 
-        // Use binary search to find all expenditures >= threshold
-        return expenditureService.binarySearchAmountRange(thresholdAmount, Double.MAX_VALUE);
+        // The heap returns the largest first; prepend to keep ascending order
+        CustomLinkedList<Expenditure> largest = expenditureService.topNByAmount(count);
+        CustomLinkedList<Expenditure> result = new CustomLinkedList<>();
+        while (!largest.isEmpty()) {
+            result.add(0, largest.remove(0));
+        }
+        return result;
     }
 
     /**
@@ -542,23 +533,13 @@ public class FinancialAnalysisService {
         CustomLinkedList<Double> monthlyTotals = new CustomLinkedList<>();
         CustomLinkedList<String> monthLabels = new CustomLinkedList<>();
 
-        // Collect monthly data using binary search
+        // Collect monthly data using indexed range queries
         for (int i = monthsBack - 1; i >= 0; i--) {
             LocalDate monthStart = endDate.minusMonths(i + 1).withDayOfMonth(1);
             LocalDate monthEnd = monthStart.plusMonths(1).minusDays(1);
 
-            // Use binary search for efficient date range retrieval
-            CustomLinkedList<Expenditure> monthExpenditures = expenditureService.binarySearchDateRange(monthStart,
-                    monthEnd);
-
-            double monthTotal = 0.0;
-
-            for (int j = 0; j < monthExpenditures.size(); j++) {
-                Expenditure exp = monthExpenditures.get(j);
-                if (category == null || exp.getCategory().equalsIgnoreCase(category)) {
-                    monthTotal += exp.getAmount();
-                }
-            }
+            // One O(log n) range query per month against the (category) date index
+            double monthTotal = expenditureService.summarizeDateRange(monthStart, monthEnd, category).getTotal();
 
             monthlyTotals.add(monthTotal);
             monthLabels.add(monthStart.getMonth().toString() + " " + monthStart.getYear());
@@ -716,7 +697,7 @@ public class FinancialAnalysisService {
             for (int j = 0; j < materialExpenses.size(); j++) {
                 Expenditure expense = materialExpenses.get(j);
                 String projectId = extractProjectId(expense);
-                double originalCost = expense.getAmount();
+                double originalCost = expenditureService.getAmountInBaseCurrency(expense);
                 double additionalCost = originalCost * (priceIncreasePercentage / 100.0);
 
                 totalMaterialCost += originalCost;
@@ -761,13 +742,14 @@ public class FinancialAnalysisService {
 
             for (int j = 0; j < monthExpenses.size(); j++) {
                 Expenditure expense = monthExpenses.get(j);
-                totalSpending += expense.getAmount();
+                double amount = expenditureService.getAmountInBaseCurrency(expense);
+                totalSpending += amount;
 
                 String category = expense.getCategory();
                 Double currentAmount = categorySpending.get(category);
                 if (currentAmount == null)
                     currentAmount = 0.0;
-                categorySpending.put(category, currentAmount + expense.getAmount());
+                categorySpending.put(category, currentAmount + amount);
             }
 
             monthlyData.add(new MonthlyData(monthStart, totalSpending, categorySpending, monthExpenses.size()));
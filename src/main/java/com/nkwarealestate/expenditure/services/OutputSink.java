@@ -0,0 +1,51 @@
+package com.nkwarealestate.expenditure.services;
+
+/**
+ * Destination for the outcome messages that services report while they work
+ * Services never print to the console directly from their operations; the CLI
+ * installs a console sink, while batch and benchmark runs keep the default
+ * no-op sink or collect messages with a BufferedOutputSink
+ */
+public interface OutputSink {
+
+    /**
+     * Sink that discards every message
+     */
+    OutputSink NONE = new OutputSink() {
+        @Override
+        public void info(String message) {
+        }
+
+        @Override
+        public void success(String message) {
+        }
+
+        @Override
+        public void warning(String message) {
+        }
+
+        @Override
+        public void failure(String message) {
+        }
+    };
+
+    /**
+     * Neutral progress or timing information
+     */
+    void info(String message);
+
+    /**
+     * An operation completed successfully
+     */
+    void success(String message);
+
+    /**
+     * An operation completed but needs attention (e.g. low balance)
+     */
+    void warning(String message);
+
+    /**
+     * An operation was rejected or failed
+     */
+    void failure(String message);
+}
@@ -1,46 +1,116 @@
 package com.nkwarealestate.expenditure.services;
 
+import com.nkwarealestate.expenditure.models.BatchResult;
 import com.nkwarealestate.expenditure.models.Receipt;
 import com.nkwarealestate.expenditure.models.Expenditure;
 import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
 import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
 import com.nkwarealestate.expenditure.datastructures.CustomQueue;
 import com.nkwarealestate.expenditure.datastructures.CustomStack;
+import com.nkwarealestate.expenditure.storage.ReceiptIndex;
+import com.nkwarealestate.expenditure.storage.SequenceAllocator;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
  * Service for managing receipts and invoices
- * Uses CustomHashMap for storage and CustomQueue for validation processing
+ * Receipt metadata lives in a persisted ReceiptIndex that is paged in on
+ * demand, so only the receipts a query touches are held in memory.
+ * Uses CustomQueue for validation processing
  */
 public class ReceiptService {
     
-    private CustomHashMap<String, Receipt> receipts;
+    private static final String INDEX_FILE = "data/receipts/receipts.idx";
+    private static final String JOURNAL_FILE = "data/receipts/receipts.journal";
+    private static final String SEQUENCE_FILE = "data/receipt_sequence.txt";
+    private static final int INDEX_PAGE_SIZE = 128;
+    private static final int INDEX_CACHE_PAGES = 256;
+    private static final int INDEX_MERGE_THRESHOLD = 10000;
+
+    private ReceiptIndex receipts;
     private CustomQueue<Receipt> pendingValidationQueue;
+    private boolean pendingQueueLoaded;
     private CustomStack<Receipt> recentUploads;
-    private int nextReceiptId;
+    private SequenceAllocator idAllocator;
     private ExpenditureService expenditureService;
     private DateTimeFormatter dateFormatter;
     private String receiptStoragePath;
+    private OutputSink output;
     
     public ReceiptService(ExpenditureService expenditureService) {
-        this.receipts = new CustomHashMap<>();
         this.pendingValidationQueue = new CustomQueue<>();
+        this.pendingQueueLoaded = false;
         this.recentUploads = new CustomStack<>();
-        this.nextReceiptId = 1;
+        this.idAllocator = new SequenceAllocator(Paths.get(SEQUENCE_FILE), "RCP", 4);
         this.expenditureService = expenditureService;
         this.dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        this.output = OutputSink.NONE;
         
         // Set up receipts storage directory
         this.receiptStoragePath = "data/receipts/";
         createReceiptDirectory();
+        openIndex();
+        observeExistingIds();
+    }
+    
+    /**
+     * Open the persisted receipt index
+     */
+    private void openIndex() {
+        try {
+            receipts = new ReceiptIndex(Paths.get(INDEX_FILE), Paths.get(JOURNAL_FILE),
+                    INDEX_PAGE_SIZE, INDEX_CACHE_PAGES, INDEX_MERGE_THRESHOLD);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error opening receipt index", e);
+        }
+    }
+    
+    /**
+     * Keep generated IDs clear of receipts already on disk
+     * The sequence file may be missing or behind, e.g. on a fresh checkout that
+     * ships receipt files, so the highest ID among the stored files and the
+     * index is taken as used
+     */
+    private void observeExistingIds() {
+        File[] files = new File(receiptStoragePath).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                int dot = name.lastIndexOf('.');
+                idAllocator.observe(dot > 0 ? name.substring(0, dot) : name);
+            }
+        }
+        for (Receipt receipt : receipts.values()) {
+            idAllocator.observe(receipt.getId());
+        }
+    }
+    
+    /**
+     * Merge pending index changes and record the exact ID position for a gap-free restart
+     */
+    public void close() {
+        try {
+            receipts.close();
+        } catch (IOException e) {
+            System.err.println("Error closing receipt index: " + e.getMessage());
+        }
+        idAllocator.close();
+    }
+    
+    /**
+     * Route operation outcome messages to the given sink
+     */
+    public void setOutputSink(OutputSink output) {
+        this.output = output != null ? output : OutputSink.NONE;
     }
     
     /**
@@ -71,14 +141,14 @@ public class ReceiptService {
         // Verify the expenditure exists
         Expenditure expenditure = expenditureService.getExpenditure(expenditureCode);
         if (expenditure == null) {
-            System.out.println("✗ Expenditure not found with code: " + expenditureCode);
+            output.failure("Expenditure not found with code: " + expenditureCode);
             return null;
         }
         
         // Verify the file exists
         File originalFile = new File(originalFilePath);
         if (!originalFile.exists() || !originalFile.isFile()) {
-            System.out.println("✗ File not found: " + originalFilePath);
+            output.failure("File not found: " + originalFilePath);
             return null;
         }
         
@@ -100,31 +170,30 @@ public class ReceiptService {
             // Copy file to receipts directory
             Path source = Paths.get(originalFilePath);
             Path destination = Paths.get(destPath);
-            Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(source, destination);
             
             // Create receipt object
             Receipt receipt = new Receipt(receiptId, expenditureCode, date, vendorName, destPath);
             
             // Store receipt
-            receipts.put(receiptId, receipt);
+            receipts.put(receipt);
             
             // Add to validation queue
-            pendingValidationQueue.enqueue(receipt);
+            if (pendingQueueLoaded) {
+                pendingValidationQueue.enqueue(receipt);
+            }
             
             // Add to recent uploads stack
             recentUploads.push(receipt);
             
             // Link receipt to expenditure
-            expenditure.setReceiptId(receiptId);
-            
-            // Increment ID counter
-            nextReceiptId++;
+            expenditureService.attachReceipt(expenditureCode, receiptId);
             
-            System.out.println("✓ Receipt uploaded successfully with ID: " + receiptId);
+            output.success("Receipt uploaded successfully with ID: " + receiptId);
             return receiptId;
             
         } catch (IOException e) {
-            System.out.println("✗ Error uploading receipt: " + e.getMessage());
+            output.failure("Error uploading receipt: " + e.getMessage());
             return null;
         }
     }
@@ -136,16 +205,26 @@ public class ReceiptService {
      * @return true if validation was successful, false if queue is empty
      */
     public boolean validateNextReceipt(String validatorName) {
+        loadPendingQueue();
         if (pendingValidationQueue.isEmpty()) {
-            System.out.println("No receipts pending validation.");
+            output.info("No receipts pending validation.");
             return false;
         }
         
-        Receipt receipt = pendingValidationQueue.dequeue();
+        Receipt receipt = pendingValidationQueue.peek();
         receipt.setValidated(true);
         receipt.setValidatedBy(validatorName);
+        try {
+            receipts.put(receipt);
+        } catch (IOException e) {
+            receipt.setValidated(false);
+            receipt.setValidatedBy(null);
+            output.failure("Error saving receipt validation: " + e.getMessage());
+            return false;
+        }
+        pendingValidationQueue.dequeue();
         
-        System.out.println("✓ Receipt " + receipt.getId() + " validated successfully.");
+        output.success("Receipt " + receipt.getId() + " validated successfully.");
         return true;
     }
     
@@ -153,14 +232,32 @@ public class ReceiptService {
      * Get the next receipt pending validation without removing from queue
      */
     public Receipt peekNextPendingReceipt() {
+        loadPendingQueue();
         if (pendingValidationQueue.isEmpty()) {
             return null;
         }
         return pendingValidationQueue.peek();
     }
     
+    /**
+     * Queue receipts left unvalidated by earlier sessions
+     * Done on first use rather than at startup, since it scans the whole index
+     */
+    private void loadPendingQueue() {
+        if (pendingQueueLoaded) {
+            return;
+        }
+        for (Receipt receipt : receipts.values()) {
+            if (!receipt.isValidated()) {
+                pendingValidationQueue.enqueue(receipt);
+            }
+        }
+        pendingQueueLoaded = true;
+    }
+    
     /**
      * Get a receipt by ID
+     * Time Complexity: O(log pages) plus at most one page read
      */
     public Receipt getReceipt(String receiptId) {
         return receipts.get(receiptId);
@@ -168,6 +265,7 @@ public class ReceiptService {
     
     /**
      * Get all receipts
+     * Copies every receipt into memory; prefer iterateReceipts for large stores
      */
     public CustomLinkedList<Receipt> getAllReceipts() {
         CustomLinkedList<Receipt> allReceipts = new CustomLinkedList<>();
@@ -179,14 +277,11 @@ public class ReceiptService {
     
     /**
      * Get receipts for a specific expenditure
+     * Uses the index's expenditure code key instead of scanning every receipt
      */
     public Receipt getReceiptForExpenditure(String expenditureCode) {
-        for (Receipt receipt : receipts.values()) {
-            if (receipt.getExpenditureCode().equals(expenditureCode)) {
-                return receipt;
-            }
-        }
-        return null;
+        CustomLinkedList<Receipt> linked = receipts.findByExpenditureCode(expenditureCode);
+        return linked.isEmpty() ? null : linked.get(0);
     }
     
     /**
@@ -224,11 +319,11 @@ public class ReceiptService {
             return false;
         }
         
-        // Remove from receipts map
-        receipts.remove(receiptId);
-        
         // Try to delete the file
         try {
+            // Remove from the index
+            receipts.remove(receiptId);
+            
             File file = new File(receipt.getFilePath());
             if (file.exists()) {
                 file.delete();
@@ -237,20 +332,101 @@ public class ReceiptService {
             // Unlink from expenditure
             Expenditure expenditure = expenditureService.getExpenditure(receipt.getExpenditureCode());
             if (expenditure != null && receiptId.equals(expenditure.getReceiptId())) {
-                expenditure.setReceiptId(null);
+                expenditureService.attachReceipt(expenditure.getCode(), null);
             }
             
             return true;
         } catch (Exception e) {
-            System.out.println("Error deleting receipt file: " + e.getMessage());
+            output.failure("Error deleting receipt file: " + e.getMessage());
             return false;
         }
     }
     
+    /**
+     * Import receipt records in one batch
+     * Only the metadata is registered; files are expected to be at their recorded
+     * paths already. Existing receipt IDs are rejected, so importing the same
+     * file twice adds nothing. Accepted receipts reach the index in a single
+     * journal write. Unvalidated receipts join the validation queue.
+     *
+     * @param imported Receipts to add, in order
+     * @return Per-receipt outcome
+     */
+    public BatchResult importReceipts(Collection<Receipt> imported) {
+        long startTime = System.nanoTime();
+        BatchResult result = new BatchResult(imported.size());
+        Receipt[] accepted = new Receipt[imported.size()];
+        int[] acceptedIndexes = new int[imported.size()];
+        int acceptedCount = 0;
+        CustomHashMap<String, Boolean> batchIds = new CustomHashMap<>();
+        batchIds.ensureCapacity(imported.size());
+        int index = 0;
+
+        for (Receipt receipt : imported) {
+            String error = null;
+            Expenditure expenditure = null;
+            if (receipt == null || receipt.getId() == null || receipt.getId().isEmpty()) {
+                error = "Missing receipt ID";
+            } else if (batchIds.containsKey(receipt.getId()) || receipts.contains(receipt.getId())) {
+                error = "Receipt " + receipt.getId() + " already exists";
+            } else {
+                expenditure = expenditureService.getExpenditure(receipt.getExpenditureCode());
+                if (expenditure == null) {
+                    error = "Expenditure not found with code: " + receipt.getExpenditureCode();
+                }
+            }
+
+            if (error != null) {
+                result.markFailure(index++, error);
+                continue;
+            }
+
+            accepted[acceptedCount] = receipt;
+            acceptedIndexes[acceptedCount++] = index++;
+            batchIds.put(receipt.getId(), Boolean.TRUE);
+        }
+
+        // Receipts count as imported only once the index write has succeeded
+        try {
+            receipts.putAll(Arrays.asList(accepted).subList(0, acceptedCount));
+        } catch (IOException e) {
+            output.failure("Error saving imported receipts: " + e.getMessage());
+            for (int i = 0; i < acceptedCount; i++) {
+                result.markFailure(acceptedIndexes[i], "Could not save receipt: " + e.getMessage());
+            }
+            result.setElapsedNanos(System.nanoTime() - startTime);
+            return result;
+        }
+        expenditureService.attachReceipts(Arrays.asList(accepted).subList(0, acceptedCount));
+        for (int i = 0; i < acceptedCount; i++) {
+            Receipt receipt = accepted[i];
+            result.markSuccess(acceptedIndexes[i]);
+            if (pendingQueueLoaded && !receipt.isValidated()) {
+                pendingValidationQueue.enqueue(receipt);
+            }
+            recentUploads.push(receipt);
+            // Keep generated IDs clear of imported ones
+            idAllocator.observe(receipt.getId());
+        }
+
+        result.setElapsedNanos(System.nanoTime() - startTime);
+        return result;
+    }
+
+    /**
+     * Iterate over all receipts in ID order without copying them
+     * Index pages are read one at a time; callers must not add or remove
+     * receipts while iterating
+     */
+    public Iterable<Receipt> iterateReceipts() {
+        return receipts.values();
+    }
+
     /**
      * Get count of receipts pending validation
      */
     public int getPendingValidationCount() {
+        loadPendingQueue();
         return pendingValidationQueue.size();
     }
     
@@ -258,7 +434,7 @@ public class ReceiptService {
      * Generate unique receipt ID
      */
     private String generateReceiptId() {
-        return String.format("RCP%04d", nextReceiptId);
+        return idAllocator.nextCode();
     }
     
     /**
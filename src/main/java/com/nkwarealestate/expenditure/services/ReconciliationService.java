@@ -0,0 +1,413 @@
+package com.nkwarealestate.expenditure.services;
+
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.datastructures.DateRangeIndex;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.ReconciliationMismatch;
+import com.nkwarealestate.expenditure.models.ReconciliationReport;
+import com.nkwarealestate.expenditure.storage.DebitJournal;
+import com.nkwarealestate.expenditure.storage.SnapshotWriter;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks that the expenditures recorded against each account match the debits posted to it
+ *
+ * Both sides are grouped by (account, day) with hash aggregation and compared
+ * in whole pesewas. Expenditures come from the ledger's date index, where a
+ * date window is one run of positions; the run is cut into partitions that
+ * are aggregated in parallel on a fork-join pool, each into its own hash map,
+ * and the partial maps are merged. Debits come from the DebitJournal.
+ *
+ * Runs are incremental. The totals for every group are kept between runs
+ * with a watermark: the journal offset read up to and the day of the last
+ * run. A run reads only journal entries past the offset, and rescans only
+ * expenditures dated from lookbackDays before the last run onwards, plus the
+ * days any newly journaled debit belongs to; every other group keeps its
+ * totals. Edits to older expenditures are picked up by a full run.
+ *
+ * Days before the journal's first entry are not reconciled, since their
+ * debits were never journaled, unless a journaled debit belongs to them.
+ * Totals and watermark are saved together after each run, so a restart
+ * resumes from a consistent point.
+ */
+public class ReconciliationService {
+
+    /**
+     * Totals for one account and day, in pesewas
+     */
+    private static final class Totals {
+        long expenditureCents;
+        int expenditureCount;
+        long debitCents;
+        int debitCount;
+
+        boolean isEmpty() {
+            return expenditureCount == 0 && debitCount == 0;
+        }
+    }
+
+    private static final class GroupKey {
+        final String accountId;
+        final long day;
+        private final int hash;
+
+        GroupKey(String accountId, long day) {
+            this.accountId = accountId;
+            this.day = day;
+            // Kept non-negative: CustomHashMap takes Math.abs of the hash
+            this.hash = (accountId.hashCode() * 31 + Long.hashCode(day)) & 0x7fffffff;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof GroupKey)) {
+                return false;
+            }
+            GroupKey key = (GroupKey) other;
+            return day == key.day && accountId.equals(key.accountId);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final long NO_RUN = Long.MIN_VALUE;
+    private static final String UNASSIGNED_ACCOUNT = "(none)";
+
+    private final String STATE_FILE = "data/reconciliation.dat";
+    private final int STATE_VERSION = 1;
+    private final int DEFAULT_LOOKBACK_DAYS = 7;
+    private final int MIN_ROWS_PER_PARTITION = 16 * 1024;
+
+    private final ExpenditureService expenditureService;
+    private final BankAccountService bankAccountService;
+    private final Path stateFile;
+    private final int lookbackDays;
+    private final ForkJoinPool pool;
+
+    // Guarded by this
+    private CustomHashMap<GroupKey, Totals> groups = new CustomHashMap<>();
+    private long journalOffset;
+    private long lastRunDay = NO_RUN;
+    private boolean stateLoaded;
+
+    public ReconciliationService(ExpenditureService expenditureService, BankAccountService bankAccountService) {
+        this.expenditureService = expenditureService;
+        this.bankAccountService = bankAccountService;
+        this.stateFile = Paths.get(STATE_FILE);
+        this.lookbackDays = DEFAULT_LOOKBACK_DAYS;
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Reconcile what changed since the last run; the first run covers everything
+     * Time Complexity: O(new debits + rescanned expenditures / cores + groups)
+     */
+    public synchronized ReconciliationReport reconcile() {
+        return run(false);
+    }
+
+    /**
+     * Discard the saved totals and reconcile the whole ledger and journal
+     * Time Complexity: O(debits + expenditures / cores + groups)
+     */
+    public synchronized ReconciliationReport reconcileAll() {
+        return run(true);
+    }
+
+    private ReconciliationReport run(boolean full) {
+        long startTime = System.nanoTime();
+        if (!stateLoaded) {
+            loadState();
+            stateLoaded = true;
+        }
+
+        DebitJournal journal = bankAccountService.getDebitJournal();
+        long today = LocalDate.now().toEpochDay();
+        // A journal shorter than the watermark was replaced, so the saved totals no longer apply
+        boolean incremental = !full && lastRunDay != NO_RUN && journalOffset <= journal.length();
+        if (!incremental) {
+            groups = new CustomHashMap<>();
+            journalOffset = 0;
+        }
+
+        // Debits journaled since the last run
+        CustomHashMap<Long, Boolean> debitDays = new CustomHashMap<>();
+        long[] debitRows = new long[1];
+        journalOffset = journal.read(journalOffset, (accountId, day, amountCents, postedMillis) -> {
+            Totals totals = totalsFor(groups, new GroupKey(accountId, day));
+            totals.debitCents += amountCents;
+            totals.debitCount++;
+            debitDays.put(day, Boolean.TRUE);
+            debitRows[0]++;
+        });
+
+        long firstPosted = journal.getFirstPostedMillis();
+        long coveredFrom = firstPosted < 0 ? today
+                : Instant.ofEpochMilli(firstPosted).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+        long rescanFrom = incremental
+                ? Math.max(coveredFrom, Math.min(lastRunDay, today) - lookbackDays)
+                : coveredFrom;
+
+        // Expenditures: every day from rescanFrom, plus earlier days that gained debits
+        DateRangeIndex<Expenditure> ledger = expenditureService.getLedgerDateIndex();
+        long[] earlierDays = new long[debitDays.size()];
+        int earlierCount = 0;
+        for (Long day : debitDays.keys()) {
+            if (day < rescanFrom) {
+                earlierDays[earlierCount++] = day;
+            }
+        }
+        Arrays.sort(earlierDays, 0, earlierCount);
+        CustomLinkedList<int[]> ranges = new CustomLinkedList<>();
+        int[] current = null;
+        for (int i = 0; i < earlierCount; i++) {
+            int from = ledger.lowerBound(earlierDays[i]);
+            int to = ledger.upperBound(earlierDays[i]);
+            if (current != null && current[1] == from) {
+                current[1] = to; // Days with nothing between them form one run of positions
+            } else {
+                current = new int[] { from, to };
+                ranges.add(current);
+            }
+        }
+        int rescanStart = ledger.lowerBound(rescanFrom);
+        if (current != null && current[1] == rescanStart) {
+            current[1] = ledger.size();
+        } else {
+            ranges.add(new int[] { rescanStart, ledger.size() });
+        }
+
+        for (CustomHashMap.Entry<GroupKey, Totals> entry : groups.entries()) {
+            long day = entry.getKey().day;
+            if (day >= rescanFrom || debitDays.containsKey(day)) {
+                entry.getValue().expenditureCents = 0;
+                entry.getValue().expenditureCount = 0;
+            }
+        }
+
+        PartitionTask[] partitions = partition(ledger, ranges);
+        int expenditureRows = 0;
+        for (CustomHashMap<GroupKey, Totals> partial : pool.invoke(new AllPartitionsTask(partitions))) {
+            for (CustomHashMap.Entry<GroupKey, Totals> entry : partial.entries()) {
+                Totals totals = totalsFor(groups, entry.getKey());
+                totals.expenditureCents += entry.getValue().expenditureCents;
+                totals.expenditureCount += entry.getValue().expenditureCount;
+                expenditureRows += entry.getValue().expenditureCount;
+            }
+        }
+
+        CustomLinkedList<ReconciliationMismatch> mismatches = compare();
+        lastRunDay = today;
+        saveState();
+
+        return new ReconciliationReport(incremental, LocalDate.ofEpochDay(coveredFrom),
+                LocalDate.ofEpochDay(rescanFrom), expenditureRows, debitRows[0], groups.size(),
+                partitions.length, mismatches, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Cut the position ranges into partitions of roughly equal row counts
+     * Partitions are sized for a few per core, and never below MIN_ROWS_PER_PARTITION
+     */
+    private PartitionTask[] partition(DateRangeIndex<Expenditure> ledger, CustomLinkedList<int[]> ranges) {
+        int[][] bounds = new int[ranges.size()][];
+        int rows = 0;
+        for (int r = 0; r < bounds.length; r++) {
+            bounds[r] = ranges.remove(0);
+            rows += Math.max(0, bounds[r][1] - bounds[r][0]);
+        }
+        int target = Math.max(MIN_ROWS_PER_PARTITION, rows / (Math.max(1, pool.getParallelism()) * 4) + 1);
+
+        int count = 0;
+        for (int[] range : bounds) {
+            count += (Math.max(0, range[1] - range[0]) + target - 1) / target;
+        }
+        PartitionTask[] tasks = new PartitionTask[count];
+        int index = 0;
+        for (int[] range : bounds) {
+            for (int from = range[0]; from < range[1]; from += target) {
+                tasks[index++] = new PartitionTask(ledger, from, Math.min(range[1], from + target));
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Drop empty groups and list those whose two sides differ, by date then account
+     */
+    private CustomLinkedList<ReconciliationMismatch> compare() {
+        CustomLinkedList<GroupKey> empty = new CustomLinkedList<>();
+        CustomLinkedList<ReconciliationMismatch> found = new CustomLinkedList<>();
+        for (CustomHashMap.Entry<GroupKey, Totals> entry : groups.entries()) {
+            Totals totals = entry.getValue();
+            if (totals.isEmpty()) {
+                empty.add(entry.getKey());
+            } else if (totals.expenditureCents != totals.debitCents) {
+                found.add(new ReconciliationMismatch(entry.getKey().accountId,
+                        LocalDate.ofEpochDay(entry.getKey().day), totals.expenditureCents,
+                        totals.expenditureCount, totals.debitCents, totals.debitCount));
+            }
+        }
+        while (!empty.isEmpty()) {
+            groups.remove(empty.remove(0));
+        }
+
+        ReconciliationMismatch[] sorted = new ReconciliationMismatch[found.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = found.remove(0);
+        }
+        Arrays.sort(sorted, Comparator.comparing(ReconciliationMismatch::getDate)
+                .thenComparing(ReconciliationMismatch::getAccountId));
+        CustomLinkedList<ReconciliationMismatch> mismatches = new CustomLinkedList<>();
+        for (ReconciliationMismatch mismatch : sorted) {
+            mismatches.add(mismatch);
+        }
+        return mismatches;
+    }
+
+    private static Totals totalsFor(CustomHashMap<GroupKey, Totals> map, GroupKey key) {
+        Totals totals = map.get(key);
+        if (totals == null) {
+            totals = new Totals();
+            map.put(key, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Runs every partition in parallel and collects their partial totals
+     */
+    private static class AllPartitionsTask extends RecursiveTask<CustomHashMap<GroupKey, Totals>[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final PartitionTask[] tasks;
+
+        AllPartitionsTask(PartitionTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected CustomHashMap<GroupKey, Totals>[] compute() {
+            invokeAll(tasks);
+            CustomHashMap<GroupKey, Totals>[] results = new CustomHashMap[tasks.length];
+            for (int i = 0; i < tasks.length; i++) {
+                results[i] = tasks[i].join();
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Aggregates one run of ledger positions into its own hash map
+     */
+    private static class PartitionTask extends RecursiveTask<CustomHashMap<GroupKey, Totals>> {
+        private static final long serialVersionUID = 1L;
+
+        private final DateRangeIndex<Expenditure> ledger;
+        private final int from;
+        private final int to;
+
+        PartitionTask(DateRangeIndex<Expenditure> ledger, int from, int to) {
+            this.ledger = ledger;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected CustomHashMap<GroupKey, Totals> compute() {
+            CustomHashMap<GroupKey, Totals> partial = new CustomHashMap<>();
+            for (int i = from; i < to; i++) {
+                Expenditure expenditure = ledger.get(i);
+                String accountId = expenditure.getAccountId();
+                if (accountId == null || accountId.isEmpty()) {
+                    accountId = UNASSIGNED_ACCOUNT;
+                }
+                Totals totals = totalsFor(partial, new GroupKey(accountId, ledger.keyAt(i)));
+                totals.expenditureCents += Math.round(expenditure.getAmount() * 100);
+                totals.expenditureCount++;
+            }
+            return partial;
+        }
+    }
+
+    // ================ STATE ================
+
+    /**
+     * Load the totals and watermark saved by the last run
+     * A missing or unreadable file leaves the service to start with a full run
+     */
+    private void loadState() {
+        if (!Files.exists(stateFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+            if (in.readInt() != STATE_VERSION) {
+                return;
+            }
+            long offset = in.readLong();
+            long runDay = in.readLong();
+            int count = in.readInt();
+            CustomHashMap<GroupKey, Totals> loaded = new CustomHashMap<>(Math.max(16, count * 2));
+            for (int i = 0; i < count; i++) {
+                GroupKey key = new GroupKey(in.readUTF(), in.readLong());
+                Totals totals = new Totals();
+                totals.expenditureCents = in.readLong();
+                totals.expenditureCount = in.readInt();
+                totals.debitCents = in.readLong();
+                totals.debitCount = in.readInt();
+                loaded.put(key, totals);
+            }
+            groups = loaded;
+            journalOffset = offset;
+            lastRunDay = runDay;
+        } catch (IOException e) {
+            System.err.println("Error loading reconciliation state, running in full: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Save the totals and watermark together, replacing the previous state atomically
+     */
+    private void saveState() {
+        try {
+            SnapshotWriter.writeBinary(stateFile, stream -> {
+                DataOutputStream out = new DataOutputStream(stream);
+                out.writeInt(STATE_VERSION);
+                out.writeLong(journalOffset);
+                out.writeLong(lastRunDay);
+                out.writeInt(groups.size());
+                for (CustomHashMap.Entry<GroupKey, Totals> entry : groups.entries()) {
+                    Totals totals = entry.getValue();
+                    out.writeUTF(entry.getKey().accountId);
+                    out.writeLong(entry.getKey().day);
+                    out.writeLong(totals.expenditureCents);
+                    out.writeInt(totals.expenditureCount);
+                    out.writeLong(totals.debitCents);
+                    out.writeInt(totals.debitCount);
+                }
+                out.flush();
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save " + stateFile + ": " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.nkwarealestate.expenditure.services;
 
 import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.models.VerificationResult;
+import com.nkwarealestate.expenditure.storage.DataFileVerifier;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.Duration;
@@ -133,6 +137,14 @@ public class SystemMonitorService {
         return recent;
     }
     
+    /**
+     * Check every file under a data directory for damage
+     * Checksummed logs are verified record by record; other files are listed by size
+     */
+    public CustomLinkedList<VerificationResult> verifyDataFiles(Path dataDirectory) throws IOException {
+        return DataFileVerifier.verifyAll(dataDirectory);
+    }
+
     /**
      * Generate comprehensive system report
      */
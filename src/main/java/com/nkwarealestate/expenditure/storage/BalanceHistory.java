@@ -0,0 +1,211 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.ConcurrentCustomHashMap;
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
+import com.nkwarealestate.expenditure.datastructures.Timeline;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append-only balance timeline per account, kept in memory and on disk
+ *
+ * Each account's history is a Timeline of (timestamp, balance) points. New
+ * points are only held in memory until flush(), which appends everything not
+ * yet on disk to the history file and forces it; the caller flushes at each
+ * balance log checkpoint, so points lost in a crash are exactly the ones the
+ * balance log still holds and replays. A replayed point that is already in
+ * the history is ignored.
+ *
+ * File format: checksummed frames (see FramedLogWriter), one per account per
+ * flush, each holding
+ *   AccountId (UTF) | Count (int) | Count x (TimestampMillis (long), Balance (double))
+ * A damaged frame is skipped and a torn tail is truncated when the file is loaded.
+ */
+public class BalanceHistory {
+
+    private static final int POINTS_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POINTS_PER_FRAME = 64 * 1024;
+
+    /**
+     * One account's timeline and how much of it is on disk
+     */
+    private static final class Series {
+        final Timeline timeline = new Timeline();
+        int persisted; // Guarded by the BalanceHistory lock
+    }
+
+    private final Path file;
+    private final ConcurrentCustomHashMap<String, Series> series = new ConcurrentCustomHashMap<>();
+    private int skippedFrameCount;
+
+    /**
+     * @param file History file, created on first flush
+     */
+    public BalanceHistory(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Read the history file into memory, truncating a torn tail
+     *
+     * @return Number of points loaded
+     */
+    public synchronized int load() {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        int loaded = 0;
+        long validEnd;
+        long tornTailBytes;
+        try (FramedLogReader reader = new FramedLogReader(file)) {
+            FramedLogReader.Frame frame;
+            while ((frame = reader.next()) != null) {
+                if (frame.getVersion() != POINTS_VERSION) {
+                    skippedFrameCount++;
+                    continue;
+                }
+                loaded += readPoints(frame.getPayload());
+            }
+            skippedFrameCount += reader.getCorruptRegionCount();
+            validEnd = reader.getValidEnd();
+            tornTailBytes = reader.getTornTailBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file + ": " + e.getMessage(), e);
+        }
+
+        if (tornTailBytes > 0) {
+            skippedFrameCount++;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validEnd);
+                channel.force(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not truncate " + file + ": " + e.getMessage(), e);
+            }
+        }
+
+        for (CustomHashMap.Entry<String, Series> entry : series.entries()) {
+            entry.getValue().persisted = entry.getValue().timeline.size();
+        }
+        return loaded;
+    }
+
+    private int readPoints(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Timeline timeline = seriesFor(in.readUTF()).timeline;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            timeline.append(in.readLong(), in.readDouble());
+        }
+        return count;
+    }
+
+    /**
+     * Record an account's balance from a time onwards
+     * Points for one account must be recorded in order, e.g. under its lock
+     * Time Complexity: O(1) amortized
+     */
+    public void record(String accountId, long timestamp, double balance) {
+        seriesFor(accountId).timeline.append(timestamp, balance);
+    }
+
+    /**
+     * Record a point replayed from the balance log, unless the history already has it
+     *
+     * @return true if the point was new
+     */
+    public boolean recordReplayed(String accountId, long timestamp, double balance) {
+        Timeline timeline = seriesFor(accountId).timeline;
+        long lastTime = timeline.lastTime();
+        if (timestamp < lastTime || (timestamp == lastTime && timeline.lastValue() == balance)) {
+            return false;
+        }
+        timeline.append(timestamp, balance);
+        return true;
+    }
+
+    /**
+     * Get an account's timeline, or null if it has no history
+     */
+    public Timeline get(String accountId) {
+        Series entry = accountId == null ? null : series.get(accountId);
+        return entry == null ? null : entry.timeline;
+    }
+
+    /**
+     * Append every point not yet on disk and force the file
+     *
+     * @return Number of points written
+     */
+    public synchronized int flush() {
+        int written = 0;
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileOutputStream stream = new FileOutputStream(file.toFile(), true)) {
+                FramedLogWriter writer = new FramedLogWriter(new BufferedOutputStream(stream, BUFFER_SIZE));
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                long[] times = new long[0];
+                double[] balances = new double[0];
+
+                for (CustomHashMap.Entry<String, Series> entry : series.entries()) {
+                    Series account = entry.getValue();
+                    int pending = account.timeline.size() - account.persisted;
+                    if (pending <= 0) {
+                        continue;
+                    }
+                    if (times.length < pending) {
+                        times = new long[pending];
+                        balances = new double[pending];
+                    }
+                    int count = account.timeline.copyFrom(account.persisted, times, balances);
+
+                    for (int start = 0; start < count; start += MAX_POINTS_PER_FRAME) {
+                        int end = Math.min(count, start + MAX_POINTS_PER_FRAME);
+                        bytes.reset();
+                        out.writeUTF(entry.getKey());
+                        out.writeInt(end - start);
+                        for (int i = start; i < end; i++) {
+                            out.writeLong(times[i]);
+                            out.writeDouble(balances[i]);
+                        }
+                        out.flush();
+                        writer.write(POINTS_VERSION, bytes.toByteArray());
+                    }
+                    account.persisted += count;
+                    written += count;
+                }
+                writer.flush();
+                stream.getChannel().force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+        return written;
+    }
+
+    /**
+     * Number of damaged frames skipped by the last load
+     */
+    public int getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    private Series seriesFor(String accountId) {
+        return series.computeIfAbsent(accountId, id -> new Series());
+    }
+}
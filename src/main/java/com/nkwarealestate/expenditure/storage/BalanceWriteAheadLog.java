@@ -0,0 +1,430 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Append-only log of account balance changes with group commit
+ *
+ * Each debit or credit appends one short record instead of rewriting the
+ * accounts snapshot. Records are buffered and forced to disk together, either
+ * when syncEveryRecords changes are pending or every syncIntervalMs by a
+ * background thread, whichever comes first; at most one interval of changes
+ * can be lost in a crash. Records carry the resulting balance, so replaying
+ * a record twice is harmless. A checkpoint writes the snapshot and then
+ * truncates the log.
+ *
+ * Records are checksummed frames (see FramedLogWriter) whose payload is:
+ *   Seq|TimestampMillis|AccountId|Delta|NewBalance                  (version 1)
+ *   Seq|TimestampMillis|Count|AccountId|Delta|NewBalance|...        (version 2)
+ * A version 2 record covers changes to several accounts made together, such
+ * as a transfer; its checksum makes replay apply all of them or none.
+ * Replay skips damaged frames and carries on with the next valid one; a
+ * damaged tail is truncated. Logs from before framing hold the same fields
+ * one per line; they are replayed and rewritten as frames on open.
+ */
+public class BalanceWriteAheadLog {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FIELD_COUNT = 5;
+    private static final int RECORD_VERSION = 1;
+    private static final int COMBINED_RECORD_VERSION = 2;
+
+    /**
+     * Receives each valid record during replay, in log order
+     */
+    public interface RecordHandler {
+        void apply(long seq, long timestamp, String accountId, double delta, double newBalance);
+    }
+
+    private final Path logFile;
+    private final long syncIntervalMs;
+    private final int syncEveryRecords;
+
+    private FileOutputStream stream;
+    private FileChannel channel;
+    private FramedLogWriter writer;
+    private ScheduledExecutorService syncScheduler;
+
+    private long nextSeq;
+    private int pendingRecords; // Written but not yet forced to disk
+    private int recordsSinceCheckpoint;
+    private int skippedRecordCount;
+    private long validLength; // Bytes up to the end of the last valid record
+    private boolean tornTail;
+
+    /**
+     * @param logFile          Log file, created on first append
+     * @param syncIntervalMs   Maximum time a change may wait before it is forced to disk
+     * @param syncEveryRecords Number of pending changes that triggers an immediate sync
+     */
+    public BalanceWriteAheadLog(Path logFile, long syncIntervalMs, int syncEveryRecords) {
+        if (syncIntervalMs <= 0 || syncEveryRecords <= 0) {
+            throw new IllegalArgumentException("Sync interval and record count must be positive");
+        }
+        this.logFile = logFile;
+        this.syncIntervalMs = syncIntervalMs;
+        this.syncEveryRecords = syncEveryRecords;
+        this.nextSeq = 1;
+    }
+
+    /**
+     * Replay existing records, then open the log for appending
+     * Damaged records are skipped; a damaged tail is a torn write from a crash
+     * and is truncated
+     *
+     * @return Number of records replayed
+     */
+    public synchronized int open(RecordHandler handler) {
+        int replayed = replay(handler);
+        try {
+            Path parent = logFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (tornTail) {
+                // Drop the torn tail so new records are not appended after garbage
+                truncate(validLength);
+            }
+
+            stream = new FileOutputStream(logFile.toFile(), true);
+            channel = stream.getChannel();
+            writer = new FramedLogWriter(new BufferedOutputStream(stream, BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + logFile + ": " + e.getMessage(), e);
+        }
+
+        syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-wal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncScheduler.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs,
+                TimeUnit.MILLISECONDS);
+        return replayed;
+    }
+
+    /**
+     * Append a balance change
+     * Time Complexity: O(1), with one fsync per group of records
+     *
+     * @return The timestamp stored in the record
+     */
+    public synchronized long append(String accountId, double delta, double newBalance) {
+        ensureOpen();
+        long timestamp = System.currentTimeMillis();
+        String record = nextSeq++ + "|" + timestamp + "|" + accountId + "|"
+                + FieldParser.formatAmount(delta) + "|" + FieldParser.formatAmount(newBalance);
+        try {
+            writer.write(RECORD_VERSION, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to " + logFile + ": " + e.getMessage(), e);
+        }
+
+        pendingRecords++;
+        recordsSinceCheckpoint++;
+        if (pendingRecords >= syncEveryRecords) {
+            sync();
+        }
+        return timestamp;
+    }
+
+    /**
+     * Append changes to several accounts as one record
+     * Time Complexity: O(count), with one fsync per group of records
+     *
+     * @param count Number of entries to take from the arrays
+     * @return The timestamp stored in the record
+     */
+    public synchronized long appendAll(String[] accountIds, double[] deltas, double[] newBalances, int count) {
+        ensureOpen();
+        long timestamp = System.currentTimeMillis();
+        StringBuilder record = new StringBuilder(32 + count * 32);
+        record.append(nextSeq++).append('|').append(timestamp).append('|').append(count);
+        for (int i = 0; i < count; i++) {
+            record.append('|').append(accountIds[i])
+                    .append('|').append(FieldParser.formatAmount(deltas[i]))
+                    .append('|').append(FieldParser.formatAmount(newBalances[i]));
+        }
+        try {
+            writer.write(COMBINED_RECORD_VERSION, record.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to " + logFile + ": " + e.getMessage(), e);
+        }
+
+        pendingRecords++;
+        recordsSinceCheckpoint++;
+        if (pendingRecords >= syncEveryRecords) {
+            sync();
+        }
+        return timestamp;
+    }
+
+    /**
+     * Force all pending records to disk
+     */
+    public synchronized void sync() {
+        if (pendingRecords == 0 || writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            channel.force(false);
+            pendingRecords = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync " + logFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Fold the log into a snapshot
+     * Appends are blocked while the snapshot is written; the log is only
+     * truncated if the snapshot writer reports success
+     *
+     * @param writeSnapshot Writes the current state, returning true on success
+     * @return true if the log was truncated
+     */
+    public synchronized boolean checkpoint(BooleanSupplier writeSnapshot) {
+        sync();
+        if (!writeSnapshot.getAsBoolean()) {
+            return false;
+        }
+        try {
+            if (writer != null) {
+                channel.truncate(0);
+                channel.force(true);
+            } else if (Files.exists(logFile)) {
+                truncate(0);
+            }
+            recordsSinceCheckpoint = 0;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not truncate " + logFile + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Number of records appended since the last checkpoint
+     */
+    public synchronized int getRecordsSinceCheckpoint() {
+        return recordsSinceCheckpoint;
+    }
+
+    /**
+     * Number of damaged regions and unreadable records skipped during the last replay
+     */
+    public int getSkippedRecordCount() {
+        return skippedRecordCount;
+    }
+
+    /**
+     * Stop the background sync thread and force pending records to disk
+     */
+    public synchronized void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+            syncScheduler = null;
+        }
+        if (writer == null) {
+            return;
+        }
+        try {
+            sync();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close " + logFile + ": " + e.getMessage(), e);
+        } finally {
+            writer = null;
+            channel = null;
+            stream = null;
+        }
+    }
+
+    /**
+     * Read records in order, skipping damaged ones
+     */
+    private int replay(RecordHandler handler) {
+        skippedRecordCount = 0;
+        validLength = 0;
+        tornTail = false;
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+
+        int replayed;
+        try {
+            replayed = FramedLogReader.isFramed(logFile) ? replayFramed(handler) : replayLegacy(handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + logFile + ": " + e.getMessage(), e);
+        }
+
+        recordsSinceCheckpoint = replayed;
+        return replayed;
+    }
+
+    private int replayFramed(RecordHandler handler) throws IOException {
+        int replayed = 0;
+        try (FramedLogReader reader = new FramedLogReader(logFile)) {
+            String[] fields = new String[FIELD_COUNT];
+            FramedLogReader.Frame frame;
+            while ((frame = reader.next()) != null) {
+                boolean applied = frame.getVersion() == RECORD_VERSION
+                        ? applyRecord(frame.getText(), fields, handler)
+                        : frame.getVersion() == COMBINED_RECORD_VERSION && applyCombinedRecord(frame.getText(), handler);
+                if (applied) {
+                    replayed++;
+                } else {
+                    skippedRecordCount++;
+                }
+            }
+
+            skippedRecordCount += reader.getCorruptRegionCount();
+            if (reader.getTornTailBytes() > 0) {
+                skippedRecordCount++;
+                tornTail = true;
+                validLength = reader.getValidEnd();
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Replay a log written one record per line, then rewrite its valid records as frames
+     * Replay stops at the first malformed line, since lines carry no checksum
+     */
+    private int replayLegacy(RecordHandler handler) throws IOException {
+        CustomLinkedList<String> valid = new CustomLinkedList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(logFile), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String[] fields = new String[FIELD_COUNT];
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (!applyRecord(line, fields, handler)) {
+                    // Everything from a torn write onwards is unreliable
+                    skippedRecordCount++;
+                    while (reader.readLine() != null) {
+                        skippedRecordCount++;
+                    }
+                    break;
+                }
+                valid.add(line);
+            }
+        }
+
+        int replayed = valid.size();
+        SnapshotWriter.writeBinary(logFile, out -> {
+            FramedLogWriter framed = new FramedLogWriter(out);
+            while (!valid.isEmpty()) {
+                framed.write(RECORD_VERSION, valid.remove(0));
+            }
+            framed.flush();
+        });
+        return replayed;
+    }
+
+    /**
+     * Parse one record and pass it to the handler
+     *
+     * @return false if the record is malformed
+     */
+    private boolean applyRecord(String record, String[] fields, RecordHandler handler) {
+        try {
+            if (FieldParser.splitPipe(record, fields) != FIELD_COUNT) {
+                return false;
+            }
+            long seq = Long.parseLong(fields[0]);
+            long timestamp = Long.parseLong(fields[1]);
+            double delta = FieldParser.parseAmount(fields[3]);
+            double newBalance = FieldParser.parseAmount(fields[4]);
+
+            handler.apply(seq, timestamp, fields[2], delta, newBalance);
+            nextSeq = Math.max(nextSeq, seq + 1);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Parse a record covering several accounts and pass each change to the handler
+     * Nothing is applied unless the whole record parses
+     *
+     * @return false if the record is malformed
+     */
+    private boolean applyCombinedRecord(String record, RecordHandler handler) {
+        try {
+            String[] header = new String[4];
+            if (FieldParser.splitPipe(record, header) != 4) {
+                return false;
+            }
+            int count = Integer.parseInt(header[2]);
+            if (count <= 0) {
+                return false;
+            }
+            String[] fields = new String[3 + count * 3];
+            if (FieldParser.splitPipe(record, fields) != fields.length || fields[fields.length - 1].indexOf('|') >= 0) {
+                return false;
+            }
+
+            long seq = Long.parseLong(fields[0]);
+            long timestamp = Long.parseLong(fields[1]);
+            double[] deltas = new double[count];
+            double[] newBalances = new double[count];
+            for (int i = 0; i < count; i++) {
+                deltas[i] = FieldParser.parseAmount(fields[4 + i * 3]);
+                newBalances[i] = FieldParser.parseAmount(fields[5 + i * 3]);
+            }
+
+            for (int i = 0; i < count; i++) {
+                handler.apply(seq, timestamp, fields[3 + i * 3], deltas[i], newBalances[i]);
+            }
+            nextSeq = Math.max(nextSeq, seq + 1);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private void truncate(long length) throws IOException {
+        try (FileChannel truncating = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+            truncating.truncate(length);
+            truncating.force(true);
+        }
+    }
+
+    private void ensureOpen() {
+        if (writer == null) {
+            throw new IllegalStateException("Balance log is not open");
+        }
+    }
+
+    /**
+     * Background sync; failures surface on the next foreground append or sync
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            // Pending records stay buffered and are retried on the next sync
+        }
+    }
+}
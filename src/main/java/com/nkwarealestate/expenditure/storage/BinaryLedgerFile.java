@@ -0,0 +1,320 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.Phase;
+import com.nkwarealestate.expenditure.models.Receipt;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read-only, memory-mapped view of a binary ledger file
+ *
+ * Layout (little-endian):
+ *   Header      64 bytes: magic, version, record type, record width and count,
+ *               section offsets and the stamp of the text file it was built from
+ *   Records     recordCount fixed-width records; strings are dictionary ids
+ *   Dictionary  (count + 1) int offsets followed by the UTF-8 string bytes
+ *
+ * Version 1 files, written before records carried a currency, are still
+ * read; their records have no Currency column and are read as GHS.
+ *
+ * Opening maps the file and reads only the header, so it costs the same for
+ * ten rows or ten million; the OS page cache keeps the mapping warm across
+ * runs. Records and strings are decoded only when asked for, and each
+ * distinct string is decoded at most once.
+ */
+public class BinaryLedgerFile {
+
+    static final int MAGIC = 0x424C524E; // "NRLB"
+    static final short VERSION = 2;
+    static final short VERSION_WITHOUT_CURRENCY = 1;
+    static final int HEADER_SIZE = 64;
+    static final int NO_STRING = -1;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    /**
+     * Record kinds and their fixed widths in bytes
+     */
+    public enum RecordType {
+        // Amount(8) Code(4) EpochDay(4) Category(4) Account(4) Description(4) Receipt(4) Phase(1) Currency(4)
+        EXPENDITURE(1, 37, 33),
+        // Balance(8) AccountId(4) BankName(4) AccountType(4) Currency(4)
+        ACCOUNT(2, 24, 20),
+        // Id(4) ExpenditureCode(4) EpochDay(4) Vendor(4) FilePath(4) ValidatedBy(4) Validated(1)
+        RECEIPT(3, 25, 25);
+
+        final byte id;
+        final int width;
+        final int widthWithoutCurrency; // Version 1 layout, without the trailing Currency
+
+        RecordType(int id, int width, int widthWithoutCurrency) {
+            this.id = (byte) id;
+            this.width = width;
+            this.widthWithoutCurrency = widthWithoutCurrency;
+        }
+
+        static RecordType fromId(byte id) {
+            for (RecordType type : values()) {
+                if (type.id == id) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown record type " + id);
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Path file;
+    private final ByteBuffer buffer;
+    private final RecordType recordType;
+    private final boolean hasCurrency;
+    private final int recordWidth;
+    private final int recordCount;
+    private final int recordsOffset;
+    private final int dictionaryCount;
+    private final int dictionaryOffsetsStart;
+    private final int dictionaryBytesStart;
+    private final long sourceLength;
+    private final long sourceModified;
+    private final String[] decodedStrings; // Filled on first use of each id
+
+    private BinaryLedgerFile(Path file, ByteBuffer buffer) throws IOException {
+        this.file = file;
+        this.buffer = buffer;
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(file + " is not a binary ledger file");
+        }
+        short version = buffer.getShort(4);
+        if (version != VERSION && version != VERSION_WITHOUT_CURRENCY) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+
+        this.recordType = RecordType.fromId(buffer.get(6));
+        this.hasCurrency = version == VERSION;
+        this.recordWidth = hasCurrency ? recordType.width : recordType.widthWithoutCurrency;
+        if (buffer.getInt(8) != recordWidth) {
+            throw new IOException(file + " has an unexpected record width");
+        }
+        this.recordCount = buffer.getInt(12);
+        this.recordsOffset = (int) buffer.getLong(16);
+        long dictionaryOffset = buffer.getLong(24);
+        this.dictionaryCount = buffer.getInt(32);
+        this.sourceLength = buffer.getLong(40);
+        this.sourceModified = buffer.getLong(48);
+
+        this.dictionaryOffsetsStart = (int) dictionaryOffset;
+        this.dictionaryBytesStart = dictionaryOffsetsStart + (dictionaryCount + 1) * Integer.BYTES;
+        if ((long) recordsOffset + (long) recordCount * recordWidth > dictionaryOffset
+                || dictionaryBytesStart > buffer.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+        this.decodedStrings = new String[dictionaryCount];
+    }
+
+    /**
+     * Map a binary ledger file for reading
+     * Time Complexity: O(1), independent of the number of records
+     */
+    public static BinaryLedgerFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(file + " is too large to map in one piece");
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return new BinaryLedgerFile(file, mapped);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public RecordType getRecordType() {
+        return recordType;
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Length of the text file this was built from, or -1 if unknown
+     */
+    public long getSourceLength() {
+        return sourceLength;
+    }
+
+    /**
+     * Modification time of the text file this was built from, or -1 if unknown
+     */
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    /**
+     * Read the amount (expenditures) or balance (accounts) without decoding the record
+     * Time Complexity: O(1)
+     */
+    public double getAmount(int index) {
+        if (recordType == RecordType.RECEIPT) {
+            throw new IllegalStateException("Receipts have no amount");
+        }
+        return buffer.getDouble(recordStart(index));
+    }
+
+    /**
+     * Decode one expenditure record
+     */
+    public Expenditure readExpenditure(int index) {
+        requireType(RecordType.EXPENDITURE);
+        int at = recordStart(index);
+
+        Expenditure expenditure = new Expenditure(
+                stringAt(at + 8),
+                buffer.getDouble(at),
+                dateAt(at + 12),
+                PHASES[buffer.get(at + 32)],
+                stringAt(at + 16),
+                stringAt(at + 20),
+                stringAt(at + 24));
+        expenditure.setReceiptId(stringAt(at + 28));
+        if (hasCurrency) {
+            expenditure.setCurrency(stringAt(at + 33));
+        }
+        return expenditure;
+    }
+
+    /**
+     * Decode one account record
+     */
+    public BankAccount readAccount(int index) {
+        requireType(RecordType.ACCOUNT);
+        int at = recordStart(index);
+        BankAccount account = new BankAccount(stringAt(at + 8), stringAt(at + 12), buffer.getDouble(at),
+                stringAt(at + 16));
+        if (hasCurrency) {
+            account.setCurrency(stringAt(at + 20));
+        }
+        return account;
+    }
+
+    /**
+     * Decode one receipt record
+     */
+    public Receipt readReceipt(int index) {
+        requireType(RecordType.RECEIPT);
+        int at = recordStart(index);
+
+        Receipt receipt = new Receipt(stringAt(at), stringAt(at + 4), dateAt(at + 8),
+                stringAt(at + 12), stringAt(at + 16));
+        receipt.setValidatedBy(stringAt(at + 20));
+        receipt.setValidated(buffer.get(at + 24) != 0);
+        return receipt;
+    }
+
+    /**
+     * Iterate expenditures, decoding each record as it is reached
+     */
+    public Iterable<Expenditure> expenditures() {
+        requireType(RecordType.EXPENDITURE);
+        return () -> new RecordIterator<>(this::readExpenditure);
+    }
+
+    /**
+     * Iterate accounts, decoding each record as it is reached
+     */
+    public Iterable<BankAccount> accounts() {
+        requireType(RecordType.ACCOUNT);
+        return () -> new RecordIterator<>(this::readAccount);
+    }
+
+    /**
+     * Iterate receipts, decoding each record as it is reached
+     */
+    public Iterable<Receipt> receipts() {
+        requireType(RecordType.RECEIPT);
+        return () -> new RecordIterator<>(this::readReceipt);
+    }
+
+    private int recordStart(int index) {
+        if (index < 0 || index >= recordCount) {
+            throw new IndexOutOfBoundsException("Record " + index + " of " + recordCount);
+        }
+        return recordsOffset + index * recordWidth;
+    }
+
+    private void requireType(RecordType expected) {
+        if (recordType != expected) {
+            throw new IllegalStateException(file + " holds " + recordType + " records, not " + expected);
+        }
+    }
+
+    private LocalDate dateAt(int position) {
+        int epochDay = buffer.getInt(position);
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Resolve a dictionary id stored at the given position
+     */
+    private String stringAt(int position) {
+        int id = buffer.getInt(position);
+        if (id == NO_STRING) {
+            return null;
+        }
+
+        String value = decodedStrings[id];
+        if (value == null) {
+            int start = buffer.getInt(dictionaryOffsetsStart + id * Integer.BYTES);
+            int end = buffer.getInt(dictionaryOffsetsStart + (id + 1) * Integer.BYTES);
+            byte[] bytes = new byte[end - start];
+
+            ByteBuffer view = buffer.duplicate();
+            view.position(dictionaryBytesStart + start);
+            view.get(bytes);
+
+            value = new String(bytes, StandardCharsets.UTF_8);
+            decodedStrings[id] = value;
+        }
+        return value;
+    }
+
+    private interface RecordReader<T> {
+        T read(int index);
+    }
+
+    private class RecordIterator<T> implements Iterator<T> {
+        private final RecordReader<T> reader;
+        private int next;
+
+        RecordIterator(RecordReader<T> reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < recordCount;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return reader.read(next++);
+        }
+    }
+}
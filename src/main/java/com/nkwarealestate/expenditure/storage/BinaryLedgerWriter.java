@@ -0,0 +1,205 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
+import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.Receipt;
+import com.nkwarealestate.expenditure.storage.BinaryLedgerFile.RecordType;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+/**
+ * Writes binary ledger files read by BinaryLedgerFile
+ *
+ * Records are encoded twice: the first pass only assigns dictionary ids and
+ * counts records, the second streams them out. This keeps memory bounded by
+ * the number of distinct strings rather than the number of records. Files
+ * are replaced atomically.
+ */
+public final class BinaryLedgerWriter {
+
+    private BinaryLedgerWriter() {
+        // Static helpers only
+    }
+
+    /**
+     * Write expenditures in binary form
+     *
+     * @param target  Binary file to replace
+     * @param records Records to write; iterated twice
+     * @param source  Text file the records came from, stamped into the header, or null
+     * @return Number of records written
+     */
+    public static int writeExpenditures(Path target, Iterable<Expenditure> records, Path source)
+            throws IOException {
+        return write(target, RecordType.EXPENDITURE, records, source, (expenditure, out, dictionary) -> {
+            out.putDouble(expenditure.getAmount());
+            out.putInt(dictionary.idOf(expenditure.getCode()));
+            out.putInt(epochDay(expenditure.getDate()));
+            out.putInt(dictionary.idOf(expenditure.getCategory()));
+            out.putInt(dictionary.idOf(expenditure.getAccountId()));
+            out.putInt(dictionary.idOf(expenditure.getDescription()));
+            out.putInt(dictionary.idOf(expenditure.getReceiptId()));
+            out.put((byte) expenditure.getPhase().ordinal());
+            out.putInt(dictionary.idOf(expenditure.getCurrency()));
+        });
+    }
+
+    /**
+     * Write bank accounts in binary form
+     */
+    public static int writeAccounts(Path target, Iterable<BankAccount> records, Path source)
+            throws IOException {
+        return write(target, RecordType.ACCOUNT, records, source, (account, out, dictionary) -> {
+            out.putDouble(account.getBalance());
+            out.putInt(dictionary.idOf(account.getAccountId()));
+            out.putInt(dictionary.idOf(account.getBankName()));
+            out.putInt(dictionary.idOf(account.getAccountType()));
+            out.putInt(dictionary.idOf(account.getCurrency()));
+        });
+    }
+
+    /**
+     * Write receipts in binary form
+     */
+    public static int writeReceipts(Path target, Iterable<Receipt> records, Path source)
+            throws IOException {
+        return write(target, RecordType.RECEIPT, records, source, (receipt, out, dictionary) -> {
+            out.putInt(dictionary.idOf(receipt.getId()));
+            out.putInt(dictionary.idOf(receipt.getExpenditureCode()));
+            out.putInt(epochDay(receipt.getDate()));
+            out.putInt(dictionary.idOf(receipt.getVendorName()));
+            out.putInt(dictionary.idOf(receipt.getFilePath()));
+            out.putInt(dictionary.idOf(receipt.getValidatedBy()));
+            out.put((byte) (receipt.isValidated() ? 1 : 0));
+        });
+    }
+
+    private interface RecordEncoder<T> {
+        void encode(T record, ByteBuffer out, StringDictionary dictionary);
+    }
+
+    private static <T> int write(Path target, RecordType type, Iterable<T> records, Path source,
+            RecordEncoder<T> encoder) throws IOException {
+        boolean hasSource = source != null && Files.exists(source);
+        long sourceLength = hasSource ? Files.size(source) : -1;
+        long sourceModified = hasSource ? Files.getLastModifiedTime(source).toMillis() : -1;
+
+        // Pass 1: assign dictionary ids and count records
+        StringDictionary dictionary = new StringDictionary();
+        ByteBuffer record = ByteBuffer.allocate(type.width).order(ByteOrder.LITTLE_ENDIAN);
+        int count = 0;
+        for (T item : records) {
+            record.clear();
+            encoder.encode(item, record, dictionary);
+            count++;
+        }
+        final int recordCount = count;
+
+        long recordsEnd = BinaryLedgerFile.HEADER_SIZE + (long) recordCount * type.width;
+        long fileLength = recordsEnd + (dictionary.size() + 1L) * Integer.BYTES + dictionary.byteLength();
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Ledger too large for the binary format: " + fileLength + " bytes");
+        }
+
+        SnapshotWriter.writeBinary(target, out -> {
+            ByteBuffer header = ByteBuffer.allocate(BinaryLedgerFile.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(BinaryLedgerFile.MAGIC);
+            header.putShort(BinaryLedgerFile.VERSION);
+            header.put(type.id);
+            header.put((byte) 0);
+            header.putInt(type.width);
+            header.putInt(recordCount);
+            header.putLong(BinaryLedgerFile.HEADER_SIZE);
+            header.putLong(recordsEnd);
+            header.putInt(dictionary.size());
+            header.putInt(0);
+            header.putLong(sourceLength);
+            header.putLong(sourceModified);
+            out.write(header.array());
+
+            // Pass 2: stream the records; every string already has an id
+            int written = 0;
+            for (T item : records) {
+                record.clear();
+                encoder.encode(item, record, dictionary);
+                out.write(record.array());
+                written++;
+            }
+            if (written != recordCount) {
+                throw new IOException("Records changed while the binary ledger was being written");
+            }
+
+            dictionary.writeTo(out);
+        });
+
+        return recordCount;
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date == null ? BinaryLedgerFile.NO_DATE : (int) date.toEpochDay();
+    }
+
+    /**
+     * Assigns dense ids to distinct strings and keeps their UTF-8 bytes
+     */
+    private static class StringDictionary {
+        private final CustomHashMap<String, Integer> ids = new CustomHashMap<>();
+        private byte[][] encoded = new byte[64][];
+        private int size;
+        private long byteLength;
+
+        int idOf(String value) {
+            if (value == null) {
+                return BinaryLedgerFile.NO_STRING;
+            }
+
+            Integer id = ids.get(value);
+            if (id == null) {
+                if (size == encoded.length) {
+                    byte[][] grown = new byte[encoded.length * 2][];
+                    System.arraycopy(encoded, 0, grown, 0, size);
+                    encoded = grown;
+                }
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                encoded[size] = bytes;
+                byteLength += bytes.length;
+                id = size++;
+                ids.put(value, id);
+            }
+            return id;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long byteLength() {
+            return byteLength;
+        }
+
+        /**
+         * Write the offset table followed by the string bytes
+         */
+        void writeTo(OutputStream out) throws IOException {
+            ByteBuffer offsets = ByteBuffer.allocate((size + 1) * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            int offset = 0;
+            for (int i = 0; i < size; i++) {
+                offsets.putInt(offset);
+                offset += encoded[i].length;
+            }
+            offsets.putInt(offset);
+            out.write(offsets.array());
+
+            for (int i = 0; i < size; i++) {
+                out.write(encoded[i]);
+            }
+        }
+    }
+}
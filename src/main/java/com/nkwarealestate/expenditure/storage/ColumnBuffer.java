@@ -0,0 +1,99 @@
+package com.nkwarealestate.expenditure.storage;
+
+/**
+ * Growable column-oriented buffer of parsed text fields
+ * Each field lives in its own array, so a loader that needs one column
+ * (e.g. amounts) walks a single contiguous array instead of per-row objects
+ */
+public class ColumnBuffer {
+
+    private final String[][] columns;
+    private int rowCount;
+    private int skippedCount;
+
+    public ColumnBuffer(int columnCount, int initialRows) {
+        if (columnCount <= 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+        this.columns = new String[columnCount][Math.max(initialRows, 16)];
+    }
+
+    /**
+     * Start a new row and return its index; fields are filled with set()
+     */
+    int addRow() {
+        if (rowCount == columns[0].length) {
+            grow(rowCount * 2);
+        }
+        return rowCount++;
+    }
+
+    void set(int row, int column, String value) {
+        columns[column][row] = value;
+    }
+
+    void markSkipped() {
+        skippedCount++;
+    }
+
+    /**
+     * Append all rows of another buffer after the rows of this one
+     */
+    void appendAll(ColumnBuffer other) {
+        if (rowCount + other.rowCount > columns[0].length) {
+            grow(rowCount + other.rowCount);
+        }
+        for (int c = 0; c < columns.length; c++) {
+            System.arraycopy(other.columns[c], 0, columns[c], rowCount, other.rowCount);
+        }
+        rowCount += other.rowCount;
+        skippedCount += other.skippedCount;
+    }
+
+    public String get(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return columns[column][row];
+    }
+
+    /**
+     * Parse a column of amounts; rows that are not numbers become NaN
+     */
+    public double[] getAmounts(int column) {
+        double[] amounts = new double[rowCount];
+        String[] values = columns[column];
+        for (int i = 0; i < rowCount; i++) {
+            try {
+                amounts[i] = FieldParser.parseAmount(values[i]);
+            } catch (NumberFormatException e) {
+                amounts[i] = Double.NaN;
+            }
+        }
+        return amounts;
+    }
+
+    public int getColumnCount() {
+        return columns.length;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * Number of data lines with fewer fields than columns
+     */
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    private void grow(int minimumRows) {
+        int newCapacity = Math.max(minimumRows, columns[0].length * 2);
+        for (int c = 0; c < columns.length; c++) {
+            String[] grown = new String[newCapacity];
+            System.arraycopy(columns[c], 0, grown, 0, rowCount);
+            columns[c] = grown;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * RFC 4180 CSV reader that maps columns by the header row
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ * Reads through its own char buffer, so memory use does not depend on file size
+ */
+public class CsvRecordReader implements RecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfFile;
+
+    private final int[] sourceToColumn; // Header position -> requested column, or -1
+    private final int columnCount;
+    private final StringBuilder field = new StringBuilder(64);
+    private long lineNumber = 1;
+
+    /**
+     * @param columns Columns to extract, matched case-insensitively against the header
+     */
+    public CsvRecordReader(Reader reader, String[] columns) throws IOException {
+        this.reader = reader;
+        this.columnCount = columns.length;
+
+        String[] header = readRow();
+        if (header == null) {
+            this.sourceToColumn = new int[0];
+            return;
+        }
+
+        this.sourceToColumn = new int[header.length];
+        for (int i = 0; i < header.length; i++) {
+            sourceToColumn[i] = -1;
+            String name = header[i] == null ? "" : header[i].trim();
+            if (i == 0 && name.startsWith("\uFEFF")) {
+                name = name.substring(1); // Byte order mark written by some spreadsheet tools
+            }
+            for (int c = 0; c < columns.length; c++) {
+                if (columns[c].equalsIgnoreCase(name)) {
+                    sourceToColumn[i] = c;
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        String[] row;
+        do {
+            row = readRow();
+            if (row == null) {
+                return null;
+            }
+        } while (row.length == 1 && row[0] == null); // Blank line
+
+        String[] values = new String[columnCount];
+        for (int i = 0; i < row.length && i < sourceToColumn.length; i++) {
+            if (sourceToColumn[i] >= 0) {
+                values[sourceToColumn[i]] = row[i];
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Read one physical row, following quoted line breaks
+     *
+     * @return Raw fields (empty fields as null), or null at end of file
+     */
+    private String[] readRow() throws IOException {
+        if (!fill()) {
+            return null;
+        }
+
+        String[] fields = new String[Math.max(sourceToColumnLength(), 4)];
+        int count = 0;
+        long startLine = lineNumber;
+
+        while (true) {
+            field.setLength(0);
+            boolean quoted = false;
+            boolean endOfRow = false;
+
+            if (fill() && buffer[position] == '"') {
+                quoted = true;
+                position++;
+                while (true) {
+                    if (!fill()) {
+                        throw new MalformedRecordException("Unterminated quoted field starting on line " + startLine);
+                    }
+                    char c = buffer[position++];
+                    if (c == '"') {
+                        if (fill() && buffer[position] == '"') {
+                            field.append('"');
+                            position++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            lineNumber++;
+                        }
+                        field.append(c);
+                    }
+                }
+            }
+
+            // Unquoted content, or whatever follows the closing quote up to the separator
+            while (true) {
+                if (!fill()) {
+                    endOfRow = true;
+                    break;
+                }
+                char c = buffer[position++];
+                if (c == ',') {
+                    break;
+                }
+                if (c == '\n') {
+                    lineNumber++;
+                    endOfRow = true;
+                    break;
+                }
+                if (c == '\r') {
+                    if (fill() && buffer[position] == '\n') {
+                        position++;
+                    }
+                    lineNumber++;
+                    endOfRow = true;
+                    break;
+                }
+                field.append(c);
+            }
+
+            if (count == fields.length) {
+                String[] grown = new String[fields.length * 2];
+                System.arraycopy(fields, 0, grown, 0, count);
+                fields = grown;
+            }
+            fields[count++] = field.length() == 0 && !quoted ? null : field.toString();
+
+            if (endOfRow) {
+                break;
+            }
+        }
+
+        String[] row = new String[count];
+        System.arraycopy(fields, 0, row, 0, count);
+        return row;
+    }
+
+    private int sourceToColumnLength() {
+        return sourceToColumn == null ? 0 : sourceToColumn.length;
+    }
+
+    /**
+     * Make sure at least one char is buffered
+     *
+     * @return false at end of file
+     */
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+        if (endOfFile) {
+            return false;
+        }
+        limit = reader.read(buffer, 0, buffer.length);
+        position = 0;
+        if (limit <= 0) {
+            limit = 0;
+            endOfFile = true;
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * RFC 4180 CSV writer with a header row
+ * Fields containing commas, quotes or line breaks are quoted, with quotes doubled
+ */
+public class CsvRecordWriter implements RecordWriter {
+
+    private final Writer writer;
+    private final int columnCount;
+
+    public CsvRecordWriter(Writer writer, String[] columns) throws IOException {
+        this.writer = writer;
+        this.columnCount = columns.length;
+        write(columns);
+    }
+
+    @Override
+    public void write(String[] values) throws IOException {
+        for (int i = 0; i < columnCount; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeField(values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ';
+    }
+}
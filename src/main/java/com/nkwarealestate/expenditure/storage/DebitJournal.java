@@ -0,0 +1,311 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only record of every debit posted to an account
+ *
+ * The balance log only keeps changes until the next checkpoint; this journal
+ * keeps each debit for good, with the date it is for (the expenditure date
+ * for expenditure postings), so debits can be matched against expenditures
+ * later. Entries are buffered and forced to disk in groups like the balance
+ * log, and a reader can resume from any offset it was given by an earlier
+ * read, which lets consumers process only entries added since.
+ *
+ * File format: checksummed frames (see FramedLogWriter), one per posting, each holding
+ *   PostedMillis (long) | Count (int) | Count x (AccountId (UTF), ValueEpochDay (long), AmountCents (long))
+ * Damaged frames are skipped when reading; a torn tail is truncated on open.
+ */
+public class DebitJournal {
+
+    private static final int ENTRIES_VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives each journal entry during a read, in journal order
+     */
+    public interface EntryHandler {
+        void accept(String accountId, long valueDay, long amountCents, long postedMillis);
+    }
+
+    private final Path file;
+    private final long syncIntervalMs;
+    private final int syncEveryRecords;
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream payload = new DataOutputStream(bytes);
+
+    private FileOutputStream stream;
+    private FileChannel channel;
+    private FramedLogWriter writer;
+    private ScheduledExecutorService syncScheduler;
+
+    private long openLength; // Valid bytes on disk when opened
+    private int pendingRecords; // Written but not yet forced to disk
+    private long entryCount;
+    private long firstPostedMillis = -1;
+    private int skippedFrameCount;
+
+    /**
+     * @param file             Journal file, created on open
+     * @param syncIntervalMs   Maximum time an entry may wait before it is forced to disk
+     * @param syncEveryRecords Number of pending postings that triggers an immediate sync
+     */
+    public DebitJournal(Path file, long syncIntervalMs, int syncEveryRecords) {
+        if (syncIntervalMs <= 0 || syncEveryRecords <= 0) {
+            throw new IllegalArgumentException("Sync interval and record count must be positive");
+        }
+        this.file = file;
+        this.syncIntervalMs = syncIntervalMs;
+        this.syncEveryRecords = syncEveryRecords;
+    }
+
+    /**
+     * Check the existing journal, truncating a torn tail, then open it for appending
+     *
+     * @return Number of entries already in the journal
+     */
+    public synchronized long open() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            if (Files.exists(file)) {
+                scan();
+            }
+
+            stream = new FileOutputStream(file.toFile(), true);
+            channel = stream.getChannel();
+            writer = new FramedLogWriter(new BufferedOutputStream(stream, BUFFER_SIZE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open " + file + ": " + e.getMessage(), e);
+        }
+
+        syncScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "debit-journal-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        syncScheduler.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs,
+                TimeUnit.MILLISECONDS);
+        return entryCount;
+    }
+
+    /**
+     * Count existing entries and drop a torn tail left by a crash
+     */
+    private void scan() throws IOException {
+        long validEnd;
+        long tornTailBytes;
+        try (FramedLogReader reader = new FramedLogReader(file)) {
+            FramedLogReader.Frame frame;
+            while ((frame = reader.next()) != null) {
+                if (frame.getVersion() != ENTRIES_VERSION) {
+                    skippedFrameCount++;
+                    continue;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+                long posted = in.readLong();
+                if (firstPostedMillis < 0) {
+                    firstPostedMillis = posted;
+                }
+                entryCount += in.readInt();
+            }
+            skippedFrameCount += reader.getCorruptRegionCount();
+            validEnd = reader.getValidEnd();
+            tornTailBytes = reader.getTornTailBytes();
+        }
+
+        if (tornTailBytes > 0) {
+            skippedFrameCount++;
+            try (FileChannel truncating = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncating.truncate(validEnd);
+                truncating.force(true);
+            }
+        }
+        openLength = Files.size(file);
+    }
+
+    /**
+     * Record one debit
+     * Time Complexity: O(1), with one fsync per group of postings
+     */
+    public synchronized void append(String accountId, long valueDay, long amountCents) {
+        appendAll(new String[] { accountId }, new long[] { valueDay }, new long[] { amountCents }, 1);
+    }
+
+    /**
+     * Record several debits posted together as one frame
+     * Time Complexity: O(count), with one fsync per group of postings
+     *
+     * @param count Number of entries to take from the arrays
+     */
+    public synchronized void appendAll(String[] accountIds, long[] valueDays, long[] amountCents, int count) {
+        ensureOpen();
+        if (count <= 0) {
+            return;
+        }
+        long posted = System.currentTimeMillis();
+        try {
+            bytes.reset();
+            payload.writeLong(posted);
+            payload.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                payload.writeUTF(accountIds[i]);
+                payload.writeLong(valueDays[i]);
+                payload.writeLong(amountCents[i]);
+            }
+            payload.flush();
+            writer.write(ENTRIES_VERSION, bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to " + file + ": " + e.getMessage(), e);
+        }
+
+        if (firstPostedMillis < 0) {
+            firstPostedMillis = posted;
+        }
+        entryCount += count;
+        pendingRecords++;
+        if (pendingRecords >= syncEveryRecords) {
+            sync();
+        }
+    }
+
+    /**
+     * Force all pending entries to disk
+     */
+    public synchronized void sync() {
+        if (pendingRecords == 0 || writer == null) {
+            return;
+        }
+        try {
+            writer.flush();
+            channel.force(false);
+            pendingRecords = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not sync " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read every entry from an offset to the current end of the journal
+     * Pending entries are synced first; entries appended while reading are
+     * left for the next read. Appends are only blocked for the sync.
+     * Time Complexity: O(bytes read)
+     *
+     * @param fromOffset 0, or an offset returned by an earlier read
+     * @return Offset to resume from next time
+     */
+    public long read(long fromOffset, EntryHandler handler) {
+        long end;
+        synchronized (this) {
+            sync();
+            end = length();
+        }
+        if (fromOffset < 0 || fromOffset > end) {
+            throw new IllegalArgumentException("Offset " + fromOffset + " is outside the journal");
+        }
+        if (fromOffset == end) {
+            return end;
+        }
+
+        try (FramedLogReader reader = new FramedLogReader(file)) {
+            reader.seek(fromOffset);
+            FramedLogReader.Frame frame;
+            while ((frame = reader.next()) != null && frame.getOffset() < end) {
+                if (frame.getVersion() != ENTRIES_VERSION) {
+                    continue;
+                }
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+                long posted = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    handler.accept(in.readUTF(), in.readLong(), in.readLong(), posted);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file + ": " + e.getMessage(), e);
+        }
+        return end;
+    }
+
+    /**
+     * Journal length in bytes, including entries not yet synced
+     */
+    public synchronized long length() {
+        return openLength + (writer != null ? writer.getBytesWritten() : 0);
+    }
+
+    public synchronized long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Time the first entry was posted, or -1 if the journal is empty
+     */
+    public synchronized long getFirstPostedMillis() {
+        return firstPostedMillis;
+    }
+
+    /**
+     * Number of damaged frames found when the journal was opened
+     */
+    public int getSkippedFrameCount() {
+        return skippedFrameCount;
+    }
+
+    /**
+     * Stop the background sync thread and force pending entries to disk
+     */
+    public synchronized void close() {
+        if (syncScheduler != null) {
+            syncScheduler.shutdownNow();
+            syncScheduler = null;
+        }
+        if (writer == null) {
+            return;
+        }
+        try {
+            sync();
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close " + file + ": " + e.getMessage(), e);
+        } finally {
+            openLength += writer.getBytesWritten();
+            writer = null;
+            channel = null;
+            stream = null;
+        }
+    }
+
+    private void ensureOpen() {
+        if (writer == null) {
+            throw new IllegalStateException("Debit journal is not open");
+        }
+    }
+
+    /**
+     * Background sync; failures surface on the next foreground append or sync
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (UncheckedIOException e) {
+            // Pending entries stay buffered and are retried on the next sync
+        }
+    }
+}
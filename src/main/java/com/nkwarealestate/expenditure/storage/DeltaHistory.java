@@ -0,0 +1,602 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Change history of a keyed record set as base snapshots plus delta segments
+ *
+ * Every change is appended to the current delta segment with a sequence
+ * number and a timestamp. A segment is sealed once it holds
+ * segmentMaxRecords changes and is never modified afterwards. Once enough
+ * changes have accumulated since the newest base snapshot, a background
+ * thread folds them into a new base, then prunes bases and segments that are
+ * no longer needed to restore any point inside the retention window.
+ *
+ * State as of a time T is rebuilt from the newest base taken at or before T
+ * plus the changes after it up to T, so restore cost is bounded by the delta
+ * size rather than the full history. Sealed files never change, which lets
+ * backups copy only files they do not have yet.
+ *
+ * Records are opaque text lines whose first pipe-delimited field is the key.
+ *
+ * Files (in the history directory):
+ *   base-SEQ-TIMESTAMP.snap   one record per line, state after change SEQ
+ *   delta-FIRSTSEQ.seg        checksummed frames (see FramedLogWriter) holding
+ *                             Seq|TimestampMillis|P|record  (put)
+ *                             Seq|TimestampMillis|D|key     (delete)
+ * Segments from before framing hold the same changes one per line and are
+ * still read.
+ */
+public class DeltaHistory {
+
+    private static final String BASE_PREFIX = "base-";
+    private static final String BASE_SUFFIX = ".snap";
+    private static final String SEGMENT_PREFIX = "delta-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHANGE_VERSION = 1;
+
+    private final Path directory;
+    private final int segmentMaxRecords;
+    private final long compactEveryRecords;
+    private final long retentionMillis;
+    private final Consumer<Exception> onError;
+    private final ExecutorService compactor;
+
+    private FramedLogWriter segmentWriter;
+    private int segmentRecords;
+    private long lastSeq;
+    private long lastTimestamp;
+    private long baseSeq = -1; // Newest base snapshot, -1 if none
+    private boolean compacting;
+
+    /**
+     * @param directory           Directory holding bases and segments
+     * @param segmentMaxRecords   Changes per segment before it is sealed
+     * @param compactEveryRecords Changes since the newest base that trigger a background compaction
+     * @param retentionMillis     How far back restores must remain possible
+     * @param onError             Receives failures from background compaction
+     */
+    public DeltaHistory(Path directory, int segmentMaxRecords, long compactEveryRecords, long retentionMillis,
+            Consumer<Exception> onError) {
+        if (segmentMaxRecords <= 0 || compactEveryRecords <= 0) {
+            throw new IllegalArgumentException("Segment and compaction sizes must be positive");
+        }
+        this.directory = directory;
+        this.segmentMaxRecords = segmentMaxRecords;
+        this.compactEveryRecords = compactEveryRecords;
+        this.retentionMillis = retentionMillis;
+        this.onError = onError;
+        this.compactor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Find the newest base and the last recorded change
+     * New changes always go to a fresh segment, so a torn tail left by a crash
+     * stays at the end of a sealed segment where readers skip it
+     */
+    public synchronized void open() {
+        try {
+            Files.createDirectories(directory);
+            long[][] bases = listBases();
+            if (bases.length > 0) {
+                baseSeq = bases[bases.length - 1][0];
+                lastSeq = baseSeq;
+                lastTimestamp = bases[bases.length - 1][1];
+            }
+
+            long[] segments = listSegments();
+            if (segments.length > 0) {
+                readSegment(segments[segments.length - 1], (seq, timestamp, type, payload) -> {
+                    if (seq > lastSeq) {
+                        lastSeq = seq;
+                        lastTimestamp = timestamp;
+                    }
+                    return true;
+                });
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open history in " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check whether any base snapshot exists; without one nothing can be restored
+     */
+    public synchronized boolean hasBase() {
+        return baseSeq >= 0;
+    }
+
+    /**
+     * Record that a record was added or changed
+     */
+    public synchronized void recordPut(String record) {
+        append('P', record);
+        flushAndMaybeCompact();
+    }
+
+    /**
+     * Record many added or changed records with one flush
+     */
+    public synchronized void recordPuts(Iterable<String> records) {
+        for (String record : records) {
+            append('P', record);
+        }
+        flushAndMaybeCompact();
+    }
+
+    /**
+     * Record that the record with this key was removed
+     */
+    public synchronized void recordDelete(String key) {
+        append('D', key);
+        flushAndMaybeCompact();
+    }
+
+    /**
+     * Write a base snapshot of the current state right away
+     * Used to start the history and after a restore replaces the live state
+     *
+     * @param records Every current record
+     */
+    public synchronized void writeBase(Iterable<String> records) {
+        sealSegment();
+        try {
+            lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            writeBaseFile(lastSeq, lastTimestamp, records);
+            baseSeq = lastSeq;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write history base: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Rebuild the record set as it was at a point in time
+     * Time Complexity: O(base size + changes between the base and the time)
+     *
+     * @param asOfMillis Epoch millis to restore to
+     * @return Records keyed by their first field
+     * @throws IllegalArgumentException if the history does not reach back that far
+     */
+    public synchronized CustomHashMap<String, String> restore(long asOfMillis) {
+        try {
+            flushSegment();
+            long[][] bases = listBases();
+            long[] chosen = null;
+            for (long[] base : bases) {
+                if (base[1] <= asOfMillis) {
+                    chosen = base; // Sorted by sequence, so the last match is the newest
+                }
+            }
+            if (chosen == null) {
+                throw new IllegalArgumentException(bases.length == 0 ? "No history has been recorded"
+                        : "History starts at " + Instant.ofEpochMilli(bases[0][1]));
+            }
+            return replay(chosen[0], chosen[1], Long.MAX_VALUE, asOfMillis);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read history: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Get the earliest time that can be restored
+     *
+     * @return Epoch millis, or -1 if there is no history
+     */
+    public synchronized long getEarliestRestorableTime() {
+        try {
+            long[][] bases = listBases();
+            return bases.length == 0 ? -1 : bases[0][1];
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Copy sealed files the backup directory does not have yet
+     * The current segment is sealed first so the backup includes every change
+     *
+     * @return Number of files copied
+     */
+    public synchronized int backupTo(Path backupDirectory) throws IOException {
+        sealSegment();
+        Files.createDirectories(backupDirectory);
+
+        int copied = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                boolean historyFile = name.endsWith(BASE_SUFFIX) || name.endsWith(SEGMENT_SUFFIX);
+                Path target = backupDirectory.resolve(name);
+                if (historyFile && !Files.exists(target)) {
+                    Path temp = backupDirectory.resolve(name + ".tmp");
+                    Files.copy(file, temp, StandardCopyOption.REPLACE_EXISTING);
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                    copied++;
+                }
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Number of changes recorded since the newest base snapshot
+     */
+    public synchronized long getChangesSinceBase() {
+        return baseSeq < 0 ? lastSeq : lastSeq - baseSeq;
+    }
+
+    /**
+     * Flush the current segment and stop background compaction
+     */
+    public void close() {
+        synchronized (this) {
+            sealSegment();
+        }
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ================ WRITING ================
+
+    private void append(char type, String payload) {
+        try {
+            if (segmentWriter == null || segmentRecords >= segmentMaxRecords) {
+                sealSegment();
+                Path file = directory.resolve(SEGMENT_PREFIX + pad(lastSeq + 1) + SEGMENT_SUFFIX);
+                segmentWriter = new FramedLogWriter(new BufferedOutputStream(Files.newOutputStream(file,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND), BUFFER_SIZE));
+                segmentRecords = 0;
+            }
+
+            lastSeq++;
+            lastTimestamp = Math.max(System.currentTimeMillis(), lastTimestamp);
+            segmentWriter.write(CHANGE_VERSION, lastSeq + "|" + lastTimestamp + "|" + type + "|" + payload);
+            segmentRecords++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record history: " + e.getMessage(), e);
+        }
+    }
+
+    private void flushAndMaybeCompact() {
+        flushSegment();
+        if (!compacting && baseSeq >= 0 && lastSeq - baseSeq >= compactEveryRecords) {
+            startCompaction();
+        }
+    }
+
+    private void flushSegment() {
+        if (segmentWriter == null) {
+            return;
+        }
+        try {
+            segmentWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record history: " + e.getMessage(), e);
+        }
+    }
+
+    private void sealSegment() {
+        if (segmentWriter == null) {
+            return;
+        }
+        try {
+            segmentWriter.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record history: " + e.getMessage(), e);
+        } finally {
+            segmentWriter = null;
+        }
+    }
+
+    private void writeBaseFile(long seq, long timestamp, Iterable<String> records) throws IOException {
+        Path file = directory.resolve(BASE_PREFIX + pad(seq) + "-" + timestamp + BASE_SUFFIX);
+        SnapshotWriter.write(file, writer -> {
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+        });
+    }
+
+    // ================ COMPACTION ================
+
+    /**
+     * Seal the segment and fold everything up to the last change into a new base in the background
+     */
+    private void startCompaction() {
+        sealSegment();
+        compacting = true;
+        long fromSeq = baseSeq;
+        long targetSeq = lastSeq;
+        long targetTimestamp = lastTimestamp;
+
+        compactor.execute(() -> {
+            try {
+                long[][] bases = listBases();
+                long fromTimestamp = 0;
+                for (long[] base : bases) {
+                    if (base[0] == fromSeq) {
+                        fromTimestamp = base[1];
+                    }
+                }
+                // Only sealed files are read, so this runs without holding the history lock
+                CustomHashMap<String, String> state = replay(fromSeq, fromTimestamp, targetSeq, Long.MAX_VALUE);
+                writeBaseFile(targetSeq, targetTimestamp, state.values());
+
+                synchronized (this) {
+                    baseSeq = Math.max(baseSeq, targetSeq);
+                    prune();
+                }
+            } catch (IOException | RuntimeException e) {
+                onError.accept(e);
+            } finally {
+                synchronized (this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Delete bases and segments that no restore inside the retention window needs
+     * The newest base at or before the window start is kept, with every segment after it
+     */
+    private void prune() throws IOException {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        long[][] bases = listBases();
+        if (bases.length == 0) {
+            return;
+        }
+
+        long[] keep = bases[0];
+        for (long[] base : bases) {
+            if (base[1] <= cutoff) {
+                keep = base;
+            }
+        }
+
+        for (long[] base : bases) {
+            if (base[0] < keep[0]) {
+                Files.deleteIfExists(baseFile(base));
+            }
+        }
+
+        long[] segments = listSegments();
+        for (int i = 0; i + 1 < segments.length; i++) {
+            long lastSeqInSegment = segments[i + 1] - 1;
+            if (lastSeqInSegment <= keep[0]) {
+                Files.deleteIfExists(segmentFile(segments[i]));
+            }
+        }
+    }
+
+    // ================ READING ================
+
+    /**
+     * Receives one change read from a segment
+     */
+    private interface ChangeHandler {
+        /**
+         * @return false to stop reading
+         */
+        boolean apply(long seq, long timestamp, char type, String payload);
+    }
+
+    /**
+     * Load a base and apply the changes after it
+     *
+     * @param fromSeq    Sequence of the base, -1 to start empty
+     * @param untilSeq   Last change to apply
+     * @param asOfMillis Stop at the first change later than this
+     */
+    private CustomHashMap<String, String> replay(long fromSeq, long fromTimestamp, long untilSeq, long asOfMillis)
+            throws IOException {
+        CustomHashMap<String, String> state = new CustomHashMap<>();
+        if (fromSeq >= 0) {
+            try (BufferedReader reader = Files.newBufferedReader(baseFile(new long[] { fromSeq, fromTimestamp }),
+                    StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        state.put(keyOf(line), line);
+                    }
+                }
+            }
+        }
+
+        long[] segments = listSegments();
+        boolean[] done = { false };
+        for (int i = 0; i < segments.length && !done[0]; i++) {
+            if (i + 1 < segments.length && segments[i + 1] - 1 <= fromSeq) {
+                continue; // Entirely covered by the base
+            }
+            readSegment(segments[i], (seq, timestamp, type, payload) -> {
+                if (seq <= fromSeq) {
+                    return true;
+                }
+                if (seq > untilSeq || timestamp > asOfMillis) {
+                    done[0] = true;
+                    return false;
+                }
+                if (type == 'P') {
+                    state.put(keyOf(payload), payload);
+                } else {
+                    state.remove(payload);
+                }
+                return true;
+            });
+        }
+        return state;
+    }
+
+    /**
+     * Read a segment in order
+     * Damaged frames are skipped; an unframed segment stops at its first malformed line
+     */
+    private void readSegment(long firstSeq, ChangeHandler handler) throws IOException {
+        Path file = segmentFile(firstSeq);
+        if (!FramedLogReader.isFramed(file)) {
+            readLegacySegment(file, handler);
+            return;
+        }
+        try (FramedLogReader reader = new FramedLogReader(file)) {
+            FramedLogReader.Frame frame;
+            while ((frame = reader.next()) != null) {
+                if (frame.getVersion() == CHANGE_VERSION && !applyChange(frame.getText(), handler)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void readLegacySegment(Path file, ChangeHandler handler) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!applyChange(line, handler)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parse one change and pass it to the handler
+     *
+     * @return false if the change is malformed or the handler asked to stop
+     */
+    private static boolean applyChange(String change, ChangeHandler handler) {
+        int first = change.indexOf('|');
+        int second = first < 0 ? -1 : change.indexOf('|', first + 1);
+        if (second < 0 || second + 3 > change.length() || change.charAt(second + 2) != '|') {
+            return false;
+        }
+        char type = change.charAt(second + 1);
+        if (type != 'P' && type != 'D') {
+            return false;
+        }
+
+        long seq;
+        long timestamp;
+        try {
+            seq = Long.parseLong(change.substring(0, first));
+            timestamp = Long.parseLong(change.substring(first + 1, second));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return handler.apply(seq, timestamp, type, change.substring(second + 3));
+    }
+
+    /**
+     * List bases as {seq, timestamp} pairs in sequence order
+     */
+    private long[][] listBases() throws IOException {
+        long[][] bases = new long[8][];
+        int count = 0;
+        if (!Files.isDirectory(directory)) {
+            return new long[0][];
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, BASE_PREFIX + "*" + BASE_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String body = name.substring(BASE_PREFIX.length(), name.length() - BASE_SUFFIX.length());
+                int dash = body.indexOf('-');
+                if (dash < 0) {
+                    continue;
+                }
+                try {
+                    long[] base = { Long.parseLong(body.substring(0, dash)), Long.parseLong(body.substring(dash + 1)) };
+                    if (count == bases.length) {
+                        bases = Arrays.copyOf(bases, count * 2);
+                    }
+                    bases[count++] = base;
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        long[][] sorted = Arrays.copyOf(bases, count);
+        Arrays.sort(sorted, (a, b) -> Long.compare(a[0], b[0]));
+        return sorted;
+    }
+
+    /**
+     * List segments by first sequence number, in order
+     */
+    private long[] listSegments() throws IOException {
+        long[] segments = new long[16];
+        int count = 0;
+        if (!Files.isDirectory(directory)) {
+            return new long[0];
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    long firstSeq = Long.parseLong(
+                            name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    if (count == segments.length) {
+                        segments = Arrays.copyOf(segments, count * 2);
+                    }
+                    segments[count++] = firstSeq;
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        long[] sorted = Arrays.copyOf(segments, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private Path baseFile(long[] base) {
+        return directory.resolve(BASE_PREFIX + pad(base[0]) + "-" + base[1] + BASE_SUFFIX);
+    }
+
+    private Path segmentFile(long firstSeq) {
+        return directory.resolve(SEGMENT_PREFIX + pad(firstSeq) + SEGMENT_SUFFIX);
+    }
+
+    private static String keyOf(String record) {
+        int separator = record.indexOf('|');
+        return separator < 0 ? record : record.substring(0, separator);
+    }
+
+    /**
+     * Zero-pad sequence numbers so file names sort in order
+     */
+    private static String pad(long seq) {
+        String digits = Long.toString(seq);
+        StringBuilder padded = new StringBuilder(12);
+        for (int i = digits.length(); i < 12; i++) {
+            padded.append('0');
+        }
+        return padded.append(digits).toString();
+    }
+}
@@ -0,0 +1,268 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.ConcurrentCustomHashMap;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.Phase;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader and writer for the pipe-delimited expenditure ledger
+ *
+ * Format: Code|Amount|Date|Phase|Category|AccountId|Description|ReceiptId|Currency
+ * Lines written before the Currency column was added are read as GHS.
+ *
+ * Loading streams the file through a large buffered reader and splits each
+ * line by hand into a reused field array, so the cost per row is a handful of
+ * substrings rather than a regex and a DateTimeFormatter. New rows are
+ * appended; only updates and deletes rewrite the file.
+ */
+public class ExpenditureFileStore {
+
+    private static final int BUFFER_SIZE = 1 << 20; // 1 MB
+    private static final int FIELD_COUNT = 9;
+    private static final int ESTIMATED_BYTES_PER_ROW = 80;
+    private static final String HEADER = "# Expenditure Records\n"
+            + "# Format: Code|Amount|Date|Phase|Category|AccountId|Description|ReceiptId|Currency\n";
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Path file;
+    private int skippedLineCount;
+
+    public ExpenditureFileStore(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Load every valid record into the target map
+     * The map is pre-sized from the file length so it does not rehash while loading
+     * Time Complexity: O(n) for n lines
+     *
+     * @param target Map to fill, keyed by expenditure code
+     * @return Number of records loaded
+     */
+    public int load(ConcurrentCustomHashMap<String, Expenditure> target) {
+        if (Files.exists(file)) {
+            try {
+                long estimatedRows = Files.size(file) / ESTIMATED_BYTES_PER_ROW;
+                target.ensureCapacity((int) Math.min(Integer.MAX_VALUE / 2, target.size() + estimatedRows));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read " + file + ": " + e.getMessage(), e);
+            }
+        }
+        return read(expenditure -> target.put(expenditure.getCode(), expenditure));
+    }
+
+    /**
+     * Stream every valid record to the consumer in file order
+     *
+     * @return Number of records read
+     */
+    public int read(Consumer<Expenditure> consumer) {
+        skippedLineCount = 0;
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        int loaded = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String[] fields = new String[FIELD_COUNT];
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+
+                Expenditure expenditure = parseLine(line, fields);
+                if (expenditure == null) {
+                    skippedLineCount++;
+                    continue;
+                }
+
+                consumer.accept(expenditure);
+                loaded++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file + ": " + e.getMessage(), e);
+        }
+
+        return loaded;
+    }
+
+    /**
+     * Append a single new record
+     */
+    public void append(Expenditure expenditure) {
+        try (Writer writer = openForAppend()) {
+            writeRecord(writer, expenditure);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Append many new records with a single open and flush
+     */
+    public void appendAll(Iterable<Expenditure> records) {
+        try (Writer writer = openForAppend()) {
+            for (Expenditure expenditure : records) {
+                writeRecord(writer, expenditure);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replace the file with the given records
+     * Needed when existing rows change or are removed; the swap is atomic
+     */
+    public void rewrite(Iterable<Expenditure> records) {
+        try {
+            SnapshotWriter.write(file, writer -> {
+                writer.write(HEADER);
+                for (Expenditure expenditure : records) {
+                    writeRecord(writer, expenditure);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Number of lines skipped as malformed during the last load
+     */
+    public int getSkippedLineCount() {
+        return skippedLineCount;
+    }
+
+    /**
+     * Format one record as a ledger line, without the line break
+     * The code is always the first field
+     */
+    public static String formatRecord(Expenditure expenditure) {
+        StringBuilder line = new StringBuilder(96);
+        line.append(expenditure.getCode()).append('|')
+                .append(FieldParser.formatAmount(expenditure.getAmount())).append('|')
+                .append(expenditure.getDate()).append('|')
+                .append(expenditure.getPhase().name()).append('|')
+                .append(FieldParser.sanitize(expenditure.getCategory())).append('|')
+                .append(FieldParser.sanitize(expenditure.getAccountId())).append('|')
+                .append(FieldParser.sanitize(expenditure.getDescription())).append('|')
+                .append(FieldParser.sanitize(expenditure.getReceiptId())).append('|')
+                .append(expenditure.getCurrency());
+        return line.toString();
+    }
+
+    /**
+     * Parse one ledger line
+     *
+     * @return The expenditure, or null if the line is malformed
+     */
+    public static Expenditure parseRecord(String line) {
+        return parseLine(line, new String[FIELD_COUNT]);
+    }
+
+    /**
+     * Parse one record line
+     *
+     * @return The expenditure, or null if the line is malformed
+     */
+    private static Expenditure parseLine(String line, String[] fields) {
+        int count = FieldParser.splitPipe(line, fields);
+        if (count < 7) {
+            return null;
+        }
+
+        String code = fields[0];
+        LocalDate date = FieldParser.parseDate(fields[2]);
+        Phase phase = parsePhase(fields[3]);
+        if (code.isEmpty() || date == null || phase == null) {
+            return null;
+        }
+
+        double amount;
+        try {
+            amount = FieldParser.parseAmount(fields[1]);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        Expenditure expenditure = new Expenditure(code, amount, date, phase,
+                fields[4], fields[5], fields[6]);
+        if (count >= 8 && !fields[7].isEmpty()) {
+            expenditure.setReceiptId(fields[7]);
+        }
+        if (count == FIELD_COUNT) {
+            expenditure.setCurrency(fields[8]);
+        }
+        return expenditure;
+    }
+
+    /**
+     * Match the stored enum name, falling back to the lenient display-name lookup
+     */
+    private static Phase parsePhase(String text) {
+        for (Phase phase : PHASES) {
+            if (phase.name().equals(text)) {
+                return phase;
+            }
+        }
+        return text.isEmpty() ? null : Phase.fromString(text);
+    }
+
+    private Writer openForAppend() throws IOException {
+        createParentDirectories();
+        boolean isNew = !Files.exists(file) || Files.size(file) == 0;
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), BUFFER_SIZE);
+        if (isNew) {
+            writer.write(HEADER);
+        }
+        return writer;
+    }
+
+    private void createParentDirectories() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    private static void writeRecord(Writer writer, Expenditure expenditure) throws IOException {
+        writer.write(expenditure.getCode());
+        writer.write('|');
+        writer.write(FieldParser.formatAmount(expenditure.getAmount()));
+        writer.write('|');
+        writer.write(expenditure.getDate().toString());
+        writer.write('|');
+        writer.write(expenditure.getPhase().name());
+        writer.write('|');
+        writer.write(FieldParser.sanitize(expenditure.getCategory()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(expenditure.getAccountId()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(expenditure.getDescription()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(expenditure.getReceiptId()));
+        writer.write('|');
+        writer.write(expenditure.getCurrency());
+        writer.write('\n');
+    }
+}
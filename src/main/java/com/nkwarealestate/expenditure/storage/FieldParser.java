@@ -0,0 +1,186 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.time.LocalDate;
+
+/**
+ * Allocation-light parsers for fixed-layout fields in data files and imports
+ * Avoids DateTimeFormatter and regex work on bulk paths
+ */
+public final class FieldParser {
+
+    private static final int[] DAYS_IN_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+    private static final int MAX_EXACT_DIGITS = 15; // Any 15-digit integer is exact in a double
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15 };
+
+    private FieldParser() {
+        // Static helpers only
+    }
+
+    /**
+     * Parse an ISO date in the fixed yyyy-MM-dd layout
+     * Time Complexity: O(1)
+     *
+     * @param text The date text, e.g. 2025-01-15
+     * @return The parsed date, or null if the text is not a valid date
+     */
+    public static LocalDate parseDate(CharSequence text) {
+        if (text == null || text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+
+        int maxDay = DAYS_IN_MONTH[month - 1];
+        if (month == 2 && isLeapYear(year)) {
+            maxDay = 29;
+        }
+        if (day > maxDay) {
+            return null;
+        }
+
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Read an unsigned decimal number from a fixed character range
+     *
+     * @return The value, or -1 if a non-digit is found
+     */
+    private static int digits(CharSequence text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Gregorian leap year rule
+     */
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    /**
+     * Split a pipe-delimited line into a reusable array without regex
+     * Fields beyond the array length are left joined in the last slot
+     * Time Complexity: O(length of line)
+     *
+     * @param line   The line to split
+     * @param fields Destination array, reused across lines
+     * @return Number of fields written
+     */
+    public static int splitPipe(String line, String[] fields) {
+        int count = 0;
+        int start = 0;
+        int length = line.length();
+
+        while (count < fields.length - 1) {
+            int end = line.indexOf('|', start);
+            if (end < 0) {
+                break;
+            }
+            fields[count++] = line.substring(start, end);
+            start = end + 1;
+        }
+
+        fields[count++] = line.substring(start, length);
+        return count;
+    }
+
+    /**
+     * Parse a plain decimal amount such as 1500 or -1500.25
+     * Up to 15 digits are read as one exact integer and divided once by an
+     * exact power of ten, so the result is the correctly rounded value
+     * Double.parseDouble would give. Longer numbers and exponents fall back
+     * to Double.parseDouble
+     *
+     * @return The parsed value
+     * @throws NumberFormatException if the text is not a number
+     */
+    public static double parseAmount(String text) {
+        int length = text.length();
+        int i = 0;
+        boolean negative = false;
+
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            i++;
+        }
+        long digits = 0;
+        int digitCount = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digitCount == MAX_EXACT_DIGITS) {
+                    return Double.parseDouble(text); // Beyond exact fast-path precision
+                }
+                digits = digits * 10 + (c - '0');
+                digitCount++;
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                return Double.parseDouble(text); // Exponent, spaces, or invalid: let the JDK decide
+            }
+        }
+        if (digitCount == 0) {
+            throw new NumberFormatException("No digits in amount: \"" + text + "\"");
+        }
+
+        double value = digits / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Format an amount with exactly two decimals, e.g. 1500 -> "1500.00"
+     * Equivalent to String.format("%.2f") for ledger amounts without the formatter overhead
+     */
+    public static String formatAmount(double amount) {
+        if (Double.isNaN(amount) || Double.isInfinite(amount) || Math.abs(amount) >= 1e15) {
+            return String.format("%.2f", amount);
+        }
+
+        long cents = Math.round(Math.abs(amount) * 100.0);
+        StringBuilder sb = new StringBuilder(24);
+        if (amount < 0 && cents != 0) {
+            sb.append('-');
+        }
+        sb.append(cents / 100).append('.');
+        long remainder = cents % 100;
+        if (remainder < 10) {
+            sb.append('0');
+        }
+        sb.append(remainder);
+        return sb.toString();
+    }
+
+    /**
+     * Make free text safe for a pipe-delimited line
+     * Pipes and line breaks would split the record, so they are replaced
+     */
+    public static String sanitize(String text) {
+        if (text == null) {
+            return "";
+        }
+        if (text.indexOf('|') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return text.replace('|', '/').replace('\n', ' ').replace('\r', ' ');
+    }
+}
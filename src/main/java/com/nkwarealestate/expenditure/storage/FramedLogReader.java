@@ -0,0 +1,234 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Sequential reader for logs written by FramedLogWriter
+ *
+ * The file is memory-mapped and validated frame by frame: checking a frame
+ * costs one CRC32C pass over its bytes, with no parsing. A frame with a bad
+ * magic, an impossible length or a checksum mismatch starts a corrupt region;
+ * the reader then scans forward for the next magic that begins a valid frame
+ * and carries on from there, so one damaged record costs only the bytes it
+ * covers. Damage that runs to the end of the file is reported separately as a
+ * torn tail, the normal result of a crash mid-append.
+ *
+ * Reading can start at any offset (for example a previously recorded valid
+ * end), and resynchronises the same way if that offset is mid-frame.
+ */
+public class FramedLogReader implements Closeable {
+
+    /**
+     * One valid record
+     */
+    public static final class Frame {
+        private final long offset;
+        private final int version;
+        private final byte[] payload;
+
+        Frame(long offset, int version, byte[] payload) {
+            this.offset = offset;
+            this.version = version;
+            this.payload = payload;
+        }
+
+        /**
+         * File offset of the frame header
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+
+        public String getText() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int limit;
+    private final CRC32C crc = new CRC32C();
+
+    private int position;
+    private int corruptStart = -1; // Start of the current corrupt region, or -1
+    private long validEnd;
+    private int corruptRegionCount;
+    private long corruptBytes;
+    private long tornTailBytes;
+    private long frameCount;
+
+    /**
+     * Map a log file for reading
+     *
+     * @throws IOException if the file cannot be read or is over 2 GB
+     */
+    public FramedLogReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            channel.close();
+            throw new IOException("Log is too large to map: " + file);
+        }
+        this.limit = (int) size;
+        this.buffer = limit == 0 ? null : channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Check whether a file starts with a frame header, i.e. was written by FramedLogWriter
+     * Empty and missing files count as framed, since appending to them produces frames
+     */
+    public static boolean isFramed(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return true;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            int first = in.read();
+            if (first < 0) {
+                return true;
+            }
+            return (byte) first == FramedLogWriter.MAGIC_0 && (byte) in.read() == FramedLogWriter.MAGIC_1;
+        }
+    }
+
+    /**
+     * Continue reading from a file offset
+     */
+    public void seek(long offset) {
+        if (offset < 0 || offset > limit) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the log");
+        }
+        position = (int) offset;
+        corruptStart = -1;
+        validEnd = Math.max(validEnd, 0);
+    }
+
+    /**
+     * Read the next valid frame, skipping corrupt regions
+     *
+     * @return The frame, or null at the end of the log
+     */
+    public Frame next() {
+        while (position + FramedLogWriter.HEADER_SIZE <= limit) {
+            int length = validFrameLength(position);
+            if (length >= 0) {
+                if (corruptStart >= 0) {
+                    corruptRegionCount++;
+                    corruptBytes += position - corruptStart;
+                    corruptStart = -1;
+                }
+                byte[] payload = new byte[length];
+                ByteBuffer view = buffer.duplicate();
+                view.position(position + FramedLogWriter.HEADER_SIZE);
+                view.get(payload);
+                Frame frame = new Frame(position, buffer.get(position + 2) & 0xFF, payload);
+                position += FramedLogWriter.HEADER_SIZE + length;
+                validEnd = position;
+                frameCount++;
+                return frame;
+            }
+
+            if (corruptStart < 0) {
+                corruptStart = position;
+            }
+            position = nextMagic(position + 1);
+        }
+
+        // Nothing valid follows: whatever is left is a torn tail
+        int tailStart = corruptStart >= 0 ? corruptStart : position;
+        if (tailStart < limit) {
+            tornTailBytes = limit - tailStart;
+            corruptStart = -1;
+            position = limit;
+        }
+        return null;
+    }
+
+    /**
+     * Offset just past the last valid frame read; truncating here drops a torn tail
+     */
+    public long getValidEnd() {
+        return validEnd;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Number of damaged regions that were followed by valid frames
+     */
+    public int getCorruptRegionCount() {
+        return corruptRegionCount;
+    }
+
+    public long getCorruptBytes() {
+        return corruptBytes;
+    }
+
+    /**
+     * Bytes after the last valid frame that do not form a frame
+     */
+    public long getTornTailBytes() {
+        return tornTailBytes;
+    }
+
+    public long getSize() {
+        return limit;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Validate the frame at an offset
+     *
+     * @return Its payload length, or -1 if no valid frame starts there
+     */
+    private int validFrameLength(int offset) {
+        if (buffer.get(offset) != FramedLogWriter.MAGIC_0 || buffer.get(offset + 1) != FramedLogWriter.MAGIC_1) {
+            return -1;
+        }
+        int length = buffer.getInt(offset + 3);
+        if (length < 0 || length > FramedLogWriter.MAX_PAYLOAD
+                || (long) offset + FramedLogWriter.HEADER_SIZE + length > limit) {
+            return -1;
+        }
+
+        crc.reset();
+        ByteBuffer view = buffer.duplicate();
+        view.limit(offset + 7).position(offset + 2);
+        crc.update(view);
+        view.limit(offset + FramedLogWriter.HEADER_SIZE + length).position(offset + FramedLogWriter.HEADER_SIZE);
+        crc.update(view);
+        return (int) crc.getValue() == buffer.getInt(offset + 7) ? length : -1;
+    }
+
+    private int nextMagic(int from) {
+        for (int i = from; i + 1 < limit; i++) {
+            if (buffer.get(i) == FramedLogWriter.MAGIC_0 && buffer.get(i + 1) == FramedLogWriter.MAGIC_1) {
+                return i;
+            }
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,98 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Progress marker for a resumable import
+ *
+ * After every committed batch the number of source records consumed is
+ * written, together with the source file's path, size and modification time.
+ * A later import of the same, unchanged file can skip that many records
+ * instead of starting over. The marker is removed once an import completes.
+ *
+ * File format (one entry per line):
+ *   Source|absolute path
+ *   Size|bytes
+ *   Modified|epoch millis
+ *   Rows|records consumed
+ */
+public class ImportCheckpoint {
+
+    private final Path checkpointFile;
+    private final Path source;
+    private final long sourceSize;
+    private final long sourceModified;
+
+    public ImportCheckpoint(Path checkpointFile, Path source) throws IOException {
+        this.checkpointFile = checkpointFile;
+        this.source = source.toAbsolutePath().normalize();
+        this.sourceSize = Files.size(source);
+        this.sourceModified = Files.getLastModifiedTime(source).toMillis();
+    }
+
+    /**
+     * Get the number of records a previous import of this same file committed
+     *
+     * @return The committed record count, or 0 if there is no matching checkpoint
+     */
+    public long getCommittedRows() {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+
+        String path = null;
+        long size = -1;
+        long modified = -1;
+        long rows = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('|');
+                if (line.startsWith("#") || separator < 0) {
+                    continue;
+                }
+                String key = line.substring(0, separator);
+                String value = line.substring(separator + 1);
+                if (key.equals("Source")) {
+                    path = value;
+                } else if (key.equals("Size")) {
+                    size = Long.parseLong(value);
+                } else if (key.equals("Modified")) {
+                    modified = Long.parseLong(value);
+                } else if (key.equals("Rows")) {
+                    rows = Long.parseLong(value);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            return 0; // An unreadable checkpoint just means starting from the top
+        }
+
+        boolean sameSource = source.toString().equals(path) && size == sourceSize && modified == sourceModified;
+        return sameSource ? rows : 0;
+    }
+
+    /**
+     * Record that the first {@code rows} records of the source have been committed
+     */
+    public void save(long rows) throws IOException {
+        SnapshotWriter.write(checkpointFile, writer -> {
+            writer.write("# Import checkpoint\n");
+            writer.write("Source|" + source + "\n");
+            writer.write("Size|" + sourceSize + "\n");
+            writer.write("Modified|" + sourceModified + "\n");
+            writer.write("Rows|" + rows + "\n");
+        });
+    }
+
+    /**
+     * Remove the checkpoint after a completed import
+     */
+    public void clear() throws IOException {
+        Files.deleteIfExists(checkpointFile);
+    }
+}
@@ -0,0 +1,208 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * JSON Lines reader for flat objects
+ * Each non-blank line must be one JSON object whose values are strings,
+ * numbers, booleans or null. Keys are matched case-insensitively against the
+ * requested columns; unknown keys are ignored. Nested objects and arrays are
+ * rejected, since no exported record contains them. A malformed line is
+ * reported as a MalformedRecordException and reading resumes on the next line.
+ */
+public class JsonLinesRecordReader implements RecordReader {
+
+    private final BufferedReader reader;
+    private final String[] columns;
+    private final StringBuilder token = new StringBuilder(64);
+    private long lineNumber;
+
+    // Parse state for the current line
+    private String line;
+    private int position;
+
+    public JsonLinesRecordReader(Reader reader, String[] columns) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader
+                : new BufferedReader(reader, 64 * 1024);
+        this.columns = columns;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            position = 0;
+            skipWhitespace();
+            if (position < line.length()) {
+                return parseObject();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String[] parseObject() throws IOException {
+        String[] values = new String[columns.length];
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return values;
+        }
+
+        while (true) {
+            skipWhitespace();
+            String key = parseString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            String value = parseValue();
+
+            int column = columnIndex(key);
+            if (column >= 0) {
+                values[column] = value;
+            }
+
+            skipWhitespace();
+            char c = next(", or }");
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw error("Expected , or } but found '" + c + "'");
+            }
+        }
+
+        skipWhitespace();
+        if (position < line.length()) {
+            throw error("Unexpected content after object");
+        }
+        return values;
+    }
+
+    private String parseValue() throws IOException {
+        char c = peek();
+        if (c == '"') {
+            return parseString();
+        }
+        if (c == '{' || c == '[') {
+            throw error("Nested values are not supported");
+        }
+
+        int start = position;
+        while (position < line.length()) {
+            char d = line.charAt(position);
+            if (d == ',' || d == '}' || d == ' ' || d == '\t') {
+                break;
+            }
+            position++;
+        }
+        String literal = line.substring(start, position);
+        if (literal.isEmpty()) {
+            throw error("Missing value");
+        }
+        return "null".equals(literal) ? null : literal;
+    }
+
+    private String parseString() throws IOException {
+        expect('"');
+        token.setLength(0);
+        while (true) {
+            char c = next("closing quote");
+            if (c == '"') {
+                return token.toString();
+            }
+            if (c != '\\') {
+                token.append(c);
+                continue;
+            }
+
+            char escaped = next("escape character");
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    token.append(escaped);
+                    break;
+                case 'n':
+                    token.append('\n');
+                    break;
+                case 'r':
+                    token.append('\r');
+                    break;
+                case 't':
+                    token.append('\t');
+                    break;
+                case 'b':
+                    token.append('\b');
+                    break;
+                case 'f':
+                    token.append('\f');
+                    break;
+                case 'u':
+                    if (position + 4 > line.length()) {
+                        throw error("Truncated unicode escape");
+                    }
+                    try {
+                        token.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("Invalid unicode escape");
+                    }
+                    position += 4;
+                    break;
+                default:
+                    throw error("Invalid escape \\" + escaped);
+            }
+        }
+    }
+
+    private int columnIndex(String key) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equalsIgnoreCase(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void skipWhitespace() {
+        while (position < line.length()) {
+            char c = line.charAt(position);
+            if (c != ' ' && c != '\t' && c != '\r' && c != '\uFEFF') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private char peek() throws IOException {
+        if (position >= line.length()) {
+            throw error("Unexpected end of line");
+        }
+        return line.charAt(position);
+    }
+
+    private char next(String expected) throws IOException {
+        if (position >= line.length()) {
+            throw error("Unexpected end of line, expected " + expected);
+        }
+        return line.charAt(position++);
+    }
+
+    private void expect(char expected) throws IOException {
+        char c = next("'" + expected + "'");
+        if (c != expected) {
+            throw error("Expected '" + expected + "' but found '" + c + "'");
+        }
+    }
+
+    private MalformedRecordException error(String message) {
+        return new MalformedRecordException("Line " + lineNumber + ": " + message);
+    }
+}
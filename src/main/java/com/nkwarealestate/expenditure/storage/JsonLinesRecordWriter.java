@@ -0,0 +1,86 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * JSON Lines writer: one flat JSON object per line
+ * Number and boolean columns are written unquoted, null values as null
+ */
+public class JsonLinesRecordWriter implements RecordWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    private final String[] keys; // Pre-escaped "name": prefixes
+    private final boolean[] literal;
+
+    public JsonLinesRecordWriter(Writer writer, String[] columns, boolean[] literal) {
+        this.writer = writer;
+        this.literal = literal;
+        this.keys = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            StringBuilder key = new StringBuilder(columns[i].length() + 4);
+            appendString(key, columns[i]);
+            keys[i] = key.append(':').toString();
+        }
+    }
+
+    @Override
+    public void write(String[] values) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        line.append('{');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(keys[i]);
+            String value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (literal != null && literal[i]) {
+                line.append(value);
+            } else {
+                appendString(line, value);
+            }
+        }
+        line.append("}\n");
+        writer.write(line.toString());
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,210 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.models.BankAccount;
+import com.nkwarealestate.expenditure.models.Expenditure;
+import com.nkwarealestate.expenditure.models.Receipt;
+import com.nkwarealestate.expenditure.storage.BinaryLedgerFile.RecordType;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Converts data files between the pipe-delimited text formats and the binary ledger format
+ *
+ * Text formats:
+ *   Expenditures  Code|Amount|Date|Phase|Category|AccountId|Description|ReceiptId|Currency
+ *   Accounts      AccountID|BankName|Balance|AccountType|Currency
+ *   Receipts      ReceiptId|ExpenditureCode|Date|Vendor|FilePath|Validated|ValidatedBy
+ */
+public final class LedgerConverter {
+
+    private static final int BUFFER_SIZE = 1 << 20; // 1 MB
+
+    private LedgerConverter() {
+        // Static helpers only
+    }
+
+    /**
+     * Convert a text data file to a binary ledger file
+     *
+     * @return Number of records converted
+     */
+    public static int textToBinary(RecordType type, Path textFile, Path binaryFile) throws IOException {
+        try {
+            switch (type) {
+                case EXPENDITURE: {
+                    ArrayList<Expenditure> records = new ArrayList<>();
+                    new ExpenditureFileStore(textFile).read(records::add);
+                    return BinaryLedgerWriter.writeExpenditures(binaryFile, records, textFile);
+                }
+                case ACCOUNT: {
+                    ArrayList<BankAccount> records = new ArrayList<>();
+                    readTextLines(textFile, 4, fields -> records.add(parseAccount(fields)));
+                    return BinaryLedgerWriter.writeAccounts(binaryFile, records, textFile);
+                }
+                case RECEIPT: {
+                    ArrayList<Receipt> records = new ArrayList<>();
+                    readTextLines(textFile, 7, fields -> records.add(parseReceipt(fields)));
+                    return BinaryLedgerWriter.writeReceipts(binaryFile, records, textFile);
+                }
+                default:
+                    throw new IllegalArgumentException("Unsupported record type " + type);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Convert a binary ledger file back to its text format
+     * The record type is taken from the binary file header
+     *
+     * @return Number of records converted
+     */
+    public static int binaryToText(Path binaryFile, Path textFile) throws IOException {
+        BinaryLedgerFile ledger = BinaryLedgerFile.open(binaryFile);
+
+        switch (ledger.getRecordType()) {
+            case EXPENDITURE:
+                try {
+                    new ExpenditureFileStore(textFile).rewrite(ledger.expenditures());
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+                break;
+            case ACCOUNT:
+                SnapshotWriter.write(textFile, writer -> {
+                    writer.write("# Bank Accounts\n");
+                    writer.write("# Format: AccountID|BankName|Balance|AccountType|Currency\n");
+                    for (BankAccount account : ledger.accounts()) {
+                        writeAccount(writer, account);
+                    }
+                });
+                break;
+            case RECEIPT:
+                SnapshotWriter.write(textFile, writer -> {
+                    writer.write("# Receipts\n");
+                    writer.write("# Format: ReceiptId|ExpenditureCode|Date|Vendor|FilePath|Validated|ValidatedBy\n");
+                    for (Receipt receipt : ledger.receipts()) {
+                        writeReceipt(writer, receipt);
+                    }
+                });
+                break;
+            default:
+                throw new IllegalStateException("Unsupported record type " + ledger.getRecordType());
+        }
+
+        return ledger.size();
+    }
+
+    /**
+     * Parse an account line split into at least four fields
+     */
+    public static BankAccount parseAccount(String[] fields) {
+        return newAccount(fields[0].trim(), fields[1].trim(),
+                FieldParser.parseAmount(fields[2].trim()), fields[3]);
+    }
+
+    /**
+     * Build an account from the fields of an accounts line split into four
+     * The optional Currency column stays joined to the type as "Type|Currency";
+     * lines written before it existed have no currency and are read as GHS
+     */
+    public static BankAccount newAccount(String accountId, String bankName, double balance, String typeField) {
+        int separator = typeField.indexOf('|');
+        if (separator < 0) {
+            return new BankAccount(accountId, bankName, balance, typeField.trim());
+        }
+        return new BankAccount(accountId, bankName, balance, typeField.substring(0, separator).trim(),
+                typeField.substring(separator + 1));
+    }
+
+    /**
+     * Parse a receipt line split into seven fields
+     */
+    public static Receipt parseReceipt(String[] fields) {
+        LocalDate date = FieldParser.parseDate(fields[2]);
+        Receipt receipt = new Receipt(fields[0], emptyToNull(fields[1]), date,
+                emptyToNull(fields[3]), emptyToNull(fields[4]));
+        receipt.setValidated(Boolean.parseBoolean(fields[5]));
+        receipt.setValidatedBy(emptyToNull(fields[6]));
+        return receipt;
+    }
+
+    /**
+     * Write one account line
+     */
+    public static void writeAccount(Writer writer, BankAccount account) throws IOException {
+        writer.write(FieldParser.sanitize(account.getAccountId()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(account.getBankName()));
+        writer.write('|');
+        writer.write(FieldParser.formatAmount(account.getBalance()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(account.getAccountType()));
+        writer.write('|');
+        writer.write(account.getCurrency());
+        writer.write('\n');
+    }
+
+    /**
+     * Write one receipt line
+     */
+    public static void writeReceipt(Writer writer, Receipt receipt) throws IOException {
+        writer.write(FieldParser.sanitize(receipt.getId()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(receipt.getExpenditureCode()));
+        writer.write('|');
+        writer.write(receipt.getDate() != null ? receipt.getDate().toString() : "");
+        writer.write('|');
+        writer.write(FieldParser.sanitize(receipt.getVendorName()));
+        writer.write('|');
+        writer.write(FieldParser.sanitize(receipt.getFilePath()));
+        writer.write('|');
+        writer.write(receipt.isValidated() ? "true" : "false");
+        writer.write('|');
+        writer.write(FieldParser.sanitize(receipt.getValidatedBy()));
+        writer.write('\n');
+    }
+
+    /**
+     * Stream the data lines of a pipe-delimited file, skipping comments and short lines
+     */
+    private static void readTextLines(Path textFile, int fieldCount, Consumer<String[]> consumer)
+            throws IOException {
+        if (!Files.exists(textFile)) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(textFile), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String[] fields = new String[fieldCount];
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.charAt(0) == '#') {
+                    continue;
+                }
+                if (FieldParser.splitPipe(line, fields) < fieldCount) {
+                    continue;
+                }
+                try {
+                    consumer.accept(fields);
+                } catch (NumberFormatException e) {
+                    // Malformed line: skipped, like the service loaders do
+                }
+            }
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
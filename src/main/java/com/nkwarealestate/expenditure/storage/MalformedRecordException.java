@@ -0,0 +1,16 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.IOException;
+
+/**
+ * A single record in an import file could not be parsed
+ * The reader has moved past the bad record, so reading can continue
+ */
+public class MalformedRecordException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MalformedRecordException(String message) {
+        super(message);
+    }
+}
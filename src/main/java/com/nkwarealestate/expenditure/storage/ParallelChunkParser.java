@@ -0,0 +1,262 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses pipe-delimited data files in parallel
+ *
+ * The file is cut into byte ranges whose boundaries are moved forward to the
+ * next newline, so every range holds whole lines. Each range is copied out
+ * of a memory mapping in one bulk read and parsed on a fork-join pool into
+ * its own column buffer; the buffers are then concatenated in file order. Splitting works on raw bytes: '|' and
+ * '\n' never occur inside multi-byte UTF-8 sequences, so only field values
+ * are decoded.
+ *
+ * Blank lines and lines starting with '#' are ignored, a trailing '\r' is
+ * dropped, and fields are trimmed of surrounding spaces. Extra fields are
+ * kept in the last column, as with FieldParser.splitPipe.
+ */
+public class ParallelChunkParser {
+
+    private static final int MIN_CHUNK_SIZE = 1 << 20; // 1 MB; smaller files are parsed in one piece
+    private static final int MAX_CHUNK_SIZE = 64 << 20; // 64 MB per mapping
+    private static final int BYTES_PER_ROW_ESTIMATE = 48;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Parse on the common fork-join pool
+     */
+    public ParallelChunkParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelChunkParser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Parse a file into columns
+     * Time Complexity: O(bytes / cores)
+     *
+     * @param file        File to parse; a missing file yields no rows
+     * @param columnCount Number of fields per row; shorter rows are skipped
+     * @return Rows in file order
+     */
+    public ColumnBuffer parse(Path file, int columnCount) throws IOException {
+        if (!Files.exists(file)) {
+            return new ColumnBuffer(columnCount, 0);
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] boundaries = chunkBoundaries(channel);
+            int chunkCount = boundaries.length - 1;
+            if (chunkCount == 0) {
+                return new ColumnBuffer(columnCount, 0);
+            }
+
+            ChunkTask[] tasks = new ChunkTask[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                tasks[i] = new ChunkTask(channel, boundaries[i], boundaries[i + 1], columnCount);
+            }
+
+            ColumnBuffer[] parts = pool.invoke(new AllChunksTask(tasks));
+
+            int totalRows = 0;
+            for (ColumnBuffer part : parts) {
+                totalRows += part.size();
+            }
+            ColumnBuffer merged = new ColumnBuffer(columnCount, totalRows);
+            for (ColumnBuffer part : parts) {
+                merged.appendAll(part);
+            }
+            return merged;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Split the file into ranges that start right after a newline
+     */
+    private long[] chunkBoundaries(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return new long[] { 0 };
+        }
+
+        int parallelism = Math.max(1, pool.getParallelism());
+        long target = size / (parallelism * 4L);
+        long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, target));
+        int estimatedChunks = (int) ((size + chunkSize - 1) / chunkSize);
+
+        long[] boundaries = new long[estimatedChunks + 1];
+        int count = 0;
+        boundaries[count++] = 0;
+
+        long position = chunkSize;
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        while (position < size) {
+            long lineEnd = findNewline(channel, position, probe);
+            if (lineEnd < 0 || lineEnd + 1 >= size) {
+                break;
+            }
+            boundaries[count++] = lineEnd + 1;
+            position = lineEnd + 1 + chunkSize;
+        }
+        boundaries[count++] = size;
+
+        long[] exact = new long[count];
+        System.arraycopy(boundaries, 0, exact, 0, count);
+        return exact;
+    }
+
+    /**
+     * Find the first '\n' at or after the position
+     *
+     * @return Its offset, or -1 if there is none
+     */
+    private static long findNewline(FileChannel channel, long position, ByteBuffer probe) throws IOException {
+        long offset = position;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, offset);
+            if (read <= 0) {
+                return -1;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return offset + i;
+                }
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Runs every chunk task in parallel and collects the results in order
+     */
+    private static class AllChunksTask extends RecursiveTask<ColumnBuffer[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkTask[] tasks;
+
+        AllChunksTask(ChunkTask[] tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected ColumnBuffer[] compute() {
+            invokeAll(tasks);
+            ColumnBuffer[] results = new ColumnBuffer[tasks.length];
+            for (int i = 0; i < tasks.length; i++) {
+                results[i] = tasks[i].join();
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Parses one newline-aligned byte range
+     */
+    private static class ChunkTask extends RecursiveTask<ColumnBuffer> {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final int columnCount;
+        private final int[] separators; // Positions of '|' in the current line
+
+        ChunkTask(FileChannel channel, long start, long end, int columnCount) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.columnCount = columnCount;
+            this.separators = new int[Math.max(columnCount - 1, 0)];
+        }
+
+        @Override
+        protected ColumnBuffer compute() {
+            int length = (int) (end - start);
+            byte[] bytes = new byte[length];
+            try {
+                // One bulk copy out of the mapping; indexing a heap array is far cheaper than per-byte gets
+                channel.map(FileChannel.MapMode.READ_ONLY, start, length).get(bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            ColumnBuffer buffer = new ColumnBuffer(columnCount, length / BYTES_PER_ROW_ESTIMATE);
+            int lineStart = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == length || bytes[i] == '\n') {
+                    parseLine(bytes, lineStart, i, buffer);
+                    lineStart = i + 1;
+                }
+            }
+            return buffer;
+        }
+
+        /**
+         * Split the line [from, to) into the buffer
+         */
+        private void parseLine(byte[] bytes, int from, int to, ColumnBuffer buffer) {
+            if (to > from && bytes[to - 1] == '\r') {
+                to--;
+            }
+            int first = skipSpaces(bytes, from, to);
+            if (first == to || bytes[first] == '#') {
+                return;
+            }
+
+            // Find the separators first so short rows are skipped without decoding anything
+            int[] separators = this.separators;
+            int found = 0;
+            for (int i = first; i < to && found < columnCount - 1; i++) {
+                if (bytes[i] == '|') {
+                    separators[found++] = i;
+                }
+            }
+            if (found < columnCount - 1) {
+                buffer.markSkipped();
+                return;
+            }
+
+            int row = buffer.addRow();
+            int fieldStart = first;
+            for (int column = 0; column < columnCount; column++) {
+                int fieldEnd = column < columnCount - 1 ? separators[column] : to;
+
+                int valueStart = skipSpaces(bytes, fieldStart, fieldEnd);
+                int valueEnd = fieldEnd;
+                while (valueEnd > valueStart && isSpace(bytes[valueEnd - 1])) {
+                    valueEnd--;
+                }
+                buffer.set(row, column, new String(bytes, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8));
+
+                fieldStart = fieldEnd + 1;
+            }
+        }
+
+        private static int skipSpaces(byte[] bytes, int from, int to) {
+            while (from < to && isSpace(bytes[from])) {
+                from++;
+            }
+            return from;
+        }
+
+        private static boolean isSpace(byte b) {
+            return b == ' ' || b == '\t';
+        }
+    }
+}
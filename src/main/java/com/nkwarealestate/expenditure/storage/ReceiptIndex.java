@@ -0,0 +1,345 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.CustomHashMap;
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.models.Receipt;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Persistent receipt metadata store: a paged, sorted index file plus a journal
+ *
+ * Reads go to the journal overlay first and then to the ReceiptIndexFile, which
+ * faults in only the pages a query touches. Changes are appended to a text
+ * journal and kept in a small in-memory overlay; once the overlay grows past
+ * the merge threshold (and on close) it is merged with the index file in one
+ * sequential pass that writes a new file and truncates the journal.
+ *
+ * Journal format (one entry per line):
+ *   P|id|expenditureCode|date|vendor|filePath|validated|validatedBy
+ *   D|id
+ */
+public class ReceiptIndex {
+
+    // Overlay marker for a receipt deleted since the last merge
+    private static final Receipt DELETED = new Receipt();
+    private static final int JOURNAL_FIELDS = 8;
+
+    private final Path indexFile;
+    private final Path journalFile;
+    private final int pageSize;
+    private final int cachePages;
+    private final int mergeThreshold;
+
+    private ReceiptIndexFile file;
+    private final CustomHashMap<String, Receipt> overlay;
+    private Writer journal;
+
+    /**
+     * Open the index, replaying any journal left by the previous run
+     *
+     * @param indexFile      Sorted index file
+     * @param journalFile    Journal of changes not yet merged into the index file
+     * @param pageSize       Receipts per index page
+     * @param cachePages     Decoded pages kept in memory
+     * @param mergeThreshold Overlay size that triggers a merge
+     */
+    public ReceiptIndex(Path indexFile, Path journalFile, int pageSize, int cachePages,
+            int mergeThreshold) throws IOException {
+        this.indexFile = indexFile;
+        this.journalFile = journalFile;
+        this.pageSize = pageSize;
+        this.cachePages = cachePages;
+        this.mergeThreshold = mergeThreshold;
+        this.overlay = new CustomHashMap<>();
+
+        this.file = ReceiptIndexFile.open(indexFile, cachePages);
+        replayJournal();
+        openJournal();
+    }
+
+    /**
+     * Look up a receipt by ID
+     *
+     * @return The receipt, or null if it does not exist
+     */
+    public synchronized Receipt get(String receiptId) {
+        Receipt pending = overlay.get(receiptId);
+        if (pending != null) {
+            return pending == DELETED ? null : pending;
+        }
+        return file.find(receiptId);
+    }
+
+    public boolean contains(String receiptId) {
+        return get(receiptId) != null;
+    }
+
+    /**
+     * Find the receipts linked to an expenditure through the secondary key
+     */
+    public synchronized CustomLinkedList<Receipt> findByExpenditureCode(String expenditureCode) {
+        CustomLinkedList<Receipt> results = new CustomLinkedList<>();
+        CustomLinkedList<String> ids = new CustomLinkedList<>();
+        file.findIdsByExpenditureCode(expenditureCode, ids);
+        while (!ids.isEmpty()) {
+            String id = ids.remove(0);
+            // Overlay entries are newer than the file and are checked below
+            if (!overlay.containsKey(id)) {
+                Receipt receipt = file.find(id);
+                if (receipt != null) {
+                    results.add(receipt);
+                }
+            }
+        }
+        for (Receipt receipt : overlay.values()) {
+            if (receipt != DELETED && expenditureCode.equals(receipt.getExpenditureCode())) {
+                results.add(receipt);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Add or replace a receipt
+     */
+    public synchronized void put(Receipt receipt) throws IOException {
+        appendPut(receipt);
+        journal.flush();
+        overlay.put(receipt.getId(), receipt);
+        mergeIfNeeded();
+    }
+
+    /**
+     * Add or replace many receipts with a single journal flush
+     */
+    public synchronized void putAll(Iterable<Receipt> receipts) throws IOException {
+        for (Receipt receipt : receipts) {
+            appendPut(receipt);
+        }
+        journal.flush();
+        for (Receipt receipt : receipts) {
+            overlay.put(receipt.getId(), receipt);
+        }
+        mergeIfNeeded();
+    }
+
+    /**
+     * Delete a receipt
+     *
+     * @return true if the receipt existed
+     */
+    public synchronized boolean remove(String receiptId) throws IOException {
+        if (get(receiptId) == null) {
+            return false;
+        }
+        journal.write("D|" + receiptId + "\n");
+        journal.flush();
+        overlay.put(receiptId, DELETED);
+        mergeIfNeeded();
+        return true;
+    }
+
+    /**
+     * Iterate every receipt in ID order, merging the index file with the overlay
+     * The index file is read page by page, so a full scan holds at most one
+     * page of it in memory. Callers must not change the index while iterating.
+     */
+    public synchronized Iterable<Receipt> values() {
+        String[] pendingIds = new String[overlay.size()];
+        int count = 0;
+        for (String id : overlay.keys()) {
+            pendingIds[count++] = id;
+        }
+        Arrays.sort(pendingIds);
+        ReceiptIndexFile source = file;
+        return () -> new MergeIterator(source.iterator(), pendingIds);
+    }
+
+    /**
+     * Number of changes held in the overlay and journal
+     */
+    public synchronized int getPendingChanges() {
+        return overlay.size();
+    }
+
+    public synchronized int getIndexedCount() {
+        return file.getRecordCount();
+    }
+
+    public synchronized long getCacheHits() {
+        return file.getCacheHits();
+    }
+
+    public synchronized long getCacheMisses() {
+        return file.getCacheMisses();
+    }
+
+    /**
+     * Merge the journal into a new index file and truncate the journal
+     * The new file replaces the old one atomically before the journal is
+     * cleared, so a crash in between only replays changes that are already in
+     * the file.
+     */
+    public synchronized void merge() throws IOException {
+        if (overlay.isEmpty()) {
+            return;
+        }
+        Iterator<Receipt> merged = values().iterator();
+        ReceiptIndexFile.write(indexFile, merged, pageSize);
+
+        file.close();
+        file = ReceiptIndexFile.open(indexFile, cachePages);
+        overlay.clear();
+
+        journal.close();
+        journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Merge outstanding changes and release the index file
+     */
+    public synchronized void close() throws IOException {
+        try {
+            merge();
+        } finally {
+            journal.close();
+            file.close();
+        }
+    }
+
+    private void mergeIfNeeded() throws IOException {
+        if (overlay.size() >= mergeThreshold) {
+            merge();
+        }
+    }
+
+    private void openJournal() throws IOException {
+        Path parent = journalFile.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        journal = Files.newBufferedWriter(journalFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+    }
+
+    private void appendPut(Receipt receipt) throws IOException {
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("P|").append(FieldParser.sanitize(receipt.getId()))
+                .append('|').append(FieldParser.sanitize(receipt.getExpenditureCode()))
+                .append('|').append(receipt.getDate() != null ? receipt.getDate().toString() : "")
+                .append('|').append(FieldParser.sanitize(receipt.getVendorName()))
+                .append('|').append(FieldParser.sanitize(receipt.getFilePath()))
+                .append('|').append(receipt.isValidated())
+                .append('|').append(receipt.getValidatedBy() != null
+                        ? FieldParser.sanitize(receipt.getValidatedBy()) : "")
+                .append('\n');
+        journal.write(sb.toString());
+    }
+
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        String[] fields = new String[JOURNAL_FIELDS];
+        try (BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int count = FieldParser.splitPipe(line, fields);
+                if (count == 2 && fields[0].equals("D")) {
+                    overlay.put(fields[1], DELETED);
+                } else if (count == JOURNAL_FIELDS && fields[0].equals("P")) {
+                    Receipt receipt = parsePut(fields);
+                    if (receipt != null) {
+                        overlay.put(receipt.getId(), receipt);
+                    }
+                }
+                // Anything else is a line torn by a crash mid-append
+            }
+        }
+    }
+
+    private static Receipt parsePut(String[] fields) {
+        if (fields[1].isEmpty()) {
+            return null;
+        }
+        LocalDate date = fields[3].isEmpty() ? null : FieldParser.parseDate(fields[3]);
+        Receipt receipt = new Receipt(fields[1], fields[2], date, fields[4], fields[5]);
+        receipt.setValidated(Boolean.parseBoolean(fields[6]));
+        receipt.setValidatedBy(fields[7].isEmpty() ? null : fields[7]);
+        return receipt;
+    }
+
+    /**
+     * Two-way merge of the ID-ordered file with the sorted overlay keys
+     * Overlay entries replace file records with the same ID; deletions are skipped
+     */
+    private class MergeIterator implements Iterator<Receipt> {
+        private final Iterator<Receipt> fileRecords;
+        private final String[] pendingIds;
+        private int pendingIndex;
+        private Receipt fileHead;
+        private Receipt next;
+
+        MergeIterator(Iterator<Receipt> fileRecords, String[] pendingIds) {
+            this.fileRecords = fileRecords;
+            this.pendingIds = pendingIds;
+            this.fileHead = fileRecords.hasNext() ? fileRecords.next() : null;
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && (fileHead != null || pendingIndex < pendingIds.length)) {
+                int cmp;
+                if (fileHead == null) {
+                    cmp = 1;
+                } else if (pendingIndex >= pendingIds.length) {
+                    cmp = -1;
+                } else {
+                    cmp = fileHead.getId().compareTo(pendingIds[pendingIndex]);
+                }
+
+                if (cmp < 0) {
+                    next = fileHead;
+                    fileHead = fileRecords.hasNext() ? fileRecords.next() : null;
+                } else {
+                    if (cmp == 0) {
+                        // Superseded by the overlay
+                        fileHead = fileRecords.hasNext() ? fileRecords.next() : null;
+                    }
+                    Receipt pending = overlay.get(pendingIds[pendingIndex++]);
+                    if (pending != null && pending != DELETED) {
+                        next = pending;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Receipt next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Receipt current = next;
+            advance();
+            return current;
+        }
+    }
+}
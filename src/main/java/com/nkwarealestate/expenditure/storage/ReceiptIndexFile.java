@@ -0,0 +1,487 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import com.nkwarealestate.expenditure.datastructures.LruCache;
+import com.nkwarealestate.expenditure.models.Receipt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable, sorted receipt metadata file read one page at a time
+ *
+ * Layout (big-endian):
+ *   Primary pages    receipts sorted by ID, pageSize records per page
+ *   Secondary pages  (expenditure code, receipt ID) pairs sorted by code then ID
+ *   Directory        per page: first key, offset and byte length
+ *   Footer           32 bytes: magic, version, record count, page counts and
+ *                    the directory offset
+ *
+ * Opening reads only the footer and the directory, whose first keys act as
+ * fence keys: a lookup binary-searches them to find the single page that can
+ * hold a key, then reads and decodes just that page. Decoded pages are kept in
+ * an LRU cache, so memory use is bounded by the cache size rather than the
+ * number of receipts.
+ */
+public class ReceiptIndexFile {
+
+    static final int MAGIC = 0x52494458; // "RIDX"
+    static final int VERSION = 1;
+    static final int FOOTER_SIZE = 32;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final FileChannel channel;
+    private final int recordCount;
+    private final PageDirectory primary;
+    private final PageDirectory secondary;
+    private final LruCache<Integer, Receipt[]> primaryCache;
+    private final LruCache<Integer, String[]> secondaryCache;
+
+    /**
+     * First keys and locations of the pages in one section
+     */
+    private static class PageDirectory {
+        final String[] firstKeys;
+        final long[] offsets;
+        final int[] lengths;
+
+        PageDirectory(int pageCount) {
+            this.firstKeys = new String[pageCount];
+            this.offsets = new long[pageCount];
+            this.lengths = new int[pageCount];
+        }
+
+        int size() {
+            return firstKeys.length;
+        }
+
+        /**
+         * Index of the last page whose first key is at or before the key
+         * (strictly before when inclusive is false), or -1 if none
+         */
+        int floorPage(String key, boolean inclusive) {
+            int low = 0;
+            int high = firstKeys.length - 1;
+            int result = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = firstKeys[mid].compareTo(key);
+                if (cmp < 0 || (inclusive && cmp == 0)) {
+                    result = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return result;
+        }
+    }
+
+    private ReceiptIndexFile(FileChannel channel, int recordCount, PageDirectory primary,
+            PageDirectory secondary, int cachePages) {
+        this.channel = channel;
+        this.recordCount = recordCount;
+        this.primary = primary;
+        this.secondary = secondary;
+        this.primaryCache = new LruCache<>(cachePages);
+        this.secondaryCache = new LruCache<>(Math.max(1, cachePages / 4));
+    }
+
+    /**
+     * Open an index file, reading only its footer and page directory
+     *
+     * @param file       Index file; a missing file opens as an empty index
+     * @param cachePages Maximum number of decoded primary pages kept in memory
+     */
+    public static ReceiptIndexFile open(Path file, int cachePages) throws IOException {
+        if (!Files.exists(file)) {
+            return new ReceiptIndexFile(null, 0, new PageDirectory(0), new PageDirectory(0), cachePages);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < FOOTER_SIZE) {
+                throw new IOException("Receipt index is truncated: " + file);
+            }
+            ByteBuffer footer = readFully(channel, size - FOOTER_SIZE, FOOTER_SIZE);
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Not a receipt index file: " + file);
+            }
+            int version = footer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported receipt index version " + version);
+            }
+            int recordCount = footer.getInt();
+            int primaryPages = footer.getInt();
+            int secondaryPages = footer.getInt();
+            long directoryOffset = footer.getLong();
+            if (directoryOffset < 0 || directoryOffset > size - FOOTER_SIZE) {
+                throw new IOException("Receipt index directory is out of range: " + file);
+            }
+
+            ByteBuffer directoryBytes = readFully(channel, directoryOffset,
+                    (int) (size - FOOTER_SIZE - directoryOffset));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    directoryBytes.array(), 0, directoryBytes.limit()));
+            PageDirectory primary = readDirectory(in, primaryPages);
+            PageDirectory secondary = readDirectory(in, secondaryPages);
+            return new ReceiptIndexFile(channel, recordCount, primary, secondary, cachePages);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static PageDirectory readDirectory(DataInputStream in, int pageCount) throws IOException {
+        PageDirectory directory = new PageDirectory(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            directory.firstKeys[i] = in.readUTF();
+            directory.offsets[i] = in.readLong();
+            directory.lengths[i] = in.readInt();
+        }
+        return directory;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public int getPageCount() {
+        return primary.size();
+    }
+
+    public long getCacheHits() {
+        return primaryCache.getHitCount() + secondaryCache.getHitCount();
+    }
+
+    public long getCacheMisses() {
+        return primaryCache.getMissCount() + secondaryCache.getMissCount();
+    }
+
+    /**
+     * Find a receipt by ID
+     * Time Complexity: O(log pages) plus at most one page read
+     *
+     * @return The receipt, or null if the file does not contain it
+     */
+    public Receipt find(String receiptId) {
+        int page = primary.floorPage(receiptId, true);
+        if (page < 0) {
+            return null;
+        }
+        Receipt[] records = primaryPage(page);
+        int low = 0;
+        int high = records.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = records[mid].getId().compareTo(receiptId);
+            if (cmp == 0) {
+                return records[mid];
+            } else if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collect the IDs of receipts linked to an expenditure, in ID order
+     * Only the secondary pages that can hold the code are read
+     */
+    public void findIdsByExpenditureCode(String expenditureCode, CustomLinkedList<String> ids) {
+        // Entries for the code may start part-way through the page before the first fence that matches
+        int page = Math.max(0, secondary.floorPage(expenditureCode, false));
+        for (; page < secondary.size(); page++) {
+            if (secondary.firstKeys[page].compareTo(expenditureCode) > 0) {
+                return;
+            }
+            String[] entries = secondaryPage(page);
+            for (int i = 0; i < entries.length; i += 2) {
+                int cmp = entries[i].compareTo(expenditureCode);
+                if (cmp == 0) {
+                    ids.add(entries[i + 1]);
+                } else if (cmp > 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Iterate every receipt in ID order
+     * Pages are decoded one at a time and bypass the cache, so a full scan
+     * neither holds the whole file in memory nor evicts the working set
+     */
+    public Iterator<Receipt> iterator() {
+        return new Iterator<Receipt>() {
+            private int page = 0;
+            private Receipt[] records = new Receipt[0];
+            private int position = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (position >= records.length) {
+                    if (page >= primary.size()) {
+                        return false;
+                    }
+                    records = decodePrimary(readPage(primary, page));
+                    page++;
+                    position = 0;
+                }
+                return true;
+            }
+
+            @Override
+            public Receipt next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return records[position++];
+            }
+        };
+    }
+
+    public void close() throws IOException {
+        primaryCache.clear();
+        secondaryCache.clear();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private Receipt[] primaryPage(int page) {
+        Receipt[] records = primaryCache.get(page);
+        if (records == null) {
+            records = decodePrimary(readPage(primary, page));
+            primaryCache.put(page, records);
+        }
+        return records;
+    }
+
+    private String[] secondaryPage(int page) {
+        String[] entries = secondaryCache.get(page);
+        if (entries == null) {
+            entries = decodeSecondary(readPage(secondary, page));
+            secondaryCache.put(page, entries);
+        }
+        return entries;
+    }
+
+    private DataInputStream readPage(PageDirectory directory, int page) {
+        try {
+            ByteBuffer bytes = readFully(channel, directory.offsets[page], directory.lengths[page]);
+            return new DataInputStream(new ByteArrayInputStream(bytes.array(), 0, bytes.limit()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading receipt index page " + page, e);
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of receipt index");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static Receipt[] decodePrimary(DataInputStream in) {
+        try {
+            Receipt[] records = new Receipt[in.readInt()];
+            for (int i = 0; i < records.length; i++) {
+                Receipt receipt = new Receipt();
+                receipt.setId(in.readUTF());
+                receipt.setExpenditureCode(readNullable(in));
+                int epochDay = in.readInt();
+                receipt.setDate(epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay));
+                receipt.setVendorName(readNullable(in));
+                receipt.setFilePath(readNullable(in));
+                receipt.setValidated(in.readBoolean());
+                receipt.setValidatedBy(readNullable(in));
+                records[i] = receipt;
+            }
+            return records;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt receipt index page", e);
+        }
+    }
+
+    private static String[] decodeSecondary(DataInputStream in) {
+        try {
+            String[] entries = new String[in.readInt() * 2];
+            for (int i = 0; i < entries.length; i++) {
+                entries[i] = in.readUTF();
+            }
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt receipt index page", e);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    // ================ WRITING ================
+
+    /**
+     * Write a complete index file, atomically replacing any existing one
+     * The primary section is streamed; the secondary section needs every
+     * (code, ID) pair in memory while it is sorted, which is far smaller than
+     * the receipts themselves.
+     *
+     * @param target   Index file to replace
+     * @param sortedById Receipts in strictly ascending ID order
+     * @param pageSize Receipts per page
+     */
+    public static void write(Path target, Iterator<Receipt> sortedById, int pageSize) throws IOException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        SnapshotWriter.writeBinary(target, out -> new SectionWriter(out, pageSize).writeAll(sortedById));
+    }
+
+    /**
+     * Streams pages to the output while tracking offsets for the directory
+     */
+    private static class SectionWriter {
+        private final OutputStream out;
+        private final int pageSize;
+        private final ByteArrayOutputStream pageBytes = new ByteArrayOutputStream(64 * 1024);
+        private final DataOutputStream page = new DataOutputStream(pageBytes);
+        private final ByteArrayOutputStream directoryBytes = new ByteArrayOutputStream();
+        private final DataOutputStream directory = new DataOutputStream(directoryBytes);
+        private long position;
+
+        SectionWriter(OutputStream out, int pageSize) {
+            this.out = out;
+            this.pageSize = pageSize;
+        }
+
+        void writeAll(Iterator<Receipt> sortedById) throws IOException {
+            String[] codes = new String[1024];
+            String[] ids = new String[1024];
+            Receipt[] pending = new Receipt[pageSize];
+            int pendingCount = 0;
+            int recordCount = 0;
+            int primaryPages = 0;
+            String previousId = null;
+
+            while (sortedById.hasNext()) {
+                Receipt receipt = sortedById.next();
+                if (previousId != null && receipt.getId().compareTo(previousId) <= 0) {
+                    throw new IllegalArgumentException("Receipts are not in ascending ID order at " + receipt.getId());
+                }
+                previousId = receipt.getId();
+
+                if (recordCount == codes.length) {
+                    codes = Arrays.copyOf(codes, recordCount * 2);
+                    ids = Arrays.copyOf(ids, recordCount * 2);
+                }
+                codes[recordCount] = receipt.getExpenditureCode() != null ? receipt.getExpenditureCode() : "";
+                ids[recordCount] = receipt.getId();
+                recordCount++;
+
+                pending[pendingCount++] = receipt;
+                if (pendingCount == pageSize) {
+                    writePrimaryPage(pending, pendingCount);
+                    primaryPages++;
+                    pendingCount = 0;
+                }
+            }
+            if (pendingCount > 0) {
+                writePrimaryPage(pending, pendingCount);
+                primaryPages++;
+            }
+
+            Integer[] order = new Integer[recordCount];
+            for (int i = 0; i < recordCount; i++) {
+                order[i] = i;
+            }
+            final String[] sortCodes = codes;
+            final String[] sortIds = ids;
+            Arrays.sort(order, (a, b) -> {
+                int cmp = sortCodes[a].compareTo(sortCodes[b]);
+                return cmp != 0 ? cmp : sortIds[a].compareTo(sortIds[b]);
+            });
+
+            int secondaryPages = 0;
+            for (int start = 0; start < recordCount; start += pageSize) {
+                int end = Math.min(recordCount, start + pageSize);
+                page.writeInt(end - start);
+                for (int i = start; i < end; i++) {
+                    page.writeUTF(codes[order[i]]);
+                    page.writeUTF(ids[order[i]]);
+                }
+                flushPage(codes[order[start]]);
+                secondaryPages++;
+            }
+
+            long directoryOffset = position;
+            directory.flush();
+            directoryBytes.writeTo(out);
+
+            ByteBuffer footer = ByteBuffer.allocate(FOOTER_SIZE);
+            footer.putInt(MAGIC);
+            footer.putInt(VERSION);
+            footer.putInt(recordCount);
+            footer.putInt(primaryPages);
+            footer.putInt(secondaryPages);
+            footer.putLong(directoryOffset);
+            out.write(footer.array());
+        }
+
+        private void writePrimaryPage(Receipt[] records, int count) throws IOException {
+            String firstId = records[0].getId();
+            page.writeInt(count);
+            for (int i = 0; i < count; i++) {
+                Receipt receipt = records[i];
+                page.writeUTF(receipt.getId());
+                writeNullable(page, receipt.getExpenditureCode());
+                page.writeInt(receipt.getDate() != null ? (int) receipt.getDate().toEpochDay() : NO_DATE);
+                writeNullable(page, receipt.getVendorName());
+                writeNullable(page, receipt.getFilePath());
+                page.writeBoolean(receipt.isValidated());
+                writeNullable(page, receipt.getValidatedBy());
+                records[i] = null;
+            }
+            flushPage(firstId);
+        }
+
+        private void flushPage(String firstKey) throws IOException {
+            page.flush();
+            int length = pageBytes.size();
+            directory.writeUTF(firstKey);
+            directory.writeLong(position);
+            directory.writeInt(length);
+            pageBytes.writeTo(out);
+            pageBytes.reset();
+            position += length;
+        }
+    }
+}
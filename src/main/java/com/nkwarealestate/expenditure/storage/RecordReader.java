@@ -0,0 +1,21 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams records from an import file one at a time
+ */
+public interface RecordReader extends Closeable {
+
+    /**
+     * Read the next record
+     * Values follow the column order given when the reader was opened;
+     * columns missing from the file are null
+     *
+     * @return The values, or null at end of file
+     * @throws MalformedRecordException if one record is malformed; the next call continues after it
+     * @throws IOException if the file cannot be read
+     */
+    String[] next() throws IOException;
+}
@@ -0,0 +1,16 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Streams records to an export file one at a time
+ */
+public interface RecordWriter extends Closeable {
+
+    /**
+     * Write one record; values follow the column order given when the writer was opened
+     * Null values are written as empty (CSV) or null (JSON Lines)
+     */
+    void write(String[] values) throws IOException;
+}
@@ -0,0 +1,329 @@
+package com.nkwarealestate.expenditure.storage;
+
+import com.nkwarealestate.expenditure.datastructures.CustomLinkedList;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable, monotonic ID allocator for record codes such as EXP0001
+ *
+ * IDs are handed out from an in-memory block; only reserving the next block
+ * touches the sequence file, so allocation is a single atomic increment in the
+ * common case. The reserved upper bound is persisted before any ID from a block
+ * is issued, which guarantees IDs never repeat across restarts. After a crash
+ * the unissued tail of the last block is skipped and recorded as a gap so that
+ * missing codes can be told apart from deleted records.
+ *
+ * IDs are plain longs; a code is formatted once, when it is issued, by a
+ * hand-rolled formatter. The formatted code is what records are keyed by in
+ * memory, in the ledger file and in the history, so keeping only the number
+ * would just move the formatting to each of those reads.
+ *
+ * File format (one entry per line):
+ *   Block|start|end   reserved block [start, end)
+ *   Next|n            next unissued ID, written on clean shutdown
+ *   Gap|from|to       inclusive range of IDs that were never issued
+ */
+public class SequenceAllocator {
+
+    private static final int DEFAULT_BLOCK_SIZE = 100;
+
+    private final Path sequenceFile;
+    private final String prefix;
+    private final int minDigits;
+    private final int blockSize;
+
+    private final AtomicLong next; // Next ID to hand out
+    private volatile long limit; // Exclusive upper bound of the persisted reservation
+    private long blockStart;
+    private final CustomLinkedList<long[]> gaps;
+
+    // Unissued range recovered after an unclean shutdown, refined by observe()
+    private long recoveredGapStart;
+    private long recoveredGapEnd;
+
+    /**
+     * Create an allocator with the default block size
+     */
+    public SequenceAllocator(Path sequenceFile, String prefix, int minDigits) {
+        this(sequenceFile, prefix, minDigits, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Create an allocator, recovering state from the sequence file if present
+     *
+     * @param sequenceFile File holding the reserved block and gap history
+     * @param prefix       Code prefix, e.g. "EXP"
+     * @param minDigits    Minimum zero-padded digit count, e.g. 4 for EXP0001
+     * @param blockSize    Number of IDs reserved per file write
+     */
+    public SequenceAllocator(Path sequenceFile, String prefix, int minDigits, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+
+        this.sequenceFile = sequenceFile;
+        this.prefix = prefix;
+        this.minDigits = minDigits;
+        this.blockSize = blockSize;
+        this.next = new AtomicLong(1);
+        this.limit = 1;
+        this.blockStart = 1;
+        this.gaps = new CustomLinkedList<>();
+        this.recoveredGapStart = 1;
+        this.recoveredGapEnd = 0;
+
+        recover();
+    }
+
+    /**
+     * Allocate the next ID
+     * Time Complexity: O(1) amortized, one file write per block
+     */
+    public long nextId() {
+        long id = next.getAndIncrement();
+        if (id >= limit) {
+            reserveThrough(id + 1);
+        }
+        return id;
+    }
+
+    /**
+     * Allocate a contiguous range of IDs for bulk inserts
+     *
+     * @param count Number of IDs required
+     * @return The first ID of the range [first, first + count)
+     */
+    public long allocateRange(int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Count must be positive");
+        }
+
+        long first = next.getAndAdd(count);
+        if (first + count > limit) {
+            reserveThrough(first + count);
+        }
+        return first;
+    }
+
+    /**
+     * Allocate the next ID and format it as a code
+     */
+    public String nextCode() {
+        return format(nextId());
+    }
+
+    /**
+     * Make sure an ID already in use (e.g. loaded from disk) is never handed out again
+     */
+    public synchronized void observe(long id) {
+        long current = next.get();
+        while (current <= id) {
+            if (next.compareAndSet(current, id + 1)) {
+                break;
+            }
+            current = next.get();
+        }
+
+        if (id >= recoveredGapStart && id <= recoveredGapEnd) {
+            recoveredGapStart = id + 1;
+        }
+
+        if (id >= limit) {
+            reserveThrough(id + 1);
+        }
+    }
+
+    /**
+     * Observe a formatted code, ignoring codes that do not belong to this sequence
+     */
+    public void observe(String code) {
+        long id = parse(code);
+        if (id > 0) {
+            observe(id);
+        }
+    }
+
+    /**
+     * Persist the exact next ID so a clean restart leaves no gap
+     */
+    public synchronized void close() {
+        long nextId = next.get();
+        blockStart = nextId;
+        limit = nextId;
+        writeState(nextId);
+    }
+
+    /**
+     * Format an ID as a code, e.g. 7 -> EXP0007
+     * Hand-rolled to avoid String.format on hot paths
+     */
+    public String format(long id) {
+        char[] digits = new char[20];
+        int pos = digits.length;
+        long value = id;
+        do {
+            digits[--pos] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+
+        int digitCount = digits.length - pos;
+        int padding = Math.max(0, minDigits - digitCount);
+
+        char[] code = new char[prefix.length() + padding + digitCount];
+        prefix.getChars(0, prefix.length(), code, 0);
+        for (int i = 0; i < padding; i++) {
+            code[prefix.length() + i] = '0';
+        }
+        System.arraycopy(digits, pos, code, prefix.length() + padding, digitCount);
+        return new String(code);
+    }
+
+    /**
+     * Parse a code back into its ID
+     *
+     * @return The ID, or -1 if the code does not belong to this sequence
+     */
+    public long parse(String code) {
+        if (code == null || !code.startsWith(prefix) || code.length() == prefix.length()
+                || code.length() - prefix.length() > 18) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = prefix.length(); i < code.length(); i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Get the next ID that would be handed out
+     */
+    public long peekNextId() {
+        return next.get();
+    }
+
+    /**
+     * Get recorded gaps as inclusive [from, to] pairs
+     */
+    public synchronized CustomLinkedList<long[]> getGaps() {
+        CustomLinkedList<long[]> copy = new CustomLinkedList<>();
+        for (int i = 0; i < gaps.size(); i++) {
+            long[] gap = gaps.get(i);
+            copy.add(new long[] { gap[0], gap[1] });
+        }
+        return copy;
+    }
+
+    /**
+     * Reserve blocks until the persisted bound covers the requested ID
+     */
+    private synchronized void reserveThrough(long requiredLimit) {
+        if (requiredLimit <= limit) {
+            return; // Another thread already reserved this block
+        }
+
+        long newLimit = limit;
+        while (newLimit < requiredLimit) {
+            newLimit += blockSize;
+        }
+
+        blockStart = limit;
+        writeState(-1, newLimit);
+        limit = newLimit;
+    }
+
+    /**
+     * Load the last reservation and gap history
+     */
+    private void recover() {
+        if (!Files.exists(sequenceFile)) {
+            return;
+        }
+
+        long reservedStart = -1;
+        long reservedEnd = -1;
+        long cleanNext = -1;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(sequenceFile.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split("\\|");
+                if (parts[0].equals("Block") && parts.length >= 3) {
+                    reservedStart = Long.parseLong(parts[1]);
+                    reservedEnd = Long.parseLong(parts[2]);
+                } else if (parts[0].equals("Next") && parts.length >= 2) {
+                    cleanNext = Long.parseLong(parts[1]);
+                } else if (parts[0].equals("Gap") && parts.length >= 3) {
+                    gaps.add(new long[] { Long.parseLong(parts[1]), Long.parseLong(parts[2]) });
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Unreadable sequence file " + sequenceFile + ": " + e.getMessage(), e);
+        }
+
+        if (cleanNext > 0) {
+            // Clean shutdown: continue exactly where we stopped
+            next.set(cleanNext);
+            limit = cleanNext;
+            blockStart = cleanNext;
+        } else if (reservedEnd > 0) {
+            // Unclean shutdown: skip the whole reserved block, some of it may be unused
+            next.set(reservedEnd);
+            limit = reservedEnd;
+            blockStart = reservedEnd;
+            recoveredGapStart = reservedStart;
+            recoveredGapEnd = reservedEnd - 1;
+        }
+    }
+
+    /**
+     * Persist the clean-shutdown position
+     */
+    private void writeState(long cleanNext) {
+        writeState(cleanNext, limit);
+    }
+
+    /**
+     * Write the sequence file, recording any recovered gap first
+     */
+    private void writeState(long cleanNext, long reservedLimit) {
+        if (recoveredGapStart <= recoveredGapEnd) {
+            gaps.add(new long[] { recoveredGapStart, recoveredGapEnd });
+            recoveredGapEnd = recoveredGapStart - 1;
+        }
+
+        try {
+            SnapshotWriter.write(sequenceFile, writer -> {
+                writer.write("# " + prefix + " code sequence\n");
+                writer.write("# Format: Block|start|end, Next|id (clean shutdown), Gap|from|to\n");
+                writer.write("Block|" + blockStart + "|" + reservedLimit + "\n");
+                if (cleanNext > 0) {
+                    writer.write("Next|" + cleanNext + "\n");
+                }
+                for (int i = 0; i < gaps.size(); i++) {
+                    long[] gap = gaps.get(i);
+                    writer.write("Gap|" + gap[0] + "|" + gap[1] + "\n");
+                }
+            });
+        } catch (IOException e) {
+            // Handing out IDs without a durable reservation could repeat them after a restart
+            throw new UncheckedIOException("Could not reserve " + prefix + " codes: " + e.getMessage(), e);
+        }
+    }
+}
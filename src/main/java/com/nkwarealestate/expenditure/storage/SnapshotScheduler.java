@@ -0,0 +1,125 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Debounces snapshot writes so a burst of changes produces a single write
+ *
+ * The first request after a write schedules the task debounceMs later;
+ * further requests in that window are absorbed, and the task sees the state
+ * as of when it runs. flush() runs a pending write immediately, e.g. on
+ * shutdown.
+ */
+public class SnapshotScheduler {
+
+    /**
+     * Writes the snapshot
+     */
+    public interface Task {
+        void run() throws IOException;
+    }
+
+    private final long debounceMs;
+    private final Task task;
+    private final Consumer<Exception> onError;
+    private final ScheduledExecutorService executor;
+    private final Object runLock = new Object(); // Serializes task runs
+
+    private boolean pending;
+    private boolean closed;
+    private ScheduledFuture<?> scheduled;
+
+    /**
+     * @param name       Name of the background thread
+     * @param debounceMs Delay between the first request and the write
+     * @param task       Writes the snapshot
+     * @param onError    Receives failures from background writes
+     */
+    public SnapshotScheduler(String name, long debounceMs, Task task, Consumer<Exception> onError) {
+        if (debounceMs < 0) {
+            throw new IllegalArgumentException("Debounce delay cannot be negative");
+        }
+        this.debounceMs = debounceMs;
+        this.task = task;
+        this.onError = onError;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Ask for a snapshot; coalesces with any write already scheduled
+     */
+    public void request() {
+        boolean runNow;
+        synchronized (this) {
+            if (pending) {
+                return;
+            }
+            pending = true;
+            runNow = closed;
+            if (!closed) {
+                scheduled = executor.schedule(this::runPending, debounceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (runNow) {
+            runPending();
+        }
+    }
+
+    /**
+     * Write now if a snapshot is pending
+     */
+    public void flush() {
+        runPending();
+    }
+
+    /**
+     * Check whether a requested snapshot has not been written yet
+     */
+    public synchronized boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * Write any pending snapshot and stop the background thread
+     * Later requests are written synchronously
+     */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        flush();
+        executor.shutdownNow();
+    }
+
+    private void runPending() {
+        synchronized (runLock) {
+            synchronized (this) {
+                if (!pending) {
+                    return;
+                }
+                pending = false;
+                if (scheduled != null) {
+                    scheduled.cancel(false);
+                    scheduled = null;
+                }
+            }
+
+            try {
+                task.run();
+            } catch (IOException | UncheckedIOException e) {
+                onError.accept(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Crash-safe replacement of whole data files
+ *
+ * Content is written to a temporary file next to the target, forced to disk
+ * and then renamed over the target in one atomic step. Readers and restarts
+ * see either the complete old file or the complete new one, never a
+ * truncated mix.
+ */
+public final class SnapshotWriter {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    /**
+     * Streams the file content
+     */
+    public interface Content {
+        void writeTo(Writer writer) throws IOException;
+    }
+
+    /**
+     * Streams binary file content
+     */
+    public interface BinaryContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private SnapshotWriter() {
+        // Static helpers only
+    }
+
+    /**
+     * Atomically replace the target file with the given content
+     *
+     * @param target  File to replace, created if missing
+     * @param content Writes the complete new content
+     * @throws IOException if the content could not be written; the target is left unchanged
+     */
+    public static void write(Path target, Content content) throws IOException {
+        replace(target, channel -> {
+            Writer writer = new BufferedWriter(Channels.newWriter(channel,
+                    StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE), BUFFER_SIZE);
+            content.writeTo(writer);
+            writer.flush();
+        });
+    }
+
+    /**
+     * Atomically replace the target file with the given binary content
+     *
+     * @param target  File to replace, created if missing
+     * @param content Writes the complete new content
+     * @throws IOException if the content could not be written; the target is left unchanged
+     */
+    public static void writeBinary(Path target, BinaryContent content) throws IOException {
+        replace(target, channel -> {
+            OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            content.writeTo(out);
+            out.flush();
+        });
+    }
+
+    private interface ChannelContent {
+        void writeTo(FileChannel channel) throws IOException;
+    }
+
+    private static void replace(Path target, ChannelContent content) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        Path directory = absolute.getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        Path temp = absolute.resolveSibling(absolute.getFileName() + TEMP_SUFFIX);
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                content.writeTo(channel);
+                channel.force(true);
+            }
+
+            moveIntoPlace(temp, absolute);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        if (directory != null) {
+            syncDirectory(directory);
+        }
+    }
+
+    private static void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Some file systems cannot rename atomically; replacing is still better than truncating in place
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Make the rename itself durable where the platform allows it
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Not supported on every platform; the file content is already on disk
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.nkwarealestate.expenditure.storage;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * File formats for data export and import
+ * The format is chosen from the file name: .csv or .jsonl, optionally followed by .gz
+ */
+public enum TransferFormat {
+    CSV(".csv"),
+    JSON_LINES(".jsonl");
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private final String extension;
+
+    TransferFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Pick the format from a file name such as accounts.csv or expenditures.jsonl.gz
+     *
+     * @throws IllegalArgumentException if the extension is not recognised
+     */
+    public static TransferFormat fromPath(Path file) {
+        String name = stripGzip(file.getFileName().toString().toLowerCase());
+        for (TransferFormat format : values()) {
+            if (name.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported file type: " + file.getFileName()
+                + " (use .csv or .jsonl, optionally with .gz)");
+    }
+
+    /**
+     * Check whether a file name asks for gzip compression
+     */
+    public static boolean isGzip(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(GZIP_SUFFIX);
+    }
+
+    /**
+     * Open a streaming writer for the file
+     *
+     * @param columns Column names, written as the CSV header or the JSON keys
+     * @param literal For each column, true if values are numbers or booleans (unquoted in JSON)
+     */
+    public RecordWriter openWriter(Path file, String[] columns, boolean[] literal) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        OutputStream out = Files.newOutputStream(file);
+        if (isGzip(file)) {
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        if (this == CSV) {
+            return new CsvRecordWriter(writer, columns);
+        }
+        return new JsonLinesRecordWriter(writer, columns, literal);
+    }
+
+    /**
+     * Open a streaming reader for the file
+     *
+     * @param columns Column names to extract, in the order returned by next()
+     */
+    public RecordReader openReader(Path file, String[] columns) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (isGzip(file)) {
+            in = new GZIPInputStream(in, BUFFER_SIZE);
+        }
+        Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+
+        if (this == CSV) {
+            return new CsvRecordReader(reader, columns);
+        }
+        return new JsonLinesRecordReader(reader, columns);
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    }
+}